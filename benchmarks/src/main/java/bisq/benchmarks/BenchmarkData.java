@@ -0,0 +1,156 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.benchmarks;
+
+import bisq.core.account.witness.AccountAgeWitness;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.PrefixedSealedAndSignedMessage;
+import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.Broadcaster;
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.mocks.AppendOnlyDataStoreServiceFake;
+import bisq.network.p2p.storage.mocks.MapStoreServiceFake;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+import bisq.network.p2p.storage.persistence.ProtectedDataStoreService;
+import bisq.network.p2p.storage.persistence.RemovedPayloadsService;
+import bisq.network.p2p.storage.persistence.ResourceDataStoreService;
+import bisq.network.p2p.storage.persistence.SequenceNumberMap;
+
+import bisq.common.app.Version;
+import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.Hash;
+import bisq.common.crypto.SealedAndSigned;
+import bisq.common.crypto.Sig;
+import bisq.common.persistence.PersistenceManager;
+
+import java.security.KeyPair;
+
+import java.time.Clock;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Synthetic data sets for the benchmarks. The sizes of the payloads are similar to what we see at mainnet.
+ */
+public final class BenchmarkData {
+    // Typical sizes of the encrypted payload of a mailbox message
+    public static final int MAILBOX_PAYLOAD_SIZE = 4 * 1024;
+    private static final int NUM_KEY_PAIRS = 10;
+
+    private final Random random = new Random(42);
+    private final List<KeyPair> keyPairs = new ArrayList<>();
+    private final Clock clock = Clock.systemDefaultZone();
+
+    public BenchmarkData() {
+        Version.setBaseCryptoNetworkId(0);
+        // Key generation is expensive, so we use the same keys for multiple entries
+        for (int i = 0; i < NUM_KEY_PAIRS; i++) {
+            keyPairs.add(Sig.generateKeyPair());
+        }
+    }
+
+    public byte[] getRandomBytes(int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    public KeyPair getKeyPair(int index) {
+        return keyPairs.get(index % keyPairs.size());
+    }
+
+    public MailboxStoragePayload createMailboxStoragePayload(KeyPair sender, KeyPair receiver) {
+        SealedAndSigned sealedAndSigned = new SealedAndSigned(getRandomBytes(256),
+                getRandomBytes(MAILBOX_PAYLOAD_SIZE),
+                getRandomBytes(46),
+                sender.getPublic());
+        PrefixedSealedAndSignedMessage message = new PrefixedSealedAndSignedMessage(new NodeAddress("localhost", 9999),
+                sealedAndSigned);
+        return new MailboxStoragePayload(message, sender.getPublic(), receiver.getPublic(), MailboxStoragePayload.TTL);
+    }
+
+    public ProtectedMailboxStorageEntry createMailboxEntry(int index) {
+        KeyPair sender = getKeyPair(index);
+        KeyPair receiver = getKeyPair(index + 1);
+        MailboxStoragePayload payload = createMailboxStoragePayload(sender, receiver);
+        int sequenceNumber = 1;
+        byte[] hashOfDataAndSeqNr = P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, sequenceNumber));
+        try {
+            byte[] signature = Sig.sign(sender.getPrivate(), hashOfDataAndSeqNr);
+            return new ProtectedMailboxStorageEntry(payload, sender.getPublic(), sequenceNumber, signature,
+                    receiver.getPublic(), clock);
+        } catch (CryptoException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public List<ProtectedMailboxStorageEntry> createMailboxEntries(int numEntries) {
+        List<ProtectedMailboxStorageEntry> entries = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            entries.add(createMailboxEntry(i));
+        }
+        return entries;
+    }
+
+    public AccountAgeWitness createAccountAgeWitness(int index) {
+        byte[] hash = Hash.getRipemd160hash(ByteBuffer.allocate(4).putInt(index).array());
+        return new AccountAgeWitness(hash, clock.millis() - random.nextInt(Integer.MAX_VALUE));
+    }
+
+    public List<AccountAgeWitness> createAccountAgeWitnesses(int numEntries) {
+        List<AccountAgeWitness> witnesses = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            witnesses.add(createAccountAgeWitness(i));
+        }
+        return witnesses;
+    }
+
+    /**
+     * Creates an in-memory P2PDataStorage. The network and persistence layer are replaced by stubs which do not
+     * record invocations, so they do not distort the measurements.
+     */
+    @SuppressWarnings("unchecked")
+    public P2PDataStorage createP2PDataStorage() {
+        ProtectedDataStoreService protectedDataStoreService = new ProtectedDataStoreService();
+        protectedDataStoreService.addService(new MapStoreServiceFake());
+        P2PDataStorage p2PDataStorage = new P2PDataStorage(stub(NetworkNode.class),
+                stub(Broadcaster.class),
+                new AppendOnlyDataStoreServiceFake(),
+                protectedDataStoreService,
+                stub(ResourceDataStoreService.class),
+                (PersistenceManager<SequenceNumberMap>) stub(PersistenceManager.class),
+                stub(RemovedPayloadsService.class),
+                clock,
+                1000);
+        p2PDataStorage.readFromResourcesSync("unused");
+        return p2PDataStorage;
+    }
+
+    private static <T> T stub(Class<T> classToMock) {
+        return mock(classToMock, withSettings().stubOnly());
+    }
+}
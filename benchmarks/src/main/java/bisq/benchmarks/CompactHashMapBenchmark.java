@@ -0,0 +1,150 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.benchmarks;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.persistence.CompactHashMap;
+
+import bisq.common.crypto.Hash;
+
+import java.nio.ByteBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the maps keyed by the 32 byte payload hashes, as used by the SequenceNumberMap.
+ * <p>
+ * The fill benchmarks build a complete map, run them with {@code -prof gc} to compare the memory footprint: the
+ * gc.alloc.rate.norm metric is the number of bytes allocated for a map with numEntries entries. The keys are created
+ * in the setup, so the ByteArray wrappers which the other maps need in addition are not included.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CompactHashMapBenchmark {
+    @Param({"100000"})
+    public int numEntries;
+
+    private byte[][] keys;
+    private P2PDataStorage.ByteArray[] byteArrayKeys;
+    private CompactHashMap compactHashMap;
+    private Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> hashMap;
+    private Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> concurrentHashMap;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = new byte[numEntries][];
+        byteArrayKeys = new P2PDataStorage.ByteArray[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            keys[i] = Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(i).array());
+            byteArrayKeys[i] = new P2PDataStorage.ByteArray(keys[i]);
+        }
+        compactHashMap = fillCompactHashMap(false);
+        hashMap = fill(new HashMap<>());
+        concurrentHashMap = fill(new ConcurrentHashMap<>());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompactHashMap fillCompactHashMap() {
+        return fillCompactHashMap(false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompactHashMap fillOffHeapCompactHashMap() {
+        return fillCompactHashMap(true);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> fillHashMap() {
+        return fill(new HashMap<>());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> fillConcurrentHashMap() {
+        return fill(new ConcurrentHashMap<>());
+    }
+
+    // Lookups as done at each received storage entry, the other maps need a ByteArray wrapper for each lookup
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void getCompactHashMap(Blackhole blackhole) {
+        for (byte[] key : keys) {
+            blackhole.consume(compactHashMap.get(key));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void getHashMap(Blackhole blackhole) {
+        for (byte[] key : keys) {
+            blackhole.consume(hashMap.get(new P2PDataStorage.ByteArray(key)));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void getConcurrentHashMap(Blackhole blackhole) {
+        for (byte[] key : keys) {
+            blackhole.consume(concurrentHashMap.get(new P2PDataStorage.ByteArray(key)));
+        }
+    }
+
+    private CompactHashMap fillCompactHashMap(boolean offHeap) {
+        CompactHashMap map = new CompactHashMap(2, offHeap);
+        for (int i = 0; i < numEntries; i++) {
+            map.put(keys[i], i, i);
+        }
+        return map;
+    }
+
+    private Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> fill(Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map) {
+        for (int i = 0; i < numEntries; i++) {
+            map.put(byteArrayKeys[i], new P2PDataStorage.MapValue(i, i));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.benchmarks;
+
+import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.Encryption;
+import bisq.common.crypto.Hash;
+import bisq.common.crypto.Sig;
+
+import javax.crypto.SecretKey;
+
+import java.security.KeyPair;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the signature verification of storage entries and the decryption of mailbox messages.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CryptoBenchmark {
+    // Size of the encrypted payload, from a small direct message to a large mailbox message
+    @Param({"1024", "4096", "65536"})
+    public int payloadSize;
+
+    private KeyPair keyPair;
+    private byte[] hash;
+    private byte[] signature;
+    private SecretKey secretKey;
+    private byte[] encryptedPayloadWithHmac;
+
+    @Setup(Level.Trial)
+    public void setup() throws CryptoException {
+        BenchmarkData benchmarkData = new BenchmarkData();
+        keyPair = benchmarkData.getKeyPair(0);
+        // We sign the 32 byte hash as it is done for the storage entries
+        hash = Hash.getSha256Hash(benchmarkData.getRandomBytes(payloadSize));
+        signature = Sig.sign(keyPair.getPrivate(), hash);
+
+        secretKey = Encryption.generateSecretKey(128);
+        encryptedPayloadWithHmac = Encryption.encryptPayloadWithHmac(benchmarkData.getRandomBytes(payloadSize), secretKey);
+    }
+
+    @Benchmark
+    public boolean verifySignature() throws CryptoException {
+        return Sig.verify(keyPair.getPublic(), hash, signature);
+    }
+
+    @Benchmark
+    public byte[] decryptPayloadWithHmac() throws CryptoException {
+        return Encryption.decryptPayloadWithHmac(encryptedPayloadWithHmac, secretKey);
+    }
+}
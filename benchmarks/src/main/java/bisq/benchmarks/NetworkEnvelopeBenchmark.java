@@ -0,0 +1,113 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.benchmarks;
+
+import bisq.core.proto.network.CoreNetworkProtoResolver;
+
+import bisq.network.p2p.network.SerializedEnvelope;
+import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.storage.messages.AddDataMessage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.proto.ProtobufferException;
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.time.Clock;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for serializing and parsing the network envelopes which dominate the traffic of a seed node: the
+ * broadcast of a single storage entry and the GetDataResponse at the startup of a peer.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NetworkEnvelopeBenchmark {
+    // Number of entries of each type in the GetDataResponse
+    @Param({"1000"})
+    public int numEntries;
+
+    private CoreNetworkProtoResolver networkProtoResolver;
+    private AddDataMessage addDataMessage;
+    private GetDataResponse getDataResponse;
+    private byte[] serializedAddDataMessage;
+    private byte[] serializedGetDataResponse;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkData benchmarkData = new BenchmarkData();
+        networkProtoResolver = new CoreNetworkProtoResolver(Clock.systemDefaultZone());
+
+        addDataMessage = new AddDataMessage(benchmarkData.createMailboxEntry(0));
+        getDataResponse = new GetDataResponse(new HashSet<ProtectedStorageEntry>(benchmarkData.createMailboxEntries(numEntries)),
+                new HashSet<PersistableNetworkPayload>(benchmarkData.createAccountAgeWitnesses(numEntries)),
+                1,
+                false);
+        serializedAddDataMessage = addDataMessage.toProtoNetworkEnvelope().toByteArray();
+        serializedGetDataResponse = getDataResponse.toProtoNetworkEnvelope().toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeAddDataMessage() {
+        return addDataMessage.toProtoNetworkEnvelope().toByteArray();
+    }
+
+    // Serialization as done at the broadcast, the size and the frame come from a single serialization
+    @Benchmark
+    public int serializeAddDataMessageOnce() {
+        return SerializedEnvelope.of(addDataMessage).getSize();
+    }
+
+    @Benchmark
+    public NetworkEnvelope parseAddDataMessage() throws InvalidProtocolBufferException, ProtobufferException {
+        return networkProtoResolver.fromProto(protobuf.NetworkEnvelope.parseFrom(serializedAddDataMessage));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] serializeGetDataResponse() {
+        return getDataResponse.toProtoNetworkEnvelope().toByteArray();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public NetworkEnvelope parseGetDataResponse() throws InvalidProtocolBufferException, ProtobufferException {
+        return networkProtoResolver.fromProto(protobuf.NetworkEnvelope.parseFrom(serializedGetDataResponse));
+    }
+}
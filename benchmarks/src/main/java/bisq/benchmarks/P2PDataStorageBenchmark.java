@@ -0,0 +1,175 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.benchmarks;
+
+import bisq.core.account.witness.AccountAgeWitness;
+
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.peers.getdata.messages.PreliminaryGetDataRequest;
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.app.Capabilities;
+import bisq.common.app.Capability;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the P2PDataStorage operations which decide how many peers a seed node can serve.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class P2PDataStorageBenchmark {
+    private static final NodeAddress SENDER = new NodeAddress("localhost", 9999);
+    private static final Capabilities CAPABILITIES = new Capabilities(Arrays.asList(Capability.values()));
+
+    // Number of mailbox entries and account age witnesses in the storage
+    @Param({"1000"})
+    public int numProtectedStorageEntries;
+    @Param({"100000"})
+    public int numPersistableNetworkPayloads;
+
+    private BenchmarkData benchmarkData;
+    private List<ProtectedMailboxStorageEntry> protectedStorageEntries;
+    private List<AccountAgeWitness> persistableNetworkPayloads;
+    private List<ProtectedMailboxStorageEntry> newProtectedStorageEntries;
+    private P2PDataStorage p2PDataStorage;
+    private PreliminaryGetDataRequest getDataRequest;
+    private GetDataResponse getDataResponse;
+    private P2PDataStorage emptyP2PDataStorage;
+    private int newEntryIndex;
+    private MailboxStoragePayload newMailboxStoragePayload;
+    private AccountAgeWitness newAccountAgeWitness;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        benchmarkData = new BenchmarkData();
+        protectedStorageEntries = benchmarkData.createMailboxEntries(numProtectedStorageEntries);
+        persistableNetworkPayloads = benchmarkData.createAccountAgeWitnesses(numPersistableNetworkPayloads);
+        newProtectedStorageEntries = benchmarkData.createMailboxEntries(numProtectedStorageEntries);
+
+        p2PDataStorage = benchmarkData.createP2PDataStorage();
+        protectedStorageEntries.forEach(entry -> p2PDataStorage.addProtectedStorageEntry(entry, SENDER, null));
+        persistableNetworkPayloads.forEach(payload -> p2PDataStorage.addPersistableNetworkPayload(payload, SENDER, false));
+
+        // A requester which knows about half of the data
+        Set<byte[]> excludedKeys = new HashSet<>();
+        for (int i = 0; i < protectedStorageEntries.size(); i += 2) {
+            excludedKeys.add(P2PDataStorage.get32ByteHash(protectedStorageEntries.get(i).getProtectedStoragePayload()));
+        }
+        for (int i = 0; i < persistableNetworkPayloads.size(); i += 2) {
+            excludedKeys.add(persistableNetworkPayloads.get(i).getHash());
+        }
+        getDataRequest = new PreliminaryGetDataRequest(1, excludedKeys);
+
+        getDataResponse = new GetDataResponse(new HashSet<ProtectedStorageEntry>(protectedStorageEntries),
+                new HashSet<PersistableNetworkPayload>(persistableNetworkPayloads),
+                1,
+                false);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        emptyP2PDataStorage = benchmarkData.createP2PDataStorage();
+        newEntryIndex = 0;
+    }
+
+    // Each invocation adds a new entry, the storage gets recreated at each iteration
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 5, batchSize = 1000)
+    @Warmup(iterations = 3, batchSize = 1000)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean addProtectedStorageEntry() {
+        ProtectedMailboxStorageEntry entry = newProtectedStorageEntries.get(newEntryIndex++ % newProtectedStorageEntries.size());
+        return emptyP2PDataStorage.addProtectedStorageEntry(entry, SENDER, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public GetDataResponse buildGetDataResponse() {
+        return p2PDataStorage.buildGetDataResponse(getDataRequest,
+                Integer.MAX_VALUE,
+                new AtomicBoolean(),
+                new AtomicBoolean(),
+                CAPABILITIES);
+    }
+
+    // The response gets applied to an empty storage once per iteration, as it would be at the startup of a node
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void processGetDataResponse() {
+        emptyP2PDataStorage.processGetDataResponse(getDataResponse, SENDER);
+    }
+
+    // The hashes get cached per payload instance, so we need new instances to measure the hashing
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        MailboxStoragePayload mailboxStoragePayload = (MailboxStoragePayload) protectedStorageEntries.get(0).getProtectedStoragePayload();
+        newMailboxStoragePayload = new MailboxStoragePayload(mailboxStoragePayload.getPrefixedSealedAndSignedMessage(),
+                mailboxStoragePayload.getSenderPubKeyForAddOperation(),
+                mailboxStoragePayload.getOwnerPubKey(),
+                MailboxStoragePayload.TTL);
+        AccountAgeWitness accountAgeWitness = persistableNetworkPayloads.get(0);
+        newAccountAgeWitness = new AccountAgeWitness(accountAgeWitness.getHash(), accountAgeWitness.getDate());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void get32ByteHash(Blackhole blackhole) {
+        blackhole.consume(P2PDataStorage.get32ByteHash(newMailboxStoragePayload));
+        blackhole.consume(P2PDataStorage.get32ByteHash(newAccountAgeWitness));
+    }
+
+    // The payloads in the storage had their hashes cached when they got added
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void get32ByteHashCached(Blackhole blackhole) {
+        blackhole.consume(P2PDataStorage.get32ByteHash(protectedStorageEntries.get(0).getProtectedStoragePayload()));
+        blackhole.consume(P2PDataStorage.get32ByteHash(persistableNetworkPayloads.get(0)));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.benchmarks;
+
+import bisq.core.account.witness.AccountAgeWitness;
+import bisq.core.account.witness.AccountAgeWitnessStore;
+import bisq.core.proto.network.CoreNetworkProtoResolver;
+import bisq.core.proto.persistable.CorePersistenceProtoResolver;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+
+import bisq.common.file.CorruptedStorageFileHandler;
+import bisq.common.file.FileUtil;
+import bisq.common.persistence.PersistenceManager;
+
+import java.nio.file.Files;
+
+import java.time.Clock;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing and reading the largest store we persist, the AccountAgeWitnessStore.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistenceManagerBenchmark {
+    private static final String FILE_NAME = "AccountAgeWitnessStore";
+
+    @Param({"100000"})
+    public int numEntries;
+
+    private BenchmarkData benchmarkData;
+    private File dir;
+    private AccountAgeWitnessStore store;
+    private PersistenceManager<AccountAgeWitnessStore> persistenceManager;
+    private int newEntryIndex;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException, IOException {
+        benchmarkData = new BenchmarkData();
+        dir = Files.createTempDirectory("benchmark").toFile();
+        CoreNetworkProtoResolver networkProtoResolver = new CoreNetworkProtoResolver(Clock.systemDefaultZone());
+        persistenceManager = new PersistenceManager<>(dir,
+                new CorePersistenceProtoResolver(() -> null, () -> null, networkProtoResolver),
+                new CorruptedStorageFileHandler(),
+                null);
+        PersistenceManager.onAllServicesInitialized();
+
+        store = new AccountAgeWitnessStore();
+        benchmarkData.createAccountAgeWitnesses(numEntries).forEach(this::put);
+        newEntryIndex = numEntries;
+        persistenceManager.initialize(store, FILE_NAME, PersistenceManager.Source.NETWORK);
+
+        getStorageFile().delete();
+        persistAndWait();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        persistenceManager.shutdown();
+        FileUtil.deleteDirectory(dir);
+    }
+
+    // Without a storage file the PersistenceManager cannot append to the journal, so we measure a full snapshot
+    @Benchmark
+    public void writeSnapshot(SnapshotState snapshotState) throws InterruptedException {
+        persistAndWait();
+    }
+
+    // Writes a single new entry as it happens at each AddPersistableNetworkPayloadMessage
+    @Benchmark
+    public void appendToJournal() throws InterruptedException {
+        put(benchmarkData.createAccountAgeWitness(newEntryIndex++));
+        persistAndWait();
+    }
+
+    @Benchmark
+    public AccountAgeWitnessStore read() {
+        return persistenceManager.getPersisted(FILE_NAME);
+    }
+
+    @State(Scope.Thread)
+    public static class SnapshotState {
+        @Setup(Level.Invocation)
+        public void deleteStorageFile(PersistenceManagerBenchmark benchmark) {
+            benchmark.getStorageFile().delete();
+        }
+    }
+
+    private void put(AccountAgeWitness witness) {
+        store.put(new P2PDataStorage.ByteArray(witness.getHash()), witness);
+    }
+
+    private void persistAndWait() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        persistenceManager.persistNow(latch::countDown);
+        latch.await();
+    }
+
+    private File getStorageFile() {
+        return new File(dir, FILE_NAME);
+    }
+}
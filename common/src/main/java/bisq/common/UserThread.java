@@ -17,11 +17,15 @@
 
 package bisq.common;
 
+import bisq.common.util.LatencyHistogram;
+
 import com.google.common.util.concurrent.MoreExecutors;
 
 import java.time.Duration;
 
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
@@ -40,14 +44,35 @@ import lombok.extern.slf4j.Slf4j;
  * otherwise we use the default FrameRateTimer).
  * <p>
  * Provides also methods for delayed and periodic executions.
+ * <p>
+ * Tasks are queued in lanes by priority. Each execute call submits one step to the executor, which runs the oldest
+ * task of the highest priority lane, so urgent tasks overtake the queued bulk work. A task which has waited longer
+ * than MAX_DELAY_BEFORE_PROMOTION_MS runs regardless of its priority, so low priority lanes do not starve.
+ * With the default direct executor there is no user thread to queue for, so tasks run at once at the caller thread.
+ * The delay until a task runs and its run time are measured. Slow tasks get logged with their origin.
  */
 @Slf4j
 public class UserThread {
+    public enum Priority {
+        // Latency sensitive tasks like keep alive and trade protocol messages
+        HIGH,
+        NORMAL,
+        // Bulk work like processing the initial data
+        LOW
+    }
+
+    private static final long SLOW_TASK_THRESHOLD_MS = 500;
+    private static final long MAX_DELAY_BEFORE_PROMOTION_MS = 2000;
+
     private static Class<? extends Timer> timerClass;
     @Getter
     @Setter
     private static Executor executor;
 
+    private static final Queue<QueuedTask>[] LANES = createLanes();
+    private static final LatencyHistogram QUEUE_DELAY = new LatencyHistogram();
+    private static final LatencyHistogram RUN_TIME = new LatencyHistogram();
+
     public static void setTimerClass(Class<? extends Timer> timerClass) {
         UserThread.timerClass = timerClass;
     }
@@ -59,7 +84,32 @@ public class UserThread {
     }
 
     public static void execute(Runnable command) {
-        UserThread.executor.execute(command);
+        execute(command, Priority.NORMAL);
+    }
+
+    public static void execute(Runnable command, Priority priority) {
+        QueuedTask task = new QueuedTask(command, System.nanoTime());
+        if (UserThread.executor == MoreExecutors.directExecutor()) {
+            // A step would run at the caller thread and could pick up a task queued by another thread
+            run(task);
+            return;
+        }
+        LANES[priority.ordinal()].add(task);
+        UserThread.executor.execute(UserThread::runNextTask);
+    }
+
+    // Delay between the execute call and the start of the task in microseconds
+    public static LatencyHistogram.Snapshot getQueueDelay() {
+        return QUEUE_DELAY.getSnapshot();
+    }
+
+    // Run time of the tasks in microseconds
+    public static LatencyHistogram.Snapshot getRunTime() {
+        return RUN_TIME.getSnapshot();
+    }
+
+    public static int getNumQueuedTasks(Priority priority) {
+        return LANES[priority.ordinal()].size();
     }
 
     // Prefer FxTimer if a delay is needed in a JavaFx class (gui module)
@@ -88,6 +138,81 @@ public class UserThread {
         return getTimer().runPeriodically(Duration.ofMillis(timeUnit.toMillis(interval)), runnable);
     }
 
+    private static void runNextTask() {
+        QueuedTask task = pollNextTask();
+        if (task == null) {
+            // Cannot happen as we submit one step per task, but the lanes are not under our lock
+            return;
+        }
+        run(task);
+    }
+
+    private static void run(QueuedTask task) {
+        long startTime = System.nanoTime();
+        try {
+            task.command.run();
+        } finally {
+            long queueDelay = startTime - task.queuedTime;
+            long runTime = System.nanoTime() - startTime;
+            QUEUE_DELAY.record(TimeUnit.NANOSECONDS.toMicros(queueDelay));
+            RUN_TIME.record(TimeUnit.NANOSECONDS.toMicros(runTime));
+            if (runTime > TimeUnit.MILLISECONDS.toNanos(SLOW_TASK_THRESHOLD_MS)) {
+                log.warn("Slow task on UserThread from {} took {} ms. It was queued for {} ms.",
+                        getOrigin(task.command),
+                        TimeUnit.NANOSECONDS.toMillis(runTime),
+                        TimeUnit.NANOSECONDS.toMillis(queueDelay));
+            }
+        }
+    }
+
+    private static QueuedTask pollNextTask() {
+        long now = System.nanoTime();
+        long maxDelay = TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_BEFORE_PROMOTION_MS);
+        // Tasks of lower priority lanes which waited too long get promoted
+        for (int i = LANES.length - 1; i > 0; i--) {
+            QueuedTask head = LANES[i].peek();
+            if (head != null && now - head.queuedTime > maxDelay) {
+                QueuedTask task = LANES[i].poll();
+                if (task != null) {
+                    return task;
+                }
+            }
+        }
+        for (Queue<QueuedTask> lane : LANES) {
+            QueuedTask task = lane.poll();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    // The class name of a lambda or an anonymous class contains the name of the class where it was declared
+    private static String getOrigin(Runnable command) {
+        String className = command.getClass().getName();
+        int index = className.indexOf("$$Lambda");
+        return index > 0 ? className.substring(0, index) : className;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Queue<QueuedTask>[] createLanes() {
+        Queue<QueuedTask>[] lanes = new Queue[Priority.values().length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ConcurrentLinkedQueue<>();
+        }
+        return lanes;
+    }
+
+    private static final class QueuedTask {
+        private final Runnable command;
+        private final long queuedTime;
+
+        private QueuedTask(Runnable command, long queuedTime) {
+            this.command = command;
+            this.queuedTime = queuedTime;
+        }
+    }
+
     private static Timer getTimer() {
         try {
             return timerClass.getDeclaredConstructor().newInstance();
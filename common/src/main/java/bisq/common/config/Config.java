@@ -118,6 +118,8 @@ public class Config {
     public static final String BTC_FEE_INFO = "bitcoinFeeInfo";
     public static final String BYPASS_MEMPOOL_VALIDATION = "bypassMempoolValidation";
     public static final String PASSWORD_REQUIRED = "passwordRequired";
+    public static final String USE_MAPPED_HISTORICAL_STORES = "useMappedHistoricalStores";
+    public static final String METRICS_PORT = "metricsPort";
 
     // Default values for certain options
     public static final int UNSPECIFIED_PORT = -1;
@@ -196,6 +198,8 @@ public class Config {
     public final boolean republishMailboxEntries;
     public final boolean bypassMempoolValidation;
     public final boolean passwordRequired;
+    public final boolean useMappedHistoricalStores;
+    public final int metricsPort;
 
     // Properties derived from options but not exposed as options themselves
     public final File torDir;
@@ -594,6 +598,20 @@ public class Config {
                         .ofType(boolean.class)
                         .defaultsTo(false);
 
+        ArgumentAcceptingOptionSpec<Boolean> useMappedHistoricalStoresOpt =
+                parser.accepts(USE_MAPPED_HISTORICAL_STORES,
+                        "Memory map the historical data stores and decode their entries on access to reduce heap usage")
+                        .withRequiredArg()
+                        .ofType(boolean.class)
+                        .defaultsTo(false);
+
+        ArgumentAcceptingOptionSpec<Integer> metricsPortOpt =
+                parser.accepts(METRICS_PORT, "Port of the HTTP endpoint for the P2P metrics in Prometheus format " +
+                        "(seed nodes only, disabled if not set)")
+                        .withRequiredArg()
+                        .ofType(Integer.class)
+                        .defaultsTo(UNSPECIFIED_PORT);
+
         try {
             CompositeOptionSet options = new CompositeOptionSet();
 
@@ -703,6 +721,8 @@ public class Config {
             this.republishMailboxEntries = options.valueOf(republishMailboxEntriesOpt);
             this.bypassMempoolValidation = options.valueOf(bypassMempoolValidationOpt);
             this.passwordRequired = options.valueOf(passwordRequiredOpt);
+            this.useMappedHistoricalStores = options.valueOf(useMappedHistoricalStoresOpt);
+            this.metricsPort = options.valueOf(metricsPortOpt);
         } catch (OptionException ex) {
             throw new ConfigException("problem parsing option '%s': %s",
                     ex.options().get(0),
@@ -51,6 +51,16 @@ public class Sig {
     public static final String KEY_ALGO = "DSA";
     private static final String ALGO = "SHA256withDSA";
 
+    // Signature instances are not thread safe and expensive to create, so we reuse one instance per thread.
+    // The init methods reset the state of the instance from any previous use.
+    private static final ThreadLocal<Signature> SIGNATURE = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(ALGO);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Signature algorithm " + ALGO + " is not available", e);
+        }
+    });
+
 
     /**
      * @return keyPair
@@ -75,11 +85,11 @@ public class Sig {
      */
     public static byte[] sign(PrivateKey privateKey, byte[] data) throws CryptoException {
         try {
-            Signature sig = Signature.getInstance(ALGO);
+            Signature sig = SIGNATURE.get();
             sig.initSign(privateKey);
             sig.update(data);
             return sig.sign();
-        } catch (SignatureException | InvalidKeyException | NoSuchAlgorithmException e) {
+        } catch (SignatureException | InvalidKeyException e) {
             throw new CryptoException("Signing failed. " + e.getMessage());
         }
     }
@@ -102,11 +112,11 @@ public class Sig {
      */
     public static boolean verify(PublicKey publicKey, byte[] data, byte[] signature) throws CryptoException {
         try {
-            Signature sig = Signature.getInstance(ALGO);
+            Signature sig = SIGNATURE.get();
             sig.initVerify(publicKey);
             sig.update(data);
             return sig.verify(signature);
-        } catch (SignatureException | InvalidKeyException | NoSuchAlgorithmException e) {
+        } catch (SignatureException | InvalidKeyException e) {
             throw new CryptoException("Signature verification failed", e);
         }
     }
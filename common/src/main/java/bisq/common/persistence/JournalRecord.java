@@ -0,0 +1,85 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.persistence;
+
+import bisq.common.proto.persistable.PersistablePayload;
+
+import com.google.protobuf.ByteString;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+
+/**
+ * A single change of a {@link bisq.common.proto.persistable.JournaledPersistableEnvelope}. The key and value are the
+ * serialized key and value of the map entry. A record without value is a removal.
+ */
+@EqualsAndHashCode
+@Getter
+public final class JournalRecord implements PersistablePayload {
+    private final byte[] key;
+    @Nullable
+    private final byte[] value;
+
+    public static JournalRecord put(byte[] key, byte[] value) {
+        return new JournalRecord(key, value);
+    }
+
+    public static JournalRecord remove(byte[] key) {
+        return new JournalRecord(key, null);
+    }
+
+    private JournalRecord(byte[] key, @Nullable byte[] value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public boolean isRemoval() {
+        return value == null;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public protobuf.JournalRecord toProtoMessage() {
+        protobuf.JournalRecord.Builder builder = protobuf.JournalRecord.newBuilder()
+                .setKey(ByteString.copyFrom(key))
+                .setIsRemoval(isRemoval());
+        if (value != null) {
+            builder.setValue(ByteString.copyFrom(value));
+        }
+        return builder.build();
+    }
+
+    public static JournalRecord fromProto(protobuf.JournalRecord proto) {
+        return new JournalRecord(proto.getKey().toByteArray(),
+                proto.getIsRemoval() ? null : proto.getValue().toByteArray());
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+                "\n     key.length=" + key.length +
+                ",\n     value.length=" + (value != null ? value.length : "null (removal)") +
+                "\n}";
+    }
+}
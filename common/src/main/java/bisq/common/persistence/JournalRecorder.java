@@ -0,0 +1,73 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Collects the changes of a {@link bisq.common.proto.persistable.JournaledPersistableEnvelope} between two persist
+ * calls.
+ * <p>
+ * Some clients mutate the maps of the envelopes directly (e.g. at data migrations) without passing the recorder. As a
+ * safety net we track the expected size of the map and require a full snapshot if it does not match the actual size
+ * at drain time.
+ */
+public class JournalRecorder {
+    private List<JournalRecord> records = new ArrayList<>();
+    private int expectedSize;
+    private boolean snapshotRequired = true;
+
+    public synchronized void recordPut(byte[] key, byte[] value, boolean isNewKey) {
+        records.add(JournalRecord.put(key, value));
+        if (isNewKey) {
+            expectedSize++;
+        }
+    }
+
+    public synchronized void recordRemove(byte[] key, boolean wasPresent) {
+        records.add(JournalRecord.remove(key));
+        if (wasPresent) {
+            expectedSize--;
+        }
+    }
+
+    public synchronized void requireSnapshot() {
+        snapshotRequired = true;
+        records = new ArrayList<>();
+    }
+
+    /**
+     * @param currentSize   The current size of the journaled map.
+     * @return The records since the last drain or reset, or empty if a snapshot is required.
+     */
+    public synchronized Optional<List<JournalRecord>> drain(int currentSize) {
+        Optional<List<JournalRecord>> result = snapshotRequired || expectedSize != currentSize ?
+                Optional.empty() :
+                Optional.of(records);
+        reset(currentSize);
+        return result;
+    }
+
+    public synchronized void reset(int currentSize) {
+        records = new ArrayList<>();
+        expectedSize = currentSize;
+        snapshotRequired = false;
+    }
+}
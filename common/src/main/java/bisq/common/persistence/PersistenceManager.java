@@ -27,6 +27,7 @@ import bisq.common.crypto.KeyRing;
 import bisq.common.file.CorruptedStorageFileHandler;
 import bisq.common.file.FileUtil;
 import bisq.common.handlers.ResultHandler;
+import bisq.common.proto.persistable.JournaledPersistableEnvelope;
 import bisq.common.proto.persistable.PersistableEnvelope;
 import bisq.common.proto.persistable.PersistenceProtoResolver;
 import bisq.common.util.GcUtil;
@@ -36,22 +37,33 @@ import com.google.inject.Inject;
 
 import javax.inject.Named;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -74,6 +86,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * previously we wasted a lot of resources as way too many threads have been created without doing actual work as well
  * the write operations got triggered way too often specially for the very frequent changes at SequenceNumberMap
  *
+ * For a {@link JournaledPersistableEnvelope} we append only the changes since the last write to a journal file next to
+ * the snapshot file. Each record is framed with its length and a CRC32 checksum (and encrypted with HMAC if we have a
+ * keyRing), so a torn write at the end of the journal is detected and ignored at reading. Once the journal gets larger
+ * than half of the snapshot we compact it by writing a new full snapshot.
+ *
  *
  * @param <T>   The type of the {@link PersistableEnvelope} to be written or read from disk
  */
@@ -85,6 +102,15 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public static final Map<String, PersistenceManager<?>> ALL_PERSISTENCE_MANAGERS = new HashMap<>();
+    public static final String JOURNAL_POSTFIX = ".journal";
+    // We write a new snapshot if the journal is larger than half of the snapshot but at least that size
+    private static final long MIN_JOURNAL_SIZE_FOR_COMPACTION = 1024 * 1024;
+    private static final int MAX_JOURNAL_FRAME_SIZE = 10 * 1024 * 1024;
+    // Reading is mostly CPU bound (decryption and protobuf parsing), so we do not use more threads than cores
+    private static final int NUM_READ_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final Map<String, Long> READ_DURATION_BY_FILE_NAME = new ConcurrentHashMap<>();
+    @Nullable
+    private static ExecutorService readExecutor;
     private static boolean flushAtShutdownCalled;
     private static final AtomicBoolean allServicesInitialized = new AtomicBoolean(false);
 
@@ -100,6 +126,23 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         });
     }
 
+    // Bounded pool used for reading the persisted data at startup
+    public static synchronized ExecutorService getReadExecutor() {
+        if (readExecutor == null) {
+            readExecutor = Utilities.getListeningExecutorService("PersistenceManager-read-%d",
+                    NUM_READ_THREADS,
+                    NUM_READ_THREADS,
+                    10,
+                    new LinkedBlockingQueue<>());
+        }
+        return readExecutor;
+    }
+
+    // Duration of reading, decrypting and parsing of each file read so far
+    public static Map<String, Long> getReadDurationByFileName() {
+        return Collections.unmodifiableMap(READ_DURATION_BY_FILE_NAME);
+    }
+
     public static void flushAllDataToDiskAtBackup(ResultHandler completeHandler) {
         flushAllDataToDisk(completeHandler, false);
     }
@@ -227,6 +270,15 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     public final AtomicBoolean initCalled = new AtomicBoolean(false);
     public final AtomicBoolean readCalled = new AtomicBoolean(false);
 
+    // Journal state for JournaledPersistableEnvelopes. We only append to the journal if it is consistent with the
+    // snapshot on disk, that is after we have written the snapshot or read it together with its journal without errors.
+    @Nullable
+    private volatile PersistableEnvelope cleanlyReadPersisted;
+    @Nullable
+    private volatile String cleanlyReadFileName;
+    private volatile boolean snapshotWritten;
+    private volatile boolean journalInvalidated;
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Constructor
@@ -310,7 +362,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     }
 
     /**
-     * Read persisted file in a thread.
+     * Read persisted file at the read executor, so multiple files are read in parallel.
      * We map result handler calls to UserThread, so clients don't need to worry about threading
      *
      * @param fileName          File name of our persisted data.
@@ -323,7 +375,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
             return;
         }
 
-        new Thread(() -> {
+        getReadExecutor().execute(() -> {
             T persisted = getPersisted(fileName);
             if (persisted != null) {
                 UserThread.execute(() -> {
@@ -334,7 +386,7 @@ public class PersistenceManager<T extends PersistableEnvelope> {
             } else {
                 UserThread.execute(orElse);
             }
-        }, "PersistenceManager-read-" + fileName).start();
+        });
     }
 
     // API for synchronous reading of data. Not recommended to be used in application code.
@@ -363,12 +415,15 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         }
 
         long ts = System.currentTimeMillis();
+        long decryptionDuration = 0;
         try (FileInputStream fileInputStream = new FileInputStream(storageFile)) {
             protobuf.PersistableEnvelope proto;
             if (keyRing != null) {
                 byte[] encryptedBytes = fileInputStream.readAllBytes();
                 try {
+                    long tsDecryption = System.currentTimeMillis();
                     byte[] decryptedBytes = Encryption.decryptPayloadWithHmac(encryptedBytes, keyRing.getSymmetricKey());
+                    decryptionDuration = System.currentTimeMillis() - tsDecryption;
                     proto = protobuf.PersistableEnvelope.parseFrom(decryptedBytes);
                 } catch (CryptoException ce) {
                     log.warn("Expected encrypted persisted file, attempting to getPersisted without decryption");
@@ -379,9 +434,23 @@ public class PersistenceManager<T extends PersistableEnvelope> {
                 proto = protobuf.PersistableEnvelope.parseDelimitedFrom(fileInputStream);
             }
 
+            long tsFromProto = System.currentTimeMillis();
             //noinspection unchecked
             T persistableEnvelope = (T) persistenceProtoResolver.fromProto(proto);
-            log.info("Reading {} completed in {} ms", fileName, System.currentTimeMillis() - ts);
+            long fromProtoDuration = System.currentTimeMillis() - tsFromProto;
+            if (persistableEnvelope instanceof JournaledPersistableEnvelope) {
+                JournaledPersistableEnvelope journaled = (JournaledPersistableEnvelope) persistableEnvelope;
+                boolean isJournalClean = replayJournal(journaled, storageFile, getJournalFile(fileName));
+                journaled.resetJournal();
+                if (isJournalClean) {
+                    cleanlyReadFileName = fileName;
+                    cleanlyReadPersisted = persistableEnvelope;
+                }
+            }
+            long duration = System.currentTimeMillis() - ts;
+            READ_DURATION_BY_FILE_NAME.put(fileName, duration);
+            log.info("Reading {} ({} kB) completed in {} ms (decryption: {} ms, fromProto: {} ms)",
+                    fileName, storageFile.length() / 1024, duration, decryptionDuration, fromProtoDuration);
             return persistableEnvelope;
         } catch (Throwable t) {
             log.error("Reading {} failed with {}.", fileName, t.getMessage());
@@ -401,6 +470,80 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         return null;
     }
 
+    // Applies the journal records to the persisted snapshot. Returns false if the journal does not belong to the
+    // snapshot or if it ends with a torn or corrupted record. In that case the valid records got applied and we write
+    // a new snapshot at the next persist call.
+    private boolean replayJournal(JournaledPersistableEnvelope persistable, File storageFile, File journalFile) {
+        if (!journalFile.exists()) {
+            return true;
+        }
+
+        long ts = System.currentTimeMillis();
+        int numRecords = 0;
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            // The header contains the size of the snapshot the journal was started for. If the journal is a leftover
+            // of an older snapshot we must not apply it.
+            byte[] header = readJournalFrame(inputStream);
+            if (header == null || header.length != Long.BYTES || ByteBuffer.wrap(header).getLong() != storageFile.length()) {
+                log.warn("Journal {} does not match the snapshot file. We ignore it.", journalFile.getName());
+                return false;
+            }
+
+            byte[] frame;
+            while ((frame = readJournalFrame(inputStream)) != null) {
+                byte[] bytes = keyRing != null ?
+                        Encryption.decryptPayloadWithHmac(frame, keyRing.getSymmetricKey()) :
+                        frame;
+                persistable.applyJournalRecord(JournalRecord.fromProto(protobuf.JournalRecord.parseFrom(bytes)));
+                numRecords++;
+            }
+            log.info("Replaying {} records of {} completed in {} ms",
+                    numRecords, journalFile.getName(), System.currentTimeMillis() - ts);
+            return true;
+        } catch (Throwable t) {
+            log.warn("Replaying {} stopped after {} records. {}", journalFile.getName(), numRecords, t.toString());
+            return false;
+        }
+    }
+
+    // Returns null at the end of the journal and throws an IOException if the frame is incomplete or corrupted.
+    @Nullable
+    private static byte[] readJournalFrame(DataInputStream inputStream) throws IOException {
+        int firstByte = inputStream.read();
+        if (firstByte == -1) {
+            return null;
+        }
+
+        int length = (firstByte << 24) | (inputStream.readUnsignedByte() << 16) |
+                (inputStream.readUnsignedByte() << 8) | inputStream.readUnsignedByte();
+        if (length < 0 || length > MAX_JOURNAL_FRAME_SIZE) {
+            throw new IOException("Invalid journal frame length " + length);
+        }
+
+        byte[] payload = new byte[length];
+        inputStream.readFully(payload);
+        if (inputStream.readInt() != getChecksum(payload)) {
+            throw new IOException("Checksum of journal frame does not match");
+        }
+        return payload;
+    }
+
+    private static void writeJournalFrame(DataOutputStream outputStream, byte[] payload) throws IOException {
+        outputStream.writeInt(payload.length);
+        outputStream.write(payload);
+        outputStream.writeInt(getChecksum(payload));
+    }
+
+    private static int getChecksum(byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    private File getJournalFile(String fileName) {
+        return new File(dir, fileName + JOURNAL_POSTFIX);
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Write file to disk
@@ -451,6 +594,16 @@ public class PersistenceManager<T extends PersistableEnvelope> {
     private void persistNow(@Nullable Runnable completeHandler, boolean force) {
         long ts = System.currentTimeMillis();
         try {
+            if (persistable instanceof JournaledPersistableEnvelope) {
+                // We always drain the records. If we cannot append them we write a snapshot which contains them anyway.
+                Optional<List<JournalRecord>> records = ((JournaledPersistableEnvelope) persistable).drainJournalRecords();
+                if (records.isPresent() && canAppendToJournal()) {
+                    List<JournalRecord> journalRecords = records.get();
+                    getWriteToDiskExecutor().execute(() -> appendToJournal(journalRecords, completeHandler, force));
+                    return;
+                }
+            }
+
             // The serialisation is done on the user thread to avoid threading issue with potential mutations of the
             // persistable object. Keeping it on the user thread we are in a synchronize model.
             protobuf.PersistableEnvelope serialized = (protobuf.PersistableEnvelope) persistable.toPersistableMessage();
@@ -471,16 +624,87 @@ public class PersistenceManager<T extends PersistableEnvelope> {
         }
     }
 
-    private void writeToDisk(protobuf.PersistableEnvelope serialized, @Nullable Runnable completeHandler, boolean force) {
+    private boolean canAppendToJournal() {
+        if (journalInvalidated || !storageFile.exists()) {
+            return false;
+        }
+
+        boolean isJournalConsistent = snapshotWritten ||
+                (persistable == cleanlyReadPersisted && fileName.equals(cleanlyReadFileName));
+        if (!isJournalConsistent) {
+            return false;
+        }
+
+        // Compaction: We write a new snapshot once the journal got too large
+        long journalSize = getJournalFile(fileName).length();
+        return journalSize <= Math.max(MIN_JOURNAL_SIZE_FOR_COMPACTION, storageFile.length() / 2);
+    }
+
+    private boolean isWriteToDiskPermitted(boolean force) {
         if (!allServicesInitialized.get() && !force) {
             log.warn("Application has not completed start up yet so we do not permit writing data to disk.");
+            return false;
+        }
+        if (keyRing != null && !keyRing.isUnlocked()) {
+            log.warn("Account is not open, ignoring writeToDisk.");
+            return false;
+        }
+        return true;
+    }
+
+    private void appendToJournal(List<JournalRecord> records, @Nullable Runnable completeHandler, boolean force) {
+        if (!isWriteToDiskPermitted(force)) {
+            // The drained records are lost, so we need a full snapshot at the next write
+            journalInvalidated = true;
             if (completeHandler != null) {
                 UserThread.execute(completeHandler);
             }
             return;
         }
-        if (keyRing != null && !keyRing.isUnlocked()) {
-            log.warn("Account is not open, ignoring writeToDisk.");
+
+        long ts = System.currentTimeMillis();
+        File journalFile = getJournalFile(fileName);
+        try {
+            if (journalInvalidated) {
+                // A previous write failed after we had queued that call. The records are written with the next snapshot.
+                UserThread.execute(this::requestPersistence);
+            } else if (!records.isEmpty()) {
+                boolean isNewJournal = !journalFile.exists();
+                try (FileOutputStream fileOutputStream = new FileOutputStream(journalFile, true);
+                     DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+                    if (isNewJournal) {
+                        writeJournalFrame(outputStream, ByteBuffer.allocate(Long.BYTES).putLong(storageFile.length()).array());
+                    }
+                    for (JournalRecord record : records) {
+                        byte[] bytes = record.toProtoMessage().toByteArray();
+                        writeJournalFrame(outputStream, keyRing != null ?
+                                Encryption.encryptPayloadWithHmac(bytes, keyRing.getSymmetricKey()) :
+                                bytes);
+                    }
+                    outputStream.flush();
+                    fileOutputStream.getFD().sync();
+                }
+            }
+        } catch (Throwable t) {
+            // A partially written record gets ignored at reading and the next write will be a full snapshot
+            journalInvalidated = true;
+            UserThread.execute(this::requestPersistence);
+            log.error("Error at appending to journal, storageFile={}", fileName, t);
+        } finally {
+            long duration = System.currentTimeMillis() - ts;
+            if (duration > 100) {
+                log.info("Appending {} records to the journal of {} completed in {} msec", records.size(), fileName, duration);
+            }
+            persistenceRequested = false;
+            if (completeHandler != null) {
+                UserThread.execute(completeHandler);
+            }
+        }
+    }
+
+    private void writeToDisk(protobuf.PersistableEnvelope serialized, @Nullable Runnable completeHandler, boolean force) {
+        if (!isWriteToDiskPermitted(force)) {
+            journalInvalidated = true;
             if (completeHandler != null) {
                 UserThread.execute(completeHandler);
             }
@@ -524,9 +748,17 @@ public class PersistenceManager<T extends PersistableEnvelope> {
 
             FileUtil.renameFile(tempFile, storageFile);
             usedTempFilePath = tempFile.toPath();
+
+            if (persistable instanceof JournaledPersistableEnvelope) {
+                // The new snapshot contains all data of the journal
+                FileUtil.deleteFileIfExists(getJournalFile(fileName));
+                snapshotWritten = true;
+                journalInvalidated = false;
+            }
         } catch (Throwable t) {
             // If an error occurred, don't attempt to reuse this path again, in case temp file cleanup fails.
             usedTempFilePath = null;
+            journalInvalidated = true;
             log.error("Error at saveToFile, storageFile={}", fileName, t);
         } finally {
             if (tempFile != null && tempFile.exists()) {
@@ -0,0 +1,49 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.proto.persistable;
+
+import bisq.common.persistence.JournalRecord;
+
+import java.io.IOException;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interface for large map based envelopes which only grow or change by single entries. Instead of writing the whole
+ * envelope at each persist call the PersistenceManager appends the changes since the last call to a journal file and
+ * writes a full snapshot only if the journal got too large or the envelope cannot provide its changes.
+ */
+public interface JournaledPersistableEnvelope extends PersistableEnvelope {
+
+    /**
+     * @return The changes since the last call, or empty if the changes are not known and a full snapshot is required.
+     * Called on the UserThread.
+     */
+    Optional<List<JournalRecord>> drainJournalRecords();
+
+    /**
+     * Applies a record from the journal file after the snapshot was read.
+     */
+    void applyJournalRecord(JournalRecord record) throws IOException;
+
+    /**
+     * Clears the recorded changes, e.g. after the journal got replayed at reading.
+     */
+    void resetJournal();
+}
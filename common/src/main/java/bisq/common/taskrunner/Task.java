@@ -31,6 +31,8 @@ public abstract class Task<T extends Model> {
     protected final T model;
     protected String errorMessage = "An error occurred at task: " + getClass().getSimpleName();
     protected boolean completed;
+    // Set by the TaskRunner when the task gets started
+    long startTime;
 
     public Task(TaskRunner taskHandler, T model) {
         this.taskHandler = taskHandler;
@@ -57,7 +59,7 @@ public abstract class Task<T extends Model> {
 
     protected void complete() {
         completed = true;
-        taskHandler.handleComplete();
+        taskHandler.handleComplete(this);
     }
 
     protected void failed(String message) {
@@ -74,12 +76,12 @@ public abstract class Task<T extends Model> {
         
         errorMessage = t.getMessage() + " (task " + getClass().getSimpleName() + ")";
         log.error(errorMessage, t);
-        taskHandler.handleErrorMessage(errorMessage);
+        taskHandler.handleErrorMessage(this, errorMessage);
     }
 
     protected void failed() {
         log.error(errorMessage);
-        taskHandler.handleErrorMessage(errorMessage);
+        taskHandler.handleErrorMessage(this, errorMessage);
     }
 
 }
@@ -0,0 +1,27 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.taskrunner;
+
+/**
+ * Creates a task for a TaskRunner. Usually the constructor of the task is used, e.g. {@code MyTask::new}, which avoids
+ * the lookup of the constructor by reflection.
+ */
+@FunctionalInterface
+public interface TaskFactory<T extends Model> {
+    Task<T> create(TaskRunner<T> taskRunner, T model);
+}
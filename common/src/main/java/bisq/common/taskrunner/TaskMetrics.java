@@ -0,0 +1,96 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.taskrunner;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms of the tasks by task name. The latency is measured from the start of a task until it completed
+ * or failed, so it includes the time a task waits for asynchronous calls.
+ */
+public class TaskMetrics {
+    // Upper bounds of the buckets in ms. The last bucket holds all larger values.
+    private static final long[] BUCKET_BOUNDS_MS = {10, 50, 100, 500, 1000, 5000, 30000};
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static void record(String taskName, long latencyMs) {
+        HISTOGRAMS.computeIfAbsent(taskName, name -> new Histogram()).record(latencyMs);
+    }
+
+    public static Map<String, Histogram> getHistograms() {
+        return Map.copyOf(HISTOGRAMS);
+    }
+
+    public static long[] getBucketBoundsMs() {
+        return BUCKET_BOUNDS_MS.clone();
+    }
+
+    public static class Histogram {
+        private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalLatencyMs = new AtomicLong();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+
+        private void record(long latencyMs) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && latencyMs > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            bucketCounts.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        }
+
+        public long[] getBucketCounts() {
+            long[] counts = new long[bucketCounts.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = bucketCounts.get(i);
+            }
+            return counts;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getAverageLatencyMs() {
+            long numTasks = count.get();
+            return numTasks == 0 ? 0 : totalLatencyMs.get() / numTasks;
+        }
+
+        public long getMaxLatencyMs() {
+            return maxLatencyMs.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Histogram{" +
+                    "\n     bucketBoundsMs=" + Arrays.toString(BUCKET_BOUNDS_MS) +
+                    ",\n     bucketCounts=" + Arrays.toString(getBucketCounts()) +
+                    ",\n     count=" + getCount() +
+                    ",\n     averageLatencyMs=" + getAverageLatencyMs() +
+                    ",\n     maxLatencyMs=" + getMaxLatencyMs() +
+                    "\n}";
+        }
+    }
+}
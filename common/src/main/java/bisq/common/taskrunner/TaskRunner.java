@@ -19,24 +19,56 @@ package bisq.common.taskrunner;
 
 import bisq.common.handlers.ErrorMessageHandler;
 import bisq.common.handlers.ResultHandler;
+import bisq.common.util.Utilities;
 
+import java.lang.reflect.Constructor;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
+/**
+ * Runs tasks on a shared model. The tasks are executed in the order they have been added, the next task starts once
+ * the previous one has completed. Tasks added as a parallel group are independent of each other and run concurrently,
+ * the runner continues once all of them have completed.
+ */
 @Slf4j
 public class TaskRunner<T extends Model> {
-    private final Queue<Class<? extends Task<T>>> tasks = new LinkedBlockingQueue<>();
+    // Parallel tasks are usually waiting for remote calls, so we allow more threads than we have cores
+    private static final int MAX_PARALLEL_TASK_THREADS = 20;
+    private static final ExecutorService PARALLEL_TASK_EXECUTOR = Utilities.getListeningExecutorService("TaskRunner",
+            MAX_PARALLEL_TASK_THREADS,
+            MAX_PARALLEL_TASK_THREADS,
+            60,
+            new LinkedBlockingQueue<>());
+
+    // The constructors of tasks added by class are looked up only once
+    private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private final Queue<List<TaskFactory<T>>> steps = new LinkedBlockingQueue<>();
     private final T sharedModel;
     private final Class<T> sharedModelClass;
     private final ResultHandler resultHandler;
     private final ErrorMessageHandler errorMessageHandler;
-    private boolean failed = false;
-    private boolean isCanceled;
+    private volatile boolean failed = false;
+    private volatile boolean isCanceled;
 
-    private Class<? extends Task<T>> currentTask;
+    // Number of tasks of the current step which have not completed yet. Guarded by this.
+    private int numPendingTasks;
+    private final long startTime = System.currentTimeMillis();
+    @Nullable
+    private String slowestTaskName;
+    private long slowestTaskLatencyMs;
 
 
     public TaskRunner(T sharedModel, ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
@@ -53,7 +85,34 @@ public class TaskRunner<T extends Model> {
 
     @SafeVarargs
     public final void addTasks(Class<? extends Task<T>>... items) {
-        tasks.addAll(Arrays.asList(items));
+        Arrays.stream(items).forEach(item -> steps.add(Collections.singletonList(toTaskFactory(item))));
+    }
+
+    @SafeVarargs
+    public final void addTasks(TaskFactory<T>... items) {
+        Arrays.stream(items).forEach(item -> steps.add(Collections.singletonList(item)));
+    }
+
+    /**
+     * Adds tasks which do not depend on each other and can run concurrently. The next task starts after all of them
+     * have completed. If one of them fails, the error is reported once and the runner stops.
+     */
+    @SafeVarargs
+    public final void addParallelTasks(Class<? extends Task<T>>... items) {
+        List<TaskFactory<T>> taskFactories = new ArrayList<>();
+        Arrays.stream(items).forEach(item -> taskFactories.add(toTaskFactory(item)));
+        addParallelTasks(taskFactories);
+    }
+
+    @SafeVarargs
+    public final void addParallelTasks(TaskFactory<T>... items) {
+        addParallelTasks(Arrays.asList(items));
+    }
+
+    private void addParallelTasks(List<TaskFactory<T>> taskFactories) {
+        if (!taskFactories.isEmpty()) {
+            steps.add(taskFactories);
+        }
     }
 
     public void run() {
@@ -62,32 +121,96 @@ public class TaskRunner<T extends Model> {
 
     private void next() {
         if (!failed && !isCanceled) {
-            if (tasks.size() > 0) {
-                try {
-                    currentTask = tasks.poll();
-                    log.info("Run task: " + currentTask.getSimpleName());
-                    currentTask.getDeclaredConstructor(TaskRunner.class, sharedModelClass).newInstance(this, sharedModel).run();
-                } catch (Throwable throwable) {
-                    throwable.printStackTrace();
-                    handleErrorMessage("Error at taskRunner: " + throwable.getMessage());
+            List<TaskFactory<T>> step = steps.poll();
+            if (step != null) {
+                synchronized (this) {
+                    numPendingTasks = step.size();
                 }
+                // The first task runs on the calling thread as it is the case for sequential tasks
+                step.subList(1, step.size()).forEach(taskFactory -> PARALLEL_TASK_EXECUTOR.execute(() -> runTask(taskFactory)));
+                runTask(step.get(0));
             } else {
+                log.info("Completed tasks in {} ms. Slowest task: {} ({} ms)",
+                        System.currentTimeMillis() - startTime, slowestTaskName, slowestTaskLatencyMs);
                 resultHandler.handleResult();
             }
         }
     }
 
+    private void runTask(TaskFactory<T> taskFactory) {
+        Task<T> task = null;
+        try {
+            task = taskFactory.create(this, sharedModel);
+            log.info("Run task: " + task.getClass().getSimpleName());
+            task.startTime = System.currentTimeMillis();
+            task.run();
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+            handleErrorMessage(task, "Error at taskRunner: " + throwable.getMessage());
+        }
+    }
+
+    private TaskFactory<T> toTaskFactory(Class<? extends Task<T>> taskClass) {
+        return (taskRunner, model) -> {
+            try {
+                //noinspection unchecked
+                return (Task<T>) CONSTRUCTORS.computeIfAbsent(taskClass, this::getConstructor).newInstance(taskRunner, model);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create task " + taskClass.getSimpleName(), e);
+            }
+        };
+    }
+
+    private Constructor<?> getConstructor(Class<?> taskClass) {
+        try {
+            return taskClass.getDeclaredConstructor(TaskRunner.class, sharedModelClass);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Task " + taskClass.getSimpleName() + " has no matching constructor", e);
+        }
+    }
+
     public void cancel() {
         isCanceled = true;
     }
 
-    void handleComplete() {
-        next();
+    void handleComplete(Task<T> task) {
+        recordLatency(task);
+        boolean isStepCompleted;
+        synchronized (this) {
+            isStepCompleted = --numPendingTasks == 0;
+        }
+        if (isStepCompleted) {
+            next();
+        }
     }
 
-    void handleErrorMessage(String errorMessage) {
-        log.error("Task failed: " + currentTask.getSimpleName() + " / errorMessage: " + errorMessage);
-        failed = true;
+    void handleErrorMessage(@Nullable Task<T> task, String errorMessage) {
+        String taskName = task != null ? task.getClass().getSimpleName() : "unknown";
+        log.error("Task failed: " + taskName + " / errorMessage: " + errorMessage);
+        if (task != null) {
+            recordLatency(task);
+        }
+
+        // Only the first failure of parallel tasks gets reported
+        synchronized (this) {
+            if (failed) {
+                return;
+            }
+            failed = true;
+        }
         errorMessageHandler.handleErrorMessage(errorMessage);
     }
+
+    private void recordLatency(Task<T> task) {
+        String taskName = task.getClass().getSimpleName();
+        long latencyMs = System.currentTimeMillis() - task.startTime;
+        TaskMetrics.record(taskName, latencyMs);
+        log.debug("Task {} took {} ms", taskName, latencyMs);
+        synchronized (this) {
+            if (slowestTaskName == null || latencyMs > slowestTaskLatencyMs) {
+                slowestTaskName = taskName;
+                slowestTaskLatencyMs = latencyMs;
+            }
+        }
+    }
 }
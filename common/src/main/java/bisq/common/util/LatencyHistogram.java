@@ -0,0 +1,122 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Value;
+
+/**
+ * Lock-free histogram of latencies in microseconds with a bounded relative error, similar to an HdrHistogram.
+ * Values below 16 are counted exactly. Above, each power of two is split into 16 linear sub-buckets, so a
+ * percentile is reported at most 1/16 above the recorded value. Values above about 12 days are counted in the last
+ * bucket.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int NUM_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 39;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int NUM_BUCKETS = NUM_SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * NUM_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long valueInMicros) {
+        long value = Math.min(Math.max(valueInMicros, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public Snapshot getSnapshot() {
+        long[] snapshot = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long maxValue = max.get();
+        return new Snapshot(total,
+                sum.sum(),
+                maxValue,
+                getPercentile(snapshot, total, 0.5, maxValue),
+                getPercentile(snapshot, total, 0.9, maxValue),
+                getPercentile(snapshot, total, 0.99, maxValue));
+    }
+
+    @Value
+    public static class Snapshot {
+        long count;
+        long sumMicros;
+        long maxMicros;
+        long p50Micros;
+        long p90Micros;
+        long p99Micros;
+
+        public double getMeanMicros() {
+            return count > 0 ? (double) sumMicros / count : 0;
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    static int indexOf(long value) {
+        if (value < NUM_SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - NUM_SUB_BUCKETS;
+        return NUM_SUB_BUCKETS + shift * NUM_SUB_BUCKETS + subBucket;
+    }
+
+    // Highest value which is counted in the bucket
+    static long highestValueOf(int index) {
+        if (index < NUM_SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - NUM_SUB_BUCKETS) / NUM_SUB_BUCKETS;
+        int subBucket = (index - NUM_SUB_BUCKETS) % NUM_SUB_BUCKETS;
+        long lowestValue = (long) (NUM_SUB_BUCKETS + subBucket) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    private static long getPercentile(long[] counts, long total, double percentile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class UserThreadTest {
+    private final List<Runnable> submittedSteps = new ArrayList<>();
+    private Executor previousExecutor;
+
+    @Before
+    public void setUp() {
+        previousExecutor = UserThread.getExecutor();
+        UserThread.setExecutor(submittedSteps::add);
+    }
+
+    @After
+    public void tearDown() {
+        UserThread.setExecutor(previousExecutor);
+    }
+
+    @Test
+    public void testHighPriorityOvertakesQueuedTasks() {
+        List<String> executed = new ArrayList<>();
+        UserThread.execute(() -> executed.add("low"), UserThread.Priority.LOW);
+        UserThread.execute(() -> executed.add("normal1"));
+        UserThread.execute(() -> executed.add("normal2"));
+        UserThread.execute(() -> executed.add("high"), UserThread.Priority.HIGH);
+
+        submittedSteps.forEach(Runnable::run);
+
+        assertEquals(asList("high", "normal1", "normal2", "low"), executed);
+        assertEquals(0, UserThread.getNumQueuedTasks(UserThread.Priority.LOW));
+    }
+
+    @Test
+    public void testDirectExecutorRunsOnlyTheCallersTask() {
+        List<String> executed = new ArrayList<>();
+        // Queued for the user thread, e.g. by another thread
+        UserThread.execute(() -> executed.add("queued"));
+
+        UserThread.setExecutor(MoreExecutors.directExecutor());
+        UserThread.execute(() -> executed.add("direct"));
+
+        assertEquals(asList("direct"), executed);
+        submittedSteps.forEach(Runnable::run);
+        assertEquals(asList("direct", "queued"), executed);
+    }
+
+    @Test
+    public void testQueueDelayAndRunTimeGetRecorded() {
+        long numRecorded = UserThread.getRunTime().getCount();
+        UserThread.execute(() -> {
+        });
+        submittedSteps.forEach(Runnable::run);
+
+        assertEquals(numRecorded + 1, UserThread.getRunTime().getCount());
+        assertEquals(numRecorded + 1, UserThread.getQueueDelay().getCount());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.persistence;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JournalRecorderTest {
+    private static final byte[] KEY_1 = new byte[]{1};
+    private static final byte[] KEY_2 = new byte[]{2};
+    private static final byte[] VALUE = new byte[]{42};
+
+    @Test
+    public void testSnapshotRequiredBeforeReset() {
+        JournalRecorder recorder = new JournalRecorder();
+        recorder.recordPut(KEY_1, VALUE, true);
+
+        assertFalse(recorder.drain(1).isPresent());
+        // After the drain the recorder is consistent with the snapshot
+        recorder.recordPut(KEY_2, VALUE, true);
+        assertEquals(1, recorder.drain(2).get().size());
+    }
+
+    @Test
+    public void testDrainReturnsRecordsInOrder() {
+        JournalRecorder recorder = new JournalRecorder();
+        recorder.reset(0);
+        recorder.recordPut(KEY_1, VALUE, true);
+        recorder.recordPut(KEY_2, VALUE, true);
+        recorder.recordRemove(KEY_1, true);
+
+        Optional<List<JournalRecord>> records = recorder.drain(1);
+        assertTrue(records.isPresent());
+        assertEquals(JournalRecord.put(KEY_1, VALUE), records.get().get(0));
+        assertEquals(JournalRecord.put(KEY_2, VALUE), records.get().get(1));
+        assertEquals(JournalRecord.remove(KEY_1), records.get().get(2));
+        assertTrue(recorder.drain(1).get().isEmpty());
+    }
+
+    @Test
+    public void testSizeMismatchRequiresSnapshot() {
+        JournalRecorder recorder = new JournalRecorder();
+        recorder.reset(10);
+        recorder.recordPut(KEY_1, VALUE, true);
+
+        // The map got mutated without the recorder
+        assertFalse(recorder.drain(12).isPresent());
+    }
+
+    @Test
+    public void testRequireSnapshot() {
+        JournalRecorder recorder = new JournalRecorder();
+        recorder.reset(0);
+        recorder.recordPut(KEY_1, VALUE, true);
+        recorder.requireSnapshot();
+
+        assertFalse(recorder.drain(1).isPresent());
+    }
+
+    @Test
+    public void testRecordProtoRoundTrip() {
+        JournalRecord put = JournalRecord.put(KEY_1, VALUE);
+        JournalRecord remove = JournalRecord.remove(KEY_2);
+
+        assertEquals(put, JournalRecord.fromProto(put.toProtoMessage()));
+        assertEquals(remove, JournalRecord.fromProto(remove.toProtoMessage()));
+        assertTrue(JournalRecord.fromProto(remove.toProtoMessage()).isRemoval());
+    }
+}
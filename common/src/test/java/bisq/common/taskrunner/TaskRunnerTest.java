@@ -0,0 +1,157 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bisq.common.taskrunner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaskRunnerTest {
+    private final TestModel model = new TestModel();
+    private final AtomicInteger numResults = new AtomicInteger();
+    private final List<String> errorMessages = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testSequentialTasks() {
+        TaskRunner<TestModel> taskRunner = createTaskRunner();
+        taskRunner.addTasks(AddFirst.class);
+        taskRunner.addTasks((runner, model) -> new AddStep(runner, model, "second"));
+        taskRunner.run();
+
+        assertEquals(List.of("first", "second"), model.steps);
+        assertEquals(1, numResults.get());
+        assertTrue(TaskMetrics.getHistograms().get(AddFirst.class.getSimpleName()).getCount() >= 1);
+    }
+
+    @Test
+    public void testParallelTasks() throws InterruptedException {
+        // Each task waits until both have started, so they can only complete if they run concurrently
+        CountDownLatch started = new CountDownLatch(2);
+        TaskFactory<TestModel> waitingTask = (runner, model) -> new WaitingTask(runner, model, started);
+        CountDownLatch completed = new CountDownLatch(1);
+        TaskRunner<TestModel> taskRunner = new TaskRunner<>(model, completed::countDown, errorMessages::add);
+        taskRunner.addParallelTasks(waitingTask, waitingTask);
+        taskRunner.addTasks((runner, model) -> new AddStep(runner, model, "after"));
+        new Thread(taskRunner::run).start();
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("waited", "waited", "after"), model.steps);
+        assertTrue(errorMessages.isEmpty());
+    }
+
+    @Test
+    public void testFailedTaskStopsRunner() throws InterruptedException {
+        CountDownLatch errorReported = new CountDownLatch(1);
+        TaskRunner<TestModel> taskRunner = new TaskRunner<>(model, numResults::incrementAndGet, errorMessage -> {
+            errorMessages.add(errorMessage);
+            errorReported.countDown();
+        });
+        // The parallel task runs on another thread, so we also wait until it has failed
+        CountDownLatch tasksFailed = new CountDownLatch(2);
+        TaskFactory<TestModel> failingTask = (runner, model) -> new FailingTask(runner, model, tasksFailed);
+        taskRunner.addParallelTasks(failingTask, failingTask);
+        taskRunner.addTasks(AddFirst.class);
+        taskRunner.run();
+
+        assertTrue(errorReported.await(10, TimeUnit.SECONDS));
+        assertTrue(tasksFailed.await(10, TimeUnit.SECONDS));
+        assertTrue(model.steps.isEmpty());
+        assertEquals(0, numResults.get());
+        assertEquals(1, errorMessages.size());
+    }
+
+    private TaskRunner<TestModel> createTaskRunner() {
+        return new TaskRunner<>(model, numResults::incrementAndGet, errorMessages::add);
+    }
+
+    static class TestModel implements Model {
+        final List<String> steps = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    static class AddStep extends Task<TestModel> {
+        private final String step;
+
+        AddStep(TaskRunner<TestModel> taskHandler, TestModel model, String step) {
+            super(taskHandler, model);
+            this.step = step;
+        }
+
+        @Override
+        protected void run() {
+            model.steps.add(step);
+            complete();
+        }
+    }
+
+    static class AddFirst extends AddStep {
+        AddFirst(TaskRunner<TestModel> taskHandler, TestModel model) {
+            super(taskHandler, model, "first");
+        }
+    }
+
+    static class WaitingTask extends Task<TestModel> {
+        private final CountDownLatch started;
+
+        WaitingTask(TaskRunner<TestModel> taskHandler, TestModel model, CountDownLatch started) {
+            super(taskHandler, model);
+            this.started = started;
+        }
+
+        @Override
+        protected void run() {
+            try {
+                started.countDown();
+                if (!started.await(10, TimeUnit.SECONDS)) {
+                    failed("Tasks did not run in parallel");
+                    return;
+                }
+                model.steps.add("waited");
+                complete();
+            } catch (InterruptedException e) {
+                failed(e);
+            }
+        }
+    }
+
+    static class FailingTask extends Task<TestModel> {
+        private final CountDownLatch tasksFailed;
+
+        FailingTask(TaskRunner<TestModel> taskHandler, TestModel model, CountDownLatch tasksFailed) {
+            super(taskHandler, model);
+            this.tasksFailed = tasksFailed;
+        }
+
+        @Override
+        protected void run() {
+            failed("Failed on purpose");
+            tasksFailed.countDown();
+        }
+    }
+}
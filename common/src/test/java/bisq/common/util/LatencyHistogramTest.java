@@ -0,0 +1,62 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.common.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        int previousIndex = -1;
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previousIndex || index == previousIndex + 1);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+            // The relative error is at most 1/16
+            assertTrue(LatencyHistogram.highestValueOf(index) - value <= value / 16);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(100_000, snapshot.getMaxMicros());
+        assertEquals(50_500, snapshot.getMeanMicros(), 0.001);
+        assertTrue(snapshot.getP50Micros() >= 50_000 && snapshot.getP50Micros() <= 50_000 * 17 / 16);
+        assertTrue(snapshot.getP99Micros() >= 99_000 && snapshot.getP99Micros() <= 100_000);
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().getSnapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99Micros());
+        assertEquals(0, snapshot.getMeanMicros(), 0);
+    }
+}
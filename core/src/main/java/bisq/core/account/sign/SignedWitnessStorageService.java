@@ -77,6 +77,29 @@ public class SignedWitnessStorageService extends MapStoreService<SignedWitnessSt
     // Protected
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // The store keeps its bucket for the data requests up to date only if we change it with its own methods
+
+    @Override
+    protected void put(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
+        store.put(hash, payload);
+        requestPersistence();
+    }
+
+    @Override
+    protected PersistableNetworkPayload putIfAbsent(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
+        PersistableNetworkPayload previous = store.putIfAbsent(hash, payload);
+        requestPersistence();
+        return previous;
+    }
+
+    @Override
+    protected PersistableNetworkPayload remove(P2PDataStorage.ByteArray hash) {
+        PersistableNetworkPayload previous = store.getMap().get(hash);
+        store.remove(hash);
+        requestPersistence();
+        return previous;
+    }
+
     @Override
     protected SignedWitnessStore createStore() {
         return new SignedWitnessStore();
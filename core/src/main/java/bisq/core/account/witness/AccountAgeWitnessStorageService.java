@@ -19,6 +19,7 @@ package bisq.core.account.witness;
 
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.persistence.HistoricalDataStoreService;
+import bisq.network.p2p.storage.persistence.MappedPersistableNetworkPayloadMap;
 
 import bisq.common.config.Config;
 import bisq.common.persistence.PersistenceManager;
@@ -41,8 +42,9 @@ public class AccountAgeWitnessStorageService extends HistoricalDataStoreService<
 
     @Inject
     public AccountAgeWitnessStorageService(@Named(Config.STORAGE_DIR) File storageDir,
-                                           PersistenceManager<AccountAgeWitnessStore> persistenceManager) {
-        super(storageDir, persistenceManager);
+                                           PersistenceManager<AccountAgeWitnessStore> persistenceManager,
+                                           @Named(Config.USE_MAPPED_HISTORICAL_STORES) boolean useMappedHistoricalStores) {
+        super(storageDir, persistenceManager, useMappedHistoricalStores);
     }
 
 
@@ -70,6 +72,11 @@ public class AccountAgeWitnessStorageService extends HistoricalDataStoreService<
     // Protected
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    @Override
+    protected MappedPersistableNetworkPayloadMap.Decoder getMappedPayloadDecoder() {
+        return item -> AccountAgeWitness.fromProto(protobuf.AccountAgeWitness.parseFrom(item));
+    }
+
     @Override
     protected AccountAgeWitnessStore createStore() {
         return new AccountAgeWitnessStore();
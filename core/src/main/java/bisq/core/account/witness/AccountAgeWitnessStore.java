@@ -17,8 +17,10 @@
 
 package bisq.core.account.witness;
 
-import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadStore;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.persistence.JournaledPersistableNetworkPayloadStore;
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 
 import java.util.List;
@@ -33,7 +35,7 @@ import lombok.extern.slf4j.Slf4j;
  * definition and provide a hashMap for the domain access.
  */
 @Slf4j
-public class AccountAgeWitnessStore extends PersistableNetworkPayloadStore<AccountAgeWitness> {
+public class AccountAgeWitnessStore extends JournaledPersistableNetworkPayloadStore<AccountAgeWitness> {
 
     public AccountAgeWitnessStore() {
     }
@@ -66,4 +68,9 @@ public class AccountAgeWitnessStore extends PersistableNetworkPayloadStore<Accou
                 .map(AccountAgeWitness::fromProto).collect(Collectors.toList());
         return new AccountAgeWitnessStore(list);
     }
+
+    @Override
+    protected PersistableNetworkPayload payloadFromJournalValue(byte[] value) throws InvalidProtocolBufferException {
+        return AccountAgeWitness.fromProto(protobuf.PersistableNetworkPayload.parseFrom(value).getAccountAgeWitness());
+    }
 }
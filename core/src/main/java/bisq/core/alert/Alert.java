@@ -19,6 +19,7 @@ package bisq.core.alert;
 
 import bisq.core.user.Preferences;
 
+import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.ExpirablePayload;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 
@@ -150,6 +151,8 @@ public final class Alert implements ProtectedStoragePayload, ExpirablePayload {
         this.ownerPubKey = ownerPubKey;
 
         ownerPubKeyBytes = Sig.getPublicKeyBytes(ownerPubKey);
+        // The signature and key are part of the payload hash
+        P2PDataStorage.invalidateHash(this);
     }
 
     public boolean isNewVersion(Preferences preferences) {
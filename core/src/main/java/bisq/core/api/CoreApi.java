@@ -27,6 +27,7 @@ import bisq.core.api.model.TxFeeRateInfo;
 import bisq.core.app.AppStartupState;
 import bisq.core.monetary.Price;
 import bisq.core.offer.Offer;
+import bisq.core.offer.OfferBookService.OfferBookChangedListener;
 import bisq.core.offer.OfferDirection;
 import bisq.core.offer.OpenOffer;
 import bisq.core.payment.PaymentAccount;
@@ -36,10 +37,14 @@ import bisq.core.support.dispute.Dispute;
 import bisq.core.support.dispute.DisputeResult;
 import bisq.core.support.messages.ChatMessage;
 import bisq.core.trade.Trade;
+import bisq.core.trade.statistics.Candle;
 import bisq.core.trade.statistics.TradeStatistics3;
+import bisq.core.trade.statistics.TradeStatisticsCandles;
 import bisq.core.trade.statistics.TradeStatisticsManager;
 import bisq.core.xmr.MoneroNodeSettings;
 
+import bisq.network.p2p.network.MessageMetrics;
+
 import bisq.common.app.Version;
 import bisq.common.config.Config;
 import bisq.common.crypto.IncorrectPasswordException;
@@ -61,6 +66,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -76,6 +82,8 @@ import monero.common.MoneroRpcConnection;
 import monero.wallet.model.MoneroDestination;
 import monero.wallet.model.MoneroTxWallet;
 
+import javax.annotation.Nullable;
+
 /**
  * Provides high level interface to functionality of core Bisq features.
  * E.g. useful for different APIs to access data of different domains of Bisq.
@@ -353,14 +361,45 @@ public class CoreApi {
         walletsService.removeWalletPassword(password);
     }
 
-    public List<TradeStatistics3> getTradeStatistics() {
-        return new ArrayList<>(tradeStatisticsManager.getObservableTradeStatisticsSet());
+    public List<TradeStatistics3> getTradeStatistics(@Nullable String currencyCode,
+                                                     @Nullable String paymentMethodId,
+                                                     long fromDate,
+                                                     long toDate,
+                                                     @Nullable String cursor,
+                                                     int limit) {
+        return tradeStatisticsManager.getTradeStatisticsIndex().getTradeStatistics(
+                currencyCode == null ? null : currencyCode.toUpperCase(),
+                paymentMethodId,
+                fromDate,
+                toDate,
+                cursor,
+                limit);
+    }
+
+    public List<Candle> getCandles(String currencyCode, String tickUnit, long fromDate, long toDate, int limit) {
+        return tradeStatisticsManager.getTradeStatisticsCandles().getCandles(currencyCode.toUpperCase(),
+                TradeStatisticsCandles.TickUnit.valueOf(tickUnit.toUpperCase()),
+                fromDate,
+                toDate,
+                limit);
     }
 
     public int getNumConfirmationsForMostRecentTransaction(String addressString) {
         return walletsService.getNumConfirmationsForMostRecentTransaction(addressString);
     }
 
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Network metrics
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public List<MessageMetrics.MessageTypeMetrics> getNetworkMetrics() {
+        return MessageMetrics.getMessageTypeMetrics();
+    }
+
+    public String getNetworkMetricsAsPrometheusText() {
+        return MessageMetrics.toPrometheusText();
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Notifications
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -434,6 +473,18 @@ public class CoreApi {
         return coreOffersService.getMyOffers(direction, currencyCode);
     }
 
+    public List<Offer> getTakeableOffers(Collection<Offer> offers) {
+        return coreOffersService.getTakeableOffers(offers);
+    }
+
+    public void addOfferBookChangedListener(OfferBookChangedListener listener) {
+        coreOffersService.addOfferBookChangedListener(listener);
+    }
+
+    public void removeOfferBookChangedListener(OfferBookChangedListener listener) {
+        coreOffersService.removeOfferBookChangedListener(listener);
+    }
+
     public OpenOffer getMyOpenOffer(String id) {
         return coreOffersService.getMyOpenOffer(id);
     }
@@ -544,6 +595,10 @@ public class CoreApi {
         return corePriceService.getMarketDepth(currencyCode);
     }
 
+    public MarketDepthInfo computeMarketDepth(String currencyCode) {
+        return corePriceService.computeMarketDepth(currencyCode);
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Trades
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -43,6 +43,7 @@ import javax.inject.Singleton;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
@@ -106,8 +107,7 @@ public class CoreOffersService {
     }
 
     Offer getOffer(String id) {
-        return offerBookService.getOffers().stream()
-                .filter(o -> o.getId().equals(id))
+        return offerBookService.getOfferById(id)
                 .filter(o -> !o.isMyOffer(keyRing))
                 .filter(o -> {
                     Result result = offerFilter.canTakeOffer(o, coreContext.isApiUser());
@@ -115,7 +115,7 @@ public class CoreOffersService {
                     if (!valid) log.warn("Cannot take offer " + o.getId() + " with invalid state : " + result);
                     return valid;
                 })
-                .findAny().orElseThrow(() ->
+                .orElseThrow(() ->
                         new IllegalStateException(format("offer with id '%s' not found", id)));
     }
 
@@ -129,17 +129,30 @@ public class CoreOffersService {
     }
 
     List<Offer> getOffers(String direction, String currencyCode) {
-        List<Offer> offers = offerBookService.getOffers().stream()
+        List<Offer> offers = getTakeableOffers(offerBookService.getOffersByMarket(direction, currencyCode));
+        offers.sort(priceComparator(direction));
+        return offers;
+    }
+
+    // Removes my own offers, the offers we cannot take and the offers whose reserved funds are spent
+    List<Offer> getTakeableOffers(Collection<Offer> offers) {
+        List<Offer> takeableOffers = offers.stream()
                 .filter(o -> !o.isMyOffer(keyRing))
-                .filter(o -> offerMatchesDirectionAndCurrency(o, direction, currencyCode))
                 .filter(o -> {
                     Result result = offerFilter.canTakeOffer(o, coreContext.isApiUser());
                     return result.isValid() || result == Result.HAS_NO_PAYMENT_ACCOUNT_VALID_FOR_OFFER;
                 })
-                .sorted(priceComparator(direction))
                 .collect(Collectors.toList());
-        offers.removeAll(getUnreservedOffers(offers));
-        return offers;
+        takeableOffers.removeAll(getUnreservedOffers(takeableOffers));
+        return takeableOffers;
+    }
+
+    void addOfferBookChangedListener(OfferBookService.OfferBookChangedListener listener) {
+        offerBookService.addOfferBookChangedListener(listener);
+    }
+
+    void removeOfferBookChangedListener(OfferBookService.OfferBookChangedListener listener) {
+        offerBookService.removeOfferBookChangedListener(listener);
     }
 
     List<Offer> getMyOffers(String direction, String currencyCode) {
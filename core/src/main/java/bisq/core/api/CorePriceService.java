@@ -82,7 +82,14 @@ class CorePriceService {
      */
      public MarketDepthInfo getMarketDepth(String currencyCode) throws ExecutionException, InterruptedException, TimeoutException, IllegalArgumentException  {
         if (priceFeedService.requestAllPrices().get(currencyCode.toUpperCase()) == null) throw new IllegalArgumentException("Currency not found: " + currencyCode) ;
+        return computeMarketDepth(currencyCode);
+    }
 
+    /**
+     * Computes the market depth from the offer book without requesting the prices, so the currency code
+     * is expected to be validated by getMarketDepth before. Used for the updates of market depth subscriptions.
+     */
+    public MarketDepthInfo computeMarketDepth(String currencyCode) {
         // Offer price can be null (if price feed unavailable), thus a null-tolerant comparator is used.
         Comparator<Offer> offerPriceComparator = Comparator.comparing(Offer::getPrice, Comparator.nullsLast(Comparator.naturalOrder()));
 
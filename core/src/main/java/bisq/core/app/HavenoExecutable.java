@@ -48,7 +48,9 @@ import bisq.common.util.Utilities;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -223,16 +225,31 @@ public abstract class HavenoExecutable implements GracefulShutDownHandler, Haven
             hosts.addAll(additionalHosts);
         }
 
+        long ts = System.currentTimeMillis();
         AtomicInteger remaining = new AtomicInteger(hosts.size());
         hosts.forEach(host -> {
             host.readPersisted(() -> {
                 if (remaining.decrementAndGet() == 0) {
+                    logReadDurations(hosts.size(), System.currentTimeMillis() - ts);
                     UserThread.execute(completeHandler);
                 }
             });
         });
     }
 
+    private void logReadDurations(int numHosts, long duration) {
+        Map<String, Long> readDurationByFileName = PersistenceManager.getReadDurationByFileName();
+        long sumOfReadDurations = readDurationByFileName.values().stream().mapToLong(Long::longValue).sum();
+        String slowestFiles = readDurationByFileName.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .map(entry -> entry.getKey() + ": " + entry.getValue() + " ms")
+                .collect(Collectors.joining(", "));
+        log.info("Reading persisted data of {} hosts completed in {} ms. Sum of the read durations of {} files: {} ms. " +
+                        "Slowest files: {}",
+                numHosts, duration, readDurationByFileName.size(), sumOfReadDurations, slowestFiles);
+    }
+
     protected void setupAvoidStandbyMode() {
     }
 
@@ -19,6 +19,7 @@ import bisq.core.offer.Offer;
 import bisq.core.trade.MakerTrade;
 import bisq.core.trade.SellerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.TradeManager;
 import bisq.core.trade.TradeUtils;
 import bisq.core.util.ParsingUtils;
@@ -36,8 +37,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -609,38 +609,25 @@ public class XmrWalletService {
 
     private void changeWalletPasswords(String oldPassword, String newPassword) {
         List<String> tradeIds = tradeManager.getOpenTrades().stream().map(Trade::getId).collect(Collectors.toList());
-        ExecutorService pool = Executors.newFixedThreadPool(Math.min(10, 1 + tradeIds.size()));
-        pool.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    wallet.changePassword(oldPassword, newPassword);
-                    saveWallet(wallet);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw e;
-                }
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(TradeExecutor.execute(wallet.getPath(), () -> {
+            try {
+                wallet.changePassword(oldPassword, newPassword);
+                saveWallet(wallet);
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw e;
             }
-        });
+        }));
         for (String tradeId : tradeIds) {
-            pool.submit(new Runnable() {
-                @Override
-                public void run() {
-                    MoneroWallet multisigWallet = getMultisigWallet(tradeId); // TODO (woodser): this unnecessarily connects and syncs unopen wallets and leaves open
-                    if (multisigWallet == null) return;
-                    multisigWallet.changePassword(oldPassword, newPassword);
-                    saveWallet(multisigWallet);
-                }
-            });
-        }
-        pool.shutdown();
-        try {
-            if (!pool.awaitTermination(60000, TimeUnit.SECONDS)) pool.shutdownNow();
-        } catch (InterruptedException e) {
-            try { pool.shutdownNow(); }
-            catch (Exception e2) { }
-            throw new RuntimeException(e);
+            futures.add(TradeExecutor.execute(tradeId, () -> {
+                MoneroWallet multisigWallet = getMultisigWallet(tradeId); // TODO (woodser): this unnecessarily connects and syncs unopen wallets and leaves open
+                if (multisigWallet == null) return;
+                multisigWallet.changePassword(oldPassword, newPassword);
+                saveWallet(multisigWallet);
+            }));
         }
+        TradeExecutor.awaitAll(futures, TimeUnit.SECONDS.toMillis(60));
     }
 
     private void closeWallet(MoneroWallet walletRpc, boolean save) {
@@ -679,26 +666,17 @@ public class XmrWalletService {
         if (openWallets.isEmpty()) return;
 
         // close all wallets in parallel
-        ExecutorService pool = Executors.newFixedThreadPool(Math.min(10, openWallets.size()));
+        List<Future<?>> futures = new ArrayList<>();
         for (MoneroWallet openWallet : openWallets) {
-            pool.submit(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        closeWallet(openWallet, true);
-                    } catch (Exception e) {
-                        log.warn("Error closing monero-wallet-rpc subprocess. Was Haveno stopped manually with ctrl+c?");
-                    }
+            futures.add(TradeExecutor.execute(openWallet.getPath(), () -> {
+                try {
+                    closeWallet(openWallet, true);
+                } catch (Exception e) {
+                    log.warn("Error closing monero-wallet-rpc subprocess. Was Haveno stopped manually with ctrl+c?");
                 }
-            });
-        }
-        pool.shutdown();
-        try {
-            if (!pool.awaitTermination(60000, TimeUnit.SECONDS)) pool.shutdownNow();
-        } catch (InterruptedException e) {
-            pool.shutdownNow();
-            throw new RuntimeException(e);
+            }));
         }
+        TradeExecutor.awaitAll(futures, TimeUnit.SECONDS.toMillis(60));
 
         // clear wallets
         wallet = null;
@@ -171,15 +171,7 @@ public class Offer implements NetworkPayload, PersistablePayload {
         checkNotNull(priceFeedService, "priceFeed must not be null");
         MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
         if (marketPrice != null && marketPrice.isRecentExternalPriceAvailable()) {
-            double factor;
-            double marketPriceMargin = offerPayload.getMarketPriceMarginPct();
-            if (CurrencyUtil.isCryptoCurrency(currencyCode)) {
-                factor = getDirection() == OfferDirection.SELL ?
-                        1 - marketPriceMargin : 1 + marketPriceMargin;
-            } else {
-                factor = getDirection() == OfferDirection.BUY ?
-                        1 - marketPriceMargin : 1 + marketPriceMargin;
-            }
+            double factor = getMarketPriceFactor();
             double marketPriceAsDouble = marketPrice.getPrice();
             double targetPriceAsDouble = marketPriceAsDouble * factor;
             try {
@@ -201,6 +193,19 @@ public class Offer implements NetworkPayload, PersistablePayload {
         }
     }
 
+    // The factor applied to the market price if the offer uses a market based price. Offers of the same market have
+    // the same order by their factor as by their price.
+    public double getMarketPriceFactor() {
+        double marketPriceMargin = offerPayload.getMarketPriceMarginPct();
+        if (CurrencyUtil.isCryptoCurrency(getCurrencyCode())) {
+            return getDirection() == OfferDirection.SELL ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        } else {
+            return getDirection() == OfferDirection.BUY ?
+                    1 - marketPriceMargin : 1 + marketPriceMargin;
+        }
+    }
+
     public long getFixedPrice() {
         return offerPayload.getPrice();
     }
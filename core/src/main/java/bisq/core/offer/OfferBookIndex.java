@@ -0,0 +1,185 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.monetary.Price;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Index of the offer book by market and direction, maintained from the changes of the P2P data map. Offers with a
+ * fixed price are kept sorted by their price and market based offers by their factor on the market price, so the
+ * offers of a market get returned in price order without scanning the whole P2P data map. The Offer of an
+ * OfferPayload is created once and shared by all queries.
+ * <p>
+ * The index gets updated from the UserThread, queries can come from any thread.
+ */
+@ThreadSafe
+class OfferBookIndex {
+    private static final Comparator<Offer> FIXED_PRICE_COMPARATOR = Comparator.comparingLong(Offer::getFixedPrice)
+            .thenComparing(Offer::getId);
+    private static final Comparator<Offer> MARKET_PRICE_FACTOR_COMPARATOR = Comparator.comparingDouble(Offer::getMarketPriceFactor)
+            .thenComparing(Offer::getId);
+
+    private final Map<String, Offer> offerById = new HashMap<>();
+    private final Map<String, Market> marketByKey = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Replaces an offer with the same id
+    synchronized void add(Offer offer) {
+        Offer previousOffer = offerById.put(offer.getId(), offer);
+        if (previousOffer != null) {
+            removeFromMarket(previousOffer);
+        }
+        marketByKey.computeIfAbsent(getMarketKey(offer.getCurrencyCode(), offer.getDirection()), key -> new Market())
+                .add(offer);
+    }
+
+    /**
+     * @return The indexed offer of the payload or null if the payload is not indexed
+     */
+    @Nullable
+    synchronized Offer remove(OfferPayload offerPayload) {
+        Offer offer = offerById.get(offerPayload.getId());
+        // An offer with the same id might have replaced the payload already
+        if (offer == null || !offer.getOfferPayload().equals(offerPayload)) {
+            return null;
+        }
+
+        offerById.remove(offerPayload.getId());
+        removeFromMarket(offer);
+        return offer;
+    }
+
+    @Nullable
+    synchronized Offer get(String id) {
+        return offerById.get(id);
+    }
+
+    synchronized List<Offer> getAll() {
+        return new ArrayList<>(offerById.values());
+    }
+
+    /**
+     * @return The offers of the market in ascending price order. Market based offers are at the end if we do not
+     * have a market price.
+     */
+    synchronized List<Offer> getOffers(String currencyCode, OfferDirection direction) {
+        Market market = marketByKey.get(getMarketKey(currencyCode, direction));
+        return market != null ? market.getOffersSortedByPrice() : new ArrayList<>();
+    }
+
+    synchronized int size() {
+        return offerById.size();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void removeFromMarket(Offer offer) {
+        String key = getMarketKey(offer.getCurrencyCode(), offer.getDirection());
+        Market market = marketByKey.get(key);
+        if (market != null) {
+            market.remove(offer);
+            if (market.isEmpty()) {
+                marketByKey.remove(key);
+            }
+        }
+    }
+
+    private static String getMarketKey(String currencyCode, OfferDirection direction) {
+        return currencyCode.toUpperCase() + "_" + direction.name();
+    }
+
+    private static final class Market {
+        private final NavigableSet<Offer> fixedPriceOffers = new TreeSet<>(FIXED_PRICE_COMPARATOR);
+        private final NavigableSet<Offer> marketBasedPriceOffers = new TreeSet<>(MARKET_PRICE_FACTOR_COMPARATOR);
+
+        private void add(Offer offer) {
+            getOffers(offer).add(offer);
+        }
+
+        private void remove(Offer offer) {
+            getOffers(offer).remove(offer);
+        }
+
+        private boolean isEmpty() {
+            return fixedPriceOffers.isEmpty() && marketBasedPriceOffers.isEmpty();
+        }
+
+        // Both sets are in price order, so we only need to merge them
+        private List<Offer> getOffersSortedByPrice() {
+            List<Offer> result = new ArrayList<>(fixedPriceOffers.size() + marketBasedPriceOffers.size());
+            // All market based offers use the same market price, so either all or none have a price
+            if (marketBasedPriceOffers.isEmpty() || marketBasedPriceOffers.first().getPrice() == null) {
+                result.addAll(fixedPriceOffers);
+                result.addAll(marketBasedPriceOffers);
+                return result;
+            }
+
+            PeekingIterator<Offer> fixedPriceIterator = Iterators.peekingIterator(fixedPriceOffers.iterator());
+            PeekingIterator<Offer> marketBasedPriceIterator = Iterators.peekingIterator(marketBasedPriceOffers.iterator());
+            Price fixedPrice = null;
+            Price marketBasedPrice = null;
+            while (fixedPriceIterator.hasNext() && marketBasedPriceIterator.hasNext()) {
+                if (fixedPrice == null) {
+                    fixedPrice = fixedPriceIterator.peek().getPrice();
+                }
+                if (marketBasedPrice == null) {
+                    marketBasedPrice = marketBasedPriceIterator.peek().getPrice();
+                    if (marketBasedPrice == null) {
+                        // The market price got unavailable in the meantime
+                        break;
+                    }
+                }
+                if (fixedPrice.compareTo(marketBasedPrice) <= 0) {
+                    result.add(fixedPriceIterator.next());
+                    fixedPrice = null;
+                } else {
+                    result.add(marketBasedPriceIterator.next());
+                    marketBasedPrice = null;
+                }
+            }
+            fixedPriceIterator.forEachRemaining(result::add);
+            marketBasedPriceIterator.forEachRemaining(result::add);
+            return result;
+        }
+
+        private NavigableSet<Offer> getOffers(Offer offer) {
+            return offer.isUseMarketBasedPrice() ? marketBasedPriceOffers : fixedPriceOffers;
+        }
+    }
+}
@@ -39,9 +39,10 @@ import javax.inject.Named;
 import java.io.File;
 
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -51,7 +52,8 @@ import javax.annotation.Nullable;
 
 /**
  * Handles storage and retrieval of offers.
- * Uses an invalidation flag to only request the full offer map in case there was a change (anyone has added or removed an offer).
+ * The offers are kept in an index which gets updated with each change of the P2P data map, so queries do not need
+ * to scan the whole data map.
  */
 public class OfferBookService {
     private static final Logger log = LoggerFactory.getLogger(OfferBookService.class);
@@ -64,9 +66,11 @@ public class OfferBookService {
 
     private final P2PService p2PService;
     private final PriceFeedService priceFeedService;
-    private final List<OfferBookChangedListener> offerBookChangedListeners = new LinkedList<>();
+    // Listeners of API subscriptions get added and removed from the gRPC threads
+    private final List<OfferBookChangedListener> offerBookChangedListeners = new CopyOnWriteArrayList<>();
     private final FilterManager filterManager;
     private final JsonFileManager jsonFileManager;
+    private final OfferBookIndex offerBookIndex = new OfferBookIndex();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -84,29 +88,19 @@ public class OfferBookService {
         this.filterManager = filterManager;
         jsonFileManager = new JsonFileManager(storageDir);
 
+        toOffers(p2PService.getDataMap().values()).forEach(offerBookIndex::add);
         p2PService.addHashSetChangedListener(new HashMapChangedListener() {
             @Override
             public void onAdded(Collection<ProtectedStorageEntry> protectedStorageEntries) {
-                protectedStorageEntries.forEach(protectedStorageEntry -> offerBookChangedListeners.forEach(listener -> {
-                    if (protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayload) {
-                        OfferPayload offerPayload = (OfferPayload) protectedStorageEntry.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayload);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onAdded(offer);
-                    }
-                }));
+                List<Offer> offers = toOffers(protectedStorageEntries);
+                offers.forEach(offerBookIndex::add);
+                offerBookChangedListeners.forEach(listener -> offers.forEach(listener::onAdded));
             }
 
             @Override
             public void onRemoved(Collection<ProtectedStorageEntry> protectedStorageEntries) {
-                protectedStorageEntries.forEach(protectedStorageEntry -> offerBookChangedListeners.forEach(listener -> {
-                    if (protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayload) {
-                        OfferPayload offerPayload = (OfferPayload) protectedStorageEntry.getProtectedStoragePayload();
-                        Offer offer = new Offer(offerPayload);
-                        offer.setPriceFeedService(priceFeedService);
-                        listener.onRemoved(offer);
-                    }
-                }));
+                List<Offer> offers = removeFromIndex(protectedStorageEntries);
+                offerBookChangedListeners.forEach(listener -> offers.forEach(listener::onRemoved));
             }
         });
 
@@ -166,6 +160,23 @@ public class OfferBookService {
         }
     }
 
+    public void refreshTTL(Collection<OfferPayload> offerPayloads,
+                           ResultHandler resultHandler,
+                           ErrorMessageHandler errorMessageHandler) {
+        if (filterManager.requireUpdateToNewVersionForTrading()) {
+            errorMessageHandler.handleErrorMessage(Res.get("popup.warning.mandatoryUpdate.trading"));
+            return;
+        }
+
+        int numRefreshed = p2PService.refreshTTL(offerPayloads);
+        if (numRefreshed == offerPayloads.size()) {
+            resultHandler.handleResult();
+        } else {
+            errorMessageHandler.handleErrorMessage("Refresh TTL failed for " + (offerPayloads.size() - numRefreshed) +
+                    " of " + offerPayloads.size() + " offers.");
+        }
+    }
+
     public void activateOffer(Offer offer,
                               @Nullable ResultHandler resultHandler,
                               @Nullable ErrorMessageHandler errorMessageHandler) {
@@ -191,20 +202,30 @@ public class OfferBookService {
     }
 
     public List<Offer> getOffers() {
-        return p2PService.getDataMap().values().stream()
-                .filter(data -> data.getProtectedStoragePayload() instanceof OfferPayload)
-                .map(data -> {
-                    OfferPayload offerPayload = (OfferPayload) data.getProtectedStoragePayload();
-                    Offer offer = new Offer(offerPayload);
-                    offer.setPriceFeedService(priceFeedService);
-                    return offer;
-                })
-                .collect(Collectors.toList());
+        return offerBookIndex.getAll();
     }
 
+    public Optional<Offer> getOfferById(String id) {
+        return Optional.ofNullable(offerBookIndex.get(id));
+    }
+
+    /**
+     * @param direction     name of the OfferDirection
+     * @param currencyCode  the currency traded against XMR
+     * @return the offers of the market sorted by ascending price
+     */
+    public List<Offer> getOffersByMarket(String direction, String currencyCode) {
+        return offerBookIndex.getOffers(currencyCode, OfferDirection.valueOf(direction.toUpperCase()));
+    }
+
+    /**
+     * @param direction     name of the OfferDirection
+     * @param currencyCode  the base currency code of the offers, which is XMR for all fiat offers
+     * @return the offers with the given base currency code, not sorted
+     */
     public List<Offer> getOffersByCurrency(String direction, String currencyCode) {
         return getOffers().stream()
-                .filter(o -> o.getOfferPayload().getBaseCurrencyCode().equalsIgnoreCase(currencyCode) && o.getDirection().name() == direction)
+                .filter(o -> o.getOfferPayload().getBaseCurrencyCode().equalsIgnoreCase(currencyCode) && o.getDirection().name().equalsIgnoreCase(direction))
                 .collect(Collectors.toList());
     }
 
@@ -220,11 +241,43 @@ public class OfferBookService {
         offerBookChangedListeners.add(offerBookChangedListener);
     }
 
+    public void removeOfferBookChangedListener(OfferBookChangedListener offerBookChangedListener) {
+        offerBookChangedListeners.remove(offerBookChangedListener);
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    // The offers get created once per batch of entries and are shared by all listeners
+    private List<Offer> toOffers(Collection<ProtectedStorageEntry> protectedStorageEntries) {
+        return protectedStorageEntries.stream()
+                .filter(protectedStorageEntry -> protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayload)
+                .map(protectedStorageEntry -> {
+                    Offer offer = new Offer((OfferPayload) protectedStorageEntry.getProtectedStoragePayload());
+                    offer.setPriceFeedService(priceFeedService);
+                    return offer;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // We pass the indexed offers to the listeners, so they get the same instances as from the getters
+    private List<Offer> removeFromIndex(Collection<ProtectedStorageEntry> protectedStorageEntries) {
+        return protectedStorageEntries.stream()
+                .filter(protectedStorageEntry -> protectedStorageEntry.getProtectedStoragePayload() instanceof OfferPayload)
+                .map(protectedStorageEntry -> {
+                    OfferPayload offerPayload = (OfferPayload) protectedStorageEntry.getProtectedStoragePayload();
+                    Offer offer = offerBookIndex.remove(offerPayload);
+                    if (offer == null) {
+                        offer = new Offer(offerPayload);
+                        offer.setPriceFeedService(priceFeedService);
+                    }
+                    return offer;
+                })
+                .collect(Collectors.toList());
+    }
+
     private void doDumpStatistics() {
         // We filter the case that it is a MarketBasedPrice but the price is not available
         // That should only be possible if the price feed provider is not available
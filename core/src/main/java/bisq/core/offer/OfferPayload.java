@@ -18,6 +18,7 @@
 package bisq.core.offer;
 
 import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.ExpirablePayload;
 import bisq.network.p2p.storage.payload.ProtectedStoragePayload;
 import bisq.network.p2p.storage.payload.RequiresOwnerIsOnlinePayload;
@@ -40,7 +41,6 @@ import java.lang.reflect.Type;
 import java.security.PublicKey;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.annotation.Nullable;
@@ -77,13 +77,10 @@ public final class OfferPayload implements ProtectedStoragePayload, ExpirablePay
     protected final Map<String, String> extraDataMap;
     
     // address and signature of signing arbitrator
-    @Setter
     @Nullable
     protected NodeAddress arbitratorSigner;
-    @Setter
     @Nullable
     protected String arbitratorSignature;
-    @Setter
     @Nullable
     protected List<String> reserveTxKeyImages;
     
@@ -119,7 +116,6 @@ public final class OfferPayload implements ProtectedStoragePayload, ExpirablePay
     private final boolean useMarketBasedPrice;
 
     // Mutable property. Has to be set before offer is saved in P2P network as it changes the payload hash!
-    @Setter
     @Nullable
     private String offerFeePaymentTxId;
     @Nullable
@@ -245,6 +241,28 @@ public final class OfferPayload implements ProtectedStoragePayload, ExpirablePay
         return this.hash;
     }
 
+    // The setters of the mutable properties drop the cached P2P hash, as they change the payload hash
+
+    public void setArbitratorSigner(@Nullable NodeAddress arbitratorSigner) {
+        this.arbitratorSigner = arbitratorSigner;
+        P2PDataStorage.invalidateHash(this);
+    }
+
+    public void setArbitratorSignature(@Nullable String arbitratorSignature) {
+        this.arbitratorSignature = arbitratorSignature;
+        P2PDataStorage.invalidateHash(this);
+    }
+
+    public void setReserveTxKeyImages(@Nullable List<String> reserveTxKeyImages) {
+        this.reserveTxKeyImages = reserveTxKeyImages;
+        P2PDataStorage.invalidateHash(this);
+    }
+
+    public void setOfferFeePaymentTxId(@Nullable String offerFeePaymentTxId) {
+        this.offerFeePaymentTxId = offerFeePaymentTxId;
+        P2PDataStorage.invalidateHash(this);
+    }
+
     @Override
     public long getTTL() {
         return TTL;
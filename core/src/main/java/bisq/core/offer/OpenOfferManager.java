@@ -85,6 +85,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -475,6 +476,27 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
                 errorMessageHandler);
     }
 
+    // Used to deactivate all offers triggered by a price update at once, completes after all offers are processed
+    public void deactivateOpenOffers(List<OpenOffer> openOffers, @Nullable Runnable completeHandler) {
+        if (openOffers.isEmpty()) {
+            if (completeHandler != null)
+                completeHandler.run();
+            return;
+        }
+
+        AtomicInteger numPending = new AtomicInteger(openOffers.size());
+        ResultHandler onProcessed = () -> {
+            if (numPending.decrementAndGet() == 0 && completeHandler != null)
+                completeHandler.run();
+        };
+        new ArrayList<>(openOffers).forEach(openOffer -> deactivateOpenOffer(openOffer,
+                onProcessed,
+                errorMessage -> {
+                    log.warn("Deactivating open offer {} failed: {}", openOffer.getShortId(), errorMessage);
+                    onProcessed.handleResult();
+                }));
+    }
+
     public void removeOpenOffer(OpenOffer openOffer,
                                 ResultHandler resultHandler,
                                 ErrorMessageHandler errorMessageHandler) {
@@ -1293,22 +1315,15 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
         if (periodicRefreshOffersTimer == null)
             periodicRefreshOffersTimer = UserThread.runPeriodically(() -> {
                         if (!stopped) {
-                            int size = openOffers.size();
-                            //we clone our list as openOffers might change during our delayed call
-                            final ArrayList<OpenOffer> openOffersList = new ArrayList<>(openOffers.getList());
-                            for (int i = 0; i < size; i++) {
-                                // we delay to avoid reaching throttle limits
-                                // roughly 4 offers per second
-
-                                long delay = 300;
-                                final long minDelay = (i + 1) * delay;
-                                final long maxDelay = (i + 2) * delay;
-                                final OpenOffer openOffer = openOffersList.get(i);
-                                UserThread.runAfterRandomDelay(() -> {
-                                    // we need to check if in the meantime the offer has been removed
-                                    if (openOffers.contains(openOffer) && !openOffer.isDeactivated())
-                                        refreshOffer(openOffer);
-                                }, minDelay, maxDelay, TimeUnit.MILLISECONDS);
+                            // We refresh all offers at once, the refreshes get sent in batches instead of one
+                            // message per offer. Peers not supporting the batch still get one refresh per offer
+                            // every 300 ms from the Broadcaster.
+                            List<OfferPayload> offerPayloads = openOffers.getList().stream()
+                                    .filter(openOffer -> !openOffer.isDeactivated())
+                                    .map(openOffer -> openOffer.getOffer().getOfferPayload())
+                                    .collect(Collectors.toList());
+                            if (!offerPayloads.isEmpty()) {
+                                refreshOffers(offerPayloads);
                             }
                         } else {
                             log.debug("We have stopped already. We ignore that periodicRefreshOffersTimer.run call.");
@@ -1320,9 +1335,9 @@ public class OpenOfferManager implements PeerManager.Listener, DecryptedDirectMe
             log.trace("periodicRefreshOffersTimer already stated");
     }
 
-    private void refreshOffer(OpenOffer openOffer) {
-        offerBookService.refreshTTL(openOffer.getOffer().getOfferPayload(),
-                () -> log.debug("Successful refreshed TTL for offer"),
+    private void refreshOffers(List<OfferPayload> offerPayloads) {
+        offerBookService.refreshTTL(offerPayloads,
+                () -> log.debug("Successful refreshed TTL for {} offers", offerPayloads.size()),
                 log::warn);
     }
 
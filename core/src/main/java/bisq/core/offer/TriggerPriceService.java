@@ -34,20 +34,28 @@ import org.bitcoinj.utils.Fiat;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import javafx.beans.value.ChangeListener;
+
 import javafx.collections.ListChangeListener;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import lombok.extern.slf4j.Slf4j;
 
 import static bisq.common.util.MathUtils.roundDoubleToLong;
 import static bisq.common.util.MathUtils.scaleUpByPowerOf10;
 
+/**
+ * Deactivates open offers once the market price crosses their trigger price. The open offers with a trigger price are
+ * kept sorted by the trigger price per currency, so a price update only visits the offers whose trigger price was
+ * crossed instead of all open offers.
+ */
 @Slf4j
 @Singleton
 public class TriggerPriceService {
@@ -55,7 +63,12 @@ public class TriggerPriceService {
     private final OpenOfferManager openOfferManager;
     private final MempoolService mempoolService;
     private final PriceFeedService priceFeedService;
-    private final Map<String, Set<OpenOffer>> openOffersByCurrency = new HashMap<>();
+    private final Map<String, TriggerPrices> triggerPricesByCurrency = new HashMap<>();
+    // Listeners for the activation of the open offers with a trigger price by offer id
+    private final Map<String, ChangeListener<OpenOffer.State>> stateListeners = new HashMap<>();
+    // Open offers whose maker tx was not validated against the mempool yet by offer id. The state is part of the
+    // equals of an open offer, so we cannot keep them in a set.
+    private final Map<String, OpenOffer> openOffersToValidate = new LinkedHashMap<>();
 
     @Inject
     public TriggerPriceService(P2PService p2PService,
@@ -98,15 +111,31 @@ public class TriggerPriceService {
     }
 
     private void onPriceFeedChanged() {
-        openOffersByCurrency.keySet().stream()
-                .map(priceFeedService::getMarketPrice)
-                .filter(Objects::nonNull)
-                .filter(marketPrice -> openOffersByCurrency.containsKey(marketPrice.getCurrencyCode()))
-                .forEach(marketPrice -> {
-                    openOffersByCurrency.get(marketPrice.getCurrencyCode()).stream()
-                            .filter(openOffer -> !openOffer.isDeactivated())
-                            .forEach(openOffer -> checkPriceThreshold(marketPrice, openOffer));
-                });
+        List<OpenOffer> triggeredOpenOffers = new ArrayList<>();
+        triggerPricesByCurrency.forEach((currencyCode, triggerPrices) -> {
+            MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
+            if (marketPrice == null) {
+                return;
+            }
+
+            // Only active offers are kept in the trigger prices
+            triggerPrices.getCrossed(toMarketPriceAsLong(marketPrice, currencyCode)).stream()
+                    .filter(openOffer -> wasTriggered(marketPrice, openOffer))
+                    .forEach(openOffer -> {
+                        logTriggered(marketPrice, openOffer);
+                        triggeredOpenOffers.add(openOffer);
+                    });
+        });
+        if (!triggeredOpenOffers.isEmpty()) {
+            openOfferManager.deactivateOpenOffers(triggeredOpenOffers, null);
+        }
+
+        // Copy as the offers get removed once their validation is requested
+        new ArrayList<>(openOffersToValidate.values()).forEach(openOffer -> {
+            if (!triggeredOpenOffers.contains(openOffer)) {
+                maybeValidateMempool(openOffer);
+            }
+        });
     }
 
     public static boolean wasTriggered(MarketPrice marketPrice, OpenOffer openOffer) {
@@ -115,87 +144,172 @@ public class TriggerPriceService {
             return false;
         }
 
-        String currencyCode = openOffer.getOffer().getCurrencyCode();
-        boolean cryptoCurrency = CurrencyUtil.isCryptoCurrency(currencyCode);
-        int smallestUnitExponent = cryptoCurrency ?
-                Altcoin.SMALLEST_UNIT_EXPONENT :
-                Fiat.SMALLEST_UNIT_EXPONENT;
-        long marketPriceAsLong = roundDoubleToLong(
-                scaleUpByPowerOf10(marketPrice.getPrice(), smallestUnitExponent));
+        long marketPriceAsLong = toMarketPriceAsLong(marketPrice, openOffer.getOffer().getCurrencyCode());
         long triggerPrice = openOffer.getTriggerPrice();
         if (triggerPrice <= 0) {
             return false;
         }
 
-        OfferDirection direction = openOffer.getOffer().getDirection();
-        boolean isSellOffer = direction == OfferDirection.SELL;
-        boolean condition = isSellOffer && !cryptoCurrency || !isSellOffer && cryptoCurrency;
-        return condition ?
+        return isTriggeredBelow(openOffer) ?
                 marketPriceAsLong < triggerPrice :
                 marketPriceAsLong > triggerPrice;
     }
 
-    private void checkPriceThreshold(MarketPrice marketPrice, OpenOffer openOffer) {
-        if (wasTriggered(marketPrice, openOffer)) {
-            String currencyCode = openOffer.getOffer().getCurrencyCode();
-            int smallestUnitExponent = CurrencyUtil.isCryptoCurrency(currencyCode) ?
-                    Altcoin.SMALLEST_UNIT_EXPONENT :
-                    Fiat.SMALLEST_UNIT_EXPONENT;
-            long triggerPrice = openOffer.getTriggerPrice();
-
-            log.info("Market price exceeded the trigger price of the open offer.\n" +
-                            "We deactivate the open offer with ID {}.\nCurrency: {};\nOffer direction: {};\n" +
-                            "Market price: {};\nTrigger price: {}",
-                    openOffer.getOffer().getShortId(),
-                    currencyCode,
-                    openOffer.getOffer().getDirection(),
-                    marketPrice.getPrice(),
-                    MathUtils.scaleDownByPowerOf10(triggerPrice, smallestUnitExponent)
-            );
-
-            openOfferManager.deactivateOpenOffer(openOffer, () -> {
-            }, errorMessage -> {
-            });
-        } else if (openOffer.getState() == OpenOffer.State.AVAILABLE) {
-            // check the mempool if it has not been done before
-            if (openOffer.getMempoolStatus() < 0 && mempoolService.canRequestBeMade(openOffer.getOffer().getOfferPayload())) {
-                mempoolService.validateOfferMakerTx(openOffer.getOffer().getOfferPayload(), (txValidator -> {
-                    openOffer.setMempoolStatus(txValidator.isFail() ? 0 : 1);
-                }));
-            }
+    // Sell offers of fiat and buy offers of altcoins are triggered if the market price falls below the trigger price,
+    // the others if it rises above.
+    private static boolean isTriggeredBelow(OpenOffer openOffer) {
+        boolean cryptoCurrency = CurrencyUtil.isCryptoCurrency(openOffer.getOffer().getCurrencyCode());
+        boolean isSellOffer = openOffer.getOffer().getDirection() == OfferDirection.SELL;
+        return isSellOffer && !cryptoCurrency || !isSellOffer && cryptoCurrency;
+    }
+
+    private static long toMarketPriceAsLong(MarketPrice marketPrice, String currencyCode) {
+        return roundDoubleToLong(scaleUpByPowerOf10(marketPrice.getPrice(), getSmallestUnitExponent(currencyCode)));
+    }
+
+    private static int getSmallestUnitExponent(String currencyCode) {
+        return CurrencyUtil.isCryptoCurrency(currencyCode) ?
+                Altcoin.SMALLEST_UNIT_EXPONENT :
+                Fiat.SMALLEST_UNIT_EXPONENT;
+    }
+
+    private void logTriggered(MarketPrice marketPrice, OpenOffer openOffer) {
+        String currencyCode = openOffer.getOffer().getCurrencyCode();
+        log.info("Market price exceeded the trigger price of the open offer.\n" +
+                        "We deactivate the open offer with ID {}.\nCurrency: {};\nOffer direction: {};\n" +
+                        "Market price: {};\nTrigger price: {}",
+                openOffer.getOffer().getShortId(),
+                currencyCode,
+                openOffer.getOffer().getDirection(),
+                marketPrice.getPrice(),
+                MathUtils.scaleDownByPowerOf10(openOffer.getTriggerPrice(), getSmallestUnitExponent(currencyCode))
+        );
+    }
+
+    private void maybeValidateMempool(OpenOffer openOffer) {
+        // Validated once the offer is available and we have a market price for it, as it was done at the price updates
+        if (openOffer.isDeactivated() ||
+                openOffer.getState() != OpenOffer.State.AVAILABLE ||
+                priceFeedService.getMarketPrice(openOffer.getOffer().getCurrencyCode()) == null ||
+                !mempoolService.canRequestBeMade(openOffer.getOffer().getOfferPayload())) {
+            return;
+        }
+
+        openOffersToValidate.remove(openOffer.getId());
+        mempoolService.validateOfferMakerTx(openOffer.getOffer().getOfferPayload(), (txValidator -> {
+            openOffer.setMempoolStatus(txValidator.isFail() ? 0 : 1);
             // if the mempool indicated failure then deactivate the open offer
-            if (openOffer.getMempoolStatus() == 0) {
+            if (openOffer.getMempoolStatus() == 0 && !openOffer.isDeactivated()) {
                 log.info("Deactivating open offer {} due to mempool validation", openOffer.getOffer().getShortId());
                 openOfferManager.deactivateOpenOffer(openOffer, () -> {
                 }, errorMessage -> {
                 });
             }
-        }
+        }));
     }
 
     private void onAddedOpenOffers(List<? extends OpenOffer> openOffers) {
+        List<OpenOffer> triggeredOpenOffers = new ArrayList<>();
         openOffers.forEach(openOffer -> {
             String currencyCode = openOffer.getOffer().getCurrencyCode();
-            openOffersByCurrency.putIfAbsent(currencyCode, new HashSet<>());
-            openOffersByCurrency.get(currencyCode).add(openOffer);
+            if (openOffer.getTriggerPrice() > 0) {
+                ChangeListener<OpenOffer.State> stateListener = (observable, oldValue, newValue) ->
+                        onStateChanged(openOffer, oldValue, newValue);
+                openOffer.stateProperty().addListener(stateListener);
+                stateListeners.put(openOffer.getId(), stateListener);
+                if (!openOffer.isDeactivated()) {
+                    addTriggerPrice(openOffer);
+                }
+            }
 
-            MarketPrice marketPrice = priceFeedService.getMarketPrice(openOffer.getOffer().getCurrencyCode());
-            if (marketPrice != null) {
-                checkPriceThreshold(marketPrice, openOffer);
+            MarketPrice marketPrice = priceFeedService.getMarketPrice(currencyCode);
+            if (marketPrice != null && !openOffer.isDeactivated() && wasTriggered(marketPrice, openOffer)) {
+                logTriggered(marketPrice, openOffer);
+                triggeredOpenOffers.add(openOffer);
+            } else if (openOffer.getMempoolStatus() < 0) {
+                openOffersToValidate.put(openOffer.getId(), openOffer);
+                maybeValidateMempool(openOffer);
             }
         });
+        if (!triggeredOpenOffers.isEmpty()) {
+            openOfferManager.deactivateOpenOffers(triggeredOpenOffers, null);
+        }
     }
 
     private void onRemovedOpenOffers(List<? extends OpenOffer> openOffers) {
         openOffers.forEach(openOffer -> {
-            String currencyCode = openOffer.getOffer().getCurrencyCode();
-            if (openOffersByCurrency.containsKey(currencyCode)) {
-                Set<OpenOffer> set = openOffersByCurrency.get(currencyCode);
-                set.remove(openOffer);
-                if (set.isEmpty()) {
-                    openOffersByCurrency.remove(currencyCode);
-                }
+            openOffersToValidate.remove(openOffer.getId());
+            ChangeListener<OpenOffer.State> stateListener = stateListeners.remove(openOffer.getId());
+            if (stateListener != null) {
+                openOffer.stateProperty().removeListener(stateListener);
             }
+            removeTriggerPrice(openOffer);
         });
     }
+
+    // A deactivated offer cannot be triggered, so it is only kept in the trigger prices while it is active
+    private void onStateChanged(OpenOffer openOffer, OpenOffer.State oldState, OpenOffer.State newState) {
+        if (newState == OpenOffer.State.DEACTIVATED) {
+            removeTriggerPrice(openOffer);
+        } else if (oldState == OpenOffer.State.DEACTIVATED) {
+            addTriggerPrice(openOffer);
+        }
+    }
+
+    private void addTriggerPrice(OpenOffer openOffer) {
+        triggerPricesByCurrency.computeIfAbsent(openOffer.getOffer().getCurrencyCode(), e -> new TriggerPrices())
+                .add(openOffer);
+    }
+
+    private void removeTriggerPrice(OpenOffer openOffer) {
+        String currencyCode = openOffer.getOffer().getCurrencyCode();
+        TriggerPrices triggerPrices = triggerPricesByCurrency.get(currencyCode);
+        if (triggerPrices != null) {
+            triggerPrices.remove(openOffer);
+            if (triggerPrices.isEmpty()) {
+                triggerPricesByCurrency.remove(currencyCode);
+            }
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // TriggerPrices
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The open offers of one currency by their trigger price and offer id. The direction of an offer decides if it is
+    // triggered by a falling or by a rising market price.
+    private static class TriggerPrices {
+        private final NavigableMap<Long, Map<String, OpenOffer>> triggeredBelow = new TreeMap<>();
+        private final NavigableMap<Long, Map<String, OpenOffer>> triggeredAbove = new TreeMap<>();
+
+        void add(OpenOffer openOffer) {
+            getMap(openOffer).computeIfAbsent(openOffer.getTriggerPrice(), e -> new HashMap<>())
+                    .put(openOffer.getId(), openOffer);
+        }
+
+        void remove(OpenOffer openOffer) {
+            NavigableMap<Long, Map<String, OpenOffer>> map = getMap(openOffer);
+            Map<String, OpenOffer> openOffers = map.get(openOffer.getTriggerPrice());
+            if (openOffers != null && openOffers.remove(openOffer.getId()) != null && openOffers.isEmpty()) {
+                map.remove(openOffer.getTriggerPrice());
+            }
+        }
+
+        boolean isEmpty() {
+            return triggeredBelow.isEmpty() && triggeredAbove.isEmpty();
+        }
+
+        // The open offers whose trigger price is crossed by the market price
+        List<OpenOffer> getCrossed(long marketPriceAsLong) {
+            List<OpenOffer> result = new ArrayList<>();
+            triggeredBelow.tailMap(marketPriceAsLong, false).values().forEach(e -> result.addAll(e.values()));
+            triggeredAbove.headMap(marketPriceAsLong, false).values().forEach(e -> result.addAll(e.values()));
+            return result;
+        }
+
+        private NavigableMap<Long, Map<String, OpenOffer>> getMap(OpenOffer openOffer) {
+            return isTriggeredBelow(openOffer) ? triggeredBelow : triggeredAbove;
+        }
+    }
 }
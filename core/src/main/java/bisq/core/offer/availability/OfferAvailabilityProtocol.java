@@ -98,7 +98,7 @@ public class OfferAvailabilityProtocol {
                 () -> handleTaskRunnerSuccess("TaskRunner at sendOfferAvailabilityRequest completed", null),
                 errorMessage -> handleTaskRunnerFault(errorMessage, null)
         );
-        taskRunner.addTasks(SendOfferAvailabilityRequest.class);
+        taskRunner.addTasks(SendOfferAvailabilityRequest::new);
         startTimeout();
         taskRunner.run();
     }
@@ -129,7 +129,7 @@ public class OfferAvailabilityProtocol {
                     resultHandler.handleResult();
                 },
                 errorMessage -> handleTaskRunnerFault(errorMessage, message));
-        taskRunner.addTasks(ProcessOfferAvailabilityResponse.class);
+        taskRunner.addTasks(ProcessOfferAvailabilityResponse::new);
         taskRunner.run();
     }
 
@@ -76,9 +76,9 @@ public class PlaceOfferProtocol {
                 }
         );
         taskRunner.addTasks(
-                ValidateOffer.class,
-                MakerReserveOfferFunds.class,
-                MakerSendSignOfferRequest.class
+                ValidateOffer::new,
+                MakerReserveOfferFunds::new,
+                MakerSendSignOfferRequest::new
         );
 
         taskRunner.run();
@@ -123,8 +123,8 @@ public class PlaceOfferProtocol {
               }
       );
       taskRunner.addTasks(
-              MakerProcessSignOfferResponse.class,
-              AddToOfferBook.class
+              MakerProcessSignOfferResponse::new,
+              AddToOfferBook::new
       );
 
       taskRunner.run();
@@ -69,6 +69,7 @@ import bisq.network.p2p.peers.peerexchange.messages.GetPeersRequest;
 import bisq.network.p2p.peers.peerexchange.messages.GetPeersResponse;
 import bisq.network.p2p.storage.messages.AddDataMessage;
 import bisq.network.p2p.storage.messages.AddPersistableNetworkPayloadMessage;
+import bisq.network.p2p.storage.messages.BatchedRefreshOfferMessage;
 import bisq.network.p2p.storage.messages.RefreshOfferMessage;
 import bisq.network.p2p.storage.messages.RemoveDataMessage;
 import bisq.network.p2p.storage.messages.RemoveMailboxDataMessage;
@@ -130,6 +131,8 @@ public class CoreNetworkProtoResolver extends CoreProtoResolver implements Netwo
                     return OfferAvailabilityResponse.fromProto(proto.getOfferAvailabilityResponse(), messageVersion);
                 case REFRESH_OFFER_MESSAGE:
                     return RefreshOfferMessage.fromProto(proto.getRefreshOfferMessage(), messageVersion);
+                case BATCHED_REFRESH_OFFER_MESSAGE:
+                    return BatchedRefreshOfferMessage.fromProto(proto.getBatchedRefreshOfferMessage(), messageVersion);
 
                 case ADD_DATA_MESSAGE:
                     return AddDataMessage.fromProto(proto.getAddDataMessage(), this, messageVersion);
@@ -40,7 +40,9 @@ public class CoreNetworkCapabilities {
                 Capability.REFUND_AGENT,
                 Capability.TRADE_STATISTICS_HASH_UPDATE,
                 Capability.NO_ADDRESS_PRE_FIX,
-                Capability.TRADE_STATISTICS_3
+                Capability.TRADE_STATISTICS_3,
+                Capability.EXCLUDED_KEYS_FILTER,
+                Capability.BATCHED_REFRESH_OFFER
         );
 
         log.info(Capabilities.app.prettyPrint());
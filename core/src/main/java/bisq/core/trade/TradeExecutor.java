@@ -0,0 +1,248 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import bisq.common.util.Utilities;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes the work of trades on a bounded thread pool. Commands with the same lane id, usually the trade id, are
+ * executed one after the other in the order they were submitted. Commands of different lanes run in parallel.
+ * <p>
+ * Before, each trade message started a new thread which was blocked at the trade lock until the previous message of
+ * that trade was processed. With many concurrent trades arbitrators and market makers ended up with an unbounded
+ * number of threads.
+ * <p>
+ * Commands which wait for other threads, like the protocol handlers waiting on the trade latch, must be submitted
+ * with {@link #executeBlocking(String, Runnable)}. They run on a separate pool without a thread limit, so a waiting
+ * lane never holds a thread of the bounded pool and cannot starve the other lanes. As a lane runs only one command at
+ * a time, that pool still never uses more threads than there are lanes with a blocking command.
+ */
+@Slf4j
+public class TradeExecutor {
+    private static final int MAX_THREADS = 50;
+    private static final long KEEP_ALIVE_SEC = 60;
+    private static final long WAIT_TIME_WARN_THRESHOLD_MS = 10_000;
+
+    private static final ExecutorService EXECUTOR = Utilities.getListeningExecutorService("TradeExecutor",
+            MAX_THREADS,
+            MAX_THREADS,
+            KEEP_ALIVE_SEC,
+            new LinkedBlockingQueue<>());
+    private static final ExecutorService BLOCKING_EXECUTOR = Utilities.getListeningExecutorService("TradeExecutor-blocking",
+            0,
+            Integer.MAX_VALUE,
+            KEEP_ALIVE_SEC,
+            new SynchronousQueue<>());
+
+    // Lanes with pending or running tasks. Lanes get removed once they have no more tasks. Guarded by LANES.
+    private static final Map<String, Lane> LANES = new HashMap<>();
+
+    private static final AtomicLong numExecutedTasks = new AtomicLong();
+    private static final AtomicLong totalWaitTimeMs = new AtomicLong();
+    private static final AtomicLong maxWaitTimeMs = new AtomicLong();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Executes the command after all commands which have been submitted before with the same lane id. The command
+     * must not block, as it runs on the bounded pool shared by all lanes.
+     *
+     * @param laneId  Id of the lane, usually the trade id
+     * @param command The command to execute
+     * @return A future which completes once the command has been executed
+     */
+    public static Future<?> execute(String laneId, Runnable command) {
+        return submit(new LaneTask(laneId, command, false));
+    }
+
+    /**
+     * Executes the command after all commands which have been submitted before with the same lane id. Use it for
+     * commands which wait for other threads, e.g. on the trade latch.
+     *
+     * @param laneId  Id of the lane, usually the trade id
+     * @param command The command to execute
+     * @return A future which completes once the command has been executed
+     */
+    public static Future<?> executeBlocking(String laneId, Runnable command) {
+        return submit(new LaneTask(laneId, command, true));
+    }
+
+    /**
+     * Waits until all futures are completed or the timeout is reached. Failures of the commands have been logged
+     * already, so they are ignored here.
+     */
+    public static void awaitAll(Collection<? extends Future<?>> futures, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException ignore) {
+            } catch (TimeoutException e) {
+                log.warn("Not all trade tasks have been completed after {} ms", timeoutMs);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public static int getQueueDepth(String laneId) {
+        synchronized (LANES) {
+            Lane lane = LANES.get(laneId);
+            return lane != null ? lane.tasks.size() : 0;
+        }
+    }
+
+    public static int getNumQueuedTasks() {
+        synchronized (LANES) {
+            return LANES.values().stream().mapToInt(lane -> lane.tasks.size()).sum();
+        }
+    }
+
+    public static int getNumLanes() {
+        synchronized (LANES) {
+            return LANES.size();
+        }
+    }
+
+    public static long getNumExecutedTasks() {
+        return numExecutedTasks.get();
+    }
+
+    // Time between the submission of a task and the start of its execution
+    public static long getAverageWaitTimeMs() {
+        long numTasks = numExecutedTasks.get();
+        return numTasks == 0 ? 0 : totalWaitTimeMs.get() / numTasks;
+    }
+
+    public static long getMaxWaitTimeMs() {
+        return maxWaitTimeMs.get();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static Future<?> submit(LaneTask task) {
+        synchronized (LANES) {
+            Lane lane = LANES.computeIfAbsent(task.laneId, Lane::new);
+            lane.tasks.add(task);
+            if (!lane.isScheduled) {
+                lane.isScheduled = true;
+                schedule(lane);
+            }
+        }
+        return task;
+    }
+
+    // Guarded by LANES. The executor is chosen by the next task, so the lane moves between the pools as needed.
+    private static void schedule(Lane lane) {
+        LaneTask next = lane.tasks.peek();
+        ExecutorService executor = next != null && next.isBlocking ? BLOCKING_EXECUTOR : EXECUTOR;
+        executor.execute(() -> runNextTask(lane));
+    }
+
+    // We run only one task per execution and reschedule the lane afterwards so that busy lanes do not starve others
+    private static void runNextTask(Lane lane) {
+        LaneTask task;
+        synchronized (LANES) {
+            task = lane.tasks.poll();
+        }
+
+        if (task != null) {
+            long waitTimeMs = System.currentTimeMillis() - task.submitTime;
+            numExecutedTasks.incrementAndGet();
+            totalWaitTimeMs.addAndGet(waitTimeMs);
+            maxWaitTimeMs.accumulateAndGet(waitTimeMs, Math::max);
+            if (waitTimeMs > WAIT_TIME_WARN_THRESHOLD_MS) {
+                log.warn("Task of lane {} waited {} ms for its execution. Queued tasks of lane: {}",
+                        lane.laneId, waitTimeMs, getQueueDepth(lane.laneId));
+            }
+
+            Thread thread = Thread.currentThread();
+            String threadName = thread.getName();
+            thread.setName("TradeExecutor-" + lane.laneId);
+            try {
+                task.run();
+            } finally {
+                thread.setName(threadName);
+            }
+        }
+
+        synchronized (LANES) {
+            if (lane.tasks.isEmpty()) {
+                lane.isScheduled = false;
+                LANES.remove(lane.laneId);
+            } else {
+                schedule(lane);
+            }
+        }
+    }
+
+    private static class Lane {
+        private final String laneId;
+        private final Queue<LaneTask> tasks = new ArrayDeque<>();
+        private boolean isScheduled;
+
+        private Lane(String laneId) {
+            this.laneId = laneId;
+        }
+    }
+
+    private static class LaneTask extends FutureTask<Void> {
+        private final String laneId;
+        private final boolean isBlocking;
+        private final long submitTime = System.currentTimeMillis();
+
+        private LaneTask(String laneId, Runnable command, boolean isBlocking) {
+            super(command, null);
+            this.laneId = laneId;
+            this.isBlocking = isBlocking;
+        }
+
+        // Most callers do not check the future, so we log failures here as the uncaught exception handler of a
+        // thread would have done it.
+        @Override
+        protected void setException(Throwable throwable) {
+            log.error("Task of lane {} failed", laneId, throwable);
+            super.setException(throwable);
+        }
+    }
+}
@@ -99,8 +99,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -334,22 +333,11 @@ public class TradeManager implements PersistedDataHost, DecryptedDirectMessageLi
         // open trades in parallel since each may open a multisig wallet
         List<Trade> trades = tradableList.getList();
         if (!trades.isEmpty()) {
-            ExecutorService pool = Executors.newFixedThreadPool(Math.min(10, trades.size()));
+            List<Future<?>> futures = new ArrayList<>();
             for (Trade trade : trades) {
-                pool.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        initPersistedTrade(trade);
-                    }
-                });
-            }
-            pool.shutdown();
-            try {
-                if (!pool.awaitTermination(60000, TimeUnit.SECONDS)) pool.shutdownNow();
-            } catch (InterruptedException e) {
-                pool.shutdownNow();
-                throw new RuntimeException(e);
+                futures.add(TradeExecutor.execute(trade.getId(), () -> initPersistedTrade(trade)));
             }
+            TradeExecutor.awaitAll(futures, TimeUnit.SECONDS.toMillis(60));
         }
 
         persistedTradesInitialized.set(true);
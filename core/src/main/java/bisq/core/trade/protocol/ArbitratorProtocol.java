@@ -3,6 +3,7 @@ package bisq.core.trade.protocol;
 import bisq.common.handlers.ErrorMessageHandler;
 import bisq.core.trade.ArbitratorTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.messages.DepositRequest;
 import bisq.core.trade.messages.DepositResponse;
 import bisq.core.trade.messages.InitTradeRequest;
@@ -51,7 +52,7 @@ public class ArbitratorProtocol extends DisputeProtocol {
 
   public void handleInitTradeRequest(InitTradeRequest message, NodeAddress peer, ErrorMessageHandler errorMessageHandler) {
       System.out.println("ArbitratorProtocol.handleInitTradeRequest()");
-      new Thread(() -> {
+      TradeExecutor.executeBlocking(trade.getId(), () -> {
           synchronized (trade) {
               latchTrade();
               this.errorMessageHandler = errorMessageHandler;
@@ -76,7 +77,7 @@ public class ArbitratorProtocol extends DisputeProtocol {
                       .executeTasks(true);
               awaitTradeLatch();
           }
-      }).start();
+      });
   }
   
   @Override
@@ -86,7 +87,7 @@ public class ArbitratorProtocol extends DisputeProtocol {
   
   public void handleDepositRequest(DepositRequest request, NodeAddress sender) {
     System.out.println("ArbitratorProtocol.handleDepositRequest() " + trade.getId());
-    new Thread(() -> {
+    TradeExecutor.executeBlocking(trade.getId(), () -> {
         synchronized (trade) {
             latchTrade();
             Validator.checkTradeId(processModel.getOfferId(), request);
@@ -111,7 +112,7 @@ public class ArbitratorProtocol extends DisputeProtocol {
                 .executeTasks(true);
             awaitTradeLatch();
         }
-    }).start();
+    });
   }
   
   @Override
@@ -121,7 +122,7 @@ public class ArbitratorProtocol extends DisputeProtocol {
   
   public void handlePaymentAccountKeyRequest(PaymentAccountKeyRequest request, NodeAddress sender) {
       System.out.println("ArbitratorProtocol.handlePaymentAccountKeyRequest() " + trade.getId());
-      new Thread(() -> {
+      TradeExecutor.executeBlocking(trade.getId(), () -> {
           synchronized (trade) {
               latchTrade();
               Validator.checkTradeId(processModel.getOfferId(), request);
@@ -143,12 +144,12 @@ public class ArbitratorProtocol extends DisputeProtocol {
                   .executeTasks(true);
               awaitTradeLatch();
           }
-      }).start();
+      });
   }
   
   protected void handle(PayoutTxPublishedMessage request, NodeAddress peer) {
       System.out.println("ArbitratorProtocol.handle(PayoutTxPublishedMessage)");
-      new Thread(() -> {
+      TradeExecutor.executeBlocking(trade.getId(), () -> {
           synchronized (trade) {
               if (trade.isCompleted()) return; // ignore subsequent requests
               latchTrade();
@@ -169,6 +170,6 @@ public class ArbitratorProtocol extends DisputeProtocol {
                   .executeTasks(true);
               awaitTradeLatch();
           }
-      }).start();
+      });
   }
 }
@@ -19,6 +19,7 @@ package bisq.core.trade.protocol;
 
 import bisq.core.trade.BuyerAsMakerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.messages.DepositResponse;
 import bisq.core.trade.messages.InitMultisigRequest;
 import bisq.core.trade.messages.InitTradeRequest;
@@ -54,7 +55,7 @@ public class BuyerAsMakerProtocol extends BuyerProtocol implements MakerProtocol
                                        NodeAddress peer,
                                        ErrorMessageHandler errorMessageHandler) {
         System.out.println(getClass().getCanonicalName() + ".handleInitTradeRequest()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 this.errorMessageHandler = errorMessageHandler;
@@ -78,7 +79,7 @@ public class BuyerAsMakerProtocol extends BuyerProtocol implements MakerProtocol
                         .executeTasks(true);
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     @Override
@@ -21,6 +21,7 @@ package bisq.core.trade.protocol;
 import bisq.core.offer.Offer;
 import bisq.core.trade.BuyerAsTakerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.handlers.TradeResultHandler;
 import bisq.core.trade.messages.DepositResponse;
 import bisq.core.trade.messages.InitMultisigRequest;
@@ -65,7 +66,7 @@ public class BuyerAsTakerProtocol extends BuyerProtocol implements TakerProtocol
     public void onTakeOffer(TradeResultHandler tradeResultHandler,
                             ErrorMessageHandler errorMessageHandler) {
       System.out.println(getClass().getCanonicalName() + ".onTakeOffer()");
-      new Thread(() -> {
+      TradeExecutor.executeBlocking(trade.getId(), () -> {
           synchronized (trade) {
               latchTrade();
               this.tradeResultHandler = tradeResultHandler;
@@ -89,7 +90,7 @@ public class BuyerAsTakerProtocol extends BuyerProtocol implements TakerProtocol
                       .executeTasks(true);
               awaitTradeLatch();
           }
-      }).start();
+      });
     }
 
     @Override
@@ -22,6 +22,7 @@ import bisq.common.handlers.ErrorMessageHandler;
 import bisq.common.handlers.ResultHandler;
 import bisq.core.trade.BuyerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.messages.PaymentAccountKeyResponse;
 import bisq.core.trade.messages.PaymentReceivedMessage;
 import bisq.core.trade.messages.SignContractResponse;
@@ -117,7 +118,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
 
     public void handle(PaymentAccountKeyResponse response, NodeAddress sender) {
         System.out.println(getClass().getCanonicalName() + ".handlePaymentAccountKeyResponse()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 expect(new Condition(trade)
@@ -134,7 +135,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
                         .executeTasks();
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -143,7 +144,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
 
     public void onPaymentStarted(ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
         System.out.println("BuyerProtocol.onPaymentStarted()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 this.errorMessageHandler = errorMessageHandler;
@@ -174,7 +175,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
                 }
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -183,7 +184,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
 
     protected void handle(PaymentReceivedMessage message, NodeAddress peer) {
         System.out.println("BuyerProtocol.handle(PaymentReceivedMessage)");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 Validator.checkTradeId(processModel.getOfferId(), message);
@@ -204,7 +205,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
                     .executeTasks(true);
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     private void sendPaymentAccountKeyRequestIfWhenNeeded(BuyerEvent event, boolean waitForSellerOnConfirm) {
@@ -237,7 +238,7 @@ public abstract class BuyerProtocol extends DisputeProtocol {
     }
 
     private void sendPaymentAccountKeyRequest(BuyerEvent event) {
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 if (paymentAccountPayloadKeyRequestSent) return;
                 if (trade.getSeller().getPaymentAccountPayload() != null) return; // skip if initialized
@@ -255,6 +256,6 @@ public abstract class BuyerProtocol extends DisputeProtocol {
                 awaitTradeLatch();
                 paymentAccountPayloadKeyRequestSent = true;
             }
-        }).start();
+        });
     }
 }
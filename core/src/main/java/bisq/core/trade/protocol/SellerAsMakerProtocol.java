@@ -20,6 +20,7 @@ package bisq.core.trade.protocol;
 
 import bisq.core.trade.SellerAsMakerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.messages.PaymentSentMessage;
 import bisq.core.trade.messages.SignContractRequest;
 import bisq.core.trade.messages.SignContractResponse;
@@ -55,7 +56,7 @@ public class SellerAsMakerProtocol extends SellerProtocol implements MakerProtoc
                                        NodeAddress peer,
                                        ErrorMessageHandler errorMessageHandler) {
         System.out.println(getClass().getCanonicalName() + ".handleInitTradeRequest()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 this.errorMessageHandler = errorMessageHandler;
@@ -79,7 +80,7 @@ public class SellerAsMakerProtocol extends SellerProtocol implements MakerProtoc
                         .executeTasks(true);
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     @Override
@@ -21,6 +21,7 @@ package bisq.core.trade.protocol;
 import bisq.core.offer.Offer;
 import bisq.core.trade.SellerAsTakerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.handlers.TradeResultHandler;
 import bisq.core.trade.messages.PaymentSentMessage;
 import bisq.core.trade.messages.SignContractRequest;
@@ -63,7 +64,7 @@ public class SellerAsTakerProtocol extends SellerProtocol implements TakerProtoc
     public void onTakeOffer(TradeResultHandler tradeResultHandler,
                             ErrorMessageHandler errorMessageHandler) {
       System.out.println(getClass().getCanonicalName() + ".onTakeOffer()");
-      new Thread(() -> {
+      TradeExecutor.executeBlocking(trade.getId(), () -> {
           synchronized (trade) {
               latchTrade();
               this.tradeResultHandler = tradeResultHandler;
@@ -87,7 +88,7 @@ public class SellerAsTakerProtocol extends SellerProtocol implements TakerProtoc
                       .executeTasks(true);
               awaitTradeLatch();
           }
-      }).start();
+      });
     }
 
     @Override
@@ -19,6 +19,7 @@ package bisq.core.trade.protocol;
 
 import bisq.core.trade.SellerTrade;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.messages.PaymentSentMessage;
 import bisq.core.trade.messages.SignContractResponse;
 import bisq.core.trade.messages.TradeMessage;
@@ -105,7 +106,7 @@ public abstract class SellerProtocol extends DisputeProtocol {
 
     protected void handle(PaymentSentMessage message, NodeAddress peer) {
         log.info("SellerProtocol.handle(PaymentSentMessage)");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             // We are more tolerant with expected phase and allow also DEPOSITS_PUBLISHED as it can be the case
             // that the wallet is still syncing and so the DEPOSITS_CONFIRMED state to yet triggered when we received
             // a mailbox message with PaymentSentMessage.
@@ -142,7 +143,7 @@ public abstract class SellerProtocol extends DisputeProtocol {
                         .executeTasks(true);
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -151,7 +152,7 @@ public abstract class SellerProtocol extends DisputeProtocol {
 
     public void onPaymentReceived(ResultHandler resultHandler, ErrorMessageHandler errorMessageHandler) {
         log.info("SellerProtocol.onPaymentReceived()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 this.errorMessageHandler = errorMessageHandler;
@@ -180,13 +181,13 @@ public abstract class SellerProtocol extends DisputeProtocol {
                 }
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     private void sendPaymentAccountPayloadKeyWhenConfirmed(SellerEvent event) {
         EasyBind.subscribe(trade.stateProperty(), state -> {
             if (state == Trade.State.DEPOSIT_TXS_CONFIRMED_IN_BLOCKCHAIN) {
-                new Thread(() -> {
+                TradeExecutor.executeBlocking(trade.getId(), () -> {
                     synchronized (trade) {
                         latchTrade();
                         expect(new Condition(trade))
@@ -201,7 +202,7 @@ public abstract class SellerProtocol extends DisputeProtocol {
                                 .executeTasks(true);
                         awaitTradeLatch();
                     }
-                }).start();
+                });
             }
         });
     }
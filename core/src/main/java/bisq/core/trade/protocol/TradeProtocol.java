@@ -19,6 +19,7 @@ package bisq.core.trade.protocol;
 
 import bisq.core.offer.Offer;
 import bisq.core.trade.Trade;
+import bisq.core.trade.TradeExecutor;
 import bisq.core.trade.TradeManager;
 import bisq.core.trade.TradeUtils;
 import bisq.core.trade.handlers.TradeResultHandler;
@@ -59,9 +60,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.extern.slf4j.Slf4j;
 import org.fxmisc.easybind.EasyBind;
+import org.fxmisc.easybind.Subscription;
 import javax.annotation.Nullable;
 
 @Slf4j
@@ -229,7 +233,7 @@ public abstract class TradeProtocol implements DecryptedDirectMessageListener, D
 
     public void handleInitMultisigRequest(InitMultisigRequest request, NodeAddress sender) {
         System.out.println(getClass().getCanonicalName() + ".handleInitMultisigRequest()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 Validator.checkTradeId(processModel.getOfferId(), request);
@@ -252,12 +256,12 @@ public abstract class TradeProtocol implements DecryptedDirectMessageListener, D
                         .executeTasks(true);
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     public void handleSignContractRequest(SignContractRequest message, NodeAddress sender) {
         System.out.println(getClass().getCanonicalName() + ".handleSignContractRequest() " + trade.getId());
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 Validator.checkTradeId(processModel.getOfferId(), message);
                 if (trade.getState() == Trade.State.MULTISIG_COMPLETED || trade.getState() == Trade.State.CONTRACT_SIGNATURE_REQUESTED) {
@@ -283,17 +287,15 @@ public abstract class TradeProtocol implements DecryptedDirectMessageListener, D
                     awaitTradeLatch();
                 } else {
                     // process sign contract request after multisig created
-                    EasyBind.subscribe(trade.stateProperty(), state -> {
-                        if (state == Trade.State.MULTISIG_COMPLETED) new Thread(() -> handleSignContractRequest(message, sender)).start(); // process notification without trade lock
-                    });
+                    onTradeState(Trade.State.MULTISIG_COMPLETED, () -> handleSignContractRequest(message, sender)); // queued on the trade lane, so the notification does not wait for the trade lock
                 }
             }
-        }).start();
+        });
     }
 
     public void handleSignContractResponse(SignContractResponse message, NodeAddress sender) {
         System.out.println(getClass().getCanonicalName() + ".handleSignContractResponse() " + trade.getId());
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 Validator.checkTradeId(processModel.getOfferId(), message);
                 if (trade.getState() == Trade.State.CONTRACT_SIGNED) {
@@ -320,17 +322,15 @@ public abstract class TradeProtocol implements DecryptedDirectMessageListener, D
                     awaitTradeLatch();
                 } else {
                     // process sign contract response after contract signed
-                    EasyBind.subscribe(trade.stateProperty(), state -> {
-                        if (state == Trade.State.CONTRACT_SIGNED) new Thread(() -> handleSignContractResponse(message, sender)).start(); // process notification without trade lock
-                    });
+                    onTradeState(Trade.State.CONTRACT_SIGNED, () -> handleSignContractResponse(message, sender)); // queued on the trade lane, so the notification does not wait for the trade lock
                 }
             }
-        }).start();
+        });
     }
 
     public void handleDepositResponse(DepositResponse response, NodeAddress sender) {
         System.out.println(getClass().getCanonicalName() + ".handleDepositResponse()");
-        new Thread(() -> {
+        TradeExecutor.executeBlocking(trade.getId(), () -> {
             synchronized (trade) {
                 latchTrade();
                 Validator.checkTradeId(processModel.getOfferId(), response);
@@ -355,7 +355,7 @@ public abstract class TradeProtocol implements DecryptedDirectMessageListener, D
                         .executeTasks(true);
                 awaitTradeLatch();
             }
-        }).start();
+        });
     }
 
     // TODO (woodser): update to use fluent for consistency
@@ -625,6 +625,19 @@ public abstract class TradeProtocol implements DecryptedDirectMessageListener, D
         unlatchTrade();
     }
 
+    // Runs the handler once when the trade reaches the given state and unsubscribes afterwards
+    private void onTradeState(Trade.State expectedState, Runnable handler) {
+        AtomicBoolean handled = new AtomicBoolean();
+        AtomicReference<Subscription> subscription = new AtomicReference<>();
+        subscription.set(EasyBind.subscribe(trade.stateProperty(), state -> {
+            if (state != expectedState || !handled.compareAndSet(false, true)) return;
+            handler.run();
+            if (subscription.get() != null) subscription.get().unsubscribe();
+        }));
+        // The state might have been reached already when subscribing
+        if (handled.get()) subscription.get().unsubscribe();
+    }
+
     protected void latchTrade() {
         if (tradeLatch != null) throw new RuntimeException("Trade latch is not null. That should never happen.");
         tradeLatch = new CountDownLatch(1);
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import lombok.Value;
+
+/**
+ * OHLCV data of the trades of one currency within one tick. Prices and volumes use the precision of
+ * TradeStatistics3.
+ */
+@Value
+public class Candle {
+    // Start of the tick as epoch millis
+    long date;
+    long open;
+    long high;
+    long low;
+    long close;
+    long accumulatedAmount;
+    long accumulatedVolume;
+    int numTrades;
+    long averagePrice;
+    long medianPrice;
+}
@@ -77,7 +77,7 @@ public class TradeStatistics2StorageService extends MapStoreService<TradeStatist
     // seems to be not justified as it is needed only temporarily.
     @Override
     protected PersistableNetworkPayload putIfAbsent(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
-        return getMapOfAllData().putIfAbsent(hash, payload);
+        return store.putIfAbsent(hash, payload);
     }
 
     @Override
@@ -19,6 +19,7 @@ package bisq.core.trade.statistics;
 
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.persistence.HistoricalDataStoreService;
+import bisq.network.p2p.storage.persistence.MappedPersistableNetworkPayloadMap;
 
 import bisq.common.config.Config;
 import bisq.common.persistence.PersistenceManager;
@@ -43,8 +44,9 @@ public class TradeStatistics3StorageService extends HistoricalDataStoreService<T
 
     @Inject
     public TradeStatistics3StorageService(@Named(Config.STORAGE_DIR) File storageDir,
-                                          PersistenceManager<TradeStatistics3Store> persistenceManager) {
-        super(storageDir, persistenceManager);
+                                          PersistenceManager<TradeStatistics3Store> persistenceManager,
+                                          @Named(Config.USE_MAPPED_HISTORICAL_STORES) boolean useMappedHistoricalStores) {
+        super(storageDir, persistenceManager, useMappedHistoricalStores);
     }
 
 
@@ -72,6 +74,11 @@ public class TradeStatistics3StorageService extends HistoricalDataStoreService<T
     // Protected
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    @Override
+    protected MappedPersistableNetworkPayloadMap.Decoder getMappedPayloadDecoder() {
+        return item -> TradeStatistics3.fromProto(protobuf.TradeStatistics3.parseFrom(item));
+    }
+
     @Override
     protected TradeStatistics3Store createStore() {
         return new TradeStatistics3Store();
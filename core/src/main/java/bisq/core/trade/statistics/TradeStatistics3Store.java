@@ -18,8 +18,10 @@
 package bisq.core.trade.statistics;
 
 import bisq.network.p2p.storage.P2PDataStorage;
-import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadStore;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+import bisq.network.p2p.storage.persistence.JournaledPersistableNetworkPayloadStore;
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 
 import java.util.List;
@@ -33,7 +35,7 @@ import lombok.extern.slf4j.Slf4j;
  * definition and provide a hashMap for the domain access.
  */
 @Slf4j
-public class TradeStatistics3Store extends PersistableNetworkPayloadStore<TradeStatistics3> {
+public class TradeStatistics3Store extends JournaledPersistableNetworkPayloadStore<TradeStatistics3> {
 
     public TradeStatistics3Store() {
     }
@@ -67,6 +69,11 @@ public class TradeStatistics3Store extends PersistableNetworkPayloadStore<TradeS
         return new TradeStatistics3Store(list);
     }
 
+    @Override
+    protected PersistableNetworkPayload payloadFromJournalValue(byte[] value) throws InvalidProtocolBufferException {
+        return TradeStatistics3.fromProto(protobuf.PersistableNetworkPayload.parseFrom(value).getTradeStatistics3());
+    }
+
     public boolean containsKey(P2PDataStorage.ByteArray hash) {
         return map.containsKey(hash);
     }
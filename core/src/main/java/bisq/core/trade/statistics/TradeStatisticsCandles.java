@@ -0,0 +1,267 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.locale.CurrencyUtil;
+import bisq.core.monetary.Altcoin;
+
+import bisq.common.util.MathUtils;
+
+import org.bitcoinj.core.Coin;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps the OHLCV buckets of the trade statistics per currency and tick unit. Each trade statistic updates one
+ * bucket per tick unit when it arrives, so candles do not need to be recomputed from all trade statistics when a
+ * chart or an API client asks for them.
+ * <p>
+ * The median price is exact for ticks with up to MAX_EXACT_MEDIAN_PRICES trades. For ticks with more trades, like the
+ * years and months of a busy market, the prices are counted in logarithmic bins instead so the memory per tick stays
+ * bounded, and the median is approximated with a relative error below MEDIAN_BIN_PRECISION.
+ */
+@ThreadSafe
+public class TradeStatisticsCandles {
+    static final int MAX_EXACT_MEDIAN_PRICES = 1000;
+    static final double MEDIAN_BIN_PRECISION = 0.001;
+    private static final double LOG_MEDIAN_BIN_WIDTH = Math.log1p(MEDIAN_BIN_PRECISION);
+
+    public enum TickUnit {
+        YEAR,
+        MONTH,
+        WEEK,
+        DAY,
+        HOUR,
+        MINUTE_10;
+
+        /**
+         * @return Start of the tick containing the given time as epoch millis
+         */
+        public long roundDown(long time, ZoneId zoneId) {
+            LocalDateTime localDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), zoneId);
+            LocalDateTime tickStart;
+            switch (this) {
+                case YEAR:
+                    tickStart = localDate.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
+                    break;
+                case MONTH:
+                    tickStart = localDate.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+                    break;
+                case WEEK:
+                    int dayOfWeek = localDate.getDayOfWeek().getValue();
+                    tickStart = localDate.minusDays(dayOfWeek - 1).truncatedTo(ChronoUnit.DAYS);
+                    break;
+                case DAY:
+                    tickStart = localDate.truncatedTo(ChronoUnit.DAYS);
+                    break;
+                case HOUR:
+                    tickStart = localDate.truncatedTo(ChronoUnit.HOURS);
+                    break;
+                case MINUTE_10:
+                default:
+                    tickStart = localDate.withMinute(localDate.getMinute() - localDate.getMinute() % 10)
+                            .truncatedTo(ChronoUnit.MINUTES);
+                    break;
+            }
+            return tickStart.atZone(zoneId).toInstant().toEpochMilli();
+        }
+    }
+
+    private final ZoneId zoneId;
+    // Guarded by this
+    private final Map<String, Map<TickUnit, NavigableMap<Long, Bucket>>> bucketsByCurrency = new HashMap<>();
+
+    public TradeStatisticsCandles(ZoneId zoneId) {
+        this.zoneId = zoneId;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The caller has to make sure the same trade statistics are not added twice
+    public synchronized void add(TradeStatistics3 tradeStatistics) {
+        Map<TickUnit, NavigableMap<Long, Bucket>> bucketsByTickUnit = bucketsByCurrency.computeIfAbsent(
+                tradeStatistics.getCurrency(), currencyCode -> new EnumMap<>(TickUnit.class));
+        long date = tradeStatistics.getDateAsLong();
+        long price = tradeStatistics.getTradePrice().getValue();
+        long amount = tradeStatistics.getTradeAmount().getValue();
+        long volume = tradeStatistics.getTradeVolume().getValue();
+        for (TickUnit tickUnit : TickUnit.values()) {
+            bucketsByTickUnit.computeIfAbsent(tickUnit, e -> new TreeMap<>())
+                    .computeIfAbsent(tickUnit.roundDown(date, zoneId), tickStart -> new Bucket())
+                    .add(date, price, amount, volume);
+        }
+    }
+
+    /**
+     * @param fromDate  Start of the time range as epoch millis, inclusive
+     * @param toDate    End of the time range as epoch millis, exclusive
+     * @param limit     Max. number of candles, later candles are left for the next page
+     * @return The candles of the ticks with trades, sorted by date
+     */
+    public synchronized List<Candle> getCandles(String currencyCode,
+                                                TickUnit tickUnit,
+                                                long fromDate,
+                                                long toDate,
+                                                int limit) {
+        List<Candle> candles = new ArrayList<>();
+        if (fromDate >= toDate)
+            return candles;
+
+        boolean isCryptoCurrency = CurrencyUtil.isCryptoCurrency(currencyCode);
+        for (Map.Entry<Long, Bucket> entry : getBuckets(currencyCode, tickUnit).subMap(fromDate, toDate).entrySet()) {
+            if (candles.size() >= limit)
+                break;
+
+            candles.add(entry.getValue().toCandle(entry.getKey(), isCryptoCurrency));
+        }
+        return candles;
+    }
+
+    /**
+     * @return The volume weighted average price by the start of the ticks with trades
+     */
+    public synchronized Map<Long, Long> getAveragePrices(String currencyCode, TickUnit tickUnit) {
+        boolean isCryptoCurrency = CurrencyUtil.isCryptoCurrency(currencyCode);
+        Map<Long, Long> averagePrices = new HashMap<>();
+        getBuckets(currencyCode, tickUnit).forEach((tickStart, bucket) ->
+                averagePrices.put(tickStart, bucket.getAveragePrice(isCryptoCurrency)));
+        return averagePrices;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private NavigableMap<Long, Bucket> getBuckets(String currencyCode, TickUnit tickUnit) {
+        Map<TickUnit, NavigableMap<Long, Bucket>> bucketsByTickUnit = bucketsByCurrency.get(currencyCode);
+        if (bucketsByTickUnit == null || !bucketsByTickUnit.containsKey(tickUnit))
+            return Collections.emptyNavigableMap();
+
+        return bucketsByTickUnit.get(tickUnit);
+    }
+
+    private static class Bucket {
+        private long openDate = Long.MAX_VALUE;
+        private long open;
+        private long closeDate = Long.MIN_VALUE;
+        private long close;
+        private long high = Long.MIN_VALUE;
+        private long low = Long.MAX_VALUE;
+        private long accumulatedAmount;
+        private long accumulatedVolume;
+        private int numTrades;
+        // Sorted, for the exact median price. Replaced by medianBins once it exceeds MAX_EXACT_MEDIAN_PRICES.
+        @Nullable
+        private List<Long> prices = new ArrayList<>();
+        // Number of trades by logarithmic price bin
+        @Nullable
+        private NavigableMap<Integer, Integer> medianBins;
+
+        void add(long date, long price, long amount, long volume) {
+            // Trade statistics arrive in any order, so open and close are the prices of the earliest and latest trade
+            if (date < openDate) {
+                openDate = date;
+                open = price;
+            }
+            if (date >= closeDate) {
+                closeDate = date;
+                close = price;
+            }
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            accumulatedAmount += amount;
+            accumulatedVolume += volume;
+            numTrades++;
+            if (prices != null) {
+                int index = Collections.binarySearch(prices, price);
+                prices.add(index < 0 ? -(index + 1) : index, price);
+                if (prices.size() > MAX_EXACT_MEDIAN_PRICES) {
+                    medianBins = new TreeMap<>();
+                    prices.forEach(this::addToMedianBins);
+                    prices = null;
+                }
+            } else {
+                addToMedianBins(price);
+            }
+        }
+
+        private void addToMedianBins(long price) {
+            int bin = (int) Math.floor(Math.log(Math.max(price, 1)) / LOG_MEDIAN_BIN_WIDTH);
+            medianBins.merge(bin, 1, Integer::sum);
+        }
+
+        long getMedianPrice() {
+            if (prices != null) {
+                return MathUtils.getMedian(prices.toArray(new Long[0]));
+            }
+
+            // The middle of the bin containing the middle trade
+            int remaining = numTrades / 2;
+            for (Map.Entry<Integer, Integer> entry : medianBins.entrySet()) {
+                remaining -= entry.getValue();
+                if (remaining < 0) {
+                    return Math.round(Math.exp((entry.getKey() + 0.5) * LOG_MEDIAN_BIN_WIDTH));
+                }
+            }
+            return Math.round(Math.exp((medianBins.lastKey() + 0.5) * LOG_MEDIAN_BIN_WIDTH));
+        }
+
+        // Same calculation as for the candles of the trades charts
+        long getAveragePrice(boolean isCryptoCurrency) {
+            if (isCryptoCurrency) {
+                double accumulatedAmountAsDouble = MathUtils.scaleUpByPowerOf10((double) accumulatedAmount, Altcoin.SMALLEST_UNIT_EXPONENT);
+                return accumulatedVolume > 0 ? MathUtils.roundDoubleToLong(accumulatedAmountAsDouble / accumulatedVolume) : 0;
+            } else {
+                double accumulatedVolumeAsDouble = MathUtils.scaleUpByPowerOf10((double) accumulatedVolume, Coin.SMALLEST_UNIT_EXPONENT);
+                return accumulatedAmount > 0 ? MathUtils.roundDoubleToLong(accumulatedVolumeAsDouble / accumulatedAmount) : 0;
+            }
+        }
+
+        Candle toCandle(long tickStart, boolean isCryptoCurrency) {
+            return new Candle(tickStart,
+                    open,
+                    high,
+                    low,
+                    close,
+                    accumulatedAmount,
+                    accumulatedVolume,
+                    numTrades,
+                    getAveragePrice(isCryptoCurrency),
+                    getMedianPrice());
+        }
+    }
+}
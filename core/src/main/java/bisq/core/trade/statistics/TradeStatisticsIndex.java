@@ -0,0 +1,150 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.common.util.Utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import lombok.EqualsAndHashCode;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps the trade statistics sorted by date, in total and per currency, so queries for a time range only visit the
+ * trade statistics of that range. Trade statistics with the same date are ordered by their hash, which makes the
+ * order stable and allows to continue a query after the last returned trade statistics with a cursor.
+ */
+@ThreadSafe
+public class TradeStatisticsIndex {
+    private static final byte[] MIN_HASH = new byte[0];
+
+    // Guarded by this
+    private final NavigableMap<Key, TradeStatistics3> tradeStatisticsByKey = new TreeMap<>();
+    private final Map<String, NavigableMap<Key, TradeStatistics3>> tradeStatisticsByCurrency = new HashMap<>();
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public synchronized void add(TradeStatistics3 tradeStatistics) {
+        Key key = Key.of(tradeStatistics);
+        tradeStatisticsByKey.put(key, tradeStatistics);
+        tradeStatisticsByCurrency.computeIfAbsent(tradeStatistics.getCurrency(), currencyCode -> new TreeMap<>())
+                .put(key, tradeStatistics);
+    }
+
+    public synchronized int size() {
+        return tradeStatisticsByKey.size();
+    }
+
+    /**
+     * @param currencyCode      Currency of the trades or null for all currencies
+     * @param paymentMethodId   Payment method of the trades or null for all payment methods
+     * @param fromDate          Start of the time range as epoch millis, inclusive
+     * @param toDate            End of the time range as epoch millis, exclusive
+     * @param cursor            Cursor of the last trade statistics of the previous page or null for the first page
+     * @param limit             Max. number of trade statistics
+     * @return The matching trade statistics sorted by date
+     */
+    public synchronized List<TradeStatistics3> getTradeStatistics(@Nullable String currencyCode,
+                                                                  @Nullable String paymentMethodId,
+                                                                  long fromDate,
+                                                                  long toDate,
+                                                                  @Nullable String cursor,
+                                                                  int limit) {
+        List<TradeStatistics3> result = new ArrayList<>();
+        NavigableMap<Key, TradeStatistics3> tradeStatistics = currencyCode == null ?
+                tradeStatisticsByKey :
+                tradeStatisticsByCurrency.getOrDefault(currencyCode, Collections.emptyNavigableMap());
+        Key fromKey = new Key(fromDate, MIN_HASH);
+        boolean fromInclusive = true;
+        if (cursor != null) {
+            Key cursorKey = Key.fromCursor(cursor);
+            if (cursorKey.compareTo(fromKey) >= 0) {
+                fromKey = cursorKey;
+                fromInclusive = false;
+            }
+        }
+        Key toKey = new Key(toDate, MIN_HASH);
+        if (fromKey.compareTo(toKey) >= 0)
+            return result;
+
+        for (TradeStatistics3 entry : tradeStatistics.subMap(fromKey, fromInclusive, toKey, false).values()) {
+            if (result.size() >= limit)
+                break;
+
+            if (paymentMethodId == null || paymentMethodId.equalsIgnoreCase(entry.getPaymentMethodId()))
+                result.add(entry);
+        }
+        return result;
+    }
+
+    public static String getCursor(TradeStatistics3 tradeStatistics) {
+        return Key.of(tradeStatistics).toCursor();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Key
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @EqualsAndHashCode
+    private static final class Key implements Comparable<Key> {
+        private final long date;
+        private final byte[] hash;
+
+        private Key(long date, byte[] hash) {
+            this.date = date;
+            this.hash = hash;
+        }
+
+        static Key of(TradeStatistics3 tradeStatistics) {
+            return new Key(tradeStatistics.getDateAsLong(), tradeStatistics.getHash());
+        }
+
+        static Key fromCursor(String cursor) {
+            String[] tokens = cursor.split(":");
+            try {
+                if (tokens.length == 2)
+                    return new Key(Long.parseLong(tokens[0]), Utilities.decodeFromHex(tokens[1]));
+            } catch (RuntimeException ignore) {
+            }
+            throw new IllegalArgumentException("Invalid cursor: " + cursor); // message sent to client
+        }
+
+        String toCursor() {
+            return date + ":" + Utilities.encodeToHex(hash);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Long.compare(date, other.date);
+            return result != 0 ? result : Arrays.compareUnsigned(hash, other.hash);
+        }
+    }
+}
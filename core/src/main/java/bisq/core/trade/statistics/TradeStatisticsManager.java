@@ -41,6 +41,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableSet;
 
 import java.time.Instant;
+import java.time.ZoneId;
 
 import java.io.File;
 
@@ -64,6 +65,9 @@ public class TradeStatisticsManager {
     private final File storageDir;
     private final boolean dumpStatistics;
     private final ObservableSet<TradeStatistics3> observableTradeStatisticsSet = FXCollections.observableSet();
+    // Same zone as the trades charts, so they can use the candles
+    private final TradeStatisticsCandles tradeStatisticsCandles = new TradeStatisticsCandles(ZoneId.systemDefault());
+    private final TradeStatisticsIndex tradeStatisticsIndex = new TradeStatisticsIndex();
     private JsonFileManager jsonFileManager;
 
     @Inject
@@ -99,7 +103,9 @@ public class TradeStatisticsManager {
                 if (!tradeStatistics.isValid()) {
                     return;
                 }
-                observableTradeStatisticsSet.add(tradeStatistics);
+                if (observableTradeStatisticsSet.add(tradeStatistics)) {
+                    addToIndexes(tradeStatistics);
+                }
                 priceFeedService.applyLatestBisqMarketPrice(observableTradeStatisticsSet);
                 maybeDumpStatistics();
             }
@@ -109,8 +115,11 @@ public class TradeStatisticsManager {
                 .filter(e -> e instanceof TradeStatistics3)
                 .map(e -> (TradeStatistics3) e)
                 .filter(TradeStatistics3::isValid)
+                // Statistics we got already from the listener must not be indexed twice
+                .filter(e -> !observableTradeStatisticsSet.contains(e))
                 .collect(Collectors.toSet());
         observableTradeStatisticsSet.addAll(set);
+        set.forEach(this::addToIndexes);
         priceFeedService.applyLatestBisqMarketPrice(observableTradeStatisticsSet);
         maybeDumpStatistics();
     }
@@ -119,6 +128,19 @@ public class TradeStatisticsManager {
         return observableTradeStatisticsSet;
     }
 
+    public TradeStatisticsCandles getTradeStatisticsCandles() {
+        return tradeStatisticsCandles;
+    }
+
+    public TradeStatisticsIndex getTradeStatisticsIndex() {
+        return tradeStatisticsIndex;
+    }
+
+    private void addToIndexes(TradeStatistics3 tradeStatistics) {
+        tradeStatisticsCandles.add(tradeStatistics);
+        tradeStatisticsIndex.add(tradeStatistics);
+    }
+
     private void maybeDumpStatistics() {
         if (!dumpStatistics) {
             return;
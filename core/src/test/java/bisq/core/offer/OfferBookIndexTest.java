@@ -0,0 +1,120 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import java.time.Instant;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static bisq.core.offer.OfferMaker.btcUsdOffer;
+import static bisq.core.offer.OfferMaker.direction;
+import static bisq.core.offer.OfferMaker.id;
+import static bisq.core.offer.OfferMaker.marketPriceMargin;
+import static bisq.core.offer.OfferMaker.price;
+import static bisq.core.offer.OfferMaker.useMarketBasedPrice;
+import static com.natpryce.makeiteasy.MakeItEasy.make;
+import static com.natpryce.makeiteasy.MakeItEasy.with;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OfferBookIndexTest {
+    private PriceFeedService priceFeedService;
+    private OfferBookIndex offerBookIndex;
+
+    @Before
+    public void setUp() {
+        priceFeedService = mock(PriceFeedService.class);
+        when(priceFeedService.getMarketPrice("USD"))
+                .thenReturn(new MarketPrice("USD", 10, Instant.now().getEpochSecond(), true));
+        offerBookIndex = new OfferBookIndex();
+    }
+
+    @Test
+    public void testOffersAreSortedByPrice() {
+        offerBookIndex.add(fixedPriceOffer("fixed-11", 110000));
+        offerBookIndex.add(marketBasedPriceOffer("market-10.5", 0.05));
+        offerBookIndex.add(fixedPriceOffer("fixed-9", 90000));
+        offerBookIndex.add(marketBasedPriceOffer("market-9.5", -0.05));
+        offerBookIndex.add(fixedPriceOffer("fixed-10", 100000));
+
+        assertEquals(asList("fixed-9", "market-9.5", "fixed-10", "market-10.5", "fixed-11"),
+                getIds(offerBookIndex.getOffers("usd", OfferDirection.SELL)));
+        assertTrue(offerBookIndex.getOffers("USD", OfferDirection.BUY).isEmpty());
+        assertTrue(offerBookIndex.getOffers("EUR", OfferDirection.SELL).isEmpty());
+    }
+
+    @Test
+    public void testMarketBasedOffersWithoutMarketPriceAreLast() {
+        when(priceFeedService.getMarketPrice("USD")).thenReturn(null);
+        offerBookIndex.add(marketBasedPriceOffer("market", -0.05));
+        offerBookIndex.add(fixedPriceOffer("fixed", 110000));
+
+        assertEquals(asList("fixed", "market"), getIds(offerBookIndex.getOffers("USD", OfferDirection.SELL)));
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        Offer offer = fixedPriceOffer("offer", 100000);
+        offerBookIndex.add(offer);
+        assertSame(offer, offerBookIndex.get("offer"));
+
+        // A new payload with the same id replaces the offer, the removal of the old payload is ignored
+        Offer replacingOffer = fixedPriceOffer("offer", 120000);
+        offerBookIndex.add(replacingOffer);
+        assertNull(offerBookIndex.remove(offer.getOfferPayload()));
+        assertEquals(1, offerBookIndex.size());
+        assertEquals(asList(replacingOffer), offerBookIndex.getOffers("USD", OfferDirection.SELL));
+
+        assertSame(replacingOffer, offerBookIndex.remove(replacingOffer.getOfferPayload()));
+        assertEquals(0, offerBookIndex.size());
+        assertTrue(offerBookIndex.getOffers("USD", OfferDirection.SELL).isEmpty());
+    }
+
+    private Offer fixedPriceOffer(String offerId, long fixedPrice) {
+        Offer offer = make(btcUsdOffer.but(with(id, offerId),
+                with(direction, OfferDirection.SELL),
+                with(price, fixedPrice)));
+        offer.setPriceFeedService(priceFeedService);
+        return offer;
+    }
+
+    private Offer marketBasedPriceOffer(String offerId, double margin) {
+        Offer offer = make(btcUsdOffer.but(with(id, offerId),
+                with(direction, OfferDirection.SELL),
+                with(useMarketBasedPrice, true),
+                with(marketPriceMargin, margin)));
+        offer.setPriceFeedService(priceFeedService);
+        return offer;
+    }
+
+    private static List<String> getIds(List<Offer> offers) {
+        return offers.stream().map(Offer::getId).collect(Collectors.toList());
+    }
+}
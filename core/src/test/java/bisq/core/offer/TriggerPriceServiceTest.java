@@ -0,0 +1,190 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.offer;
+
+import bisq.core.provider.mempool.MempoolService;
+import bisq.core.provider.price.MarketPrice;
+import bisq.core.provider.price.PriceFeedService;
+
+import bisq.network.p2p.P2PService;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.time.Instant;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+
+import static bisq.core.offer.OfferMaker.baseCurrencyCode;
+import static bisq.core.offer.OfferMaker.btcUsdOffer;
+import static bisq.core.offer.OfferMaker.counterCurrencyCode;
+import static bisq.core.offer.OfferMaker.direction;
+import static bisq.core.offer.OfferMaker.id;
+import static bisq.core.offer.OfferMaker.price;
+import static com.natpryce.makeiteasy.MakeItEasy.make;
+import static com.natpryce.makeiteasy.MakeItEasy.with;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TriggerPriceServiceTest {
+    // Trigger prices of 10 USD and of 0.005 BTC, scaled to the smallest unit of fiat and altcoins
+    private static final long FIAT_TRIGGER_PRICE = 10_0000L;
+    private static final long ALTCOIN_TRIGGER_PRICE = 50_0000L;
+
+    private OpenOfferManager openOfferManager;
+    private PriceFeedService priceFeedService;
+    private ObservableList<OpenOffer> openOffers;
+    private IntegerProperty updateCounter;
+
+    @Before
+    public void setUp() {
+        P2PService p2PService = mock(P2PService.class);
+        openOfferManager = mock(OpenOfferManager.class);
+        priceFeedService = mock(PriceFeedService.class);
+        openOffers = FXCollections.observableArrayList();
+        updateCounter = new SimpleIntegerProperty();
+        when(p2PService.isBootstrapped()).thenReturn(true);
+        when(openOfferManager.getObservableList()).thenReturn(openOffers);
+        when(priceFeedService.updateCounterProperty()).thenReturn(updateCounter);
+        new TriggerPriceService(p2PService, openOfferManager, mock(MempoolService.class), priceFeedService)
+                .onAllServicesInitialized();
+    }
+
+    @Test
+    public void testFiatOffers() {
+        OpenOffer sellOffer = fiatOffer("sell", OfferDirection.SELL);
+        OpenOffer buyOffer = fiatOffer("buy", OfferDirection.BUY);
+
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("USD", 10), sellOffer));
+        assertTrue(TriggerPriceService.wasTriggered(marketPrice("USD", 9.99), sellOffer));
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("USD", 10.01), sellOffer));
+
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("USD", 10), buyOffer));
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("USD", 9.99), buyOffer));
+        assertTrue(TriggerPriceService.wasTriggered(marketPrice("USD", 10.01), buyOffer));
+    }
+
+    @Test
+    public void testAltcoinOffers() {
+        OpenOffer sellOffer = altcoinOffer("sell", OfferDirection.SELL);
+        OpenOffer buyOffer = altcoinOffer("buy", OfferDirection.BUY);
+
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("BTC", 0.005), sellOffer));
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("BTC", 0.0049), sellOffer));
+        assertTrue(TriggerPriceService.wasTriggered(marketPrice("BTC", 0.0051), sellOffer));
+
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("BTC", 0.005), buyOffer));
+        assertTrue(TriggerPriceService.wasTriggered(marketPrice("BTC", 0.0049), buyOffer));
+        assertFalse(TriggerPriceService.wasTriggered(marketPrice("BTC", 0.0051), buyOffer));
+    }
+
+    @Test
+    public void testPriceUpdateDeactivatesTheCrossedOffers() {
+        openOffers.addAll(asList(fiatOffer("fiat-sell", OfferDirection.SELL),
+                fiatOffer("fiat-buy", OfferDirection.BUY),
+                altcoinOffer("altcoin-sell", OfferDirection.SELL),
+                altcoinOffer("altcoin-buy", OfferDirection.BUY)));
+
+        onPriceUpdate(10, 0.005);
+        verify(openOfferManager, never()).deactivateOpenOffers(any(), any());
+
+        onPriceUpdate(9.99, 0.0051);
+        assertEquals(asList("altcoin-sell", "fiat-sell"), getDeactivatedOfferIds());
+
+        onPriceUpdate(10.01, 0.0049);
+        assertEquals(asList("altcoin-buy", "fiat-buy"), getDeactivatedOfferIds());
+    }
+
+    @Test
+    public void testOfferIsTriggeredOnlyWhileActive() {
+        OpenOffer openOffer = fiatOffer("fiat-sell", OfferDirection.SELL);
+        openOffers.add(openOffer);
+
+        openOffer.setState(OpenOffer.State.DEACTIVATED);
+        onPriceUpdate(9.99, 0.005);
+        verify(openOfferManager, never()).deactivateOpenOffers(any(), any());
+
+        openOffer.setState(OpenOffer.State.AVAILABLE);
+        onPriceUpdate(9.98, 0.005);
+        assertEquals(asList("fiat-sell"), getDeactivatedOfferIds());
+
+        // A removed offer is not triggered anymore
+        openOffers.remove(openOffer);
+        onPriceUpdate(9.97, 0.005);
+        verify(openOfferManager, never()).deactivateOpenOffers(any(), any());
+    }
+
+    private void onPriceUpdate(double usdPrice, double btcPrice) {
+        MarketPrice usdMarketPrice = marketPrice("USD", usdPrice);
+        MarketPrice btcMarketPrice = marketPrice("BTC", btcPrice);
+        when(priceFeedService.getMarketPrice("USD")).thenReturn(usdMarketPrice);
+        when(priceFeedService.getMarketPrice("BTC")).thenReturn(btcMarketPrice);
+        updateCounter.set(updateCounter.get() + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getDeactivatedOfferIds() {
+        ArgumentCaptor<List<OpenOffer>> captor = ArgumentCaptor.forClass(List.class);
+        verify(openOfferManager).deactivateOpenOffers(captor.capture(), any());
+        clearInvocations(openOfferManager);
+        return captor.getValue().stream().map(OpenOffer::getId).sorted().collect(Collectors.toList());
+    }
+
+    private static OpenOffer fiatOffer(String offerId, OfferDirection offerDirection) {
+        Offer offer = make(btcUsdOffer.but(with(id, offerId),
+                with(direction, offerDirection),
+                with(price, FIAT_TRIGGER_PRICE)));
+        return availableOpenOffer(offer, FIAT_TRIGGER_PRICE);
+    }
+
+    private static OpenOffer altcoinOffer(String offerId, OfferDirection offerDirection) {
+        Offer offer = make(btcUsdOffer.but(with(id, offerId),
+                with(direction, offerDirection),
+                with(baseCurrencyCode, "BTC"),
+                with(counterCurrencyCode, "XMR"),
+                with(price, ALTCOIN_TRIGGER_PRICE)));
+        return availableOpenOffer(offer, ALTCOIN_TRIGGER_PRICE);
+    }
+
+    private static OpenOffer availableOpenOffer(Offer offer, long triggerPrice) {
+        OpenOffer openOffer = new OpenOffer(offer, triggerPrice);
+        openOffer.setState(OpenOffer.State.AVAILABLE);
+        return openOffer;
+    }
+
+    private static MarketPrice marketPrice(String currencyCode, double price) {
+        return new MarketPrice(currencyCode, price, Instant.now().getEpochSecond(), true);
+    }
+}
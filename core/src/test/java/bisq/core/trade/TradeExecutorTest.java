@@ -0,0 +1,111 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TradeExecutorTest {
+    private static final long TIMEOUT_SEC = 10;
+
+    @Test
+    public void testTasksOfLaneRunInSubmissionOrder() throws Exception {
+        String laneId = newLaneId();
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int index = i;
+            // Mix both pools, the order must still be kept
+            Runnable command = () -> executed.add(index);
+            futures.add(i % 3 == 0 ? TradeExecutor.executeBlocking(laneId, command) : TradeExecutor.execute(laneId, command));
+        }
+        for (Future<?> future : futures) {
+            future.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+        }
+
+        assertEquals(100, executed.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) executed.get(i));
+        }
+        assertEquals(0, TradeExecutor.getQueueDepth(laneId));
+    }
+
+    @Test
+    public void testLanesRunInParallel() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        // The first lane can only complete if the second lane runs while it waits
+        Future<?> waiting = TradeExecutor.executeBlocking(newLaneId(), () -> TradeUtils.awaitLatch(latch));
+        Future<?> releasing = TradeExecutor.execute(newLaneId(), latch::countDown);
+
+        releasing.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+        waiting.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testBlockedLanesDoNotStarveOtherLanes() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Future<?>> blocked = new ArrayList<>();
+        // More blocked lanes than the bounded pool has threads
+        for (int i = 0; i < 100; i++) {
+            blocked.add(TradeExecutor.executeBlocking(newLaneId(), () -> TradeUtils.awaitLatch(latch)));
+        }
+
+        try {
+            TradeExecutor.execute(newLaneId(), () -> {
+            }).get(TIMEOUT_SEC, TimeUnit.SECONDS);
+            assertTrue(blocked.stream().noneMatch(Future::isDone));
+        } finally {
+            latch.countDown();
+        }
+        for (Future<?> future : blocked) {
+            future.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testTaskOfLaneWaitsForBlockedTask() throws Exception {
+        String laneId = newLaneId();
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<?> blocked = TradeExecutor.executeBlocking(laneId, () -> TradeUtils.awaitLatch(latch));
+        Future<?> next = TradeExecutor.execute(laneId, () -> {
+        });
+
+        Thread.sleep(100);
+        assertFalse(next.isDone());
+        assertEquals(1, TradeExecutor.getQueueDepth(laneId));
+
+        latch.countDown();
+        blocked.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+        next.get(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    private static String newLaneId() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.payment.payload.PaymentMethod;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static bisq.core.trade.statistics.TradeStatisticsCandles.TickUnit.DAY;
+import static bisq.core.trade.statistics.TradeStatisticsCandles.TickUnit.HOUR;
+import static bisq.core.trade.statistics.TradeStatisticsCandles.TickUnit.WEEK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TradeStatisticsCandlesTest {
+    private static final long DAY_START = Instant.parse("2021-06-02T00:00:00Z").toEpochMilli();
+    private static final long HOUR_MS = 3600 * 1000;
+
+    private TradeStatisticsCandles candles;
+
+    @Before
+    public void setUp() {
+        candles = new TradeStatisticsCandles(ZoneOffset.UTC);
+    }
+
+    @Test
+    public void testTickUnitRoundDown() {
+        long time = Instant.parse("2021-06-02T13:47:12Z").toEpochMilli();
+        assertEquals(Instant.parse("2021-06-02T13:00:00Z").toEpochMilli(), HOUR.roundDown(time, ZoneOffset.UTC));
+        assertEquals(DAY_START, DAY.roundDown(time, ZoneOffset.UTC));
+        // 2021-06-02 is a Wednesday, weeks start on Monday
+        assertEquals(Instant.parse("2021-05-31T00:00:00Z").toEpochMilli(), WEEK.roundDown(time, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testOhlcIsIndependentOfArrivalOrder() {
+        candles.add(tradeStatistics(DAY_START + 3 * HOUR_MS, 5100_0000L));
+        candles.add(tradeStatistics(DAY_START + HOUR_MS, 5000_0000L));
+        candles.add(tradeStatistics(DAY_START + 4 * HOUR_MS, 4800_0000L));
+        candles.add(tradeStatistics(DAY_START + 2 * HOUR_MS, 5300_0000L));
+
+        List<Candle> dayCandles = candles.getCandles("EUR", DAY, 0, Long.MAX_VALUE, 10);
+        assertEquals(1, dayCandles.size());
+        Candle candle = dayCandles.get(0);
+        assertEquals(DAY_START, candle.getDate());
+        assertEquals(5000_0000L, candle.getOpen());
+        assertEquals(5300_0000L, candle.getHigh());
+        assertEquals(4800_0000L, candle.getLow());
+        assertEquals(4800_0000L, candle.getClose());
+        assertEquals(4, candle.getNumTrades());
+        assertEquals(5050_0000L, candle.getMedianPrice());
+        assertEquals(4 * 100_000_000L, candle.getAccumulatedAmount());
+
+        assertEquals(4, candles.getCandles("EUR", HOUR, 0, Long.MAX_VALUE, 10).size());
+        assertTrue(candles.getCandles("USD", DAY, 0, Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    public void testPaging() {
+        for (int i = 0; i < 5; i++) {
+            candles.add(tradeStatistics(DAY_START + i * HOUR_MS + 60_000, 5000_0000L));
+        }
+
+        List<Candle> firstPage = candles.getCandles("EUR", HOUR, DAY_START, Long.MAX_VALUE, 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(DAY_START + HOUR_MS, firstPage.get(1).getDate());
+
+        List<Candle> secondPage = candles.getCandles("EUR", HOUR, firstPage.get(1).getDate() + 1, Long.MAX_VALUE, 2);
+        assertEquals(DAY_START + 2 * HOUR_MS, secondPage.get(0).getDate());
+
+        // The end of the range is exclusive
+        assertEquals(3, candles.getCandles("EUR", HOUR, 0, DAY_START + 3 * HOUR_MS, 10).size());
+    }
+
+    @Test
+    public void testMedianPriceOfManyTradesIsApproximated() {
+        int numTrades = 2 * TradeStatisticsCandles.MAX_EXACT_MEDIAN_PRICES + 1;
+        // Added in descending order, the exact median is 4100_0000
+        for (int i = numTrades - 1; i >= 0; i--) {
+            candles.add(tradeStatistics(DAY_START + HOUR_MS, 4000_0000L + i * 1000L));
+        }
+
+        Candle candle = candles.getCandles("EUR", DAY, 0, Long.MAX_VALUE, 10).get(0);
+        assertEquals(numTrades, candle.getNumTrades());
+        assertEquals(4100_0000L, candle.getMedianPrice(), 4100_0000L * TradeStatisticsCandles.MEDIAN_BIN_PRECISION);
+        assertEquals(4000_0000L, candle.getLow());
+        assertEquals(4000_0000L + (numTrades - 1) * 1000L, candle.getHigh());
+    }
+
+    @Test
+    public void testAveragePrices() {
+        candles.add(tradeStatistics(DAY_START + HOUR_MS, 4000_0000L));
+        candles.add(tradeStatistics(DAY_START + 2 * HOUR_MS, 6000_0000L));
+
+        Map<Long, Long> averagePrices = candles.getAveragePrices("EUR", DAY);
+        assertEquals(1, averagePrices.size());
+        // Both trades have the same amount
+        assertEquals(5000_0000L, (long) averagePrices.get(DAY_START));
+    }
+
+    private static TradeStatistics3 tradeStatistics(long date, long price) {
+        return new TradeStatistics3("EUR",
+                price,
+                100_000_000L,
+                PaymentMethod.SEPA_ID,
+                date,
+                null,
+                null,
+                null);
+    }
+}
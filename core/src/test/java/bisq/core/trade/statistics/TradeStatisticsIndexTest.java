@@ -0,0 +1,96 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.core.trade.statistics;
+
+import bisq.core.payment.payload.PaymentMethod;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TradeStatisticsIndexTest {
+    private TradeStatisticsIndex index;
+
+    @Before
+    public void setUp() {
+        index = new TradeStatisticsIndex();
+        // Added out of order
+        index.add(tradeStatistics("EUR", PaymentMethod.SEPA_ID, 3000));
+        index.add(tradeStatistics("USD", PaymentMethod.UPHOLD_ID, 1000));
+        index.add(tradeStatistics("EUR", PaymentMethod.REVOLUT_ID, 2000));
+        index.add(tradeStatistics("EUR", PaymentMethod.SEPA_ID, 1000));
+        index.add(tradeStatistics("USD", PaymentMethod.UPHOLD_ID, 4000));
+    }
+
+    @Test
+    public void testFilters() {
+        assertEquals(asList(1000L, 1000L, 2000L, 3000L, 4000L),
+                getDates(index.getTradeStatistics(null, null, 0, Long.MAX_VALUE, null, Integer.MAX_VALUE)));
+        assertEquals(asList(1000L, 2000L, 3000L),
+                getDates(index.getTradeStatistics("EUR", null, 0, Long.MAX_VALUE, null, Integer.MAX_VALUE)));
+        assertEquals(asList(1000L, 3000L),
+                getDates(index.getTradeStatistics("EUR", PaymentMethod.SEPA_ID, 0, Long.MAX_VALUE, null, Integer.MAX_VALUE)));
+        // The end of the range is exclusive
+        assertEquals(asList(2000L, 3000L),
+                getDates(index.getTradeStatistics(null, null, 2000, 4000, null, Integer.MAX_VALUE)));
+        assertTrue(index.getTradeStatistics("CAD", null, 0, Long.MAX_VALUE, null, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testCursorPaging() {
+        List<TradeStatistics3> firstPage = index.getTradeStatistics(null, null, 0, Long.MAX_VALUE, null, 2);
+        assertEquals(asList(1000L, 1000L), getDates(firstPage));
+
+        String cursor = TradeStatisticsIndex.getCursor(firstPage.get(1));
+        List<TradeStatistics3> secondPage = index.getTradeStatistics(null, null, 0, Long.MAX_VALUE, cursor, 2);
+        assertEquals(asList(2000L, 3000L), getDates(secondPage));
+
+        cursor = TradeStatisticsIndex.getCursor(secondPage.get(1));
+        assertEquals(asList(4000L), getDates(index.getTradeStatistics(null, null, 0, Long.MAX_VALUE, cursor, 2)));
+
+        // Trade statistics added meanwhile do not shift the pages
+        index.add(tradeStatistics("USD", PaymentMethod.UPHOLD_ID, 500));
+        assertEquals(asList(4000L), getDates(index.getTradeStatistics(null, null, 0, Long.MAX_VALUE, cursor, 2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCursor() {
+        index.getTradeStatistics(null, null, 0, Long.MAX_VALUE, "invalid", 2);
+    }
+
+    private static List<Long> getDates(List<TradeStatistics3> tradeStatistics) {
+        return tradeStatistics.stream().map(TradeStatistics3::getDateAsLong).collect(Collectors.toList());
+    }
+
+    private static TradeStatistics3 tradeStatistics(String currencyCode, String paymentMethodId, long date) {
+        return new TradeStatistics3(currencyCode,
+                5000_0000L,
+                100_000_000L,
+                paymentMethodId,
+                date,
+                null,
+                null,
+                null);
+    }
+}
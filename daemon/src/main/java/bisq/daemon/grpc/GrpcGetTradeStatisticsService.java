@@ -1,25 +1,37 @@
 package bisq.daemon.grpc;
 
 import bisq.core.api.CoreApi;
+import bisq.core.trade.statistics.Candle;
 import bisq.core.trade.statistics.TradeStatistics3;
+import bisq.core.trade.statistics.TradeStatisticsIndex;
 
+import bisq.proto.grpc.CandleInfo;
+import bisq.proto.grpc.GetCandlesReply;
+import bisq.proto.grpc.GetCandlesRequest;
 import bisq.proto.grpc.GetTradeStatisticsReply;
 import bisq.proto.grpc.GetTradeStatisticsRequest;
 
 import io.grpc.ServerInterceptor;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import javax.inject.Inject;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 import static bisq.daemon.grpc.interceptor.GrpcServiceRateMeteringConfig.getCustomRateMeteringInterceptor;
 import static bisq.proto.grpc.GetTradeStatisticsGrpc.GetTradeStatisticsImplBase;
+import static bisq.proto.grpc.GetTradeStatisticsGrpc.getGetCandlesMethod;
 import static bisq.proto.grpc.GetTradeStatisticsGrpc.getGetTradeStatisticsMethod;
+import static bisq.proto.grpc.GetTradeStatisticsGrpc.getStreamTradeStatisticsMethod;
+import static com.google.common.base.Strings.emptyToNull;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 
@@ -27,8 +39,12 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import bisq.daemon.grpc.interceptor.CallRateMeteringInterceptor;
 import bisq.daemon.grpc.interceptor.GrpcCallRateMeter;
 
+import javax.annotation.Nullable;
+
 @Slf4j
 class GrpcGetTradeStatisticsService extends GetTradeStatisticsImplBase {
+    private static final int MAX_CANDLES_PER_PAGE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
 
     private final CoreApi coreApi;
     private final GrpcExceptionHandler exceptionHandler;
@@ -43,11 +59,83 @@ class GrpcGetTradeStatisticsService extends GetTradeStatisticsImplBase {
     public void getTradeStatistics(GetTradeStatisticsRequest req,
                                    StreamObserver<GetTradeStatisticsReply> responseObserver) {
         try {
-            var tradeStatistics = coreApi.getTradeStatistics().stream()
-                    .map(TradeStatistics3::toProtoTradeStatistics3)
-                    .collect(Collectors.toList());
+            int limit = req.getLimit() > 0 ? req.getLimit() : Integer.MAX_VALUE;
+            responseObserver.onNext(getTradeStatisticsPage(req, emptyToNull(req.getCursor()), limit));
+            responseObserver.onCompleted();
+        } catch (Throwable cause) {
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
 
-            var reply = GetTradeStatisticsReply.newBuilder().addAllTradeStatistics(tradeStatistics).build();
+    @Override
+    public void streamTradeStatistics(GetTradeStatisticsRequest req,
+                                      StreamObserver<GetTradeStatisticsReply> responseObserver) {
+        ServerCallStreamObserver<GetTradeStatisticsReply> serverCallStreamObserver =
+                (ServerCallStreamObserver<GetTradeStatisticsReply>) responseObserver;
+        // Each chunk continues at the cursor of the previous one, so the whole list never gets built. The handler
+        // is called whenever the client can take more data, the first time when the call starts.
+        AtomicReference<String> cursor = new AtomicReference<>(emptyToNull(req.getCursor()));
+        AtomicBoolean completed = new AtomicBoolean();
+        serverCallStreamObserver.setOnReadyHandler(() -> {
+            try {
+                while (serverCallStreamObserver.isReady() && !completed.get()) {
+                    GetTradeStatisticsReply reply = getTradeStatisticsPage(req, cursor.get(), STREAM_CHUNK_SIZE);
+                    if (reply.getTradeStatisticsCount() > 0)
+                        serverCallStreamObserver.onNext(reply);
+
+                    if (reply.getNextCursor().isEmpty()) {
+                        completed.set(true);
+                        serverCallStreamObserver.onCompleted();
+                    } else {
+                        cursor.set(reply.getNextCursor());
+                    }
+                }
+            } catch (Throwable cause) {
+                completed.set(true);
+                exceptionHandler.handleException(log, cause, serverCallStreamObserver);
+            }
+        });
+    }
+
+    private GetTradeStatisticsReply getTradeStatisticsPage(GetTradeStatisticsRequest req,
+                                                           @Nullable String cursor,
+                                                           int limit) {
+        List<TradeStatistics3> tradeStatistics = coreApi.getTradeStatistics(emptyToNull(req.getCurrencyCode()),
+                emptyToNull(req.getPaymentMethodId()),
+                req.getFromDate(),
+                req.getToDate() > 0 ? req.getToDate() : Long.MAX_VALUE,
+                cursor,
+                limit);
+        // A full page can be followed by more trade statistics
+        String nextCursor = tradeStatistics.size() == limit ?
+                TradeStatisticsIndex.getCursor(tradeStatistics.get(tradeStatistics.size() - 1)) :
+                "";
+        return GetTradeStatisticsReply.newBuilder()
+                .addAllTradeStatistics(tradeStatistics.stream()
+                        .map(TradeStatistics3::toProtoTradeStatistics3)
+                        .collect(Collectors.toList()))
+                .setNextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public void getCandles(GetCandlesRequest req,
+                           StreamObserver<GetCandlesReply> responseObserver) {
+        try {
+            int limit = req.getLimit() > 0 ? Math.min(req.getLimit(), MAX_CANDLES_PER_PAGE) : MAX_CANDLES_PER_PAGE;
+            List<Candle> candles = coreApi.getCandles(req.getCurrencyCode(),
+                    req.getTickUnit(),
+                    req.getFromDate(),
+                    req.getToDate() > 0 ? req.getToDate() : Long.MAX_VALUE,
+                    limit);
+            // A full page can be followed by more candles, the next page starts after the last tick
+            long nextFromDate = candles.size() == limit ? candles.get(candles.size() - 1).getDate() + 1 : 0;
+            var reply = GetCandlesReply.newBuilder()
+                    .addAllCandles(candles.stream()
+                            .map(this::toCandleInfo)
+                            .collect(Collectors.toList()))
+                    .setNextFromDate(nextFromDate)
+                    .build();
             responseObserver.onNext(reply);
             responseObserver.onCompleted();
         } catch (Throwable cause) {
@@ -55,6 +143,21 @@ class GrpcGetTradeStatisticsService extends GetTradeStatisticsImplBase {
         }
     }
 
+    private CandleInfo toCandleInfo(Candle candle) {
+        return CandleInfo.newBuilder()
+                .setDate(candle.getDate())
+                .setOpen(candle.getOpen())
+                .setHigh(candle.getHigh())
+                .setLow(candle.getLow())
+                .setClose(candle.getClose())
+                .setAmount(candle.getAccumulatedAmount())
+                .setVolume(candle.getAccumulatedVolume())
+                .setNumTrades(candle.getNumTrades())
+                .setAveragePrice(candle.getAveragePrice())
+                .setMedianPrice(candle.getMedianPrice())
+                .build();
+    }
+
     final ServerInterceptor[] interceptors() {
         Optional<ServerInterceptor> rateMeteringInterceptor = rateMeteringInterceptor();
         return rateMeteringInterceptor.map(serverInterceptor ->
@@ -66,6 +169,8 @@ class GrpcGetTradeStatisticsService extends GetTradeStatisticsImplBase {
                 .or(() -> Optional.of(CallRateMeteringInterceptor.valueOf(
                         new HashMap<>() {{
                             put(getGetTradeStatisticsMethod().getFullMethodName(), new GrpcCallRateMeter(1, SECONDS));
+                            put(getStreamTradeStatisticsMethod().getFullMethodName(), new GrpcCallRateMeter(1, SECONDS));
+                            put(getGetCandlesMethod().getFullMethodName(), new GrpcCallRateMeter(10, SECONDS));
                         }}
                 )));
     }
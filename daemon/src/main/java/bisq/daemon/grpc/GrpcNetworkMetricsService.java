@@ -0,0 +1,121 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import bisq.core.api.CoreApi;
+
+import bisq.network.p2p.network.MessageMetrics;
+
+import bisq.common.util.LatencyHistogram;
+
+import bisq.proto.grpc.GetNetworkMetricsReply;
+import bisq.proto.grpc.GetNetworkMetricsRequest;
+import bisq.proto.grpc.LatencySummary;
+import bisq.proto.grpc.MessageTypeMetrics;
+
+import io.grpc.ServerInterceptor;
+import io.grpc.stub.StreamObserver;
+
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static bisq.daemon.grpc.interceptor.GrpcServiceRateMeteringConfig.getCustomRateMeteringInterceptor;
+import static bisq.proto.grpc.NetworkMetricsGrpc.NetworkMetricsImplBase;
+import static bisq.proto.grpc.NetworkMetricsGrpc.getGetNetworkMetricsMethod;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+
+
+import bisq.daemon.grpc.interceptor.CallRateMeteringInterceptor;
+import bisq.daemon.grpc.interceptor.GrpcCallRateMeter;
+
+@Slf4j
+class GrpcNetworkMetricsService extends NetworkMetricsImplBase {
+
+    private final CoreApi coreApi;
+    private final GrpcExceptionHandler exceptionHandler;
+
+    @Inject
+    public GrpcNetworkMetricsService(CoreApi coreApi, GrpcExceptionHandler exceptionHandler) {
+        this.coreApi = coreApi;
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    @Override
+    public void getNetworkMetrics(GetNetworkMetricsRequest req,
+                                  StreamObserver<GetNetworkMetricsReply> responseObserver) {
+        try {
+            var messageTypeMetrics = coreApi.getNetworkMetrics().stream()
+                    .map(this::toMessageTypeMetrics)
+                    .collect(Collectors.toList());
+            var builder = GetNetworkMetricsReply.newBuilder().addAllMessageTypeMetrics(messageTypeMetrics);
+            if (req.getIncludePrometheusText()) {
+                builder.setPrometheusText(coreApi.getNetworkMetricsAsPrometheusText());
+            }
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (Throwable cause) {
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
+
+    private MessageTypeMetrics toMessageTypeMetrics(MessageMetrics.MessageTypeMetrics metrics) {
+        return MessageTypeMetrics.newBuilder()
+                .setType(metrics.getType())
+                .setNumReceived(metrics.getNumReceived())
+                .setReceivedBytes(metrics.getReceivedBytes())
+                .setNumSent(metrics.getNumSent())
+                .setSentBytes(metrics.getSentBytes())
+                .setParseTime(toLatencySummary(metrics.getParseTime()))
+                .setQueueDelay(toLatencySummary(metrics.getQueueDelay()))
+                .setHandlerTime(toLatencySummary(metrics.getHandlerTime()))
+                .setSendTime(toLatencySummary(metrics.getSendTime()))
+                .build();
+    }
+
+    private LatencySummary toLatencySummary(LatencyHistogram.Snapshot snapshot) {
+        return LatencySummary.newBuilder()
+                .setCount(snapshot.getCount())
+                .setMean(snapshot.getMeanMicros())
+                .setP50(snapshot.getP50Micros())
+                .setP90(snapshot.getP90Micros())
+                .setP99(snapshot.getP99Micros())
+                .setMax(snapshot.getMaxMicros())
+                .build();
+    }
+
+    final ServerInterceptor[] interceptors() {
+        Optional<ServerInterceptor> rateMeteringInterceptor = rateMeteringInterceptor();
+        return rateMeteringInterceptor.map(serverInterceptor ->
+                new ServerInterceptor[]{serverInterceptor}).orElseGet(() -> new ServerInterceptor[0]);
+    }
+
+    final Optional<ServerInterceptor> rateMeteringInterceptor() {
+        return getCustomRateMeteringInterceptor(coreApi.getConfig().appDataDir, this.getClass())
+                .or(() -> Optional.of(CallRateMeteringInterceptor.valueOf(
+                        new HashMap<>() {{
+                            put(getGetNetworkMetricsMethod().getFullMethodName(), new GrpcCallRateMeter(1, SECONDS));
+                        }}
+                )));
+    }
+}
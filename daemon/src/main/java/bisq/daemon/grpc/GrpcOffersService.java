@@ -34,8 +34,13 @@ import bisq.proto.grpc.GetOfferReply;
 import bisq.proto.grpc.GetOfferRequest;
 import bisq.proto.grpc.GetOffersReply;
 import bisq.proto.grpc.GetOffersRequest;
+import bisq.proto.grpc.OfferBookUpdate;
+import bisq.proto.grpc.SubscribeOffersRequest;
+
+import bisq.common.util.Utilities;
 
 import io.grpc.ServerInterceptor;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import javax.inject.Inject;
@@ -43,12 +48,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 import static bisq.daemon.grpc.interceptor.GrpcServiceRateMeteringConfig.getCustomRateMeteringInterceptor;
 import static bisq.proto.grpc.OffersGrpc.*;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 
@@ -61,6 +70,12 @@ class GrpcOffersService extends OffersImplBase {
 
     private final CoreApi coreApi;
     private final GrpcExceptionHandler exceptionHandler;
+    private final ScheduledExecutorService subscriptionExecutor =
+            Utilities.getScheduledThreadPoolExecutor("GrpcOffersService-subscriptions", 2, 2, 60);
+    // The updates check the reserved funds at the wallet, so they do not run at the subscription executor. There is
+    // at most one pending flush per subscription, so the queue is bounded by the number of subscriptions.
+    private final ExecutorService updateExecutor =
+            Utilities.getListeningExecutorService("GrpcOffersService-updates", 4, 4, 60, new LinkedBlockingQueue<>());
 
     @Inject
     public GrpcOffersService(CoreApi coreApi, GrpcExceptionHandler exceptionHandler) {
@@ -68,6 +83,11 @@ class GrpcOffersService extends OffersImplBase {
         this.exceptionHandler = exceptionHandler;
     }
 
+    void shutDown() {
+        subscriptionExecutor.shutdownNow();
+        updateExecutor.shutdownNow();
+    }
+
     @Override
     public void getOffer(GetOfferRequest req,
                          StreamObserver<GetOfferReply> responseObserver) {
@@ -118,6 +138,25 @@ class GrpcOffersService extends OffersImplBase {
         }
     }
 
+    @Override
+    public void subscribeOffers(SubscribeOffersRequest req,
+                                StreamObserver<OfferBookUpdate> responseObserver) {
+        OffersSubscription subscription = new OffersSubscription(coreApi,
+                (ServerCallStreamObserver<OfferBookUpdate>) responseObserver,
+                subscriptionExecutor,
+                updateExecutor,
+                req.getDirection(),
+                req.getCurrencyCode());
+        try {
+            subscription.open();
+            subscription.sendSnapshot();
+            // No onCompleted, as the response observer should be kept open until the client cancels
+        } catch (Throwable cause) {
+            subscription.close();
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
+
     @Override
     public void getMyOffers(GetMyOffersRequest req,
                             StreamObserver<GetMyOffersReply> responseObserver) {
@@ -205,6 +244,7 @@ class GrpcOffersService extends OffersImplBase {
                             put(getGetOfferMethod().getFullMethodName(), new GrpcCallRateMeter(10, SECONDS));
                             put(getGetMyOfferMethod().getFullMethodName(), new GrpcCallRateMeter(10, SECONDS));
                             put(getGetOffersMethod().getFullMethodName(), new GrpcCallRateMeter(20, SECONDS));
+                            put(getSubscribeOffersMethod().getFullMethodName(), new GrpcCallRateMeter(10, MINUTES));
                             put(getGetMyOffersMethod().getFullMethodName(), new GrpcCallRateMeter(20, SECONDS));
                             put(getCreateOfferMethod().getFullMethodName(), new GrpcCallRateMeter(10, SECONDS));
                             put(getCancelOfferMethod().getFullMethodName(), new GrpcCallRateMeter(10, SECONDS));
@@ -27,7 +27,12 @@ import bisq.proto.grpc.MarketPriceRequest;
 import bisq.proto.grpc.MarketPricesReply;
 import bisq.proto.grpc.MarketPricesRequest;
 
+import bisq.common.util.Utilities;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
 import io.grpc.ServerInterceptor;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import javax.inject.Inject;
@@ -35,12 +40,15 @@ import javax.inject.Inject;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
 
 import lombok.extern.slf4j.Slf4j;
 
 import static bisq.daemon.grpc.interceptor.GrpcServiceRateMeteringConfig.getCustomRateMeteringInterceptor;
 import static bisq.proto.grpc.PriceGrpc.PriceImplBase;
 import static bisq.proto.grpc.PriceGrpc.getGetMarketPriceMethod;
+import static bisq.proto.grpc.PriceGrpc.getSubscribeMarketDepthMethod;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 
@@ -53,6 +61,8 @@ class GrpcPriceService extends PriceImplBase {
 
     private final CoreApi coreApi;
     private final GrpcExceptionHandler exceptionHandler;
+    private final ScheduledExecutorService subscriptionExecutor =
+            Utilities.getScheduledThreadPoolExecutor("GrpcPriceService-subscriptions", 1, 1, 60);
 
     @Inject
     public GrpcPriceService(CoreApi coreApi, GrpcExceptionHandler exceptionHandler) {
@@ -60,6 +70,10 @@ class GrpcPriceService extends PriceImplBase {
         this.exceptionHandler = exceptionHandler;
     }
 
+    void shutDown() {
+        subscriptionExecutor.shutdownNow();
+    }
+
     @Override
     public void getMarketPrice(MarketPriceRequest req,
                                StreamObserver<MarketPriceReply> responseObserver) {
@@ -94,6 +108,25 @@ class GrpcPriceService extends PriceImplBase {
         }
     }
 
+    @Override
+    public void subscribeMarketDepth(MarketDepthRequest req,
+                                     StreamObserver<MarketDepthReply> responseObserver) {
+        MarketDepthSubscription subscription = new MarketDepthSubscription(coreApi,
+                (ServerCallStreamObserver<MarketDepthReply>) responseObserver,
+                subscriptionExecutor,
+                // Computing the depth only reads the offer book, so it runs at the subscription executor
+                MoreExecutors.directExecutor(),
+                req.getCurrencyCode());
+        try {
+            subscription.open();
+            subscription.sendSnapshot();
+            // No onCompleted, as the response observer should be kept open until the client cancels
+        } catch (Throwable cause) {
+            subscription.close();
+            exceptionHandler.handleException(log, cause, responseObserver);
+        }
+    }
+
     private MarketPricesReply mapMarketPricesReply(List<MarketPriceInfo> marketPrices) {
         MarketPricesReply.Builder builder = MarketPricesReply.newBuilder();
         marketPrices.stream()
@@ -117,6 +150,7 @@ class GrpcPriceService extends PriceImplBase {
                 .or(() -> Optional.of(CallRateMeteringInterceptor.valueOf(
                         new HashMap<>() {{
                             put(getGetMarketPriceMethod().getFullMethodName(), new GrpcCallRateMeter(20, SECONDS));
+                            put(getSubscribeMarketDepthMethod().getFullMethodName(), new GrpcCallRateMeter(10, MINUTES));
                         }}
                 )));
     }
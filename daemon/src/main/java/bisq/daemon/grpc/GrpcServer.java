@@ -44,6 +44,8 @@ import bisq.daemon.grpc.interceptor.PasswordAuthInterceptor;
 public class GrpcServer {
 
     private final Server server;
+    private final GrpcOffersService offersService;
+    private final GrpcPriceService priceService;
 
     @Inject
     public GrpcServer(CoreContext coreContext,
@@ -63,7 +65,10 @@ public class GrpcServer {
                       GrpcWalletsService walletsService,
                       GrpcNotificationsService notificationsService,
                       GrpcMoneroConnectionsService moneroConnectionsService,
-                      GrpcMoneroNodeService moneroNodeService) {
+                      GrpcMoneroNodeService moneroNodeService,
+                      GrpcNetworkMetricsService networkMetricsService) {
+        this.offersService = offersService;
+        this.priceService = priceService;
         this.server = ServerBuilder.forPort(config.apiPort)
                 .addService(interceptForward(accountService, accountService.interceptors()))
                 .addService(interceptForward(disputeAgentsService, disputeAgentsService.interceptors()))
@@ -78,6 +83,7 @@ public class GrpcServer {
                 .addService(interceptForward(versionService, versionService.interceptors()))
                 .addService(interceptForward(walletsService, walletsService.interceptors()))
                 .addService(interceptForward(notificationsService, notificationsService.interceptors()))
+                .addService(interceptForward(networkMetricsService, networkMetricsService.interceptors()))
                 .addService(interceptForward(moneroConnectionsService, moneroConnectionsService.interceptors()))
                 .addService(interceptForward(moneroNodeService, moneroNodeService.interceptors()))
                 .intercept(passwordAuthInterceptor)
@@ -97,6 +103,8 @@ public class GrpcServer {
     public void shutdown() {
         log.info("Server shutdown started");
         server.shutdown();
+        offersService.shutDown();
+        priceService.shutDown();
         log.info("Server shutdown complete");
     }
 }
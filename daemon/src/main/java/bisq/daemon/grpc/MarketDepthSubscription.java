@@ -0,0 +1,105 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import bisq.core.api.CoreApi;
+import bisq.core.api.model.MarketDepthInfo;
+import bisq.core.offer.Offer;
+import bisq.proto.grpc.MarketDepthReply;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Streams the market depth of a currency. The depth is cumulative, so a single offer shifts all following price
+ * levels and we send the whole depth instead of deltas. It gets computed at most once per flush, no matter how many
+ * offers of the market changed meanwhile, and without requesting the prices again.
+ */
+class MarketDepthSubscription extends OfferBookSubscription<MarketDepthReply> {
+    private final String currencyCode;
+    // Guarded by this
+    private boolean changed;
+
+    MarketDepthSubscription(CoreApi coreApi,
+                            ServerCallStreamObserver<MarketDepthReply> responseObserver,
+                            ScheduledExecutorService scheduler,
+                            Executor flushExecutor,
+                            String currencyCode) {
+        super(coreApi, responseObserver, scheduler, flushExecutor);
+        this.currencyCode = currencyCode;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // OfferBookChangedListener
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onAdded(Offer offer) {
+        onOfferChanged(offer);
+    }
+
+    @Override
+    public void onRemoved(Offer offer) {
+        onOfferChanged(offer);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // OfferBookSubscription
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Validates the currency code, so the updates do not need to request the prices
+    @Override
+    protected MarketDepthReply createSnapshot() throws Exception {
+        return toReply(coreApi.getMarketDepth(currencyCode));
+    }
+
+    @Override
+    protected boolean hasPendingChanges() {
+        return changed;
+    }
+
+    @Override
+    protected MarketDepthReply nextUpdate() {
+        synchronized (this) {
+            changed = false;
+        }
+        return toReply(coreApi.computeMarketDepth(currencyCode));
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void onOfferChanged(Offer offer) {
+        if (offer.getCurrencyCode().equalsIgnoreCase(currencyCode)) {
+            synchronized (this) {
+                changed = true;
+            }
+            onChanged();
+        }
+    }
+
+    private MarketDepthReply toReply(MarketDepthInfo marketDepthInfo) {
+        return MarketDepthReply.newBuilder().setMarketDepth(marketDepthInfo.toProtoMessage()).build();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import bisq.core.api.CoreApi;
+import bisq.core.offer.OfferBookService.OfferBookChangedListener;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import javax.annotation.Nullable;
+
+/**
+ * Base class of the server-streaming subscriptions fed by the offer book. After the snapshot the subclass collects
+ * the changes of the offer book and we send them from the executor, but only while the stream to the client is
+ * ready. A slow client therefore never blocks the UserThread and does not get an unbounded buffer of messages:
+ * its changes keep getting coalesced until it catches up, which also bounds the pending changes to the size of the
+ * offer book.
+ * The scheduler only delays the flushes, they run at the flush executor. Flushes which call the daemon, e.g. to
+ * check the reserved funds, therefore do not hold up the delays of the other subscriptions.
+ */
+@Slf4j
+abstract class OfferBookSubscription<T> implements OfferBookChangedListener {
+    // Delay of the first flush after a change so bursts of changes, e.g. from a data response, are sent together
+    private static final long COALESCE_DELAY_MS = 100;
+
+    protected final CoreApi coreApi;
+    private final ServerCallStreamObserver<T> responseObserver;
+    private final ScheduledExecutorService scheduler;
+    private final Executor flushExecutor;
+
+    // Guarded by this
+    private boolean started;
+    private boolean flushScheduled;
+    private boolean closed;
+
+    OfferBookSubscription(CoreApi coreApi,
+                          ServerCallStreamObserver<T> responseObserver,
+                          ScheduledExecutorService scheduler,
+                          Executor flushExecutor) {
+        this.coreApi = coreApi;
+        this.responseObserver = responseObserver;
+        this.scheduler = scheduler;
+        this.flushExecutor = flushExecutor;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Registers the listener before the snapshot gets created, so no change gets lost between the snapshot and the
+     * first update. Must be called from the rpc method as the handlers can only be set there.
+     */
+    void open() {
+        responseObserver.setOnCancelHandler(this::close);
+        responseObserver.setOnReadyHandler(this::scheduleFlush);
+        coreApi.addOfferBookChangedListener(this);
+    }
+
+    void sendSnapshot() throws Exception {
+        responseObserver.onNext(createSnapshot());
+        synchronized (this) {
+            started = true;
+        }
+        scheduleFlush();
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+        }
+        coreApi.removeOfferBookChangedListener(this);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Subclass
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    protected abstract T createSnapshot() throws Exception;
+
+    // Called while holding the lock of this subscription
+    protected abstract boolean hasPendingChanges();
+
+    /**
+     * Takes the pending changes and maps them to the next update. Only called from a single flush at a time.
+     *
+     * @return the update or null if the changes do not affect the client
+     */
+    @Nullable
+    protected abstract T nextUpdate();
+
+    // To be called by the subclass after it has recorded a change
+    protected void onChanged() {
+        scheduleFlush();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private synchronized void scheduleFlush() {
+        if (!started || closed || flushScheduled || !hasPendingChanges())
+            return;
+
+        flushScheduled = true;
+        scheduler.schedule(() -> flushExecutor.execute(this::flush), COALESCE_DELAY_MS, MILLISECONDS);
+    }
+
+    private void flush() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    // If the stream is not ready the onReadyHandler schedules the next flush. As it needs the lock
+                    // as well it cannot get lost between our check and resetting the flag.
+                    if (closed || !responseObserver.isReady() || !hasPendingChanges()) {
+                        flushScheduled = false;
+                        return;
+                    }
+                }
+                T update = nextUpdate();
+                if (update != null)
+                    responseObserver.onNext(update);
+            }
+        } catch (Throwable t) {
+            log.error("Sending update of {} failed", getClass().getSimpleName(), t);
+            close();
+            responseObserver.onError(Status.INTERNAL.withDescription(t.getMessage()).asRuntimeException());
+        }
+    }
+}
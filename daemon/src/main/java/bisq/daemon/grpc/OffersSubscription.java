@@ -0,0 +1,170 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import bisq.core.api.CoreApi;
+import bisq.core.api.model.OfferInfo;
+import bisq.core.offer.Offer;
+import bisq.proto.grpc.OfferBookUpdate;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+/**
+ * Streams the takeable offers of one market and direction. The pending changes are coalesced per offer id: only the
+ * latest state of an offer gets sent, and an offer which was added and removed again before the client got it is not
+ * sent at all.
+ */
+class OffersSubscription extends OfferBookSubscription<OfferBookUpdate> {
+    private static final int MAX_CHANGES_PER_UPDATE = 100;
+
+    private final String direction;
+    private final String currencyCode;
+    // Latest offer per offer id, null if the offer got removed. Guarded by this.
+    private final Map<String, Offer> pendingOffers = new LinkedHashMap<>();
+    // Offers the client knows, only accessed by the snapshot and by the flush
+    private final Set<String> sentOfferIds = new HashSet<>();
+
+    OffersSubscription(CoreApi coreApi,
+                       ServerCallStreamObserver<OfferBookUpdate> responseObserver,
+                       ScheduledExecutorService scheduler,
+                       Executor flushExecutor,
+                       String direction,
+                       String currencyCode) {
+        super(coreApi, responseObserver, scheduler, flushExecutor);
+        this.direction = direction;
+        this.currencyCode = currencyCode;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // OfferBookChangedListener
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onAdded(Offer offer) {
+        if (isOfMarket(offer)) {
+            synchronized (this) {
+                pendingOffers.put(offer.getId(), offer);
+            }
+            onChanged();
+        }
+    }
+
+    @Override
+    public void onRemoved(Offer offer) {
+        if (isOfMarket(offer)) {
+            synchronized (this) {
+                pendingOffers.put(offer.getId(), null);
+            }
+            onChanged();
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // OfferBookSubscription
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    protected OfferBookUpdate createSnapshot() {
+        List<Offer> offers = coreApi.getOffers(direction, currencyCode);
+        offers.forEach(offer -> sentOfferIds.add(offer.getId()));
+        return OfferBookUpdate.newBuilder()
+                .setIsSnapshot(true)
+                .addAllAddedOffers(offers.stream()
+                        .map(this::toOfferInfo)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    @Override
+    protected boolean hasPendingChanges() {
+        return !pendingOffers.isEmpty();
+    }
+
+    @Nullable
+    @Override
+    protected OfferBookUpdate nextUpdate() {
+        Map<String, Offer> changes = new LinkedHashMap<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Offer>> iterator = pendingOffers.entrySet().iterator();
+            while (iterator.hasNext() && changes.size() < MAX_CHANGES_PER_UPDATE) {
+                Map.Entry<String, Offer> entry = iterator.next();
+                changes.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        // The takeable check can query the daemon for the reserved funds, so we do it once per update
+        Set<String> takeableOfferIds = coreApi.getTakeableOffers(changes.values().stream()
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .stream()
+                .map(Offer::getId)
+                .collect(Collectors.toSet());
+
+        OfferBookUpdate.Builder builder = OfferBookUpdate.newBuilder();
+        changes.forEach((offerId, offer) -> {
+            if (offer != null && takeableOfferIds.contains(offerId)) {
+                bisq.proto.grpc.OfferInfo offerInfo = toOfferInfo(offer);
+                if (sentOfferIds.add(offerId))
+                    builder.addAddedOffers(offerInfo);
+                else
+                    builder.addUpdatedOffers(offerInfo);
+            } else if (sentOfferIds.remove(offerId)) {
+                // Removed or not takeable anymore, e.g. after it got deactivated by the maker
+                builder.addRemovedOfferIds(offerId);
+            }
+        });
+        if (builder.getAddedOffersCount() == 0 && builder.getUpdatedOffersCount() == 0 && builder.getRemovedOfferIdsCount() == 0)
+            return null;
+
+        return builder.build();
+    }
+
+    // Overridden by the tests, which do not have a complete offer
+    @VisibleForTesting
+    bisq.proto.grpc.OfferInfo toOfferInfo(Offer offer) {
+        return OfferInfo.toOfferInfo(offer).toProtoMessage();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean isOfMarket(Offer offer) {
+        return offer.getDirection().name().equalsIgnoreCase(direction) &&
+                offer.getCurrencyCode().equalsIgnoreCase(currencyCode);
+    }
+}
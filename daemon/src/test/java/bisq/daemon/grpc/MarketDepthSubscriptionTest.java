@@ -0,0 +1,178 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import bisq.core.api.CoreApi;
+import bisq.core.api.model.MarketDepthInfo;
+import bisq.core.offer.Offer;
+import bisq.proto.grpc.MarketDepthReply;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MarketDepthSubscriptionTest {
+    private CoreApi coreApi;
+    private ServerCallStreamObserver<MarketDepthReply> responseObserver;
+    private List<Runnable> scheduledTasks;
+    private List<Runnable> flushTasks;
+    private MarketDepthSubscription subscription;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        coreApi = mock(CoreApi.class);
+        responseObserver = mock(ServerCallStreamObserver.class);
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        scheduledTasks = new ArrayList<>();
+        flushTasks = new ArrayList<>();
+        when(scheduler.schedule(any(Runnable.class), anyLong(), eq(MILLISECONDS))).thenAnswer(invocation -> {
+            scheduledTasks.add(invocation.getArgument(0));
+            return null;
+        });
+        when(responseObserver.isReady()).thenReturn(true);
+        when(coreApi.getMarketDepth("USD")).thenReturn(marketDepth(1));
+        when(coreApi.computeMarketDepth("USD")).thenReturn(marketDepth(2));
+        subscription = new MarketDepthSubscription(coreApi, responseObserver, scheduler, flushTasks::add, "USD");
+    }
+
+    @Test
+    public void testSnapshotIsSentBeforeTheUpdates() throws Exception {
+        subscription.open();
+        verify(coreApi).addOfferBookChangedListener(subscription);
+
+        // A change between registering the listener and the snapshot is not sent before the snapshot
+        subscription.onAdded(offer("USD"));
+        assertTrue(scheduledTasks.isEmpty());
+
+        subscription.sendSnapshot();
+        verify(responseObserver).onNext(reply(1));
+        runScheduledFlush();
+        verify(responseObserver).onNext(reply(2));
+    }
+
+    @Test
+    public void testChangesAreCoalesced() throws Exception {
+        openWithSnapshot();
+
+        subscription.onAdded(offer("USD"));
+        subscription.onRemoved(offer("USD"));
+        subscription.onAdded(offer("usd"));
+        subscription.onAdded(offer("EUR"));
+        assertEquals(1, scheduledTasks.size());
+        runScheduledFlush();
+
+        verify(coreApi, times(1)).computeMarketDepth("USD");
+        verify(responseObserver, times(2)).onNext(any());
+    }
+
+    @Test
+    public void testChangesOfOtherMarketsAreIgnored() throws Exception {
+        openWithSnapshot();
+
+        subscription.onAdded(offer("EUR"));
+        assertTrue(scheduledTasks.isEmpty());
+    }
+
+    @Test
+    public void testUpdatesWaitUntilTheStreamIsReady() throws Exception {
+        ArgumentCaptor<Runnable> onReadyHandler = ArgumentCaptor.forClass(Runnable.class);
+        openWithSnapshot();
+        verify(responseObserver).setOnReadyHandler(onReadyHandler.capture());
+
+        when(responseObserver.isReady()).thenReturn(false);
+        subscription.onAdded(offer("USD"));
+        runScheduledFlush();
+        subscription.onAdded(offer("USD"));
+        runScheduledFlush();
+        verify(coreApi, never()).computeMarketDepth("USD");
+
+        // Both changes are sent with a single update once the stream is ready
+        when(responseObserver.isReady()).thenReturn(true);
+        onReadyHandler.getValue().run();
+        runScheduledFlush();
+        verify(coreApi, times(1)).computeMarketDepth("USD");
+        verify(responseObserver).onNext(reply(2));
+    }
+
+    @Test
+    public void testCancelRemovesTheListener() throws Exception {
+        ArgumentCaptor<Runnable> onCancelHandler = ArgumentCaptor.forClass(Runnable.class);
+        openWithSnapshot();
+        verify(responseObserver).setOnCancelHandler(onCancelHandler.capture());
+
+        subscription.onAdded(offer("USD"));
+        onCancelHandler.getValue().run();
+        verify(coreApi).removeOfferBookChangedListener(subscription);
+
+        // The flush scheduled before the cancellation does not send anything
+        runScheduledFlush();
+        verify(coreApi, never()).computeMarketDepth("USD");
+        verify(responseObserver, times(1)).onNext(any());
+    }
+
+    private void openWithSnapshot() throws Exception {
+        subscription.open();
+        subscription.sendSnapshot();
+    }
+
+    // Runs the scheduled flushes at the flush executor
+    private void runScheduledFlush() {
+        scheduledTasks.forEach(Runnable::run);
+        scheduledTasks.clear();
+        flushTasks.forEach(Runnable::run);
+        flushTasks.clear();
+    }
+
+    private static Offer offer(String currencyCode) {
+        Offer offer = mock(Offer.class);
+        when(offer.getCurrencyCode()).thenReturn(currencyCode);
+        return offer;
+    }
+
+    private static MarketDepthInfo marketDepth(double price) {
+        return new MarketDepthInfo("USD",
+                new Double[]{price},
+                new Double[]{1d},
+                new Double[]{price + 1},
+                new Double[]{1d});
+    }
+
+    private static MarketDepthReply reply(double price) {
+        return MarketDepthReply.newBuilder().setMarketDepth(marketDepth(price).toProtoMessage()).build();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.daemon.grpc;
+
+import bisq.core.api.CoreApi;
+import bisq.core.offer.Offer;
+import bisq.core.offer.OfferDirection;
+import bisq.proto.grpc.OfferBookUpdate;
+import bisq.proto.grpc.OfferInfo;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.mockito.ArgumentCaptor;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OffersSubscriptionTest {
+    private CoreApi coreApi;
+    private ServerCallStreamObserver<OfferBookUpdate> responseObserver;
+    private List<Runnable> scheduledTasks;
+    private List<Runnable> flushTasks;
+    private Set<String> takeableOfferIds;
+    private OffersSubscription subscription;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        coreApi = mock(CoreApi.class);
+        responseObserver = mock(ServerCallStreamObserver.class);
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        scheduledTasks = new ArrayList<>();
+        flushTasks = new ArrayList<>();
+        takeableOfferIds = new HashSet<>();
+        when(responseObserver.isReady()).thenReturn(true);
+        when(scheduler.schedule(any(Runnable.class), anyLong(), eq(MILLISECONDS))).thenAnswer(invocation -> {
+            scheduledTasks.add(invocation.getArgument(0));
+            return null;
+        });
+        when(coreApi.getTakeableOffers(anyCollection())).thenAnswer(invocation -> {
+            Collection<Offer> offers = invocation.getArgument(0);
+            return offers.stream()
+                    .filter(offer -> takeableOfferIds.contains(offer.getId()))
+                    .collect(Collectors.toList());
+        });
+        subscription = new OffersSubscription(coreApi, responseObserver, scheduler, flushTasks::add, "SELL", "USD") {
+            @Override
+            OfferInfo toOfferInfo(Offer offer) {
+                return OfferInfo.newBuilder().setId(offer.getId()).build();
+            }
+        };
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        List<Offer> offers = asList(offer("a"), offer("b"));
+        when(coreApi.getOffers("SELL", "USD")).thenReturn(offers);
+        openWithSnapshot();
+
+        OfferBookUpdate snapshot = getSentUpdates().get(0);
+        assertTrue(snapshot.getIsSnapshot());
+        assertEquals(asList("a", "b"), getIds(snapshot.getAddedOffersList()));
+        verify(coreApi).addOfferBookChangedListener(subscription);
+    }
+
+    @Test
+    public void testChangesAreCoalescedPerOffer() throws Exception {
+        List<Offer> offers = asList(offer("a"), offer("b"));
+        when(coreApi.getOffers("SELL", "USD")).thenReturn(offers);
+        openWithSnapshot();
+        takeableOfferIds.addAll(asList("a", "c", "d"));
+
+        subscription.onAdded(offer("c"));
+        subscription.onAdded(offer("c"));
+        // Added and removed before the flush, the client never sees it
+        subscription.onAdded(offer("d"));
+        subscription.onRemoved(offer("d"));
+        subscription.onRemoved(offer("b"));
+        subscription.onAdded(offer("a"));
+        // Other markets are ignored
+        subscription.onAdded(offer("e", OfferDirection.BUY, "USD"));
+        subscription.onAdded(offer("f", OfferDirection.SELL, "EUR"));
+        assertEquals(1, scheduledTasks.size());
+        runScheduledFlush();
+
+        verify(coreApi, times(1)).getTakeableOffers(anyCollection());
+        List<OfferBookUpdate> updates = getSentUpdates();
+        assertEquals(2, updates.size());
+        OfferBookUpdate update = updates.get(1);
+        assertFalse(update.getIsSnapshot());
+        assertEquals(singletonList("c"), getIds(update.getAddedOffersList()));
+        assertEquals(singletonList("a"), getIds(update.getUpdatedOffersList()));
+        assertEquals(singletonList("b"), update.getRemovedOfferIdsList());
+    }
+
+    @Test
+    public void testOffersWhichAreNotTakeableAreNotSent() throws Exception {
+        List<Offer> offers = singletonList(offer("a"));
+        when(coreApi.getOffers("SELL", "USD")).thenReturn(offers);
+        openWithSnapshot();
+
+        // Not takeable anymore, e.g. after it got deactivated, so the client removes it
+        subscription.onAdded(offer("a"));
+        subscription.onAdded(offer("b"));
+        runScheduledFlush();
+
+        List<OfferBookUpdate> updates = getSentUpdates();
+        assertEquals(2, updates.size());
+        assertEquals(0, updates.get(1).getAddedOffersCount());
+        assertEquals(singletonList("a"), updates.get(1).getRemovedOfferIdsList());
+    }
+
+    @Test
+    public void testTakeableCheckRunsAtTheFlushExecutor() throws Exception {
+        openWithSnapshot();
+        takeableOfferIds.add("a");
+
+        subscription.onAdded(offer("a"));
+        scheduledTasks.forEach(Runnable::run);
+        verify(coreApi, never()).getTakeableOffers(anyCollection());
+        assertEquals(1, flushTasks.size());
+
+        flushTasks.forEach(Runnable::run);
+        assertEquals(singletonList("a"), getIds(getSentUpdates().get(1).getAddedOffersList()));
+    }
+
+    @Test
+    public void testUpdatesWaitUntilTheStreamIsReady() throws Exception {
+        ArgumentCaptor<Runnable> onReadyHandler = ArgumentCaptor.forClass(Runnable.class);
+        openWithSnapshot();
+        verify(responseObserver).setOnReadyHandler(onReadyHandler.capture());
+        takeableOfferIds.addAll(asList("a", "b"));
+
+        when(responseObserver.isReady()).thenReturn(false);
+        subscription.onAdded(offer("a"));
+        runScheduledFlush();
+        subscription.onAdded(offer("b"));
+        runScheduledFlush();
+        verify(coreApi, never()).getTakeableOffers(anyCollection());
+
+        when(responseObserver.isReady()).thenReturn(true);
+        onReadyHandler.getValue().run();
+        runScheduledFlush();
+        List<OfferBookUpdate> updates = getSentUpdates();
+        assertEquals(2, updates.size());
+        assertEquals(asList("a", "b"), getIds(updates.get(1).getAddedOffersList()));
+    }
+
+    @Test
+    public void testCancelRemovesTheListener() throws Exception {
+        ArgumentCaptor<Runnable> onCancelHandler = ArgumentCaptor.forClass(Runnable.class);
+        openWithSnapshot();
+        verify(responseObserver).setOnCancelHandler(onCancelHandler.capture());
+        takeableOfferIds.add("a");
+
+        subscription.onAdded(offer("a"));
+        onCancelHandler.getValue().run();
+        verify(coreApi).removeOfferBookChangedListener(subscription);
+
+        runScheduledFlush();
+        verify(coreApi, never()).getTakeableOffers(anyCollection());
+        assertEquals(1, getSentUpdates().size());
+    }
+
+    private void openWithSnapshot() throws Exception {
+        subscription.open();
+        subscription.sendSnapshot();
+    }
+
+    // Runs the scheduled flushes at the flush executor
+    private void runScheduledFlush() {
+        scheduledTasks.forEach(Runnable::run);
+        scheduledTasks.clear();
+        flushTasks.forEach(Runnable::run);
+        flushTasks.clear();
+    }
+
+    private List<OfferBookUpdate> getSentUpdates() {
+        ArgumentCaptor<OfferBookUpdate> updates = ArgumentCaptor.forClass(OfferBookUpdate.class);
+        verify(responseObserver, atLeastOnce()).onNext(updates.capture());
+        return updates.getAllValues();
+    }
+
+    private static Offer offer(String id) {
+        return offer(id, OfferDirection.SELL, "USD");
+    }
+
+    private static Offer offer(String id, OfferDirection direction, String currencyCode) {
+        Offer offer = mock(Offer.class);
+        when(offer.getId()).thenReturn(id);
+        when(offer.getDirection()).thenReturn(direction);
+        when(offer.getCurrencyCode()).thenReturn(currencyCode);
+        return offer;
+    }
+
+    private static List<String> getIds(List<OfferInfo> offers) {
+        return offers.stream().map(OfferInfo::getId).collect(Collectors.toList());
+    }
+}
@@ -126,7 +126,7 @@ public abstract class P2PSeedNodeSnapshotBase extends Metric implements MessageL
                         PersistenceManager.Source.NETWORK);
                 TradeStatistics3Store persistedTradeStatistics3Store = tradeStatistics3PersistenceManager.getPersisted();
                 if (persistedTradeStatistics3Store != null) {
-                    tradeStatistics3Store.getMap().putAll(persistedTradeStatistics3Store.getMap());
+                    persistedTradeStatistics3Store.getMap().forEach(tradeStatistics3Store::put);
                 }
                 hashes.addAll(tradeStatistics3Store.getMap().keySet().stream()
                         .map(byteArray -> byteArray.bytes).collect(Collectors.toSet()));
@@ -139,7 +139,7 @@ public abstract class P2PSeedNodeSnapshotBase extends Metric implements MessageL
                         PersistenceManager.Source.NETWORK);
                 AccountAgeWitnessStore persistedAccountAgeWitnessStore = accountAgeWitnessPersistenceManager.getPersisted();
                 if (persistedAccountAgeWitnessStore != null) {
-                    accountAgeWitnessStore.getMap().putAll(persistedAccountAgeWitnessStore.getMap());
+                    persistedAccountAgeWitnessStore.getMap().forEach(accountAgeWitnessStore::put);
                 }
                 hashes.addAll(accountAgeWitnessStore.getMap().keySet().stream()
                         .map(byteArray -> byteArray.bytes).collect(Collectors.toSet()));
@@ -33,6 +33,7 @@ import bisq.network.p2p.peers.keepalive.KeepAliveManager;
 import bisq.network.p2p.peers.peerexchange.PeerExchangeManager;
 import bisq.network.p2p.storage.HashMapChangedListener;
 import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.messages.BatchedRefreshOfferMessage;
 import bisq.network.p2p.storage.messages.RefreshOfferMessage;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
@@ -50,6 +51,7 @@ import bisq.common.proto.network.NetworkEnvelope;
 import com.google.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -65,6 +67,9 @@ import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -206,6 +211,10 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
             peerManager.shutDown();
         }
 
+        if (mailboxMessageService != null) {
+            mailboxMessageService.shutDown();
+        }
+
         if (requestDataManager != null) {
             requestDataManager.shutDown();
         }
@@ -501,6 +510,32 @@ public class P2PService implements SetupListener, MessageListener, ConnectionLis
         }
     }
 
+    /**
+     * Refreshes the TTL of all payloads with BatchedRefreshOfferMessages of up to MAX_ENTRIES refreshes.
+     *
+     * @return the number of successfully refreshed payloads
+     */
+    public int refreshTTL(Collection<? extends ProtectedStoragePayload> protectedStoragePayloads) {
+        if (isBootstrapped()) {
+            List<RefreshOfferMessage> refreshTTLMessages = new ArrayList<>();
+            for (ProtectedStoragePayload protectedStoragePayload : protectedStoragePayloads) {
+                try {
+                    refreshTTLMessages.add(p2PDataStorage.getRefreshTTLMessage(protectedStoragePayload, keyRing.getSignatureKeyPair()));
+                } catch (CryptoException e) {
+                    log.error("Signing at getDataWithSignedSeqNr failed. That should never happen.");
+                }
+            }
+
+            int numRefreshed = 0;
+            for (List<RefreshOfferMessage> batch : Lists.partition(refreshTTLMessages, BatchedRefreshOfferMessage.MAX_ENTRIES)) {
+                numRefreshed += p2PDataStorage.refreshTTL(new BatchedRefreshOfferMessage(batch), networkNode.getNodeAddress());
+            }
+            return numRefreshed;
+        } else {
+            throw new NetworkNotReadyException();
+        }
+    }
+
     public boolean removeData(ProtectedStoragePayload protectedStoragePayload) {
         if (isBootstrapped()) {
             try {
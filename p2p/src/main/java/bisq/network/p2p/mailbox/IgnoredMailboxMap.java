@@ -23,6 +23,7 @@ import bisq.common.util.CollectionUtils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -35,7 +36,8 @@ public class IgnoredMailboxMap implements PersistableEnvelope {
     private final Map<String, Long> dataMap;
 
     public IgnoredMailboxMap() {
-        this.dataMap = new HashMap<>();
+        // Failed decryptions get added from the worker threads of the MailboxMessageService
+        this.dataMap = new ConcurrentHashMap<>();
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -67,6 +67,7 @@ import java.time.Clock;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
@@ -75,10 +76,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -112,6 +116,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @Slf4j
 public class MailboxMessageService implements HashMapChangedListener, PersistedDataHost {
     private static final long REPUBLISH_DELAY_SEC = TimeUnit.MINUTES.toSeconds(2);
+    private static final int MAX_DECRYPTION_THREADS = 4;
 
     private final NetworkNode networkNode;
     private final PeerManager peerManager;
@@ -127,6 +132,11 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
     private final MailboxMessageList mailboxMessageList = new MailboxMessageList();
     private final Map<String, MailboxItem> mailboxItemsByUid = new HashMap<>();
 
+    private final ListeningExecutorService decryptionExecutor;
+    private final AtomicLong numDecryptionsTried = new AtomicLong();
+    private final AtomicLong numDecryptionsSkipped = new AtomicLong();
+    private final AtomicLong numDecryptionsSucceeded = new AtomicLong();
+
     private boolean isBootstrapped;
 
     @Inject
@@ -149,6 +159,13 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
         this.clock = clock;
         this.republishMailboxEntries = republishMailboxEntries;
 
+        int numDecryptionThreads = Math.max(1, Math.min(MAX_DECRYPTION_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        decryptionExecutor = Utilities.getListeningExecutorService("MailboxDecryption",
+                numDecryptionThreads,
+                numDecryptionThreads,
+                60,
+                new LinkedBlockingQueue<>());
+
         this.persistenceManager.initialize(mailboxMessageList, PersistenceManager.Source.PRIVATE_LOW_PRIO);
     }
 
@@ -336,10 +353,28 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
                 .collect(Collectors.toSet());
     }
 
+    public void shutDown() {
+        decryptionExecutor.shutdownNow();
+    }
+
     public void addDecryptedMailboxListener(DecryptedMailboxListener listener) {
         decryptedMailboxListeners.add(listener);
     }
 
+    // Number of mailbox entries we tried to decrypt
+    public long getNumDecryptionsTried() {
+        return numDecryptionsTried.get();
+    }
+
+    // Number of mailbox entries we skipped as they were not addressed to us or had failed decryption already
+    public long getNumDecryptionsSkipped() {
+        return numDecryptionsSkipped.get();
+    }
+
+    public long getNumDecryptionsSucceeded() {
+        return numDecryptionsSucceeded.get();
+    }
+
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // HashMapChangedListener implementation for ProtectedStorageEntry items
@@ -391,51 +426,85 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
         }
     }
 
-    // We run the batch processing of all mailbox messages we have received at startup in a thread to not block the UI.
-    // For about 1000 messages decryption takes about 1 sec.
+    // We run the batch processing of all mailbox messages we have received at startup on a pool of worker threads to
+    // not block the UI. Entries which are not addressed to us get skipped without decryption. For about 1000 messages
+    // decryption takes about 1 sec. on a single thread. The mailbox items are passed to handleMailboxItem in the order
+    // of their creation date as soon as they are available.
     private void threadedBatchProcessMailboxEntries(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
-        ListeningExecutorService executor = Utilities.getSingleThreadListeningExecutor("processMailboxEntry-" + new Random().nextInt(1000));
         long ts = System.currentTimeMillis();
-        ListenableFuture<Set<MailboxItem>> future = executor.submit(() -> {
-            var mailboxItems = getMailboxItems(protectedMailboxStorageEntries);
-            log.info("Batch processing of {} mailbox entries took {} ms",
-                    protectedMailboxStorageEntries.size(),
-                    System.currentTimeMillis() - ts);
-            return mailboxItems;
-        });
-
-        Futures.addCallback(future, new FutureCallback<>() {
-            public void onSuccess(Set<MailboxItem> decryptedMailboxMessageWithEntries) {
-                UserThread.execute(() -> decryptedMailboxMessageWithEntries.forEach(e -> handleMailboxItem(e)));
-            }
+        List<ListenableFuture<MailboxItem>> futures = protectedMailboxStorageEntries.stream()
+                .sorted(Comparator.comparingLong(ProtectedStorageEntry::getCreationTimeStamp))
+                .map(this::getMailboxItemFuture)
+                .collect(Collectors.toList());
+
+        MailboxItemDelivery mailboxItemDelivery = new MailboxItemDelivery(futures);
+        futures.forEach(future -> future.addListener(mailboxItemDelivery::deliverCompleted, MoreExecutors.directExecutor()));
+
+        Futures.whenAllComplete(futures).run(() -> log.info("Batch processing of {} mailbox entries took {} ms. " +
+                                "Decryptions in total: tried={}, skipped={}, succeeded={}",
+                        protectedMailboxStorageEntries.size(),
+                        System.currentTimeMillis() - ts,
+                        numDecryptionsTried.get(),
+                        numDecryptionsSkipped.get(),
+                        numDecryptionsSucceeded.get()),
+                MoreExecutors.directExecutor());
+    }
 
-            public void onFailure(@NotNull Throwable throwable) {
-                log.error(throwable.toString());
-            }
-        }, MoreExecutors.directExecutor());
+    private ListenableFuture<MailboxItem> getMailboxItemFuture(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        if (isSkipped(protectedMailboxStorageEntry)) {
+            return Futures.immediateFuture(new MailboxItem(protectedMailboxStorageEntry, null));
+        }
+        return decryptionExecutor.submit(() -> tryDecryptProtectedMailboxStorageEntry(protectedMailboxStorageEntry));
     }
 
     private Set<MailboxItem> getMailboxItems(Collection<ProtectedMailboxStorageEntry> protectedMailboxStorageEntries) {
         Set<MailboxItem> mailboxItems = new HashSet<>();
         protectedMailboxStorageEntries.stream()
-                .map(this::tryDecryptProtectedMailboxStorageEntry)
+                .map(e -> isSkipped(e) ? new MailboxItem(e, null) : tryDecryptProtectedMailboxStorageEntry(e))
                 .forEach(mailboxItems::add);
         return mailboxItems;
     }
 
+    private boolean isSkipped(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
+        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = protectedMailboxStorageEntry
+                .getMailboxStoragePayload()
+                .getPrefixedSealedAndSignedMessage();
+        // We had persisted a past failed decryption attempt on that message so we don't try again
+        boolean isSkipped = ignoredMailboxService.isIgnored(prefixedSealedAndSignedMessage.getUid()) ||
+                !isPossiblyAddressedToMe(protectedMailboxStorageEntry, prefixedSealedAndSignedMessage);
+        if (isSkipped) {
+            numDecryptionsSkipped.incrementAndGet();
+        }
+        return isSkipped;
+    }
+
+    // The receiver can only remove the entry from the network if the receiversPubKey is their signature key, so we skip
+    // the expensive decryption for all entries with other keys. Senders from v1.4.0 on leave the addressPrefixHash
+    // empty, so we check it only if it is set.
+    private boolean isPossiblyAddressedToMe(ProtectedMailboxStorageEntry protectedMailboxStorageEntry,
+                                            PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage) {
+        if (!keyRing.getSignatureKeyPair().getPublic().equals(protectedMailboxStorageEntry.getReceiversPubKey())) {
+            return false;
+        }
+
+        byte[] addressPrefixHash = prefixedSealedAndSignedMessage.getAddressPrefixHash();
+        NodeAddress myNodeAddress = networkNode.getNodeAddress();
+        return addressPrefixHash.length == 0 ||
+                myNodeAddress == null ||
+                Arrays.equals(addressPrefixHash, myNodeAddress.getAddressPrefixHash());
+    }
+
     private MailboxItem tryDecryptProtectedMailboxStorageEntry(ProtectedMailboxStorageEntry protectedMailboxStorageEntry) {
         PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = protectedMailboxStorageEntry
                 .getMailboxStoragePayload()
                 .getPrefixedSealedAndSignedMessage();
         SealedAndSigned sealedAndSigned = prefixedSealedAndSignedMessage.getSealedAndSigned();
         String uid = prefixedSealedAndSignedMessage.getUid();
-        if (ignoredMailboxService.isIgnored(uid)) {
-            // We had persisted a past failed decryption attempt on that message so we don't try again and return early
-            return new MailboxItem(protectedMailboxStorageEntry, null);
-        }
+        numDecryptionsTried.incrementAndGet();
         try {
             DecryptedMessageWithPubKey decryptedMessageWithPubKey = encryptionService.decryptAndVerify(sealedAndSigned);
             checkArgument(decryptedMessageWithPubKey.getNetworkEnvelope() instanceof MailboxMessage);
+            numDecryptionsSucceeded.incrementAndGet();
             return new MailboxItem(protectedMailboxStorageEntry, decryptedMessageWithPubKey);
         } catch (CryptoException ignore) {
             // Expected if message was not intended for us
@@ -624,4 +693,32 @@ public class MailboxMessageService implements HashMapChangedListener, PersistedD
     private void requestPersistence() {
         persistenceManager.requestPersistence();
     }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // MailboxItemDelivery
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Passes the results of the decryption to handleMailboxItem in the order of the futures. Once a future is done we
+    // deliver it together with all completed futures following it.
+    private class MailboxItemDelivery {
+        private final List<ListenableFuture<MailboxItem>> futures;
+        private int nextIndex;
+
+        MailboxItemDelivery(List<ListenableFuture<MailboxItem>> futures) {
+            this.futures = futures;
+        }
+
+        synchronized void deliverCompleted() {
+            while (nextIndex < futures.size() && futures.get(nextIndex).isDone()) {
+                try {
+                    MailboxItem mailboxItem = Futures.getDone(futures.get(nextIndex));
+                    UserThread.execute(() -> handleMailboxItem(mailboxItem));
+                } catch (ExecutionException | CancellationException e) {
+                    log.error("Processing of mailbox entry failed", e);
+                }
+                nextIndex++;
+            }
+        }
+    }
 }
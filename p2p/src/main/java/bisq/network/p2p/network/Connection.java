@@ -17,10 +17,14 @@
 
 package bisq.network.p2p.network;
 
+import bisq.network.p2p.AckMessage;
 import bisq.network.p2p.BundleOfEnvelopes;
 import bisq.network.p2p.CloseConnectionMessage;
 import bisq.network.p2p.ExtendedDataSizePermission;
+import bisq.network.p2p.InitialDataRequest;
+import bisq.network.p2p.InitialDataResponse;
 import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.PrefixedSealedAndSignedMessage;
 import bisq.network.p2p.SendersNodeAddressMessage;
 import bisq.network.p2p.SupportedCapabilitiesMessage;
 import bisq.network.p2p.peers.keepalive.messages.KeepAliveMessage;
@@ -47,7 +51,9 @@ import com.google.protobuf.InvalidProtocolBufferException;
 
 import javax.inject.Inject;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.Uninterruptibles;
 
 import javafx.beans.property.ObjectProperty;
@@ -64,7 +70,9 @@ import java.io.InvalidClassException;
 import java.io.OptionalDataException;
 import java.io.StreamCorruptedException;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -78,6 +86,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -113,6 +122,11 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     //TODO decrease limits again after testing
     private static final int SOCKET_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(180);
 
+    // Shared by all connections. It only triggers the sending of throttled envelopes, the write itself happens at the
+    // writer thread of the connection.
+    private static final ScheduledExecutorService BUNDLE_SENDER =
+            Utilities.getScheduledThreadPoolExecutor("Connection.bundleSender", 1, 1, 60);
+
     public static int getPermittedMessageSize() {
         return PERMITTED_MESSAGE_SIZE;
     }
@@ -152,7 +166,6 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private final ObjectProperty<NodeAddress> peersNodeAddressProperty = new SimpleObjectProperty<>();
     private final List<Long> messageTimeStamps = new ArrayList<>();
     private final CopyOnWriteArraySet<MessageListener> messageListeners = new CopyOnWriteArraySet<>();
-    private volatile long lastSendTimeStamp = 0;
     // We use a weak reference here to ensure that no connection causes a memory leak in case it get closed without
     // the shutDown being called.
     private final CopyOnWriteArraySet<WeakReference<SupportedCapabilitiesListener>> capabilitiesListeners = new CopyOnWriteArraySet<>();
@@ -162,6 +175,8 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private final ConcurrentHashMap<RuleViolation, Integer> ruleViolations = new ConcurrentHashMap<>();
 
     private final Capabilities capabilities = new Capabilities();
+    // Received messages waiting for being handled at the UserThread
+    private final Queue<Runnable> pendingDispatches = new ConcurrentLinkedQueue<>();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -222,109 +237,146 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         return capabilities;
     }
 
+    // Envelopes which are throttled get collected and are sent by the shared bundleSender once the sendThrottle
+    // permits it. The actual write happens at the writer thread of the protoOutputStream, so no thread gets blocked
+    // by a slow peer or by throttling.
     private final Object lock = new Object();
-    private final Queue<BundleOfEnvelopes> queueOfBundles = new ConcurrentLinkedQueue<>();
-    private final ScheduledExecutorService bundleSender = Executors.newSingleThreadScheduledExecutor();
+    private final Deque<PendingBundle> queueOfBundles = new ArrayDeque<>();
+    private final TokenBucket sendThrottle = new TokenBucket(1, getSendMsgThrottleTrigger());
 
     // Called from various threads
-    public void sendMessage(NetworkEnvelope networkEnvelope) {
+    public ListenableFuture<Void> sendMessage(NetworkEnvelope networkEnvelope) {
+        return sendMessage(SerializedEnvelope.of(networkEnvelope));
+    }
+
+    // Called from various threads. The serializedEnvelope can be shared by multiple connections, so it gets
+    // serialized only once if sent to many peers.
+    // The returned future completes once the envelope got written to the socket, or fails if it could not be written.
+    // Envelopes which are not sent because the peer does not support the required capability complete with null.
+    public ListenableFuture<Void> sendMessage(SerializedEnvelope serializedEnvelope) {
         long ts = System.currentTimeMillis();
+        NetworkEnvelope networkEnvelope = serializedEnvelope.getNetworkEnvelope();
         log.debug(">> Send networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
+        SettableFuture<Void> writtenFuture = SettableFuture.create();
 
         if (stopped) {
             log.debug("called sendMessage but was already stopped");
-            return;
+            writtenFuture.setException(new IOException("Connection " + uid + " is already stopped"));
+            return writtenFuture;
         }
 
         if (networkFilter != null &&
                 peersNodeAddressOptional.isPresent() &&
                 networkFilter.isPeerBanned(peersNodeAddressOptional.get())) {
             reportInvalidRequest(RuleViolation.PEER_BANNED);
-            return;
+            writtenFuture.setException(new IOException("Peer " + peersNodeAddressOptional.get() + " is banned"));
+            return writtenFuture;
         }
 
         if (!noCapabilityRequiredOrCapabilityIsSupported(networkEnvelope)) {
             log.debug("Capability for networkEnvelope is required but not supported");
-            return;
+            writtenFuture.set(null);
+            return writtenFuture;
         }
-        int networkEnvelopeSize = networkEnvelope.toProtoNetworkEnvelope().getSerializedSize();
         try {
-            // Throttle outbound network_messages
-            long now = System.currentTimeMillis();
-            long elapsed = now - lastSendTimeStamp;
-            if (elapsed < getSendMsgThrottleTrigger()) {
-                log.debug("We got 2 sendMessage requests in less than {} ms. We set the thread to sleep " +
-                                "for {} ms to avoid flooding our peer. lastSendTimeStamp={}, now={}, elapsed={}, networkEnvelope={}",
-                        getSendMsgThrottleTrigger(), getSendMsgThrottleSleep(), lastSendTimeStamp, now, elapsed,
-                        networkEnvelope.getClass().getSimpleName());
-
-                // check if BundleOfEnvelopes is supported
-                if (getCapabilities().containsAll(new Capabilities(Capability.BUNDLE_OF_ENVELOPES))) {
-                    synchronized (lock) {
-                        // check if current envelope fits size
-                        // - no? create new envelope
-
-                        int size = !queueOfBundles.isEmpty() ? queueOfBundles.element().toProtoNetworkEnvelope().getSerializedSize() + networkEnvelopeSize : 0;
-                        if (queueOfBundles.isEmpty() || size > MAX_PERMITTED_MESSAGE_SIZE * 0.9) {
-                            // - no? create a bucket
-                            queueOfBundles.add(new BundleOfEnvelopes());
-
-                            // - and schedule it for sending
-                            lastSendTimeStamp += getSendMsgThrottleSleep();
-
-                            bundleSender.schedule(() -> {
-                                if (!stopped) {
-                                    synchronized (lock) {
-                                        BundleOfEnvelopes bundle = queueOfBundles.poll();
-                                        if (bundle != null && !stopped) {
-                                            NetworkEnvelope envelope;
-                                            int msgSize;
-                                            if (bundle.getEnvelopes().size() == 1) {
-                                                envelope = bundle.getEnvelopes().get(0);
-                                                msgSize = envelope.toProtoNetworkEnvelope().getSerializedSize();
-                                            } else {
-                                                envelope = bundle;
-                                                msgSize = networkEnvelopeSize;
-                                            }
-                                            try {
-                                                protoOutputStream.writeEnvelope(envelope);
-                                                UserThread.execute(() -> messageListeners.forEach(e -> e.onMessageSent(envelope, this)));
-                                                UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts, msgSize));
-                                            } catch (Throwable t) {
-                                                log.error("Sending envelope of class {} to address {} " +
-                                                                "failed due {}",
-                                                        envelope.getClass().getSimpleName(),
-                                                        this.getPeersNodeAddressOptional(),
-                                                        t.toString());
-                                                log.error("envelope: {}", envelope);
-                                            }
-                                        }
-                                    }
-                                }
-                            }, lastSendTimeStamp - now, TimeUnit.MILLISECONDS);
-                        }
+            int networkEnvelopeSize = serializedEnvelope.getSize();
+            boolean isBundlingSupported = getCapabilities().containsAll(new Capabilities(Capability.BUNDLE_OF_ENVELOPES));
+            synchronized (lock) {
+                // If there is a pending bundle which is not full yet we add the envelope to it
+                PendingBundle pendingBundle = queueOfBundles.peekLast();
+                if (isBundlingSupported &&
+                        pendingBundle != null &&
+                        pendingBundle.size + networkEnvelopeSize <= MAX_PERMITTED_MESSAGE_SIZE * 0.9) {
+                    pendingBundle.add(serializedEnvelope, networkEnvelopeSize, writtenFuture);
+                    return writtenFuture;
+                }
 
-                        // - yes? add to bucket
-                        queueOfBundles.element().add(networkEnvelope);
-                    }
-                    return;
+                // Throttle outbound network_messages
+                long delay = sendThrottle.reserve(System.currentTimeMillis());
+                if (delay == 0 && queueOfBundles.isEmpty()) {
+                    write(serializedEnvelope, networkEnvelopeSize, ts, List.of(writtenFuture));
+                    return writtenFuture;
                 }
 
-                Thread.sleep(getSendMsgThrottleSleep());
+                if (isBundlingSupported) {
+                    // We collect the envelopes at least for sendMsgThrottleSleep ms to get larger bundles
+                    delay = Math.max(delay, getSendMsgThrottleSleep());
+                }
+                log.debug("We got too many sendMessage requests in a short time. We send networkEnvelope {} " +
+                                "with a delay of {} ms to avoid flooding our peer.",
+                        networkEnvelope.getClass().getSimpleName(), delay);
+                queueOfBundles.add(new PendingBundle(serializedEnvelope, networkEnvelopeSize, ts, writtenFuture));
+                BUNDLE_SENDER.schedule(this::sendNextBundle, delay, TimeUnit.MILLISECONDS);
             }
+        } catch (Throwable t) {
+            writtenFuture.setException(t);
+            handleException(t);
+        }
+        return writtenFuture;
+    }
 
-            lastSendTimeStamp = now;
+    private void sendNextBundle() {
+        if (stopped) {
+            failPendingBundles();
+            return;
+        }
 
-            if (!stopped) {
-                protoOutputStream.writeEnvelope(networkEnvelope);
-                UserThread.execute(() -> messageListeners.forEach(e -> e.onMessageSent(networkEnvelope, this)));
-                UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts, networkEnvelopeSize));
+        try {
+            synchronized (lock) {
+                PendingBundle pendingBundle = queueOfBundles.poll();
+                if (pendingBundle != null) {
+                    List<SerializedEnvelope> envelopes = pendingBundle.envelopes;
+                    // The bundle is composed of the already serialized envelopes
+                    SerializedEnvelope serializedEnvelope = envelopes.size() == 1 ?
+                            envelopes.get(0) :
+                            SerializedEnvelope.bundle(envelopes);
+                    write(serializedEnvelope, serializedEnvelope.getSize(), pendingBundle.ts, pendingBundle.writtenFutures);
+                }
             }
         } catch (Throwable t) {
             handleException(t);
         }
     }
 
+    private void failPendingBundles() {
+        synchronized (lock) {
+            IOException exception = new IOException("Connection " + uid + " got stopped before envelope was sent");
+            queueOfBundles.forEach(pendingBundle -> pendingBundle.writtenFutures.forEach(future -> future.setException(exception)));
+            queueOfBundles.clear();
+        }
+    }
+
+    // Does not block as the envelope only gets queued at the writer thread. The writtenFutures complete once the
+    // envelope got written.
+    private void write(SerializedEnvelope serializedEnvelope,
+                       int size,
+                       long ts,
+                       List<SettableFuture<Void>> writtenFutures) {
+        NetworkEnvelope envelope = serializedEnvelope.getNetworkEnvelope();
+        protoOutputStream.writeEnvelopeAsync(serializedEnvelope,
+                () -> {
+                    writtenFutures.forEach(future -> future.set(null));
+                    UserThread.execute(() -> messageListeners.forEach(e -> e.onMessageSent(envelope, this)));
+                    UserThread.execute(() -> connectionStatistics.addSendMsgMetrics(System.currentTimeMillis() - ts, size));
+                },
+                throwable -> {
+                    writtenFutures.forEach(future -> future.setException(throwable));
+                    if (stopped) {
+                        return;
+                    }
+                    log.error("Sending envelope of class {} to address {} failed due {}",
+                            envelope.getClass().getSimpleName(),
+                            this.getPeersNodeAddressOptional(),
+                            throwable.toString());
+                    if (throwable instanceof RejectedExecutionException) {
+                        // The write queue of the peer is full, it does not read our envelopes anymore
+                        shutDown(CloseConnectionReason.SEND_MSG_FAILURE);
+                    } else {
+                        handleException(throwable);
+                    }
+                });
+    }
+
     // TODO: If msg is BundleOfEnvelopes we should check each individual message for capability and filter out those
     //  which fail.
     public boolean noCapabilityRequiredOrCapabilityIsSupported(Proto msg) {
@@ -434,7 +486,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         if (networkEnvelope instanceof BundleOfEnvelopes) {
             onBundleOfEnvelopes((BundleOfEnvelopes) networkEnvelope, connection);
         } else {
-            UserThread.execute(() -> messageListeners.forEach(e -> e.onMessage(networkEnvelope, connection)));
+            dispatchToMessageListeners(networkEnvelope, connection);
         }
     }
 
@@ -467,8 +519,42 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                 envelopesToProcess.add(networkEnvelope);
             }
         }
-        envelopesToProcess.forEach(envelope -> UserThread.execute(() ->
-                messageListeners.forEach(listener -> listener.onMessage(envelope, connection))));
+        envelopesToProcess.forEach(envelope -> dispatchToMessageListeners(envelope, connection));
+    }
+
+    // The messages of a connection are handled in the order we received them. The priority of a message only decides
+    // how soon the connection gets its next turn at the UserThread. That turn handles the oldest message of the
+    // connection, so a message never overtakes earlier messages from the same peer.
+    private void dispatchToMessageListeners(NetworkEnvelope networkEnvelope, Connection connection) {
+        long queuedTime = System.nanoTime();
+        pendingDispatches.add(() -> {
+            long startTime = System.nanoTime();
+            messageListeners.forEach(listener -> listener.onMessage(networkEnvelope, connection));
+            MessageMetrics.onHandled(networkEnvelope, startTime - queuedTime, System.nanoTime() - startTime);
+        });
+        UserThread.execute(this::dispatchNext, getPriority(networkEnvelope));
+    }
+
+    private void dispatchNext() {
+        Runnable dispatch = pendingDispatches.poll();
+        if (dispatch != null) {
+            dispatch.run();
+        }
+    }
+
+    // Keep alive and direct messages (trade protocol and ack messages are sent encrypted) must not wait behind the
+    // processing of the initial data or a burst of broadcasts of other connections.
+    private static UserThread.Priority getPriority(NetworkEnvelope networkEnvelope) {
+        if (networkEnvelope instanceof KeepAliveMessage ||
+                networkEnvelope instanceof PrefixedSealedAndSignedMessage ||
+                networkEnvelope instanceof AckMessage) {
+            return UserThread.Priority.HIGH;
+        } else if (networkEnvelope instanceof InitialDataRequest ||
+                networkEnvelope instanceof InitialDataResponse) {
+            return UserThread.Priority.LOW;
+        } else {
+            return UserThread.Priority.NORMAL;
+        }
     }
 
 
@@ -577,8 +663,7 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
 
             //noinspection UnstableApiUsage
             MoreExecutors.shutdownAndAwaitTermination(singleThreadExecutor, 500, TimeUnit.MILLISECONDS);
-            //noinspection UnstableApiUsage
-            MoreExecutors.shutdownAndAwaitTermination(bundleSender, 500, TimeUnit.MILLISECONDS);
+            failPendingBundles();
 
             log.debug("Connection shutdown complete {}", this.toString());
             // Use UserThread.execute as its not clear if that is called from a non-UserThread
@@ -745,7 +830,8 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
     private InputStream protoInputStream;
     private final NetworkProtoResolver networkProtoResolver;
 
-    private long lastReadTimeStamp;
+    // Permits bursts of 10 messages, after that one message each 10 ms
+    private final TokenBucket readThrottle = new TokenBucket(10, 10);
     private boolean threadNameSet;
 
     @Override
@@ -794,20 +880,22 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         return;
                     }
 
-                    // Throttle inbound network messages
+                    // Throttle inbound network messages. We only pause reading from the socket, so TCP flow
+                    // control slows down the peer.
                     long now = System.currentTimeMillis();
-                    long elapsed = now - lastReadTimeStamp;
-                    if (elapsed < 10) {
-                        log.info("We got 2 network messages received in less than 10 ms. We set the thread to sleep " +
-                                        "for 20 ms to avoid getting flooded by our peer. lastReadTimeStamp={}, now={}, elapsed={}",
-                                lastReadTimeStamp, now, elapsed);
-                        Thread.sleep(20);
+                    long delay = readThrottle.reserve(now);
+                    if (delay > 0) {
+                        log.info("We got too many network messages in a short time. We pause reading for {} ms " +
+                                "to avoid getting flooded by our peer.", delay);
+                        Thread.sleep(delay);
                     }
 
+                    long parseStartTime = System.nanoTime();
                     NetworkEnvelope networkEnvelope = networkProtoResolver.fromProto(proto);
-                    lastReadTimeStamp = now;
+                    long parseTime = System.nanoTime() - parseStartTime;
                     log.debug("<< Received networkEnvelope of type: {}", networkEnvelope.getClass().getSimpleName());
                     int size = proto.getSerializedSize();
+                    MessageMetrics.onReceived(networkEnvelope, size, parseTime);
 
                     // We want to track the size of each object even if it is invalid data
                     statistic.addReceivedBytes(size);
@@ -869,6 +957,9 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
                         shutDown(CloseConnectionReason.CLOSE_REQUESTED_BY_PEER);
                         return;
                     } else if (!stopped) {
+                        // Any message proves the peer is alive, so keep alive pings can be skipped
+                        statistic.updateLastInboundTimestamp();
+
                         // We don't want to get the activity ts updated by ping/pong msg
                         if (!(networkEnvelope instanceof KeepAliveMessage))
                             statistic.updateLastActivityTimestamp();
@@ -949,4 +1040,27 @@ public class Connection implements HasCapabilities, Runnable, MessageListener {
         NodeAddress nodeAddress = getSenderNodeAddress(networkEnvelope);
         return nodeAddress == null ? "null" : nodeAddress.getFullAddress();
     }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PendingBundle
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Envelopes waiting for being sent. Guarded by lock.
+    private static final class PendingBundle {
+        private final List<SerializedEnvelope> envelopes = new ArrayList<>();
+        private final List<SettableFuture<Void>> writtenFutures = new ArrayList<>();
+        private final long ts;
+        private int size;
+
+        private PendingBundle(SerializedEnvelope serializedEnvelope, int size, long ts, SettableFuture<Void> writtenFuture) {
+            this.ts = ts;
+            add(serializedEnvelope, size, writtenFuture);
+        }
+
+        private void add(SerializedEnvelope serializedEnvelope, int size, SettableFuture<Void> writtenFuture) {
+            envelopes.add(serializedEnvelope);
+            writtenFutures.add(writtenFuture);
+            this.size += size;
+        }
+    }
 }
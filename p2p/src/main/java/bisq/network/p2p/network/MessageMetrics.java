@@ -0,0 +1,233 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+
+import bisq.common.UserThread;
+import bisq.common.proto.network.NetworkEnvelope;
+import bisq.common.util.LatencyHistogram;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import lombok.Value;
+
+/**
+ * Lock-free registry of the counters and latencies of the P2P messages per envelope type, combined for all
+ * connections. It is updated from the connection threads and the UserThread without any synchronisation.
+ * <p>
+ * Parse time: Time for resolving the envelope from the parsed protobuf message.
+ * Queue delay: Time the envelope waited in the UserThread queue before the listeners got called.
+ * Handler time: Time spent in the MessageListeners on the UserThread.
+ * Send time: Time for writing the serialized envelope to the socket.
+ */
+public final class MessageMetrics {
+    private static final Map<String, TypeMetrics> METRICS_BY_TYPE = new ConcurrentHashMap<>();
+
+    private MessageMetrics() {
+    }
+
+    public static void onReceived(NetworkEnvelope networkEnvelope, int size, long parseTimeNanos) {
+        TypeMetrics metrics = getTypeMetrics(networkEnvelope);
+        metrics.numReceived.increment();
+        metrics.receivedBytes.add(size);
+        metrics.parseTime.record(TimeUnit.NANOSECONDS.toMicros(parseTimeNanos));
+    }
+
+    public static void onHandled(NetworkEnvelope networkEnvelope, long queueDelayNanos, long handlerTimeNanos) {
+        TypeMetrics metrics = getTypeMetrics(networkEnvelope);
+        metrics.queueDelay.record(TimeUnit.NANOSECONDS.toMicros(queueDelayNanos));
+        metrics.handlerTime.record(TimeUnit.NANOSECONDS.toMicros(handlerTimeNanos));
+    }
+
+    public static void onSent(NetworkEnvelope networkEnvelope, int size, long sendTimeNanos) {
+        TypeMetrics metrics = getTypeMetrics(networkEnvelope);
+        metrics.numSent.increment();
+        metrics.sentBytes.add(size);
+        metrics.sendTime.record(TimeUnit.NANOSECONDS.toMicros(sendTimeNanos));
+    }
+
+    public static long getNumReceivedMessages() {
+        return METRICS_BY_TYPE.values().stream().mapToLong(metrics -> metrics.numReceived.sum()).sum();
+    }
+
+    public static long getNumSentMessages() {
+        return METRICS_BY_TYPE.values().stream().mapToLong(metrics -> metrics.numSent.sum()).sum();
+    }
+
+    // Sorted by type
+    public static List<MessageTypeMetrics> getMessageTypeMetrics() {
+        return METRICS_BY_TYPE.entrySet().stream()
+                .map(entry -> entry.getValue().getSnapshot(entry.getKey()))
+                .sorted(Comparator.comparing(MessageTypeMetrics::getType))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return The metrics in the Prometheus text exposition format. Latencies are reported in seconds as summaries.
+     */
+    public static String toPrometheusText() {
+        List<MessageTypeMetrics> metricsList = getMessageTypeMetrics();
+        StringBuilder sb = new StringBuilder();
+        appendCounter(sb, "haveno_p2p_received_messages_total", "Number of received messages",
+                metricsList, MessageTypeMetrics::getNumReceived);
+        appendCounter(sb, "haveno_p2p_received_bytes_total", "Number of received bytes",
+                metricsList, MessageTypeMetrics::getReceivedBytes);
+        appendCounter(sb, "haveno_p2p_sent_messages_total", "Number of sent messages",
+                metricsList, MessageTypeMetrics::getNumSent);
+        appendCounter(sb, "haveno_p2p_sent_bytes_total", "Number of sent bytes",
+                metricsList, MessageTypeMetrics::getSentBytes);
+        appendSummary(sb, "haveno_p2p_parse_seconds", "Time for resolving a received envelope",
+                metricsList, MessageTypeMetrics::getParseTime);
+        appendSummary(sb, "haveno_p2p_queue_delay_seconds", "Time a received envelope waited for the UserThread",
+                metricsList, MessageTypeMetrics::getQueueDelay);
+        appendSummary(sb, "haveno_p2p_handler_seconds", "Time spent in the message listeners on the UserThread",
+                metricsList, MessageTypeMetrics::getHandlerTime);
+        appendSummary(sb, "haveno_p2p_send_seconds", "Time for writing an envelope to the socket",
+                metricsList, MessageTypeMetrics::getSendTime);
+        appendUserThreadSummary(sb, "haveno_user_thread_queue_delay_seconds",
+                "Time a task waited for the UserThread", UserThread.getQueueDelay());
+        appendUserThreadSummary(sb, "haveno_user_thread_run_seconds",
+                "Run time of a task on the UserThread", UserThread.getRunTime());
+        appendSingleCounter(sb, "haveno_p2p_hash_cache_hits_total",
+                "Number of payload hashes served from the hash cache", P2PDataStorage.getHashCacheHits());
+        appendSingleCounter(sb, "haveno_p2p_hash_cache_misses_total",
+                "Number of payload hashes computed and added to the hash cache", P2PDataStorage.getHashCacheMisses());
+        return sb.toString();
+    }
+
+    @Value
+    public static class MessageTypeMetrics {
+        String type;
+        long numReceived;
+        long receivedBytes;
+        long numSent;
+        long sentBytes;
+        LatencyHistogram.Snapshot parseTime;
+        LatencyHistogram.Snapshot queueDelay;
+        LatencyHistogram.Snapshot handlerTime;
+        LatencyHistogram.Snapshot sendTime;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static TypeMetrics getTypeMetrics(NetworkEnvelope networkEnvelope) {
+        return METRICS_BY_TYPE.computeIfAbsent(networkEnvelope.getClass().getSimpleName(), type -> new TypeMetrics());
+    }
+
+    private static void appendCounter(StringBuilder sb,
+                                      String name,
+                                      String help,
+                                      List<MessageTypeMetrics> metricsList,
+                                      ToLongFunction<MessageTypeMetrics> getter) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        metricsList.forEach(metrics -> sb.append(name).append("{type=\"").append(metrics.getType()).append("\"} ")
+                .append(getter.applyAsLong(metrics)).append('\n'));
+    }
+
+    private static void appendSingleCounter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void appendSummary(StringBuilder sb,
+                                      String name,
+                                      String help,
+                                      List<MessageTypeMetrics> metricsList,
+                                      Function<MessageTypeMetrics, LatencyHistogram.Snapshot> getter) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        metricsList.forEach(metrics -> {
+            LatencyHistogram.Snapshot snapshot = getter.apply(metrics);
+            if (snapshot.getCount() == 0) {
+                return;
+            }
+            appendSummaryValues(sb, name, "type=\"" + metrics.getType() + "\"", snapshot);
+        });
+    }
+
+    private static void appendUserThreadSummary(StringBuilder sb,
+                                                String name,
+                                                String help,
+                                                LatencyHistogram.Snapshot snapshot) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        appendSummaryValues(sb, name, "", snapshot);
+    }
+
+    private static void appendSummaryValues(StringBuilder sb,
+                                            String name,
+                                            String labels,
+                                            LatencyHistogram.Snapshot snapshot) {
+        String quantileLabels = labels.isEmpty() ? "" : labels + ",";
+        String totalLabels = labels.isEmpty() ? "" : "{" + labels + "}";
+        appendQuantile(sb, name, quantileLabels, "0.5", snapshot.getP50Micros());
+        appendQuantile(sb, name, quantileLabels, "0.9", snapshot.getP90Micros());
+        appendQuantile(sb, name, quantileLabels, "0.99", snapshot.getP99Micros());
+        sb.append(name).append("_sum").append(totalLabels).append(' ')
+                .append(toSeconds(snapshot.getSumMicros())).append('\n');
+        sb.append(name).append("_count").append(totalLabels).append(' ')
+                .append(snapshot.getCount()).append('\n');
+    }
+
+    private static void appendQuantile(StringBuilder sb, String name, String labels, String quantile, long micros) {
+        sb.append(name).append('{').append(labels).append("quantile=\"").append(quantile).append("\"} ")
+                .append(toSeconds(micros)).append('\n');
+    }
+
+    private static String toSeconds(long micros) {
+        return String.format(Locale.US, "%.6f", micros / 1_000_000d);
+    }
+
+    private static final class TypeMetrics {
+        private final LongAdder numReceived = new LongAdder();
+        private final LongAdder receivedBytes = new LongAdder();
+        private final LongAdder numSent = new LongAdder();
+        private final LongAdder sentBytes = new LongAdder();
+        private final LatencyHistogram parseTime = new LatencyHistogram();
+        private final LatencyHistogram queueDelay = new LatencyHistogram();
+        private final LatencyHistogram handlerTime = new LatencyHistogram();
+        private final LatencyHistogram sendTime = new LatencyHistogram();
+
+        private MessageTypeMetrics getSnapshot(String type) {
+            return new MessageTypeMetrics(type,
+                    numReceived.sum(),
+                    receivedBytes.sum(),
+                    numSent.sum(),
+                    sentBytes.sum(),
+                    parseTime.getSnapshot(),
+                    queueDelay.getSnapshot(),
+                    handlerTime.getSnapshot(),
+                    sendTime.getSnapshot());
+        }
+    }
+}
@@ -163,7 +163,6 @@ public abstract class NetworkNode implements MessageListener {
                         } catch (Throwable throwable) {
                             log.error("Error at closing socket " + throwable);
                         }
-                        existingConnection.sendMessage(networkEnvelope);
                         return existingConnection;
                     } else {
                         final ConnectionListener connectionListener = new ConnectionListener() {
@@ -207,8 +206,6 @@ public abstract class NetworkNode implements MessageListener {
                                     + "\nmessage=" + networkEnvelope
                                     + "\n%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%\n");
                         }
-                        // can take a while when using tor
-                        outboundConnection.sendMessage(networkEnvelope);
                         return outboundConnection;
                     }
                 } catch (Throwable throwable) {
@@ -220,8 +217,12 @@ public abstract class NetworkNode implements MessageListener {
                     throw throwable;
                 }
             });
+            // The message gets sent once we have a connection. The future completes after it got written.
+            ListenableFuture<Connection> sentFuture = Futures.transformAsync(future,
+                    newConnection -> whenWritten(newConnection, newConnection.sendMessage(networkEnvelope)),
+                    MoreExecutors.directExecutor());
 
-            Futures.addCallback(future, new FutureCallback<>() {
+            Futures.addCallback(sentFuture, new FutureCallback<>() {
                 public void onSuccess(Connection connection) {
                     UserThread.execute(() -> resultFuture.set(connection));
                 }
@@ -279,13 +280,18 @@ public abstract class NetworkNode implements MessageListener {
 
 
     public SettableFuture<Connection> sendMessage(Connection connection, NetworkEnvelope networkEnvelope) {
-        // connection.sendMessage might take a bit (compression, write to stream), so we use a thread to not block
-        ListenableFuture<Connection> future = executorService.submit(() -> {
+        return sendMessage(connection, SerializedEnvelope.of(networkEnvelope));
+    }
+
+    // The serializedEnvelope can be passed to multiple connections, it gets serialized only once
+    public SettableFuture<Connection> sendMessage(Connection connection, SerializedEnvelope serializedEnvelope) {
+        // connection.sendMessage might take a bit (serialization), so we use a thread to not block.
+        // The future completes after the envelope got written to the socket.
+        ListenableFuture<Connection> future = Futures.submitAsync(() -> {
             String id = connection.getPeersNodeAddressOptional().isPresent() ? connection.getPeersNodeAddressOptional().get().getFullAddress() : connection.getUid();
             Thread.currentThread().setName("NetworkNode:SendMessage-to-" + id);
-            connection.sendMessage(networkEnvelope);
-            return connection;
-        });
+            return whenWritten(connection, connection.sendMessage(serializedEnvelope));
+        }, executorService);
         final SettableFuture<Connection> resultFuture = SettableFuture.create();
         Futures.addCallback(future, new FutureCallback<Connection>() {
             public void onSuccess(Connection connection) {
@@ -299,6 +305,10 @@ public abstract class NetworkNode implements MessageListener {
         return resultFuture;
     }
 
+    private static ListenableFuture<Connection> whenWritten(Connection connection, ListenableFuture<Void> writtenFuture) {
+        return Futures.transform(writtenFuture, written -> connection, MoreExecutors.directExecutor());
+    }
+
     public ReadOnlyObjectProperty<NodeAddress> nodeAddressProperty() {
         return nodeAddressProperty;
     }
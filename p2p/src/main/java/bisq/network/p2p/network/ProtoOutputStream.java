@@ -41,9 +41,9 @@ class ProtoOutputStream {
         this.statistic = statistic;
     }
 
-    void writeEnvelope(NetworkEnvelope envelope) {
+    void writeEnvelope(SerializedEnvelope serializedEnvelope) {
         try {
-            writeEnvelopeOrThrow(envelope);
+            writeEnvelopeOrThrow(serializedEnvelope);
         } catch (IOException e) {
             log.error("Failed to write envelope", e);
             throw new HavenoRuntimeException("Failed to write envelope", e);
@@ -58,12 +58,15 @@ class ProtoOutputStream {
         }
     }
 
-    private void writeEnvelopeOrThrow(NetworkEnvelope envelope) throws IOException {
-        protobuf.NetworkEnvelope proto = envelope.toProtoNetworkEnvelope();
-        proto.writeDelimitedTo(delegate);
+    private void writeEnvelopeOrThrow(SerializedEnvelope serializedEnvelope) throws IOException {
+        // The envelope was already serialized, so we only copy the bytes to the socket
+        long startTime = System.nanoTime();
+        serializedEnvelope.writeTo(delegate);
         delegate.flush();
 
-        statistic.addSentBytes(proto.getSerializedSize());
+        NetworkEnvelope envelope = serializedEnvelope.getNetworkEnvelope();
+        MessageMetrics.onSent(envelope, serializedEnvelope.getSize(), System.nanoTime() - startTime);
+        statistic.addSentBytes(serializedEnvelope.getSize());
         statistic.addSentMessage(envelope);
 
         if (!(envelope instanceof KeepAliveMessage)) {
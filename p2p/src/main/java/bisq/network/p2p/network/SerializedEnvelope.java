@@ -0,0 +1,170 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.BundleOfEnvelopes;
+
+import bisq.common.proto.network.NetworkEnvelope;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Holds a network envelope together with its length delimited wire format, so the envelope gets serialized only once
+ * for the size checks, the bundling and the writing, independent of the number of peers it is sent to.
+ * <p>
+ * The serialization happens lazily at the first access. The frame must not be modified after creation as it is
+ * shared by all connections the envelope is sent to.
+ */
+@ThreadSafe
+public final class SerializedEnvelope {
+    @Getter
+    private final NetworkEnvelope networkEnvelope;
+    // Set if the frame is composed of the frames of the bundled envelopes
+    @Nullable
+    private final List<SerializedEnvelope> bundledEnvelopes;
+    // Length prefix followed by the serialized protobuf.NetworkEnvelope
+    @Nullable
+    private volatile byte[] frame;
+    private volatile int size;
+
+    public static SerializedEnvelope of(NetworkEnvelope networkEnvelope) {
+        return new SerializedEnvelope(networkEnvelope, null);
+    }
+
+    /**
+     * Creates the bundle out of the serialized envelopes, so they do not get serialized again if they are also
+     * sent in other bundles or on their own.
+     */
+    public static SerializedEnvelope bundle(List<SerializedEnvelope> serializedEnvelopes) {
+        BundleOfEnvelopes bundleOfEnvelopes = new BundleOfEnvelopes(serializedEnvelopes.stream()
+                .map(SerializedEnvelope::getNetworkEnvelope)
+                .collect(Collectors.toList()));
+        return new SerializedEnvelope(bundleOfEnvelopes, new ArrayList<>(serializedEnvelopes));
+    }
+
+    private SerializedEnvelope(NetworkEnvelope networkEnvelope, @Nullable List<SerializedEnvelope> bundledEnvelopes) {
+        this.networkEnvelope = networkEnvelope;
+        this.bundledEnvelopes = bundledEnvelopes;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return Serialized size of the protobuf.NetworkEnvelope without the length prefix.
+     */
+    public int getSize() {
+        getFrame();
+        return size;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(getFrame());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private byte[] getFrame() {
+        byte[] result = frame;
+        if (result == null) {
+            synchronized (this) {
+                result = frame;
+                if (result == null) {
+                    try {
+                        result = bundledEnvelopes != null ? createBundleFrame(bundledEnvelopes) : createFrame();
+                    } catch (IOException e) {
+                        throw new HavenoRuntimeException("Failed to serialize envelope", e);
+                    }
+                    // size must be set before frame as frame is read first
+                    size = result.length - getHeaderLength(result);
+                    frame = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private byte[] createFrame() throws IOException {
+        protobuf.NetworkEnvelope proto = networkEnvelope.toProtoNetworkEnvelope();
+        int size = proto.getSerializedSize();
+        byte[] frame = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+        // We write directly into the frame to avoid an intermediate copy
+        CodedOutputStream outputStream = CodedOutputStream.newInstance(frame);
+        outputStream.writeUInt32NoTag(size);
+        proto.writeTo(outputStream);
+        outputStream.checkNoSpaceLeft();
+        return frame;
+    }
+
+    // Same wire format as bundleOfEnvelopes.toProtoNetworkEnvelope() would produce. The length delimited frames of
+    // the bundled envelopes are already the encoding of the repeated envelopes field after its tag.
+    private byte[] createBundleFrame(List<SerializedEnvelope> serializedEnvelopes) throws IOException {
+        int tagSize = CodedOutputStream.computeTagSize(protobuf.BundleOfEnvelopes.ENVELOPES_FIELD_NUMBER);
+        int envelopesSize = 0;
+        for (SerializedEnvelope serializedEnvelope : serializedEnvelopes) {
+            envelopesSize += tagSize + serializedEnvelope.getFrame().length;
+        }
+        String messageVersion = networkEnvelope.getMessageVersion();
+        int size = CodedOutputStream.computeStringSize(protobuf.NetworkEnvelope.MESSAGE_VERSION_FIELD_NUMBER, messageVersion) +
+                CodedOutputStream.computeTagSize(protobuf.NetworkEnvelope.BUNDLE_OF_ENVELOPES_FIELD_NUMBER) +
+                CodedOutputStream.computeUInt32SizeNoTag(envelopesSize) +
+                envelopesSize;
+
+        byte[] frame = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+        CodedOutputStream outputStream = CodedOutputStream.newInstance(frame);
+        outputStream.writeUInt32NoTag(size);
+        outputStream.writeString(protobuf.NetworkEnvelope.MESSAGE_VERSION_FIELD_NUMBER, messageVersion);
+        outputStream.writeTag(protobuf.NetworkEnvelope.BUNDLE_OF_ENVELOPES_FIELD_NUMBER,
+                WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        outputStream.writeUInt32NoTag(envelopesSize);
+        for (SerializedEnvelope serializedEnvelope : serializedEnvelopes) {
+            outputStream.writeTag(protobuf.BundleOfEnvelopes.ENVELOPES_FIELD_NUMBER,
+                    WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            outputStream.writeRawBytes(serializedEnvelope.getFrame());
+        }
+        outputStream.checkNoSpaceLeft();
+        return frame;
+    }
+
+    // Number of bytes of the varint length prefix
+    private static int getHeaderLength(byte[] frame) {
+        int i = 0;
+        while ((frame[i] & 0x80) != 0) {
+            i++;
+        }
+        return i + 1;
+    }
+}
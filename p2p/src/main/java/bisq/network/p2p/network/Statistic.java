@@ -19,6 +19,7 @@ package bisq.network.p2p.network;
 
 import bisq.common.UserThread;
 import bisq.common.proto.network.NetworkEnvelope;
+import bisq.common.util.LatencyHistogram;
 import bisq.common.util.Utilities;
 
 import javafx.beans.property.DoubleProperty;
@@ -29,9 +30,11 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleLongProperty;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -52,8 +55,6 @@ public class Statistic {
     private final static DoubleProperty totalSentBytesPerSec = new SimpleDoubleProperty(0);
     private final static LongProperty totalReceivedBytes = new SimpleLongProperty(0);
     private final static DoubleProperty totalReceivedBytesPerSec = new SimpleDoubleProperty(0);
-    private final static Map<String, Integer> totalReceivedMessages = new ConcurrentHashMap<>();
-    private final static Map<String, Integer> totalSentMessages = new ConcurrentHashMap<>();
     private final static LongProperty numTotalSentMessages = new SimpleLongProperty(0);
     private final static DoubleProperty numTotalSentMessagesPerSec = new SimpleDoubleProperty(0);
     private final static LongProperty numTotalReceivedMessages = new SimpleLongProperty(0);
@@ -61,8 +62,9 @@ public class Statistic {
 
     static {
         UserThread.runPeriodically(() -> {
-            numTotalSentMessages.set(totalSentMessages.values().stream().mapToInt(Integer::intValue).sum());
-            numTotalReceivedMessages.set(totalReceivedMessages.values().stream().mapToInt(Integer::intValue).sum());
+            // The totals per message type are kept in the MessageMetrics
+            numTotalSentMessages.set(MessageMetrics.getNumSentMessages());
+            numTotalReceivedMessages.set(MessageMetrics.getNumReceivedMessages());
 
             long passed = (System.currentTimeMillis() - startTime) / 1000;
             numTotalSentMessagesPerSec.set(((double) numTotalSentMessages.get()) / passed);
@@ -74,6 +76,15 @@ public class Statistic {
 
         // We log statistics every 5 minutes
         UserThread.runPeriodically(() -> {
+            List<MessageMetrics.MessageTypeMetrics> messageTypeMetrics = MessageMetrics.getMessageTypeMetrics();
+            Map<String, Long> totalSentMessages = messageTypeMetrics.stream()
+                    .filter(metrics -> metrics.getNumSent() > 0)
+                    .collect(Collectors.toMap(MessageMetrics.MessageTypeMetrics::getType,
+                            MessageMetrics.MessageTypeMetrics::getNumSent));
+            Map<String, Long> totalReceivedMessages = messageTypeMetrics.stream()
+                    .filter(metrics -> metrics.getNumReceived() > 0)
+                    .collect(Collectors.toMap(MessageMetrics.MessageTypeMetrics::getType,
+                            MessageMetrics.MessageTypeMetrics::getNumReceived));
             String ls = System.lineSeparator();
             log.info("Accumulated network statistics:" + ls +
                             "Bytes sent: {};" + ls +
@@ -130,11 +141,15 @@ public class Statistic {
 
     private final Date creationDate;
     private long lastActivityTimestamp = System.currentTimeMillis();
+    // Any received message including keep alive messages. Updated from the InputHandler thread.
+    private volatile long lastInboundTimestamp = System.currentTimeMillis();
     private final LongProperty sentBytes = new SimpleLongProperty(0);
     private final LongProperty receivedBytes = new SimpleLongProperty(0);
     private final Map<String, Integer> receivedMessages = new ConcurrentHashMap<>();
     private final Map<String, Integer> sentMessages = new ConcurrentHashMap<>();
     private final IntegerProperty roundTripTime = new SimpleIntegerProperty(0);
+    // Our own measurements of the round trip time
+    private final LatencyHistogram roundTripTimes = new LatencyHistogram();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -153,6 +168,10 @@ public class Statistic {
         UserThread.execute(() -> lastActivityTimestamp = System.currentTimeMillis());
     }
 
+    void updateLastInboundTimestamp() {
+        lastInboundTimestamp = System.currentTimeMillis();
+    }
+
     void addSentBytes(int value) {
         UserThread.execute(() -> {
             sentBytes.set(sentBytes.get() + value);
@@ -169,39 +188,22 @@ public class Statistic {
 
     // TODO would need msg inspection to get useful information...
     void addReceivedMessage(NetworkEnvelope networkEnvelope) {
-        String messageClassName = networkEnvelope.getClass().getSimpleName();
-        int counter = 1;
-        if (receivedMessages.containsKey(messageClassName)) {
-            counter = receivedMessages.get(messageClassName) + 1;
-        }
-        receivedMessages.put(messageClassName, counter);
-
-        counter = 1;
-        if (totalReceivedMessages.containsKey(messageClassName)) {
-            counter = totalReceivedMessages.get(messageClassName) + 1;
-        }
-        totalReceivedMessages.put(messageClassName, counter);
+        receivedMessages.merge(networkEnvelope.getClass().getSimpleName(), 1, Integer::sum);
     }
 
     void addSentMessage(NetworkEnvelope networkEnvelope) {
-        String messageClassName = networkEnvelope.getClass().getSimpleName();
-        int counter = 1;
-        if (sentMessages.containsKey(messageClassName)) {
-            counter = sentMessages.get(messageClassName) + 1;
-        }
-        sentMessages.put(messageClassName, counter);
-
-        counter = 1;
-        if (totalSentMessages.containsKey(messageClassName)) {
-            counter = totalSentMessages.get(messageClassName) + 1;
-        }
-        totalSentMessages.put(messageClassName, counter);
+        sentMessages.merge(networkEnvelope.getClass().getSimpleName(), 1, Integer::sum);
     }
 
     public void setRoundTripTime(int roundTripTime) {
         this.roundTripTime.set(roundTripTime);
     }
 
+    public void addRoundTripTimeMeasurement(int roundTripTime) {
+        setRoundTripTime(roundTripTime);
+        roundTripTimes.record(TimeUnit.MILLISECONDS.toMicros(roundTripTime));
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Getters
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -214,6 +216,15 @@ public class Statistic {
         return System.currentTimeMillis() - lastActivityTimestamp;
     }
 
+    public long getLastInboundAge() {
+        return System.currentTimeMillis() - lastInboundTimestamp;
+    }
+
+    // Distribution of the round trip times measured by our pings, usable for ranking peers
+    public LatencyHistogram.Snapshot getRoundTripTimes() {
+        return roundTripTimes.getSnapshot();
+    }
+
     public long getSentBytes() {
         return sentBytes.get();
     }
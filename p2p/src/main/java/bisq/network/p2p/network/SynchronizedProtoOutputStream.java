@@ -17,14 +17,16 @@
 
 package bisq.network.p2p.network;
 
-import bisq.common.proto.network.NetworkEnvelope;
-
 import java.io.OutputStream;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,16 +37,27 @@ import javax.annotation.concurrent.ThreadSafe;
 class SynchronizedProtoOutputStream extends ProtoOutputStream {
     private static final Logger log = LoggerFactory.getLogger(SynchronizedProtoOutputStream.class);
 
+    // Max. number of envelopes waiting for the writer thread. A peer which does not read our envelopes would
+    // otherwise let the queue grow without limit.
+    static final int MAX_QUEUED_ENVELOPES = 1000;
+
     private final ExecutorService executorService;
+    private final int maxQueuedEnvelopes;
 
     SynchronizedProtoOutputStream(OutputStream delegate, Statistic statistic) {
+        this(delegate, statistic, MAX_QUEUED_ENVELOPES);
+    }
+
+    SynchronizedProtoOutputStream(OutputStream delegate, Statistic statistic, int maxQueuedEnvelopes) {
         super(delegate, statistic);
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.maxQueuedEnvelopes = maxQueuedEnvelopes;
+        this.executorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedEnvelopes));
     }
 
     @Override
-    void writeEnvelope(NetworkEnvelope envelope) {
-        Future<?> future = executorService.submit(() -> super.writeEnvelope(envelope));
+    void writeEnvelope(SerializedEnvelope serializedEnvelope) {
+        Future<?> future = executorService.submit(() -> super.writeEnvelope(serializedEnvelope));
         try {
             future.get();
         } catch (InterruptedException e) {
@@ -60,12 +73,61 @@ class SynchronizedProtoOutputStream extends ProtoOutputStream {
         }
     }
 
+    /**
+     * Queues the envelope at the writer thread and returns immediately. The resultHandler gets called at the writer
+     * thread once the envelope is written. The errorHandler gets called if the write failed, if the queue is full or
+     * if the connection got shut down before the envelope was written.
+     */
+    void writeEnvelopeAsync(SerializedEnvelope serializedEnvelope,
+                            Runnable resultHandler,
+                            Consumer<Throwable> errorHandler) {
+        try {
+            executorService.execute(new WriteTask(serializedEnvelope, resultHandler, errorHandler));
+        } catch (RejectedExecutionException e) {
+            if (executorService.isShutdown()) {
+                errorHandler.accept(e);
+            } else {
+                errorHandler.accept(new RejectedExecutionException("Write queue is full. " +
+                        maxQueuedEnvelopes + " envelopes are waiting to be written.", e));
+            }
+        }
+    }
+
     void onConnectionShutdown() {
         try {
-            executorService.shutdownNow();
+            // Envelopes which did not get written anymore are reported as failed
+            executorService.shutdownNow().stream()
+                    .filter(runnable -> runnable instanceof WriteTask)
+                    .forEach(runnable -> ((WriteTask) runnable).errorHandler.accept(
+                            new RejectedExecutionException("Connection got shut down before envelope was written")));
             super.onConnectionShutdown();
         } catch (Throwable t) {
             log.error("Failed to handle connection shutdown. Throwable={}", t.toString());
         }
     }
+
+    private class WriteTask implements Runnable {
+        private final SerializedEnvelope serializedEnvelope;
+        private final Runnable resultHandler;
+        private final Consumer<Throwable> errorHandler;
+
+        private WriteTask(SerializedEnvelope serializedEnvelope,
+                          Runnable resultHandler,
+                          Consumer<Throwable> errorHandler) {
+            this.serializedEnvelope = serializedEnvelope;
+            this.resultHandler = resultHandler;
+            this.errorHandler = errorHandler;
+        }
+
+        @Override
+        public void run() {
+            try {
+                SynchronizedProtoOutputStream.super.writeEnvelope(serializedEnvelope);
+            } catch (Throwable t) {
+                errorHandler.accept(t);
+                return;
+            }
+            resultHandler.run();
+        }
+    }
 }
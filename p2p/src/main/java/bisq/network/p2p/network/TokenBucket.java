@@ -0,0 +1,65 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Token bucket used for throttling the messages of a connection. Up to capacity messages can be passed at once, after
+ * that one token gets added every refillIntervalMs.
+ * <p>
+ * A reservation always succeeds and returns the time the caller has to wait until its token is available. That way
+ * the callers can schedule their message instead of blocking their thread, and subsequent reservations are ordered.
+ */
+@ThreadSafe
+class TokenBucket {
+    private final int capacity;
+    private final long refillIntervalMs;
+    // Gets negative if tokens are reserved in advance
+    private double tokens;
+    private long lastRefillTimeStamp;
+
+    TokenBucket(int capacity, long refillIntervalMs) {
+        this.capacity = capacity;
+        this.refillIntervalMs = Math.max(1, refillIntervalMs);
+        tokens = capacity;
+    }
+
+    /**
+     * @param now   Current time in ms.
+     * @return Delay in ms until the reserved token is available. 0 if it is available immediately.
+     */
+    synchronized long reserve(long now) {
+        refill(now);
+        tokens--;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * refillIntervalMs);
+    }
+
+    private void refill(long now) {
+        if (lastRefillTimeStamp == 0) {
+            lastRefillTimeStamp = now;
+            return;
+        }
+
+        long elapsed = now - lastRefillTimeStamp;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + (double) elapsed / refillIntervalMs);
+            lastRefillTimeStamp = now;
+        }
+    }
+}
@@ -17,11 +17,10 @@
 
 package bisq.network.p2p.peers;
 
-import bisq.network.p2p.BundleOfEnvelopes;
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.NetworkNode;
-import bisq.network.p2p.storage.messages.BroadcastMessage;
+import bisq.network.p2p.network.SerializedEnvelope;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
@@ -32,8 +31,11 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -71,6 +73,12 @@ public class BroadcastHandler implements PeerManager.Listener {
     private final ResultHandler resultHandler;
     private final String uid;
 
+    // Connections which get the same subset of the broadcastRequests (peers with the same capabilities which are not
+    // the sender of any of the messages) share the serialized envelope, so each variant gets serialized only once.
+    // Only accessed from the UserThread.
+    private final Map<BitSet, SerializedEnvelope> serializedEnvelopeBySubset = new HashMap<>();
+    private final Map<Integer, SerializedEnvelope> serializedMessageByIndex = new HashMap<>();
+
     private boolean stopped, timeoutTriggered;
     private int numOfCompletedBroadcasts, numOfFailedBroadcasts, numPeersForBroadcast;
     private Timer timeoutTimer;
@@ -131,10 +139,10 @@ public class BroadcastHandler implements PeerManager.Listener {
                 // We use broadcastRequests which have excluded the requests for messages the connection has
                 // originated to avoid sending back the message we received. We also remove messages not satisfying
                 // capability checks.
-                List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection = getBroadcastRequestsForConnection(connection, broadcastRequests);
+                BitSet subset = getBroadcastRequestsForConnection(connection, broadcastRequests);
 
                 // Could be empty list...
-                if (broadcastRequestsForConnection.isEmpty()) {
+                if (subset.isEmpty()) {
                     // We decrease numPeers in that case for making completion checks correct.
                     if (numPeersForBroadcast > 0) {
                         numPeersForBroadcast--;
@@ -153,7 +161,12 @@ public class BroadcastHandler implements PeerManager.Listener {
                     return;
                 }
 
-                sendToPeer(connection, broadcastRequestsForConnection);
+                List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection = subset.stream()
+                        .mapToObj(broadcastRequests::get)
+                        .collect(Collectors.toList());
+                sendToPeer(connection,
+                        broadcastRequestsForConnection,
+                        getSerializedEnvelope(subset, broadcastRequests));
             }, minDelay, maxDelay, TimeUnit.MILLISECONDS);
         }
     }
@@ -225,20 +238,29 @@ public class BroadcastHandler implements PeerManager.Listener {
     }
 
     // We exclude the requests containing a message we received from that connection
-    // Also we filter out messages which requires a capability but peer does not support it.
-    private List<Broadcaster.BroadcastRequest> getBroadcastRequestsForConnection(Connection connection,
-                                                                                 List<Broadcaster.BroadcastRequest> broadcastRequests) {
-        return broadcastRequests.stream()
-                .filter(broadcastRequest -> !connection.getPeersNodeAddressOptional().isPresent() ||
-                        !connection.getPeersNodeAddressOptional().get().equals(broadcastRequest.getSender()))
-                .filter(broadcastRequest -> connection.noCapabilityRequiredOrCapabilityIsSupported(broadcastRequest.getMessage()))
-                .collect(Collectors.toList());
+    // Also we filter out messages which requires a capability but peer does not support it and messages which got
+    // replaced by a message requiring a capability the peer supports.
+    // Returns the indices of the broadcastRequests to send to that connection.
+    private BitSet getBroadcastRequestsForConnection(Connection connection,
+                                                     List<Broadcaster.BroadcastRequest> broadcastRequests) {
+        BitSet subset = new BitSet(broadcastRequests.size());
+        for (int i = 0; i < broadcastRequests.size(); i++) {
+            Broadcaster.BroadcastRequest broadcastRequest = broadcastRequests.get(i);
+            if ((!connection.getPeersNodeAddressOptional().isPresent() ||
+                    !connection.getPeersNodeAddressOptional().get().equals(broadcastRequest.getSender())) &&
+                    connection.noCapabilityRequiredOrCapabilityIsSupported(broadcastRequest.getMessage()) &&
+                    (broadcastRequest.getReplacedByCapability() == null ||
+                            !connection.getCapabilities().contains(broadcastRequest.getReplacedByCapability()))) {
+                subset.set(i);
+            }
+        }
+        return subset;
     }
 
-    private void sendToPeer(Connection connection, List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection) {
-        // Can be BundleOfEnvelopes or a single BroadcastMessage
-        BroadcastMessage broadcastMessage = getMessage(broadcastRequestsForConnection);
-        SettableFuture<Connection> future = networkNode.sendMessage(connection, broadcastMessage);
+    private void sendToPeer(Connection connection,
+                            List<Broadcaster.BroadcastRequest> broadcastRequestsForConnection,
+                            SerializedEnvelope serializedEnvelope) {
+        SettableFuture<Connection> future = networkNode.sendMessage(connection, serializedEnvelope);
 
         Futures.addCallback(future, new FutureCallback<>() {
             @Override
@@ -269,15 +291,21 @@ public class BroadcastHandler implements PeerManager.Listener {
         }, MoreExecutors.directExecutor());
     }
 
-    private BroadcastMessage getMessage(List<Broadcaster.BroadcastRequest> broadcastRequests) {
-        if (broadcastRequests.size() == 1) {
-            // If we only have 1 message we avoid the overhead of the BundleOfEnvelopes and send the message directly
-            return broadcastRequests.get(0).getMessage();
-        } else {
-            return new BundleOfEnvelopes(broadcastRequests.stream()
-                    .map(Broadcaster.BroadcastRequest::getMessage)
-                    .collect(Collectors.toList()));
-        }
+    // Can be BundleOfEnvelopes or a single BroadcastMessage. The serialization itself happens lazily at the
+    // NetworkNode thread of the first connection it gets sent to.
+    private SerializedEnvelope getSerializedEnvelope(BitSet subset, List<Broadcaster.BroadcastRequest> broadcastRequests) {
+        return serializedEnvelopeBySubset.computeIfAbsent(subset, key -> {
+            List<SerializedEnvelope> serializedMessages = key.stream()
+                    .mapToObj(index -> serializedMessageByIndex.computeIfAbsent(index,
+                            i -> SerializedEnvelope.of(broadcastRequests.get(i).getMessage())))
+                    .collect(Collectors.toList());
+            if (serializedMessages.size() == 1) {
+                // If we only have 1 message we avoid the overhead of the BundleOfEnvelopes and send the message directly
+                return serializedMessages.get(0);
+            } else {
+                return SerializedEnvelope.bundle(serializedMessages);
+            }
+        });
     }
 
     private void maybeNotifyListeners(List<Broadcaster.BroadcastRequest> broadcastRequests) {
@@ -19,10 +19,13 @@ package bisq.network.p2p.peers;
 
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.storage.messages.BatchedRefreshOfferMessage;
 import bisq.network.p2p.storage.messages.BroadcastMessage;
+import bisq.network.p2p.storage.messages.RefreshOfferMessage;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 
 import javax.inject.Inject;
 
@@ -41,6 +44,9 @@ import org.jetbrains.annotations.Nullable;
 @Slf4j
 public class Broadcaster implements BroadcastHandler.ResultHandler {
     private static final long BROADCAST_INTERVAL_MS = 2000;
+    // Spacing of the single refresh messages for peers not supporting the BatchedRefreshOfferMessage. Same as the
+    // spacing the maker used for refreshing the offers one by one, so we stay below the throttle limits of those peers.
+    static final long LEGACY_REFRESH_OFFER_SPACING_MS = 300;
 
     private final NetworkNode networkNode;
     private final PeerManager peerManager;
@@ -99,11 +105,34 @@ public class Broadcaster implements BroadcastHandler.ResultHandler {
     public void broadcast(BroadcastMessage message,
                           @Nullable NodeAddress sender,
                           @Nullable BroadcastHandler.Listener listener) {
-        broadcastRequests.add(new BroadcastRequest(message, sender, listener));
+        addBroadcastRequest(new BroadcastRequest(message, sender, listener, null));
+        if (message instanceof BatchedRefreshOfferMessage) {
+            // Peers which do not support the batch get the single messages instead, spaced as before the batching
+            List<RefreshOfferMessage> refreshOfferMessages = ((BatchedRefreshOfferMessage) message).getRefreshOfferMessages();
+            for (int i = 0; i < refreshOfferMessages.size(); i++) {
+                BroadcastRequest broadcastRequest = new BroadcastRequest(refreshOfferMessages.get(i),
+                        sender,
+                        null,
+                        Capability.BATCHED_REFRESH_OFFER);
+                if (i == 0) {
+                    addBroadcastRequest(broadcastRequest);
+                } else {
+                    UserThread.runAfter(() -> {
+                        if (!shutDownRequested) {
+                            addBroadcastRequest(broadcastRequest);
+                        }
+                    }, i * LEGACY_REFRESH_OFFER_SPACING_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private void addBroadcastRequest(BroadcastRequest broadcastRequest) {
+        broadcastRequests.add(broadcastRequest);
         // Keep that log on INFO for better debugging if the feature works as expected. Later it can
         // be remove or set to DEBUG
         log.debug("Broadcast requested for {}. We queue it up for next bundled broadcast.",
-                message.getClass().getSimpleName());
+                broadcastRequest.getMessage().getClass().getSimpleName());
 
         if (timer == null) {
             timer = UserThread.runAfter(this::maybeBroadcastBundle, BROADCAST_INTERVAL_MS, TimeUnit.MILLISECONDS);
@@ -149,13 +178,18 @@ public class Broadcaster implements BroadcastHandler.ResultHandler {
         private NodeAddress sender;
         @Nullable
         private BroadcastHandler.Listener listener;
+        // If set the message is not sent to peers supporting that capability as they get a replacement message
+        @Nullable
+        private Capability replacedByCapability;
 
         private BroadcastRequest(BroadcastMessage message,
                                  @Nullable NodeAddress sender,
-                                 @Nullable BroadcastHandler.Listener listener) {
+                                 @Nullable BroadcastHandler.Listener listener,
+                                 @Nullable Capability replacedByCapability) {
             this.message = message;
             this.sender = sender;
             this.listener = listener;
+            this.replacedByCapability = replacedByCapability;
         }
     }
 }
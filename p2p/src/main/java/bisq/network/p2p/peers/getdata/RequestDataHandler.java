@@ -23,6 +23,7 @@ import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.network.MessageListener;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.PeerManager;
+import bisq.network.p2p.peers.getdata.messages.ExcludedKeysFilter;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
 import bisq.network.p2p.storage.P2PDataStorage;
@@ -31,6 +32,7 @@ import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
 
 import bisq.common.Timer;
 import bisq.common.UserThread;
+import bisq.common.app.Capability;
 import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.proto.network.NetworkPayload;
 import bisq.common.util.Tuple2;
@@ -57,7 +59,12 @@ class RequestDataHandler implements MessageListener {
     private static final long TIMEOUT = 180;
 
     private NodeAddress peersNodeAddress;
+    private boolean isPreliminaryDataRequest;
     private String getDataRequestType;
+    @Nullable
+    private ExcludedKeysFilter excludedKeysFilter;
+    // Set once we have requested the payloads our ExcludedKeysFilter made the peer withhold
+    private boolean followUpRequestSent;
     /*
      */
 
@@ -89,7 +96,7 @@ class RequestDataHandler implements MessageListener {
     private final PeerManager peerManager;
     private final Listener listener;
     private Timer timeoutTimer;
-    private final int nonce = new Random().nextInt();
+    private int nonce = new Random().nextInt();
     private boolean stopped;
 
 
@@ -118,59 +125,10 @@ class RequestDataHandler implements MessageListener {
 
     void requestData(NodeAddress nodeAddress, boolean isPreliminaryDataRequest) {
         peersNodeAddress = nodeAddress;
+        this.isPreliminaryDataRequest = isPreliminaryDataRequest;
         if (!stopped) {
-            GetDataRequest getDataRequest;
-
-            if (isPreliminaryDataRequest)
-                getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce);
-            else
-                getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce);
-
-            if (timeoutTimer == null) {
-                timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
-                            if (!stopped) {
-                                String errorMessage = "A timeout occurred at sending getDataRequest:" + getDataRequest +
-                                        " on nodeAddress:" + nodeAddress;
-                                log.debug(errorMessage + " / RequestDataHandler=" + RequestDataHandler.this);
-                                handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_TIMEOUT);
-                            } else {
-                                log.trace("We have stopped already. We ignore that timeoutTimer.run call. " +
-                                        "Might be caused by a previous networkNode.sendMessage.onFailure.");
-                            }
-                        },
-                        TIMEOUT);
-            }
-
-            getDataRequestType = getDataRequest.getClass().getSimpleName();
-            log.info("We send a {} to peer {}. ", getDataRequestType, nodeAddress);
             networkNode.addMessageListener(this);
-            SettableFuture<Connection> future = networkNode.sendMessage(nodeAddress, getDataRequest);
-            //noinspection UnstableApiUsage
-            Futures.addCallback(future, new FutureCallback<>() {
-                @Override
-                public void onSuccess(Connection connection) {
-                    if (!stopped) {
-                        log.trace("Send {} to {} succeeded.", getDataRequest, nodeAddress);
-                    } else {
-                        log.trace("We have stopped already. We ignore that networkNode.sendMessage.onSuccess call." +
-                                "Might be caused by a previous timeout.");
-                    }
-                }
-
-                @Override
-                public void onFailure(@NotNull Throwable throwable) {
-                    if (!stopped) {
-                        String errorMessage = "Sending getDataRequest to " + nodeAddress +
-                                " failed. That is expected if the peer is offline.\n\t" +
-                                "getDataRequest=" + getDataRequest + "." +
-                                "\n\tException=" + throwable.getMessage();
-                        handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_FAILURE);
-                    } else {
-                        log.trace("We have stopped already. We ignore that networkNode.sendMessage.onFailure call. " +
-                                "Might be caused by a previous timeout.");
-                    }
-                }
-            }, MoreExecutors.directExecutor());
+            sendGetDataRequest();
         } else {
             log.warn("We have stopped already. We ignore that requestData call.");
         }
@@ -198,10 +156,21 @@ class RequestDataHandler implements MessageListener {
                         }
 
                         dataStorage.processGetDataResponse(getDataResponse,
-                                connection.getPeersNodeAddressOptional().get());
-
-                        cleanup();
-                        listener.onComplete();
+                                connection.getPeersNodeAddressOptional().get(),
+                                excludedKeysFilter);
+
+                        if (!followUpRequestSent && dataStorage.isFollowUpDataRequestRequired()) {
+                            // Our ExcludedKeysFilter made the peer withhold payloads we do not have. We request them
+                            // before we report completion, so they do not depend on a later data request.
+                            log.info("We send a follow-up request to peer {} for the payloads we missed because " +
+                                    "of false positives of our ExcludedKeysFilter.", peersNodeAddress);
+                            followUpRequestSent = true;
+                            nonce = new Random().nextInt();
+                            sendGetDataRequest();
+                        } else {
+                            cleanup();
+                            listener.onComplete();
+                        }
                         // firstRequest = false;
                     } else {
                         log.warn("Nonce not matching. That can happen rarely if we get a response after a canceled " +
@@ -228,6 +197,65 @@ class RequestDataHandler implements MessageListener {
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
+    private void sendGetDataRequest() {
+        NodeAddress nodeAddress = peersNodeAddress;
+        GetDataRequest getDataRequest;
+
+        // If we know that the peer supports it we send a compact filter of our known PersistableNetworkPayload
+        // hashes instead of the full list.
+        boolean useExcludedKeysFilter = peerManager.peerHasCapability(nodeAddress, Capability.EXCLUDED_KEYS_FILTER);
+        if (isPreliminaryDataRequest)
+            getDataRequest = dataStorage.buildPreliminaryGetDataRequest(nonce, useExcludedKeysFilter);
+        else
+            getDataRequest = dataStorage.buildGetUpdatedDataRequest(networkNode.getNodeAddress(), nonce, useExcludedKeysFilter);
+        excludedKeysFilter = getDataRequest.getExcludedKeysFilter();
+
+        if (timeoutTimer == null) {
+            timeoutTimer = UserThread.runAfter(() -> {  // setup before sending to avoid race conditions
+                        if (!stopped) {
+                            String errorMessage = "A timeout occurred at sending getDataRequest:" + getDataRequest +
+                                    " on nodeAddress:" + nodeAddress;
+                            log.debug(errorMessage + " / RequestDataHandler=" + RequestDataHandler.this);
+                            handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_TIMEOUT);
+                        } else {
+                            log.trace("We have stopped already. We ignore that timeoutTimer.run call. " +
+                                    "Might be caused by a previous networkNode.sendMessage.onFailure.");
+                        }
+                    },
+                    TIMEOUT);
+        }
+
+        getDataRequestType = getDataRequest.getClass().getSimpleName();
+        log.info("We send a {} to peer {}. ", getDataRequestType, nodeAddress);
+        SettableFuture<Connection> future = networkNode.sendMessage(nodeAddress, getDataRequest);
+        //noinspection UnstableApiUsage
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(Connection connection) {
+                if (!stopped) {
+                    log.trace("Send {} to {} succeeded.", getDataRequest, nodeAddress);
+                } else {
+                    log.trace("We have stopped already. We ignore that networkNode.sendMessage.onSuccess call." +
+                            "Might be caused by a previous timeout.");
+                }
+            }
+
+            @Override
+            public void onFailure(@NotNull Throwable throwable) {
+                if (!stopped) {
+                    String errorMessage = "Sending getDataRequest to " + nodeAddress +
+                            " failed. That is expected if the peer is offline.\n\t" +
+                            "getDataRequest=" + getDataRequest + "." +
+                            "\n\tException=" + throwable.getMessage();
+                    handleFault(errorMessage, nodeAddress, CloseConnectionReason.SEND_MSG_FAILURE);
+                } else {
+                    log.trace("We have stopped already. We ignore that networkNode.sendMessage.onFailure call. " +
+                            "Might be caused by a previous timeout.");
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
     private void logContents(GetDataResponse getDataResponse) {
         Set<ProtectedStorageEntry> dataSet = getDataResponse.getDataSet();
         Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
@@ -0,0 +1,229 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.proto.network.NetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import org.jetbrains.annotations.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bloom filter of the hashes of the PersistableNetworkPayloads we have already. It is sent in the GetDataRequest
+ * instead of the full list of hashes if the peer supports the EXCLUDED_KEYS_FILTER capability. At our false positive
+ * rate of 0.1% it needs about 1.8 bytes per entry instead of 20 or 32 bytes per hash.
+ * <p>
+ * A false positive means that the peer does not send us a payload we are missing. The peer responds with an
+ * {@link InvertibleBloomLookupTable} of the hashes which matched the filter, from which we get the false positives
+ * exactly. We request them with a follow-up request as missed keys, which the peer sends regardless of the filter.
+ * ProtectedStorageEntries are still excluded by their exact hashes as we must not miss an offer or a mailbox message.
+ */
+@EqualsAndHashCode
+@Getter
+public final class ExcludedKeysFilter implements NetworkPayload {
+    public static final double FALSE_POSITIVE_RATE = 0.001;
+    // At our false positive rate 10 MB are enough for about 5.7 million entries
+    private static final int MAX_NUM_BYTES = 10 * 1024 * 1024;
+    private static final int MAX_NUM_HASH_FUNCTIONS = 30;
+    public static final int MAX_MISSED_KEYS = 10_000;
+
+    private final byte[] bits;
+    private final int numHashFunctions;
+    private final long tweak;
+    // Number of keys we put into the filter, used by the peer for the size of the InvertibleBloomLookupTable
+    private final int numKeys;
+    // Keys which match the filter but which we do not have
+    private final List<byte[]> missedKeys;
+
+    // The keys we put into the filter. Only set at the filter we built, as we need them for finding the false positives.
+    @Getter(AccessLevel.NONE)
+    @Nullable
+    private final transient Collection<byte[]> keys;
+
+    public static ExcludedKeysFilter fromKeys(Collection<byte[]> keys, Collection<byte[]> missedKeys) {
+        return fromKeys(keys, missedKeys, new Random().nextLong());
+    }
+
+    @VisibleForTesting
+    static ExcludedKeysFilter fromKeys(Collection<byte[]> keys, long tweak) {
+        return fromKeys(keys, Collections.emptyList(), tweak);
+    }
+
+    private static ExcludedKeysFilter fromKeys(Collection<byte[]> keys, Collection<byte[]> missedKeys, long tweak) {
+        checkArgument(missedKeys.size() <= MAX_MISSED_KEYS, "Too many missed keys. missedKeys.size()=%s",
+                missedKeys.size());
+        int numEntries = Math.max(1, keys.size());
+        // Optimal size is m = -n * ln(p) / (ln 2)^2 bits with k = m / n * ln 2 hash functions
+        double ln2 = Math.log(2);
+        long numBits = (long) Math.ceil(-numEntries * Math.log(FALSE_POSITIVE_RATE) / (ln2 * ln2));
+        int numBytes = (int) Math.max(1, Math.min(MAX_NUM_BYTES, (numBits + 7) / 8));
+        int numHashFunctions = (int) Math.max(1, Math.min(MAX_NUM_HASH_FUNCTIONS,
+                Math.round((double) numBytes * 8 / numEntries * ln2)));
+
+        ExcludedKeysFilter filter = new ExcludedKeysFilter(new byte[numBytes],
+                numHashFunctions,
+                tweak,
+                keys.size(),
+                new ArrayList<>(missedKeys),
+                keys);
+        keys.forEach(filter::put);
+        return filter;
+    }
+
+    private ExcludedKeysFilter(byte[] bits,
+                               int numHashFunctions,
+                               long tweak,
+                               int numKeys,
+                               List<byte[]> missedKeys,
+                               @Nullable Collection<byte[]> keys) {
+        this.bits = bits;
+        this.numHashFunctions = numHashFunctions;
+        this.tweak = tweak;
+        this.numKeys = numKeys;
+        this.missedKeys = missedKeys;
+        this.keys = keys;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public protobuf.ExcludedKeysFilter toProtoMessage() {
+        return protobuf.ExcludedKeysFilter.newBuilder()
+                .setBits(ByteString.copyFrom(bits))
+                .setNumHashFunctions(numHashFunctions)
+                .setTweak(tweak)
+                .setNumKeys(numKeys)
+                .addAllMissedKeys(missedKeys.stream().map(ByteString::copyFrom).collect(Collectors.toList()))
+                .build();
+    }
+
+    public static ExcludedKeysFilter fromProto(protobuf.ExcludedKeysFilter proto) {
+        byte[] bits = proto.getBits().toByteArray();
+        checkArgument(bits.length > 0 && bits.length <= MAX_NUM_BYTES,
+                "Invalid size of ExcludedKeysFilter. bits.length=%s", bits.length);
+        checkArgument(proto.getNumHashFunctions() > 0 && proto.getNumHashFunctions() <= MAX_NUM_HASH_FUNCTIONS,
+                "Invalid numHashFunctions of ExcludedKeysFilter. numHashFunctions=%s", proto.getNumHashFunctions());
+        checkArgument(proto.getNumKeys() >= 0, "Invalid numKeys of ExcludedKeysFilter. numKeys=%s", proto.getNumKeys());
+        checkArgument(proto.getMissedKeysCount() <= MAX_MISSED_KEYS,
+                "Too many missed keys at ExcludedKeysFilter. missedKeys.size()=%s", proto.getMissedKeysCount());
+        return new ExcludedKeysFilter(bits,
+                proto.getNumHashFunctions(),
+                proto.getTweak(),
+                proto.getNumKeys(),
+                proto.getMissedKeysList().stream().map(ByteString::toByteArray).collect(Collectors.toList()),
+                null);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public boolean mightContain(byte[] key) {
+        long numBits = (long) bits.length * 8;
+        long hash1 = hash1(key);
+        long hash2 = hash2(key);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, numBits);
+            if ((bits[(int) (index >>> 3)] & (1 << (index & 7))) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the keys of the peer's table which matched the filter but which we did not put into it, or
+     * Optional.empty() if the table is too small to list them. Only available at the filter we built.
+     */
+    public Optional<List<byte[]>> getFalsePositives(InvertibleBloomLookupTable filteredKeys) {
+        checkNotNull(keys, "The keys are only known at the filter we built");
+        return filteredKeys.getMissingKeys(keys);
+    }
+
+    @Override
+    public String toString() {
+        return "ExcludedKeysFilter{" +
+                "\n     bits.length=" + bits.length +
+                ",\n     numHashFunctions=" + numHashFunctions +
+                ",\n     tweak=" + tweak +
+                ",\n     numKeys=" + numKeys +
+                ",\n     missedKeys.size()=" + missedKeys.size() +
+                "\n}";
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void put(byte[] key) {
+        long numBits = (long) bits.length * 8;
+        long hash1 = hash1(key);
+        long hash2 = hash2(key);
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, numBits);
+            bits[(int) (index >>> 3)] |= (byte) (1 << (index & 7));
+        }
+    }
+
+    // The keys are already cryptographic hashes, so we only need to mix in the tweak to get independent bit positions
+    // for each request. We use the double hashing scheme of Kirsch and Mitzenmacher to derive the k hash functions.
+    private long hash1(byte[] key) {
+        return mix(readLong(key, 0) ^ tweak);
+    }
+
+    private long hash2(byte[] key) {
+        // Must not be 0 as otherwise all hash functions would map to the same bit
+        return mix(readLong(key, 8) + tweak) | 1;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < Math.min(offset + 8, bytes.length); i++) {
+            result = (result << 8) | (bytes[i] & 0xFF);
+        }
+        return result;
+    }
+
+    // Finalizer of the SplitMix64 generator
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -44,13 +44,20 @@ public abstract class GetDataRequest extends NetworkEnvelope implements Extended
     @Nullable
     protected final String version;
 
+    // Only set if the peer supports the EXCLUDED_KEYS_FILTER capability. In that case excludedKeys contains only the
+    // keys of the ProtectedStorageEntry items and the keys of the PersistableNetworkPayload items are in that filter.
+    @Nullable
+    protected final ExcludedKeysFilter excludedKeysFilter;
+
     public GetDataRequest(String messageVersion,
                           int nonce,
                           Set<byte[]> excludedKeys,
-                          @Nullable String version) {
+                          @Nullable String version,
+                          @Nullable ExcludedKeysFilter excludedKeysFilter) {
         super(messageVersion);
         this.nonce = nonce;
         this.excludedKeys = excludedKeys;
         this.version = version;
+        this.excludedKeysFilter = excludedKeysFilter;
     }
 }
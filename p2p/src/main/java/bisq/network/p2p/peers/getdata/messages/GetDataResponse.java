@@ -31,6 +31,7 @@ import bisq.common.proto.network.NetworkEnvelope;
 import bisq.common.proto.network.NetworkProtoResolver;
 import bisq.common.util.Utilities;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -39,6 +40,7 @@ import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 @Slf4j
 @EqualsAndHashCode(callSuper = true)
@@ -56,6 +58,11 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
     private final boolean isGetUpdatedDataResponse;
     private final Capabilities supportedCapabilities;
 
+    // If the request had an ExcludedKeysFilter, the hashes we did not send because they matched the filter. The
+    // requester gets the false positives of the filter from it.
+    @Nullable
+    private final InvertibleBloomLookupTable filteredKeys;
+
     public GetDataResponse(@NotNull Set<ProtectedStorageEntry> dataSet,
                            @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
                            int requestNonce,
@@ -64,6 +71,19 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 persistableNetworkPayloadSet,
                 requestNonce,
                 isGetUpdatedDataResponse,
+                null);
+    }
+
+    public GetDataResponse(@NotNull Set<ProtectedStorageEntry> dataSet,
+                           @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
+                           int requestNonce,
+                           boolean isGetUpdatedDataResponse,
+                           @Nullable InvertibleBloomLookupTable filteredKeys) {
+        this(dataSet,
+                persistableNetworkPayloadSet,
+                requestNonce,
+                isGetUpdatedDataResponse,
+                filteredKeys,
                 Capabilities.app,
                 Version.getP2PMessageVersion());
     }
@@ -76,6 +96,7 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                             @NotNull Set<PersistableNetworkPayload> persistableNetworkPayloadSet,
                             int requestNonce,
                             boolean isGetUpdatedDataResponse,
+                            @Nullable InvertibleBloomLookupTable filteredKeys,
                             @NotNull Capabilities supportedCapabilities,
                             String messageVersion) {
         super(messageVersion);
@@ -84,6 +105,7 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
         this.persistableNetworkPayloadSet = persistableNetworkPayloadSet;
         this.requestNonce = requestNonce;
         this.isGetUpdatedDataResponse = isGetUpdatedDataResponse;
+        this.filteredKeys = filteredKeys;
         this.supportedCapabilities = supportedCapabilities;
     }
 
@@ -107,6 +129,8 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 .setIsGetUpdatedDataResponse(isGetUpdatedDataResponse)
                 .addAllSupportedCapabilities(Capabilities.toIntList(supportedCapabilities));
 
+        Optional.ofNullable(filteredKeys).ifPresent(e -> builder.setFilteredKeys(e.toProtoMessage()));
+
         protobuf.NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setGetDataResponse(builder)
                 .build();
@@ -126,6 +150,7 @@ public final class GetDataResponse extends NetworkEnvelope implements SupportedC
                 persistableNetworkPayloadSet,
                 proto.getRequestNonce(),
                 proto.getIsGetUpdatedDataResponse(),
+                proto.hasFilteredKeys() ? InvertibleBloomLookupTable.fromProto(proto.getFilteredKeys()) : null,
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
                 messageVersion);
     }
@@ -46,10 +46,18 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
     public GetUpdatedDataRequest(NodeAddress senderNodeAddress,
                                  int nonce,
                                  Set<byte[]> excludedKeys) {
+        this(senderNodeAddress, nonce, excludedKeys, null);
+    }
+
+    public GetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                 int nonce,
+                                 Set<byte[]> excludedKeys,
+                                 @Nullable ExcludedKeysFilter excludedKeysFilter) {
         this(senderNodeAddress,
                 nonce,
                 excludedKeys,
                 Version.VERSION,
+                excludedKeysFilter,
                 Version.getP2PMessageVersion());
     }
 
@@ -62,11 +70,13 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
                                   int nonce,
                                   Set<byte[]> excludedKeys,
                                   @Nullable String version,
+                                  @Nullable ExcludedKeysFilter excludedKeysFilter,
                                   String messageVersion) {
         super(messageVersion,
                 nonce,
                 excludedKeys,
-                version);
+                version,
+                excludedKeysFilter);
         this.senderNodeAddress = senderNodeAddress;
     }
 
@@ -79,23 +89,29 @@ public final class GetUpdatedDataRequest extends GetDataRequest implements Sende
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
         Optional.ofNullable(version).ifPresent(builder::setVersion);
+        Optional.ofNullable(excludedKeysFilter).ifPresent(e -> builder.setExcludedKeysFilter(e.toProtoMessage()));
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setGetUpdatedDataRequest(builder)
                 .build();
-        log.info("Sending a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), version);
+        log.info("Sending a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}, " +
+                        "excludedKeysFilter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), version, excludedKeysFilter != null);
         return proto;
     }
 
     public static GetUpdatedDataRequest fromProto(protobuf.GetUpdatedDataRequest proto, String messageVersion) {
         Set<byte[]> excludedKeys = ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList());
         String requestersVersion = ProtoUtil.stringOrNullFromProto(proto.getVersion());
-        log.info("Received a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion);
+        ExcludedKeysFilter excludedKeysFilter = proto.hasExcludedKeysFilter() ?
+                ExcludedKeysFilter.fromProto(proto.getExcludedKeysFilter()) : null;
+        log.info("Received a GetUpdatedDataRequest with {} kB and {} excluded key entries. Requesters version={}, " +
+                        "excludedKeysFilter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion, excludedKeysFilter != null);
         return new GetUpdatedDataRequest(NodeAddress.fromProto(proto.getSenderNodeAddress()),
                 proto.getNonce(),
                 excludedKeys,
                 requestersVersion,
+                excludedKeysFilter,
                 messageVersion);
     }
 }
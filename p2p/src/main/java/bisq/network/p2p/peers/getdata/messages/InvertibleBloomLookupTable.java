@@ -0,0 +1,231 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.proto.network.NetworkPayload;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.EqualsAndHashCode;
+
+import org.jetbrains.annotations.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Invertible Bloom lookup table of the hashes of the PersistableNetworkPayloads a peer did not send us because they
+ * matched our {@link ExcludedKeysFilter}. After removing the keys we put into the filter only the differences remain,
+ * and they can be listed as long as the table is large enough for them. Those are the false positives of the filter
+ * and our keys the peer does not have. So the size of the table depends on the expected number of differences
+ * instead of the number of filtered keys.
+ * <p>
+ * See Eppstein et al., "What's the Difference? Efficient Set Reconciliation without Prior Context".
+ */
+@EqualsAndHashCode
+public final class InvertibleBloomLookupTable implements NetworkPayload {
+    // The keys are hashes of 20 or 32 bytes
+    public static final int MAX_KEY_LENGTH = 32;
+    private static final int NUM_HASH_FUNCTIONS = 4;
+    private static final int MIN_NUM_CELLS = 60;
+    // Limits the table to about 900 kB
+    private static final int MAX_NUM_CELLS = 20_000;
+    // A cell is the count of its keys, the XOR of its keys prefixed by their length and the XOR of their checksums
+    private static final int KEY_SUM_LENGTH = 1 + MAX_KEY_LENGTH;
+    private static final int CELL_SIZE = 4 + KEY_SUM_LENGTH + 8;
+    private static final long CHECKSUM_SEED = 0x9e3779b97f4a7c15L;
+
+    private final byte[] cells;
+
+    // With twice the cells as differences the listing fails only rarely
+    public static InvertibleBloomLookupTable forExpectedDifference(int expectedDifference) {
+        long numCells = Math.min(MAX_NUM_CELLS, 2L * Math.max(0, expectedDifference) + MIN_NUM_CELLS);
+        numCells -= numCells % NUM_HASH_FUNCTIONS;
+        return new InvertibleBloomLookupTable(new byte[(int) numCells * CELL_SIZE]);
+    }
+
+    private InvertibleBloomLookupTable(byte[] cells) {
+        this.cells = cells;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public protobuf.InvertibleBloomLookupTable toProtoMessage() {
+        return protobuf.InvertibleBloomLookupTable.newBuilder()
+                .setCells(ByteString.copyFrom(cells))
+                .build();
+    }
+
+    public static InvertibleBloomLookupTable fromProto(protobuf.InvertibleBloomLookupTable proto) {
+        byte[] cells = proto.getCells().toByteArray();
+        int numCells = cells.length / CELL_SIZE;
+        checkArgument(cells.length % CELL_SIZE == 0 && numCells % NUM_HASH_FUNCTIONS == 0 &&
+                        numCells > 0 && numCells <= MAX_NUM_CELLS,
+                "Invalid size of InvertibleBloomLookupTable. cells.length=%s", cells.length);
+        return new InvertibleBloomLookupTable(cells);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public void insert(byte[] key) {
+        update(ByteBuffer.wrap(cells), key, 1);
+    }
+
+    /**
+     * Returns the keys of the table which are not in keys, or Optional.empty() if there are too many differences to
+     * list them. Keys which are only in keys are left out.
+     */
+    public Optional<List<byte[]>> getMissingKeys(Collection<byte[]> keys) {
+        ByteBuffer difference = ByteBuffer.wrap(cells.clone());
+        keys.forEach(key -> update(difference, key, -1));
+
+        // Each pure cell holds a single key. Removing it from its other cells might make them pure as well.
+        List<byte[]> missingKeys = new ArrayList<>();
+        boolean foundPureCell = true;
+        while (foundPureCell) {
+            foundPureCell = false;
+            for (int cell = 0; cell < getNumCells(); cell++) {
+                int count = difference.getInt(cell * CELL_SIZE);
+                byte[] key = getPureKey(difference, cell);
+                if (key != null) {
+                    update(difference, key, -count);
+                    if (count == 1)
+                        missingKeys.add(key);
+                    foundPureCell = true;
+                }
+            }
+        }
+
+        for (int cell = 0; cell < getNumCells(); cell++) {
+            if (!isEmpty(difference, cell))
+                return Optional.empty();
+        }
+        return Optional.of(missingKeys);
+    }
+
+    public int getNumCells() {
+        return cells.length / CELL_SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return "InvertibleBloomLookupTable{" +
+                "\n     numCells=" + getNumCells() +
+                "\n}";
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private void update(ByteBuffer table, byte[] key, int count) {
+        checkArgument(key.length > 0 && key.length <= MAX_KEY_LENGTH, "Invalid key length %s", key.length);
+        byte[] keySum = toKeySum(key);
+        long checksum = checksum(keySum);
+        for (int i = 0; i < NUM_HASH_FUNCTIONS; i++) {
+            int offset = getCell(checksum, i) * CELL_SIZE;
+            table.putInt(offset, table.getInt(offset) + count);
+            for (int j = 0; j < KEY_SUM_LENGTH; j++) {
+                table.put(offset + 4 + j, (byte) (table.get(offset + 4 + j) ^ keySum[j]));
+            }
+            table.putLong(offset + 4 + KEY_SUM_LENGTH, table.getLong(offset + 4 + KEY_SUM_LENGTH) ^ checksum);
+        }
+    }
+
+    // Each hash function uses its own part of the table, so a key never maps twice to the same cell
+    private int getCell(long checksum, int hashFunction) {
+        int numCellsPerHashFunction = getNumCells() / NUM_HASH_FUNCTIONS;
+        return hashFunction * numCellsPerHashFunction +
+                (int) Math.floorMod(mix(checksum + hashFunction), (long) numCellsPerHashFunction);
+    }
+
+    // Returns the key if the cell holds a single key, inserted or removed
+    @Nullable
+    private byte[] getPureKey(ByteBuffer table, int cell) {
+        int offset = cell * CELL_SIZE;
+        int count = table.getInt(offset);
+        if (count != 1 && count != -1)
+            return null;
+
+        byte[] keySum = new byte[KEY_SUM_LENGTH];
+        for (int i = 0; i < KEY_SUM_LENGTH; i++) {
+            keySum[i] = table.get(offset + 4 + i);
+        }
+        int keyLength = keySum[0];
+        if (keyLength <= 0 || keyLength > MAX_KEY_LENGTH)
+            return null;
+
+        // The key must belong to that cell, so a sum of several keys is not taken for a single key
+        long checksum = checksum(keySum);
+        int hashFunction = cell / (getNumCells() / NUM_HASH_FUNCTIONS);
+        if (table.getLong(offset + 4 + KEY_SUM_LENGTH) != checksum || getCell(checksum, hashFunction) != cell)
+            return null;
+
+        return Arrays.copyOfRange(keySum, 1, 1 + keyLength);
+    }
+
+    private static boolean isEmpty(ByteBuffer table, int cell) {
+        int offset = cell * CELL_SIZE;
+        for (int i = offset; i < offset + CELL_SIZE; i++) {
+            if (table.get(i) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static byte[] toKeySum(byte[] key) {
+        byte[] keySum = new byte[KEY_SUM_LENGTH];
+        keySum[0] = (byte) key.length;
+        System.arraycopy(key, 0, keySum, 1, key.length);
+        return keySum;
+    }
+
+    private static long checksum(byte[] keySum) {
+        long checksum = CHECKSUM_SEED;
+        for (int offset = 0; offset < keySum.length; offset += 8) {
+            long value = 0;
+            for (int i = offset; i < Math.min(offset + 8, keySum.length); i++) {
+                value = (value << 8) | (keySum[i] & 0xFF);
+            }
+            checksum = mix(checksum ^ value);
+        }
+        return checksum;
+    }
+
+    // Finalizer of the SplitMix64 generator
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -45,10 +45,17 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
     private final Capabilities supportedCapabilities;
 
     public PreliminaryGetDataRequest(int nonce, Set<byte[]> excludedKeys) {
+        this(nonce, excludedKeys, null);
+    }
+
+    public PreliminaryGetDataRequest(int nonce,
+                                     Set<byte[]> excludedKeys,
+                                     @Nullable ExcludedKeysFilter excludedKeysFilter) {
         this(nonce,
                 excludedKeys,
                 Version.VERSION,
                 Capabilities.app,
+                excludedKeysFilter,
                 Version.getP2PMessageVersion());
     }
 
@@ -61,8 +68,9 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
                                       Set<byte[]> excludedKeys,
                                       @Nullable String version,
                                       Capabilities supportedCapabilities,
+                                      @Nullable ExcludedKeysFilter excludedKeysFilter,
                                       String messageVersion) {
-        super(messageVersion, nonce, excludedKeys, version);
+        super(messageVersion, nonce, excludedKeys, version, excludedKeysFilter);
 
         this.supportedCapabilities = supportedCapabilities;
     }
@@ -76,23 +84,29 @@ public final class PreliminaryGetDataRequest extends GetDataRequest implements A
                         .map(ByteString::copyFrom)
                         .collect(Collectors.toList()));
         Optional.ofNullable(version).ifPresent(builder::setVersion);
+        Optional.ofNullable(excludedKeysFilter).ifPresent(e -> builder.setExcludedKeysFilter(e.toProtoMessage()));
         NetworkEnvelope proto = getNetworkEnvelopeBuilder()
                 .setPreliminaryGetDataRequest(builder)
                 .build();
-        log.info("Sending a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), version);
+        log.info("Sending a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}, " +
+                        "excludedKeysFilter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), version, excludedKeysFilter != null);
         return proto;
     }
 
     public static PreliminaryGetDataRequest fromProto(protobuf.PreliminaryGetDataRequest proto, String messageVersion) {
         Set<byte[]> excludedKeys = ProtoUtil.byteSetFromProtoByteStringList(proto.getExcludedKeysList());
         String requestersVersion = ProtoUtil.stringOrNullFromProto(proto.getVersion());
-        log.info("Received a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}",
-                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion);
+        ExcludedKeysFilter excludedKeysFilter = proto.hasExcludedKeysFilter() ?
+                ExcludedKeysFilter.fromProto(proto.getExcludedKeysFilter()) : null;
+        log.info("Received a PreliminaryGetDataRequest with {} kB and {} excluded key entries. Requesters version={}, " +
+                        "excludedKeysFilter={}",
+                proto.getSerializedSize() / 1000d, excludedKeys.size(), requestersVersion, excludedKeysFilter != null);
         return new PreliminaryGetDataRequest(proto.getNonce(),
                 excludedKeys,
                 requestersVersion,
                 Capabilities.fromIntList(proto.getSupportedCapabilitiesList()),
+                excludedKeysFilter,
                 messageVersion);
     }
 }
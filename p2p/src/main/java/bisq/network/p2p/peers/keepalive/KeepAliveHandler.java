@@ -24,8 +24,6 @@ import bisq.network.p2p.peers.PeerManager;
 import bisq.network.p2p.peers.keepalive.messages.Ping;
 import bisq.network.p2p.peers.keepalive.messages.Pong;
 
-import bisq.common.Timer;
-import bisq.common.UserThread;
 import bisq.common.proto.network.NetworkEnvelope;
 
 import com.google.common.util.concurrent.FutureCallback;
@@ -34,7 +32,6 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,15 +43,13 @@ import javax.annotation.Nullable;
 class KeepAliveHandler implements MessageListener {
     private static final Logger log = LoggerFactory.getLogger(KeepAliveHandler.class);
 
-    private static final int DELAY_MS = 10_000;
-
 
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Listener
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public interface Listener {
-        void onComplete();
+        void onComplete(int roundTripTime);
 
         @SuppressWarnings("UnusedParameters")
         void onFault(String errorMessage);
@@ -72,7 +67,6 @@ class KeepAliveHandler implements MessageListener {
     @Nullable
     private Connection connection;
     private boolean stopped;
-    private Timer delayTimer;
     private long sendTs;
 
 
@@ -95,11 +89,8 @@ class KeepAliveHandler implements MessageListener {
     // API
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    public void sendPingAfterRandomDelay(Connection connection) {
-        delayTimer = UserThread.runAfterRandomDelay(() -> sendPing(connection), 1, DELAY_MS, TimeUnit.MILLISECONDS);
-    }
-
-    private void sendPing(Connection connection) {
+    // The KeepAliveManager spreads the pings over time, so we send without delay
+    public void sendPing(Connection connection) {
         if (!stopped) {
             Ping ping = new Ping(nonce, connection.getStatistic().roundTripTimeProperty().get());
             sendTs = System.currentTimeMillis();
@@ -148,9 +139,9 @@ class KeepAliveHandler implements MessageListener {
                 Pong pong = (Pong) networkEnvelope;
                 if (pong.getRequestNonce() == nonce) {
                     int roundTripTime = (int) (System.currentTimeMillis() - sendTs);
-                    connection.getStatistic().setRoundTripTime(roundTripTime);
+                    connection.getStatistic().addRoundTripTimeMeasurement(roundTripTime);
                     cleanup();
-                    listener.onComplete();
+                    listener.onComplete(roundTripTime);
                 } else {
                     log.warn("Nonce not matching. That should never happen.\n\t" +
                                     "We drop that message. nonce={} / requestNonce={}",
@@ -166,10 +157,5 @@ class KeepAliveHandler implements MessageListener {
         stopped = true;
         if (connection != null)
             connection.removeMessageListener(this);
-
-        if (delayTimer != null) {
-            delayTimer.stop();
-            delayTimer = null;
-        }
     }
 }
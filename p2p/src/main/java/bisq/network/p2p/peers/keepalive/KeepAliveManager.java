@@ -42,21 +42,35 @@ import com.google.common.util.concurrent.SettableFuture;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Pings our outbound connections to keep them alive and to detect dead peers. The pings are scheduled per connection
+ * on a timer wheel, so they get spread evenly over time instead of being sent in bursts. Any message received from
+ * the peer counts as proof of liveness and defers the next ping. The interval of each peer grows while it answers
+ * fast and drops to the minimum after a slow or missing pong.
+ */
 public class KeepAliveManager implements MessageListener, ConnectionListener, PeerManager.Listener {
     private static final Logger log = LoggerFactory.getLogger(KeepAliveManager.class);
 
-    private static final int INTERVAL_SEC = new Random().nextInt(30) + 30;
-    private static final long LAST_ACTIVITY_AGE_MS = INTERVAL_SEC * 1000 / 2;
+    private static final long TICK_MS = 1000;
+    private static final int NUM_SLOTS = 128;
+    private static final long MIN_INTERVAL_MS = TimeUnit.SECONDS.toMillis(15);
+    private static final long MAX_INTERVAL_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final long INITIAL_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int SLOW_ROUND_TRIP_TIME_MS = 5000;
 
     private final NetworkNode networkNode;
     private final PeerManager peerManager;
     private final Map<String, KeepAliveHandler> handlerMap = new HashMap<>();
+    private final Map<String, PeerState> peerStateMap = new HashMap<>();
+    private final TimerWheel<String> timerWheel = new TimerWheel<>(NUM_SLOTS, TICK_MS, System.currentTimeMillis());
+    private final Random random = new Random();
 
     private boolean stopped;
     private Timer keepAliveTimer;
@@ -135,11 +149,16 @@ public class KeepAliveManager implements MessageListener, ConnectionListener, Pe
 
     @Override
     public void onConnection(Connection connection) {
+        if (keepAliveTimer != null) {
+            maybeAddPeer(connection);
+        }
     }
 
     @Override
     public void onDisconnect(CloseConnectionReason closeConnectionReason, Connection connection) {
         closeHandler(connection);
+        peerStateMap.remove(connection.getUid());
+        timerWheel.cancel(connection.getUid());
     }
 
     @Override
@@ -154,6 +173,8 @@ public class KeepAliveManager implements MessageListener, ConnectionListener, Pe
     @Override
     public void onAllConnectionsLost() {
         closeAllHandlers();
+        peerStateMap.clear();
+        timerWheel.clear();
         stopKeepAliveTimer();
         stopped = true;
         restart();
@@ -169,6 +190,9 @@ public class KeepAliveManager implements MessageListener, ConnectionListener, Pe
     @Override
     public void onAwakeFromStandby() {
         closeAllHandlers();
+        // After a standby all peers would be due at once, so we spread them again
+        peerStateMap.clear();
+        timerWheel.clear();
         stopped = false;
         if (!networkNode.getAllConnections().isEmpty())
             restart();
@@ -184,36 +208,57 @@ public class KeepAliveManager implements MessageListener, ConnectionListener, Pe
             keepAliveTimer = UserThread.runPeriodically(() -> {
                 stopped = false;
                 keepAlive();
-            }, INTERVAL_SEC);
+            }, TICK_MS, TimeUnit.MILLISECONDS);
+
+        networkNode.getConfirmedConnections().forEach(this::maybeAddPeer);
+    }
+
+    private void maybeAddPeer(Connection connection) {
+        // Inbound peers ping us
+        if (!(connection instanceof OutboundConnection) || peerStateMap.containsKey(connection.getUid())) {
+            return;
+        }
+
+        peerStateMap.put(connection.getUid(), new PeerState(connection));
+        // A random first deadline spreads the pings of connections created at the same time
+        long delay = (long) (random.nextDouble() * INITIAL_INTERVAL_MS);
+        timerWheel.schedule(connection.getUid(), System.currentTimeMillis() + delay);
     }
 
     private void keepAlive() {
         if (!stopped) {
-            networkNode.getConfirmedConnections().stream()
-                    .filter(connection -> connection instanceof OutboundConnection &&
-                            connection.getStatistic().getLastActivityAge() > LAST_ACTIVITY_AGE_MS)
-                    .forEach(connection -> {
-                        final String uid = connection.getUid();
-                        if (!handlerMap.containsKey(uid)) {
-                            KeepAliveHandler keepAliveHandler = new KeepAliveHandler(networkNode, peerManager, new KeepAliveHandler.Listener() {
-                                @Override
-                                public void onComplete() {
-                                    handlerMap.remove(uid);
-                                }
-
-                                @Override
-                                public void onFault(String errorMessage) {
-                                    handlerMap.remove(uid);
-                                }
-                            });
-                            handlerMap.put(uid, keepAliveHandler);
-                            keepAliveHandler.sendPingAfterRandomDelay(connection);
-                        } else {
-                            // TODO check if this situation causes any issues
-                            log.debug("Connection with id {} has not completed and is still in our map. " +
-                                    "We will try to ping that peer at the next schedule.", uid);
-                        }
-                    });
+            long now = System.currentTimeMillis();
+            timerWheel.tick(now).forEach(uid -> {
+                PeerState peerState = peerStateMap.get(uid);
+                if (peerState == null) {
+                    return;
+                }
+
+                Connection connection = peerState.connection;
+                if (connection.isStopped()) {
+                    peerStateMap.remove(uid);
+                    closeHandler(connection);
+                    return;
+                }
+
+                long lastInboundAge = connection.getStatistic().getLastInboundAge();
+                if (lastInboundAge < peerState.intervalMs) {
+                    // We have heard from the peer within the interval, so no ping is needed yet
+                    timerWheel.schedule(uid, now - lastInboundAge + peerState.intervalMs);
+                    return;
+                }
+
+                KeepAliveHandler pendingHandler = handlerMap.remove(uid);
+                if (pendingHandler != null) {
+                    log.debug("We did not get a pong from {} since the last ping. We ping again with a shorter interval.",
+                            connection.getPeersNodeAddressOptional());
+                    pendingHandler.cancel();
+                    peerState.onMissingPong();
+                }
+
+                sendPing(uid, peerState);
+                timerWheel.schedule(uid, now + getIntervalWithJitter(peerState));
+            });
 
             int size = handlerMap.size();
             log.debug("handlerMap size=" + size);
@@ -225,6 +270,32 @@ public class KeepAliveManager implements MessageListener, ConnectionListener, Pe
         }
     }
 
+    private void sendPing(String uid, PeerState peerState) {
+        KeepAliveHandler keepAliveHandler = new KeepAliveHandler(networkNode, peerManager, new KeepAliveHandler.Listener() {
+            @Override
+            public void onComplete(int roundTripTime) {
+                handlerMap.remove(uid);
+                peerState.onPong(roundTripTime);
+                if (timerWheel.isScheduled(uid)) {
+                    timerWheel.schedule(uid, System.currentTimeMillis() + getIntervalWithJitter(peerState));
+                }
+            }
+
+            @Override
+            public void onFault(String errorMessage) {
+                handlerMap.remove(uid);
+                peerState.onMissingPong();
+            }
+        });
+        handlerMap.put(uid, keepAliveHandler);
+        keepAliveHandler.sendPing(peerState.connection);
+    }
+
+    // We add up to 10% jitter to avoid that pings of peers with the same interval get synchronized
+    private long getIntervalWithJitter(PeerState peerState) {
+        return peerState.intervalMs + (long) (random.nextDouble() * peerState.intervalMs / 10);
+    }
+
     private void stopKeepAliveTimer() {
         stopped = true;
         if (keepAliveTimer != null) {
@@ -246,4 +317,30 @@ public class KeepAliveManager implements MessageListener, ConnectionListener, Pe
         handlerMap.clear();
     }
 
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PeerState
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private static final class PeerState {
+        private final Connection connection;
+        private long intervalMs = INITIAL_INTERVAL_MS;
+
+        private PeerState(Connection connection) {
+            this.connection = connection;
+        }
+
+        private void onPong(int roundTripTime) {
+            if (roundTripTime > SLOW_ROUND_TRIP_TIME_MS) {
+                intervalMs = MIN_INTERVAL_MS;
+            } else {
+                intervalMs = Math.min(MAX_INTERVAL_MS, intervalMs * 3 / 2);
+            }
+        }
+
+        private void onMissingPong() {
+            intervalMs = MIN_INTERVAL_MS;
+        }
+    }
+
 }
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.keepalive;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hashed timer wheel. Items are put into the slot of their deadline, so each tick only looks at the items of the
+ * slots which passed since the last tick. Deadlines beyond one turn of the wheel stay in their slot until the
+ * deadline is reached at a later turn.
+ */
+@NotThreadSafe
+final class TimerWheel<T> {
+    private final long tickMs;
+    private final List<Set<T>> slots;
+    private final Map<T, Scheduled> scheduledByItem = new HashMap<>();
+    private long lastTick;
+
+    TimerWheel(int numSlots, long tickMs, long now) {
+        checkArgument(numSlots > 0 && tickMs > 0, "numSlots and tickMs must be positive");
+        this.tickMs = tickMs;
+        slots = new ArrayList<>(numSlots);
+        for (int i = 0; i < numSlots; i++) {
+            slots.add(new HashSet<>());
+        }
+        lastTick = now / tickMs;
+    }
+
+    // Replaces a previous schedule of the item. Deadlines in the past are returned at the next tick.
+    void schedule(T item, long deadline) {
+        cancel(item);
+        // We round up so the deadline has been reached when the slot gets visited
+        long tick = (deadline + tickMs - 1) / tickMs;
+        int slotIndex = getSlotIndex(Math.max(tick, lastTick + 1));
+        scheduledByItem.put(item, new Scheduled(deadline, slotIndex));
+        slots.get(slotIndex).add(item);
+    }
+
+    void cancel(T item) {
+        Scheduled scheduled = scheduledByItem.remove(item);
+        if (scheduled != null) {
+            slots.get(scheduled.slotIndex).remove(item);
+        }
+    }
+
+    boolean isScheduled(T item) {
+        return scheduledByItem.containsKey(item);
+    }
+
+    int size() {
+        return scheduledByItem.size();
+    }
+
+    void clear() {
+        slots.forEach(Set::clear);
+        scheduledByItem.clear();
+    }
+
+    // Returns and removes the items whose deadline has been reached
+    List<T> tick(long now) {
+        List<T> dueItems = new ArrayList<>();
+        long currentTick = now / tickMs;
+        // If the timer was late by more than one turn all slots get visited once
+        long firstTick = Math.max(lastTick + 1, currentTick - slots.size() + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            Iterator<T> iterator = slots.get(getSlotIndex(tick)).iterator();
+            while (iterator.hasNext()) {
+                T item = iterator.next();
+                if (scheduledByItem.get(item).deadline <= now) {
+                    iterator.remove();
+                    scheduledByItem.remove(item);
+                    dueItems.add(item);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, currentTick);
+        return dueItems;
+    }
+
+    private int getSlotIndex(long tick) {
+        return (int) (tick % slots.size());
+    }
+
+    private static final class Scheduled {
+        private final long deadline;
+        private final int slotIndex;
+
+        private Scheduled(long deadline, int slotIndex) {
+            this.deadline = deadline;
+            this.slotIndex = slotIndex;
+        }
+    }
+}
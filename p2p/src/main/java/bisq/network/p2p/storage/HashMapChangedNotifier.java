@@ -0,0 +1,211 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.Timer;
+import bisq.common.UserThread;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+
+/**
+ * Delivers the changes of the P2PDataStorage map to the HashMapChangedListeners.
+ * <p>
+ * Changes which are allowed to be deferred get queued while batching is active and are delivered as collections,
+ * either at a fixed interval on the UserThread or at the end of a batch started with runBatched. The order of the
+ * changes is preserved: consecutive adds or removes are merged into one call, an add followed by a remove results
+ * in two calls. Changes which are not deferred get delivered together with all queued changes by a flush which
+ * deliverUndeferredChanges posts to the UserThread. The P2PDataStorage records the changes while holding the lock of
+ * the changed hash and delivers them after releasing it, so the listeners never run while holding a lock of the
+ * storage.
+ * <p>
+ * The listeners only run on the UserThread, also for changes made at other threads like the ones of the client API.
+ * A change made by a listener is delivered after the current change has reached all listeners.
+ */
+@Slf4j
+final class HashMapChangedNotifier {
+    private final Set<HashMapChangedListener> listeners = new CopyOnWriteArraySet<>();
+    private final Queue<Change> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numRunningBatches = new AtomicInteger();
+    private final AtomicInteger numUndeferredChanges = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    @Nullable
+    private Timer timer;
+    private volatile boolean batchingStarted;
+    // Guarded by this. Set while the listeners get called, so a listener changing the storage does not start a nested
+    // flush.
+    private boolean flushing;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    void addListener(HashMapChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(HashMapChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    // From now on deferred changes get delivered every intervalMs
+    void startBatching(long intervalMs) {
+        if (timer != null) {
+            return;
+        }
+
+        batchingStarted = true;
+        timer = UserThread.runPeriodically(this::flush, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void shutDown() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        batchingStarted = false;
+        flush();
+    }
+
+    // Deferred changes caused by the runnable get delivered once it has completed
+    void runBatched(Runnable runnable) {
+        numRunningBatches.incrementAndGet();
+        try {
+            runnable.run();
+        } finally {
+            numRunningBatches.decrementAndGet();
+            scheduleFlush();
+        }
+    }
+
+    void onAdded(ProtectedStorageEntry protectedStorageEntry, boolean deferred) {
+        onChanged(new Change(true, Collections.singletonList(protectedStorageEntry)), deferred);
+    }
+
+    void onRemoved(Collection<ProtectedStorageEntry> protectedStorageEntries, boolean deferred) {
+        onChanged(new Change(false, protectedStorageEntries), deferred);
+    }
+
+    // Delivers the queued changes at the UserThread if one of them must not be deferred
+    void deliverUndeferredChanges() {
+        if (numUndeferredChanges.get() > 0) {
+            scheduleFlush();
+        }
+    }
+
+    synchronized void flush() {
+        if (flushing) {
+            // Called from a listener. The running flush delivers the new changes once all listeners got the current one.
+            return;
+        }
+
+        flushing = true;
+        try {
+            // Changes queued after the reset get delivered by this flush or by the next one
+            numUndeferredChanges.set(0);
+            Change change = pendingChanges.poll();
+            int numChanges = 0;
+            int numCalls = 0;
+            while (change != null) {
+                boolean isAdd = change.isAdd;
+                List<ProtectedStorageEntry> entries = new ArrayList<>(change.entries);
+                numChanges++;
+                change = pendingChanges.poll();
+                while (change != null && change.isAdd == isAdd) {
+                    entries.addAll(change.entries);
+                    numChanges++;
+                    change = pendingChanges.poll();
+                }
+                deliver(isAdd, entries);
+                numCalls++;
+                if (change == null) {
+                    // The listeners might have caused new changes
+                    change = pendingChanges.poll();
+                }
+            }
+            if (numChanges > 1) {
+                log.debug("Delivered {} changes with {} listener calls", numChanges, numCalls);
+            }
+        } finally {
+            flushing = false;
+        }
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Several requests before the flush has run result in a single flush
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            UserThread.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    private void onChanged(Change change, boolean deferred) {
+        pendingChanges.add(change);
+        if (!deferred || !batchingStarted && numRunningBatches.get() == 0) {
+            numUndeferredChanges.incrementAndGet();
+        }
+    }
+
+    private void deliver(boolean isAdd, Collection<ProtectedStorageEntry> entries) {
+        listeners.forEach(listener -> {
+            try {
+                if (isAdd) {
+                    listener.onAdded(entries);
+                } else {
+                    listener.onRemoved(entries);
+                }
+            } catch (Throwable t) {
+                // One failing listener must not cause the loss of the changes for the other listeners
+                log.error("Listener {} failed to handle {} entries", listener.getClass().getSimpleName(), entries.size(), t);
+            }
+        });
+    }
+
+    private static final class Change {
+        private final boolean isAdd;
+        private final Collection<ProtectedStorageEntry> entries;
+
+        private Change(boolean isAdd, Collection<ProtectedStorageEntry> entries) {
+            this.isAdd = isAdd;
+            this.entries = entries;
+        }
+    }
+}
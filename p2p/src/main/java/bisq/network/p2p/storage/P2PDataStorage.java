@@ -25,13 +25,16 @@ import bisq.network.p2p.network.MessageListener;
 import bisq.network.p2p.network.NetworkNode;
 import bisq.network.p2p.peers.BroadcastHandler;
 import bisq.network.p2p.peers.Broadcaster;
+import bisq.network.p2p.peers.getdata.messages.ExcludedKeysFilter;
 import bisq.network.p2p.peers.getdata.messages.GetDataRequest;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
 import bisq.network.p2p.peers.getdata.messages.GetUpdatedDataRequest;
+import bisq.network.p2p.peers.getdata.messages.InvertibleBloomLookupTable;
 import bisq.network.p2p.peers.getdata.messages.PreliminaryGetDataRequest;
 import bisq.network.p2p.storage.messages.AddDataMessage;
 import bisq.network.p2p.storage.messages.AddOncePayload;
 import bisq.network.p2p.storage.messages.AddPersistableNetworkPayloadMessage;
+import bisq.network.p2p.storage.messages.BatchedRefreshOfferMessage;
 import bisq.network.p2p.storage.messages.BroadcastMessage;
 import bisq.network.p2p.storage.messages.RefreshOfferMessage;
 import bisq.network.p2p.storage.messages.RemoveDataMessage;
@@ -49,6 +52,7 @@ import bisq.network.p2p.storage.payload.RequiresOwnerIsOnlinePayload;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreListener;
 import bisq.network.p2p.storage.persistence.AppendOnlyDataStoreService;
 import bisq.network.p2p.storage.persistence.HistoricalDataStoreService;
+import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadBucket;
 import bisq.network.p2p.storage.persistence.PersistableNetworkPayloadStore;
 import bisq.network.p2p.storage.persistence.ProtectedDataStoreService;
 import bisq.network.p2p.storage.persistence.RemovedPayloadsService;
@@ -77,7 +81,10 @@ import com.google.inject.name.Named;
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
 
 import org.fxmisc.easybind.EasyBind;
 import org.fxmisc.easybind.monadic.MonadicBinding;
@@ -98,14 +105,20 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import lombok.EqualsAndHashCode;
@@ -126,7 +139,23 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     @VisibleForTesting
     public static final int CHECK_TTL_INTERVAL_SEC = 60;
 
+    // Interval for delivering the changes received from the network to the HashMapChangedListeners
+    private static final long LISTENER_BATCH_INTERVAL_MS = 100;
+    private static final int NUM_HASH_LOCKS = 64;
+
+    // Hashes of the payloads by identity. The keys are weak references, so entries get removed once the payload is
+    // not referenced anymore.
+    private static final Map<NetworkPayload, ByteArray> HASH_CACHE = new MapMaker().weakKeys().makeMap();
+    private static final AtomicLong HASH_CACHE_HITS = new AtomicLong();
+    private static final AtomicLong HASH_CACHE_MISSES = new AtomicLong();
+
     private boolean initialRequestApplied = false;
+    // Hashes of the payloads we missed because of false positives of our ExcludedKeysFilter. Our next data requests
+    // send them as missed keys of the filter and the missed payloads get applied from the response.
+    private final Set<ByteArray> missedFilteredKeys = ConcurrentHashMap.newKeySet();
+    // Set if we could not get the false positives of our ExcludedKeysFilter from a response. Our next data request sends
+    // the exact hashes then.
+    private volatile boolean exactDataRequestRequired;
 
     private final Broadcaster broadcaster;
     private final AppendOnlyDataStoreService appendOnlyDataStoreService;
@@ -135,7 +164,10 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
     @Getter
     private final Map<ByteArray, ProtectedStorageEntry> map = new ConcurrentHashMap<>();
-    private final Set<HashMapChangedListener> hashMapChangedListeners = new CopyOnWriteArraySet<>();
+    private final HashMapChangedNotifier hashMapChangedNotifier = new HashMapChangedNotifier();
+    // Makes the check of the sequence number and the update of the maps atomic per payload hash, so writes of
+    // different payloads can run in parallel
+    private final Striped<Lock> hashLocks = Striped.lock(NUM_HASH_LOCKS);
     private Timer removeExpiredEntriesTimer;
 
     private final PersistenceManager<SequenceNumberMap> persistenceManager;
@@ -259,14 +291,65 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce) {
-        return new PreliminaryGetDataRequest(nonce, getKnownPayloadHashes());
+        return buildPreliminaryGetDataRequest(nonce, false);
+    }
+
+    /**
+     * Returns a PreliminaryGetDataRequest that can be sent to a peer node to request missing Payload data. If
+     * useExcludedKeysFilter is set, the known PersistableNetworkPayload hashes are sent as ExcludedKeysFilter. That
+     * must only be used if the peer supports the EXCLUDED_KEYS_FILTER capability.
+     */
+    public PreliminaryGetDataRequest buildPreliminaryGetDataRequest(int nonce, boolean useExcludedKeysFilter) {
+        if (useExcludedKeysFilter && !exactDataRequestRequired) {
+            return new PreliminaryGetDataRequest(nonce, getKeysAsByteSet(map), buildExcludedKeysFilter());
+        } else {
+            return new PreliminaryGetDataRequest(nonce, getKnownPayloadHashes());
+        }
     }
 
     /**
      * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data.
      */
     public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress, int nonce) {
-        return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownPayloadHashes());
+        return buildGetUpdatedDataRequest(senderNodeAddress, nonce, false);
+    }
+
+    /**
+     * Returns a GetUpdatedDataRequest that can be sent to a peer node to request missing Payload data. If
+     * useExcludedKeysFilter is set, the known PersistableNetworkPayload hashes are sent as ExcludedKeysFilter. That
+     * must only be used if the peer supports the EXCLUDED_KEYS_FILTER capability.
+     */
+    public GetUpdatedDataRequest buildGetUpdatedDataRequest(NodeAddress senderNodeAddress,
+                                                            int nonce,
+                                                            boolean useExcludedKeysFilter) {
+        if (useExcludedKeysFilter && !exactDataRequestRequired) {
+            return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKeysAsByteSet(map), buildExcludedKeysFilter());
+        } else {
+            return new GetUpdatedDataRequest(senderNodeAddress, nonce, getKnownPayloadHashes());
+        }
+    }
+
+    private ExcludedKeysFilter buildExcludedKeysFilter() {
+        long ts = System.currentTimeMillis();
+        Map<ByteArray, PersistableNetworkPayload> mapForDataRequest = getMapForDataRequest();
+        ExcludedKeysFilter excludedKeysFilter = ExcludedKeysFilter.fromKeys(mapForDataRequest.keySet().stream()
+                        .map(e -> e.bytes)
+                        .collect(Collectors.toList()),
+                missedFilteredKeys.stream()
+                        .map(e -> e.bytes)
+                        .collect(Collectors.toList()));
+        log.info("Building the ExcludedKeysFilter for {} PersistableNetworkPayloads and {} missed keys with {} kB took {} ms",
+                mapForDataRequest.size(), excludedKeysFilter.getMissedKeys().size(),
+                excludedKeysFilter.getBits().length / 1000d, System.currentTimeMillis() - ts);
+        return excludedKeysFilter;
+    }
+
+    /**
+     * Returns true if our ExcludedKeysFilter made a peer withhold payloads we do not have, so we should send a
+     * follow-up data request for them.
+     */
+    public boolean isFollowUpDataRequestRequired() {
+        return exactDataRequestRequired || !missedFilteredKeys.isEmpty();
     }
 
     /**
@@ -308,20 +391,36 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // Pre v 1.4.0 requests do not have set the requesters version field so it is null.
         // The methods in HistoricalDataStoreService will return all historical data in that case.
-        // mapForDataResponse contains the filtered by version data from HistoricalDataStoreService as well as all other
-        // maps of the remaining appendOnlyDataStoreServices.
-        Map<ByteArray, PersistableNetworkPayload> mapForDataResponse = getMapForDataResponse(getDataRequest.getVersion());
+        // bucketsForDataResponse contains the filtered by version data from HistoricalDataStoreService as well as all
+        // other maps of the remaining appendOnlyDataStoreServices. The buckets are views on the stores, so we do not
+        // copy the data.
+        List<PersistableNetworkPayloadBucket> bucketsForDataResponse = getBucketsForDataResponse(getDataRequest.getVersion());
+        // If the requester sent an ExcludedKeysFilter its PersistableNetworkPayload hashes are only in that filter.
+        // The hashes which matched the filter are sent back as InvertibleBloomLookupTable, so the requester can get
+        // the false positives.
+        ExcludedKeysFilter excludedKeysFilter = getDataRequest.getExcludedKeysFilter();
+        Predicate<ByteArray> isKnownPersistableNetworkPayload = excludedKeysAsByteArray::contains;
+        InvertibleBloomLookupTable filteredKeys = null;
+        if (excludedKeysFilter != null) {
+            Set<ByteArray> missedKeys = excludedKeysFilter.getMissedKeys().stream()
+                    .map(ByteArray::new)
+                    .collect(Collectors.toSet());
+            Predicate<ByteArray> isFilteredKey = hash -> !missedKeys.contains(hash) &&
+                    excludedKeysFilter.mightContain(hash.bytes);
+            isKnownPersistableNetworkPayload = isKnownPersistableNetworkPayload.or(isFilteredKey);
+            filteredKeys = buildFilteredKeys(bucketsForDataResponse, isFilteredKey, excludedKeysFilter.getNumKeys());
+        }
         Set<PersistableNetworkPayload> filteredPersistableNetworkPayloads =
                 filterKnownHashes(
-                        mapForDataResponse,
-                        Function.identity(),
-                        excludedKeysAsByteArray,
+                        bucketsForDataResponse,
+                        isKnownPersistableNetworkPayload,
                         peerCapabilities,
                         maxEntriesPerType,
                         wasPersistableNetworkPayloadsTruncated);
         log.info("{} PersistableNetworkPayload entries remained after filtered by excluded keys. " +
                         "Original map had {} entries.",
-                filteredPersistableNetworkPayloads.size(), mapForDataResponse.size());
+                filteredPersistableNetworkPayloads.size(),
+                bucketsForDataResponse.stream().mapToInt(PersistableNetworkPayloadBucket::size).sum());
         log.trace("## buildGetDataResponse filteredPersistableNetworkPayloadHashes={}",
                 filteredPersistableNetworkPayloads.stream()
                         .map(e -> Utilities.encodeToHex(e.getHash()))
@@ -347,7 +446,62 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 filteredProtectedStorageEntries,
                 filteredPersistableNetworkPayloads,
                 getDataRequest.getNonce(),
-                getDataRequest instanceof GetUpdatedDataRequest);
+                getDataRequest instanceof GetUpdatedDataRequest,
+                filteredKeys);
+    }
+
+    // Returns the table of the PersistableNetworkPayload hashes we do not send because they matched the requester's
+    // filter. The differences to the requester's keys are the false positives and the requester's keys we do not have.
+    private static InvertibleBloomLookupTable buildFilteredKeys(List<PersistableNetworkPayloadBucket> buckets,
+                                                                Predicate<ByteArray> isFilteredKey,
+                                                                int numKeysOfRequester) {
+        long ts = System.currentTimeMillis();
+        int numPayloads = 0;
+        List<byte[]> filteredKeys = new ArrayList<>();
+        for (PersistableNetworkPayloadBucket bucket : buckets) {
+            numPayloads += bucket.size();
+            // We only iterate the keys, so payloads of memory mapped stores do not get decoded
+            for (ByteArray hash : bucket.getMap().keySet()) {
+                if (isFilteredKey.test(hash))
+                    filteredKeys.add(hash.bytes);
+            }
+        }
+
+        double expectedFalsePositives = (numPayloads - filteredKeys.size()) * ExcludedKeysFilter.FALSE_POSITIVE_RATE;
+        double expectedUnknownKeys = Math.max(0, numKeysOfRequester - (filteredKeys.size() - expectedFalsePositives));
+        InvertibleBloomLookupTable table = InvertibleBloomLookupTable.forExpectedDifference(
+                (int) Math.ceil(expectedFalsePositives + expectedUnknownKeys));
+        filteredKeys.forEach(table::insert);
+        log.info("Building the InvertibleBloomLookupTable of {} filtered keys with {} cells took {} ms",
+                filteredKeys.size(), table.getNumCells(), System.currentTimeMillis() - ts);
+        return table;
+    }
+
+    // Adds the false positives of our filter, which the peer did not send us, to missedFilteredKeys
+    private void addMissedFilteredKeys(GetDataResponse getDataResponse, ExcludedKeysFilter excludedKeysFilter) {
+        InvertibleBloomLookupTable filteredKeys = getDataResponse.getFilteredKeys();
+        Optional<List<byte[]>> falsePositives = filteredKeys != null ?
+                excludedKeysFilter.getFalsePositives(filteredKeys) :
+                Optional.empty();
+        if (!falsePositives.isPresent()) {
+            log.warn("We could not get the false positives of our ExcludedKeysFilter from the response. " +
+                    "Our next data request sends the exact hashes.");
+            exactDataRequestRequired = true;
+            return;
+        }
+
+        // We might have received some of them from another peer in between
+        List<ByteArray> missedKeys = falsePositives.get().stream()
+                .map(ByteArray::new)
+                .filter(hash -> !appendOnlyDataStoreService.containsKey(hash))
+                .collect(Collectors.toList());
+        if (!missedKeys.isEmpty()) {
+            log.info("{} PersistableNetworkPayloads were not sent to us because of false positives of our " +
+                    "ExcludedKeysFilter. We request them with our next data request.", missedKeys.size());
+            missedFilteredKeys.addAll(missedKeys);
+            if (missedFilteredKeys.size() > ExcludedKeysFilter.MAX_MISSED_KEYS)
+                exactDataRequestRequired = true;
+        }
     }
 
 
@@ -377,20 +531,98 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
     public Map<ByteArray, PersistableNetworkPayload> getMapForDataResponse(String requestersVersion) {
         Map<ByteArray, PersistableNetworkPayload> map = new HashMap<>();
+        getBucketsForDataResponse(requestersVersion).forEach(bucket -> map.putAll(bucket.getMap()));
+        return map;
+    }
+
+    public List<PersistableNetworkPayloadBucket> getBucketsForDataResponse(String requestersVersion) {
+        List<PersistableNetworkPayloadBucket> buckets = new ArrayList<>();
         appendOnlyDataStoreService.getServices()
                 .forEach(service -> {
-                    Map<ByteArray, PersistableNetworkPayload> serviceMap;
                     if (service instanceof HistoricalDataStoreService) {
                         var historicalDataStoreService = (HistoricalDataStoreService<? extends PersistableNetworkPayloadStore>) service;
-                        serviceMap = historicalDataStoreService.getMapSinceVersion(requestersVersion);
+                        buckets.addAll(historicalDataStoreService.getBucketsSinceVersion(requestersVersion));
                     } else {
-                        serviceMap = service.getMap();
+                        buckets.add(PersistableNetworkPayloadBucket.fromMap(service.getClass().getSimpleName(), service.getMap()));
                     }
-                    map.putAll(serviceMap);
-                    log.info("We added {} entries from {} to be filtered by excluded keys",
-                            serviceMap.size(), service.getClass().getSimpleName());
                 });
-        return map;
+        buckets.forEach(bucket -> log.info("We added {} entries from {} to be filtered by excluded keys",
+                bucket.size(), bucket.getName()));
+        return buckets;
+    }
+
+    /**
+     * Filters the PersistableNetworkPayloads of the given buckets by a given set of keys and peer capabilities.
+     * The DateSortedTruncatablePayloads are taken from the pre-sorted index of the buckets starting with the most
+     * recent one, so we stop once we have collected maxItems and never sort the whole data set.
+     */
+    static private Set<PersistableNetworkPayload> filterKnownHashes(
+            List<PersistableNetworkPayloadBucket> buckets,
+            Predicate<ByteArray> isKnownHash,
+            Capabilities peerCapabilities,
+            int maxEntries,
+            AtomicBoolean outTruncated) {
+
+        Iterator<PersistableNetworkPayloadBucket.DateSortedEntry> mostRecentFirst = Iterators.mergeSorted(
+                buckets.stream()
+                        .map(bucket -> bucket.getDateSortedEntries().iterator())
+                        .collect(Collectors.toList()),
+                PersistableNetworkPayloadBucket.MOST_RECENT_FIRST);
+        List<PersistableNetworkPayload> dateSortedTruncatablePayloads = new ArrayList<>();
+        int maxItems = Integer.MAX_VALUE;
+        while (mostRecentFirst.hasNext() && dateSortedTruncatablePayloads.size() < maxItems) {
+            PersistableNetworkPayloadBucket.DateSortedEntry entry = mostRecentFirst.next();
+            // We check the hash first, so payloads of memory mapped stores only get decoded if we might send them
+            if (isKnownHash.test(entry.getKey()))
+                continue;
+
+            DateSortedTruncatablePayload payload = entry.getPayload();
+            if (!shouldTransmitPayloadToPeer(peerCapabilities, payload))
+                continue;
+
+            if (dateSortedTruncatablePayloads.isEmpty())
+                maxItems = payload.maxItems();
+            dateSortedTruncatablePayloads.add(payload);
+        }
+        // We keep the same order as we had with sorting the full list by date
+        Collections.reverse(dateSortedTruncatablePayloads);
+        log.info("Num filtered and truncated dateSortedTruncatablePayloads {}", dateSortedTruncatablePayloads.size());
+
+        // We do not need more than maxEntries + 1 items to detect that we need to truncate.
+        List<PersistableNetworkPayload> filteredResults = new ArrayList<>();
+        for (PersistableNetworkPayloadBucket bucket : buckets) {
+            if (!bucket.hasNonDateSortedPayloads())
+                continue;
+
+            for (Map.Entry<ByteArray, PersistableNetworkPayload> entry : bucket.getNonDateSortedEntries()) {
+                if (filteredResults.size() > maxEntries)
+                    break;
+
+                if (isKnownHash.test(entry.getKey()))
+                    continue;
+
+                PersistableNetworkPayload payload = entry.getValue();
+                if (!shouldTransmitPayloadToPeer(peerCapabilities, payload))
+                    continue;
+
+                filteredResults.add(payload);
+            }
+        }
+        log.info("Num filtered non-dateSortedTruncatablePayloads {}", filteredResults.size());
+
+        // The non-dateSortedTruncatablePayloads have higher prio, so we added dateSortedTruncatablePayloads
+        // after those so in case we need to truncate we first truncate the dateSortedTruncatablePayloads.
+        filteredResults.addAll(dateSortedTruncatablePayloads);
+
+        if (filteredResults.size() > maxEntries) {
+            filteredResults = filteredResults.subList(0, maxEntries);
+            outTruncated.set(true);
+            log.info("Num truncated filteredResults {}", filteredResults.size());
+        } else {
+            log.info("Num filteredResults {}", filteredResults.size());
+        }
+
+        return new HashSet<>(filteredResults);
     }
 
     /**
@@ -485,17 +717,37 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * or domain listeners.
      */
     public void processGetDataResponse(GetDataResponse getDataResponse, NodeAddress sender) {
+        processGetDataResponse(getDataResponse, sender, null);
+    }
+
+    /**
+     * Same as {@link #processGetDataResponse(GetDataResponse, NodeAddress)} for the response to a request with an
+     * ExcludedKeysFilter, or null if the request sent the exact hashes. The false positives of the filter get
+     * requested with the next data request.
+     */
+    public void processGetDataResponse(GetDataResponse getDataResponse,
+                                       NodeAddress sender,
+                                       @Nullable ExcludedKeysFilter excludedKeysFilter) {
         final Set<ProtectedStorageEntry> dataSet = getDataResponse.getDataSet();
         Set<PersistableNetworkPayload> persistableNetworkPayloadSet = getDataResponse.getPersistableNetworkPayloadSet();
 
+        // Signature verification dominates the processing time, so we verify all signatures upfront on all cores.
+        // The results are cached and used at the add operations.
         long ts2 = System.currentTimeMillis();
-        dataSet.forEach(e -> {
-            // We don't broadcast here (last param) as we are only connected to the seed node and would be pointless
-            addProtectedStorageEntry(e, sender, null, false);
-
-        });
+        long numValidSignatures = ProtectedStorageEntry.verifySignatures(dataSet);
+        log.info("Verifying {} signatures of protectedStorageEntries took {} ms. {} signatures are invalid.",
+                dataSet.size(), System.currentTimeMillis() - ts2, dataSet.size() - numValidSignatures);
+
+        ts2 = System.currentTimeMillis();
+        // The listeners get all added entries of the response at once
+        hashMapChangedNotifier.runBatched(() -> dataSet.forEach(e -> {
+            // We don't broadcast here (4th param) as we are only connected to the seed node and would be pointless
+            addProtectedStorageEntry(e, sender, null, false, true);
+        }));
         log.info("Processing {} protectedStorageEntries took {} ms.", dataSet.size(), this.clock.millis() - ts2);
 
+        // A response to a request with the exact hashes contains all payloads we missed before
+        boolean isExactDataResponse = excludedKeysFilter == null && exactDataRequestRequired;
         ts2 = this.clock.millis();
         persistableNetworkPayloadSet.forEach(e -> {
             if (e instanceof ProcessOncePersistableNetworkPayload) {
@@ -509,6 +761,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                 if (!initialRequestApplied) {
                     addPersistableNetworkPayloadFromInitialRequest(e);
 
+                } else if (missedFilteredKeys.remove(new ByteArray(e.getHash())) || isExactDataResponse) {
+                    // A payload we missed at a previous response because of a false positive of our filter
+                    addPersistableNetworkPayload(e, sender, false, false, false);
                 }
             } else {
                 // We don't broadcast here as we are only connected to the seed node and would be pointless
@@ -518,6 +773,14 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         log.info("Processing {} persistableNetworkPayloads took {} ms.",
                 persistableNetworkPayloadSet.size(), this.clock.millis() - ts2);
 
+        if (excludedKeysFilter != null) {
+            addMissedFilteredKeys(getDataResponse, excludedKeysFilter);
+        } else {
+            // We sent the exact hashes, so we got all payloads we missed before
+            missedFilteredKeys.clear();
+            exactDataRequestRequired = false;
+        }
+
         // We only process PersistableNetworkPayloads implementing ProcessOncePersistableNetworkPayload once. It can cause performance
         // issues and since the data is rarely out of sync it is not worth it to apply them from multiple peers during
         // startup.
@@ -531,6 +794,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     public void shutDown() {
         if (removeExpiredEntriesTimer != null)
             removeExpiredEntriesTimer.stop();
+        hashMapChangedNotifier.shutDown();
     }
 
     @VisibleForTesting
@@ -553,7 +817,8 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
                         Utilities.toTruncatedString(toRemoveItem.getValue()));
             });
         }
-        removeFromMapAndDataStore(toRemoveList);
+        removeFromMapAndDataStore(toRemoveList, false);
+        hashMapChangedNotifier.deliverUndeferredChanges();
 
         if (sequenceNumberMap.size() > this.maxSequenceNumberMapSizeBeforePurge) {
             sequenceNumberMap.setMap(getPurgedSequenceNumberMap(sequenceNumberMap.getMap()));
@@ -563,6 +828,9 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
     public void onBootstrapped() {
         removeExpiredEntriesTimer = UserThread.runPeriodically(this::removeExpiredEntries, CHECK_TTL_INTERVAL_SEC);
+        // After bootstrapping the changes from the network get delivered in batches, so bursts of offers do not
+        // cause a listener call per offer
+        hashMapChangedNotifier.startBatching(LISTENER_BATCH_INTERVAL_MS);
     }
 
     // Domain access should use the concrete appendOnlyDataStoreService if available. The Historical data store require
@@ -582,13 +850,15 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         if (networkEnvelope instanceof BroadcastMessage) {
             connection.getPeersNodeAddressOptional().ifPresent(peersNodeAddress -> {
                 if (networkEnvelope instanceof AddDataMessage) {
-                    addProtectedStorageEntry(((AddDataMessage) networkEnvelope).getProtectedStorageEntry(), peersNodeAddress, null, true);
+                    addProtectedStorageEntry(((AddDataMessage) networkEnvelope).getProtectedStorageEntry(), peersNodeAddress, null, true, true);
                 } else if (networkEnvelope instanceof RemoveDataMessage) {
-                    remove(((RemoveDataMessage) networkEnvelope).getProtectedStorageEntry(), peersNodeAddress);
+                    remove(((RemoveDataMessage) networkEnvelope).getProtectedStorageEntry(), peersNodeAddress, true);
                 } else if (networkEnvelope instanceof RemoveMailboxDataMessage) {
-                    remove(((RemoveMailboxDataMessage) networkEnvelope).getProtectedMailboxStorageEntry(), peersNodeAddress);
+                    remove(((RemoveMailboxDataMessage) networkEnvelope).getProtectedMailboxStorageEntry(), peersNodeAddress, true);
                 } else if (networkEnvelope instanceof RefreshOfferMessage) {
                     refreshTTL((RefreshOfferMessage) networkEnvelope, peersNodeAddress);
+                } else if (networkEnvelope instanceof BatchedRefreshOfferMessage) {
+                    refreshTTL((BatchedRefreshOfferMessage) networkEnvelope, peersNodeAddress);
                 } else if (networkEnvelope instanceof AddPersistableNetworkPayloadMessage) {
                     addPersistableNetworkPayload(((AddPersistableNetworkPayloadMessage) networkEnvelope).getPersistableNetworkPayload(),
                             peersNodeAddress, true, false, true);
@@ -676,7 +946,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         }
 
         ByteArray hashAsByteArray = new ByteArray(payload.getHash());
-        boolean payloadHashAlreadyInStore = appendOnlyDataStoreService.getMap().containsKey(hashAsByteArray);
+        boolean payloadHashAlreadyInStore = appendOnlyDataStoreService.containsKey(hashAsByteArray);
 
         // Store already knows about this payload. Ignore it unless the caller specifically requests a republish.
         if (payloadHashAlreadyInStore && !reBroadcast) {
@@ -723,7 +993,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     public boolean addProtectedStorageEntry(ProtectedStorageEntry protectedStorageEntry,
                                             @Nullable NodeAddress sender,
                                             @Nullable BroadcastHandler.Listener listener) {
-        return addProtectedStorageEntry(protectedStorageEntry, sender, listener, true);
+        return addProtectedStorageEntry(protectedStorageEntry, sender, listener, true, false);
     }
 
     /**
@@ -733,14 +1003,37 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * @param sender Senders nodeAddress, if available
      * @param listener optional listener that can be used to receive events on broadcast
      * @param allowBroadcast Flag to allow broadcast
+     * @param deferNotification Flag to allow the listeners to get notified with the next batch
      * @return <code>true</code> if the ProtectedStorageEntry was added to the local P2P data storage
      */
     private boolean addProtectedStorageEntry(ProtectedStorageEntry protectedStorageEntry,
                                              @Nullable NodeAddress sender,
                                              @Nullable BroadcastHandler.Listener listener,
-                                             boolean allowBroadcast) {
+                                             boolean allowBroadcast,
+                                             boolean deferNotification) {
         ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
         ByteArray hashOfPayload = get32ByteHashAsByteArray(protectedStoragePayload);
+        Lock lock = hashLocks.get(hashOfPayload);
+        boolean added;
+        lock.lock();
+        try {
+            added = addProtectedStorageEntry(protectedStorageEntry, hashOfPayload, sender, listener, allowBroadcast,
+                    deferNotification);
+        } finally {
+            lock.unlock();
+        }
+        // The listeners must not run while holding the lock, as they can take long and block other writes
+        hashMapChangedNotifier.deliverUndeferredChanges();
+        return added;
+    }
+
+    private boolean addProtectedStorageEntry(ProtectedStorageEntry protectedStorageEntry,
+                                             ByteArray hashOfPayload,
+                                             @Nullable NodeAddress sender,
+                                             @Nullable BroadcastHandler.Listener listener,
+                                             boolean allowBroadcast,
+                                             boolean deferNotification) {
+        ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
 
         log.trace("## call addProtectedStorageEntry hash={}, map={}", hashOfPayload, printMap());
 
@@ -789,7 +1082,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         // This is an updated entry. Record it and signal listeners.
         map.put(hashOfPayload, protectedStorageEntry);
-        hashMapChangedListeners.forEach(e -> e.onAdded(Collections.singletonList(protectedStorageEntry)));
+        hashMapChangedNotifier.onAdded(protectedStorageEntry, deferNotification);
 
         // Record the updated sequence number and persist it. Higher delay so we can batch more items.
         sequenceNumberMap.put(hashOfPayload, new MapValue(protectedStorageEntry.getSequenceNumber(), this.clock.millis()));
@@ -849,32 +1142,108 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      */
     public boolean refreshTTL(RefreshOfferMessage refreshTTLMessage,
                               @Nullable NodeAddress sender) {
+        RefreshOfferMessage appliedMessage = applyRefreshTTL(refreshTTLMessage);
+        if (appliedMessage == null) {
+            return false;
+        }
 
-        ByteArray hashOfPayload = new ByteArray(refreshTTLMessage.getHashOfPayload());
-        ProtectedStorageEntry storedData = map.get(hashOfPayload);
+        // Always broadcast refreshes
+        broadcaster.broadcast(appliedMessage, sender);
 
-        if (storedData == null) {
-            log.debug("We don't have data for that refresh message in our map. That is expected if we missed the data publishing.");
+        return true;
+    }
 
-            return false;
+    /**
+     * Applies all refreshes of the batch and broadcasts the successful ones as a single message.
+     *
+     * @param batchedRefreshOfferMessage batch of refreshes, each is verified on its own
+     * @param sender local NodeAddress, if available
+     * @return the number of successfully applied refreshes
+     */
+    public int refreshTTL(BatchedRefreshOfferMessage batchedRefreshOfferMessage,
+                          @Nullable NodeAddress sender) {
+        List<RefreshOfferMessage> refreshOfferMessages = batchedRefreshOfferMessage.getRefreshOfferMessages();
+        if (refreshOfferMessages.size() > BatchedRefreshOfferMessage.MAX_ENTRIES) {
+            log.warn("We got a BatchedRefreshOfferMessage with {} entries which exceeds the limit of {}. We ignore it.",
+                    refreshOfferMessages.size(), BatchedRefreshOfferMessage.MAX_ENTRIES);
+            return 0;
+        }
+
+        // As for the initial data we verify all signatures of the batch upfront on all cores. The results are cached
+        // and used when the refreshes get applied.
+        List<ProtectedStorageEntry> refreshedEntries = refreshOfferMessages.stream()
+                .map(refreshOfferMessage -> {
+                    ProtectedStorageEntry storedEntry = map.get(new ByteArray(refreshOfferMessage.getHashOfPayload()));
+                    return storedEntry != null ? createRefreshedEntry(storedEntry, refreshOfferMessage) : null;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        ProtectedStorageEntry.verifySignatures(refreshedEntries);
+
+        List<RefreshOfferMessage> appliedMessages = new ArrayList<>();
+        refreshOfferMessages.forEach(refreshOfferMessage -> {
+            RefreshOfferMessage appliedMessage = applyRefreshTTL(refreshOfferMessage);
+            if (appliedMessage != null) {
+                appliedMessages.add(appliedMessage);
+            }
+        });
+
+        if (appliedMessages.size() == 1) {
+            broadcaster.broadcast(appliedMessages.get(0), sender);
+        } else if (!appliedMessages.isEmpty()) {
+            broadcaster.broadcast(new BatchedRefreshOfferMessage(appliedMessages), sender);
         }
+        return appliedMessages.size();
+    }
 
+    // Returns the message to relay if the refresh was applied, otherwise null. Messages from a batch do not carry the
+    // hashOfDataAndSeqNr, so we add it for relaying them to peers not supporting the batch.
+    @Nullable
+    private RefreshOfferMessage applyRefreshTTL(RefreshOfferMessage refreshTTLMessage) {
+        ByteArray hashOfPayload = new ByteArray(refreshTTLMessage.getHashOfPayload());
+        Lock lock = hashLocks.get(hashOfPayload);
+        lock.lock();
+        try {
+            ProtectedStorageEntry updatedEntry = applyRefreshTTL(refreshTTLMessage, hashOfPayload);
+            if (updatedEntry == null) {
+                return null;
+            }
+
+            if (refreshTTLMessage.getHashOfDataAndSeqNr().length > 0) {
+                return refreshTTLMessage;
+            }
+            ProtectedStoragePayload protectedStoragePayload = updatedEntry.getProtectedStoragePayload();
+            byte[] hashOfDataAndSeqNr = P2PDataStorage.get32ByteHash(new DataAndSeqNrPair(protectedStoragePayload,
+                    refreshTTLMessage.getSequenceNumber()));
+            return new RefreshOfferMessage(hashOfDataAndSeqNr,
+                    refreshTTLMessage.getSignature(),
+                    refreshTTLMessage.getHashOfPayload(),
+                    refreshTTLMessage.getSequenceNumber());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Nullable
+    private ProtectedStorageEntry applyRefreshTTL(RefreshOfferMessage refreshTTLMessage,
+                                                  ByteArray hashOfPayload) {
         ProtectedStorageEntry storedEntry = map.get(hashOfPayload);
-        ProtectedStorageEntry updatedEntry = new ProtectedStorageEntry(
-                storedEntry.getProtectedStoragePayload(),
-                storedEntry.getOwnerPubKey(),
-                refreshTTLMessage.getSequenceNumber(),
-                refreshTTLMessage.getSignature(),
-                this.clock);
 
+        if (storedEntry == null) {
+            log.debug("We don't have data for that refresh message in our map. That is expected if we missed the data publishing.");
+
+            return null;
+        }
+
+        ProtectedStorageEntry updatedEntry = createRefreshedEntry(storedEntry, refreshTTLMessage);
 
         // If we have seen a more recent operation for this payload, we ignore the current one
         if (!hasSequenceNrIncreased(updatedEntry.getSequenceNumber(), hashOfPayload))
-            return false;
+            return null;
 
         // Verify the updated ProtectedStorageEntry is well formed and valid for update
         if (!updatedEntry.isValidForAddOperation())
-            return false;
+            return null;
 
         // Update the hash map with the updated entry
         map.put(hashOfPayload, updatedEntry);
@@ -883,10 +1252,17 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         sequenceNumberMap.put(hashOfPayload, new MapValue(updatedEntry.getSequenceNumber(), this.clock.millis()));
         requestPersistence();
 
-        // Always broadcast refreshes
-        broadcaster.broadcast(refreshTTLMessage, sender);
+        return updatedEntry;
+    }
 
-        return true;
+    private ProtectedStorageEntry createRefreshedEntry(ProtectedStorageEntry storedEntry,
+                                                       RefreshOfferMessage refreshTTLMessage) {
+        return new ProtectedStorageEntry(
+                storedEntry.getProtectedStoragePayload(),
+                storedEntry.getOwnerPubKey(),
+                refreshTTLMessage.getSequenceNumber(),
+                refreshTTLMessage.getSignature(),
+                this.clock);
     }
 
     /**
@@ -899,8 +1275,30 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      */
     public boolean remove(ProtectedStorageEntry protectedStorageEntry,
                           @Nullable NodeAddress sender) {
+        return remove(protectedStorageEntry, sender, false);
+    }
+
+    private boolean remove(ProtectedStorageEntry protectedStorageEntry,
+                           @Nullable NodeAddress sender,
+                           boolean deferNotification) {
+        ByteArray hashOfPayload = get32ByteHashAsByteArray(protectedStorageEntry.getProtectedStoragePayload());
+        Lock lock = hashLocks.get(hashOfPayload);
+        boolean removed;
+        lock.lock();
+        try {
+            removed = remove(protectedStorageEntry, hashOfPayload, sender, deferNotification);
+        } finally {
+            lock.unlock();
+        }
+        hashMapChangedNotifier.deliverUndeferredChanges();
+        return removed;
+    }
+
+    private boolean remove(ProtectedStorageEntry protectedStorageEntry,
+                           ByteArray hashOfPayload,
+                           @Nullable NodeAddress sender,
+                           boolean deferNotification) {
         ProtectedStoragePayload protectedStoragePayload = protectedStorageEntry.getProtectedStoragePayload();
-        ByteArray hashOfPayload = get32ByteHashAsByteArray(protectedStoragePayload);
 
         // If we have seen a more recent operation for this payload, ignore this one
         if (!hasSequenceNrIncreased(protectedStorageEntry.getSequenceNumber(), hashOfPayload))
@@ -926,7 +1324,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
 
         if (storedEntry != null) {
             // Valid remove entry, do the remove and signal listeners
-            removeFromMapAndDataStore(protectedStorageEntry, hashOfPayload);
+            removeFromMapAndDataStore(protectedStorageEntry, hashOfPayload, deferNotification);
         } /* else {
             // This means the RemoveData or RemoveMailboxData was seen prior to the AddData. We have already updated
             // the SequenceNumberMap appropriately so the stale Add will not pass validation, but we still want to
@@ -991,11 +1389,11 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     }
 
     public void addHashMapChangedListener(HashMapChangedListener hashMapChangedListener) {
-        hashMapChangedListeners.add(hashMapChangedListener);
+        hashMapChangedNotifier.addListener(hashMapChangedListener);
     }
 
     public void removeHashMapChangedListener(HashMapChangedListener hashMapChangedListener) {
-        hashMapChangedListeners.remove(hashMapChangedListener);
+        hashMapChangedNotifier.removeListener(hashMapChangedListener);
     }
 
     public void addAppendOnlyDataStoreListener(AppendOnlyDataStoreListener listener) {
@@ -1010,11 +1408,15 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
-    private void removeFromMapAndDataStore(ProtectedStorageEntry protectedStorageEntry, ByteArray hashOfPayload) {
-        removeFromMapAndDataStore(Collections.singletonList(Maps.immutableEntry(hashOfPayload, protectedStorageEntry)));
+    private void removeFromMapAndDataStore(ProtectedStorageEntry protectedStorageEntry,
+                                           ByteArray hashOfPayload,
+                                           boolean deferNotification) {
+        removeFromMapAndDataStore(Collections.singletonList(Maps.immutableEntry(hashOfPayload, protectedStorageEntry)),
+                deferNotification);
     }
 
-    private void removeFromMapAndDataStore(Collection<Map.Entry<ByteArray, ProtectedStorageEntry>> entriesToRemove) {
+    private void removeFromMapAndDataStore(Collection<Map.Entry<ByteArray, ProtectedStorageEntry>> entriesToRemove,
+                                           boolean deferNotification) {
         if (entriesToRemove.isEmpty())
             return;
 
@@ -1024,7 +1426,13 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             ProtectedStorageEntry protectedStorageEntry = entry.getValue();
 
             log.trace("## removeFromMapAndDataStore: hashOfPayload={}, map before remove={}", hashOfPayload, printMap());
-            map.remove(hashOfPayload);
+            Lock lock = hashLocks.get(hashOfPayload);
+            lock.lock();
+            try {
+                map.remove(hashOfPayload);
+            } finally {
+                lock.unlock();
+            }
             log.trace("## removeFromMapAndDataStore: map after remove={}", printMap());
 
             // We inform listeners even the entry was not found in our map
@@ -1038,7 +1446,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
             }
         });
 
-        hashMapChangedListeners.forEach(e -> e.onRemoved(removedProtectedStorageEntries));
+        hashMapChangedNotifier.onRemoved(removedProtectedStorageEntries, deferNotification);
     }
 
     private boolean hasSequenceNrIncreased(int newSequenceNumber, ByteArray hashOfData) {
@@ -1075,7 +1483,53 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
     }
 
     public static ByteArray get32ByteHashAsByteArray(NetworkPayload data) {
-        return new ByteArray(P2PDataStorage.get32ByteHash(data));
+        if (!isHashCacheable(data)) {
+            return new ByteArray(computeHash(data));
+        }
+
+        ByteArray hash = HASH_CACHE.get(data);
+        if (hash != null) {
+            HASH_CACHE_HITS.incrementAndGet();
+            return hash;
+        }
+
+        HASH_CACHE_MISSES.incrementAndGet();
+        hash = new ByteArray(computeHash(data));
+        HASH_CACHE.put(data, hash);
+        return hash;
+    }
+
+    /**
+     * Removes the cached hash of a payload. Payloads with mutable properties, like the OfferPayload, have to call it
+     * whenever a property which is part of the hash changes.
+     */
+    public static void invalidateHash(NetworkPayload data) {
+        HASH_CACHE.remove(data);
+    }
+
+    public static long getHashCacheHits() {
+        return HASH_CACHE_HITS.get();
+    }
+
+    public static long getHashCacheMisses() {
+        return HASH_CACHE_MISSES.get();
+    }
+
+    public static double getHashCacheHitRate() {
+        long hits = HASH_CACHE_HITS.get();
+        long total = hits + HASH_CACHE_MISSES.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // Most payloads are immutable, so their hash does not change during their lifetime. The mutable ones invalidate
+    // their entry with invalidateHash. Wrapper objects like DataAndSeqNrPair are created per call and would only
+    // pollute the cache.
+    private static boolean isHashCacheable(NetworkPayload data) {
+        return data instanceof ProtectedStoragePayload || data instanceof PersistableNetworkPayload;
+    }
+
+    private static byte[] computeHash(NetworkPayload data) {
+        return Hash.getSha256Hash(data.toProtoMessage().toByteArray());
     }
 
     // Get a new map with entries older than PURGE_AGE_DAYS purged from the given map.
@@ -1139,7 +1593,12 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
      * @return Hash of data
      */
     public static byte[] get32ByteHash(NetworkPayload data) {
-        return Hash.getSha256Hash(data.toProtoMessage().toByteArray());
+        if (!isHashCacheable(data)) {
+            return computeHash(data);
+        }
+
+        // We return a copy as callers might modify the array
+        return get32ByteHashAsByteArray(data).bytes.clone();
     }
 
 
@@ -1235,7 +1694,7 @@ public class P2PDataStorage implements MessageListener, ConnectionListener, Pers
         final public int sequenceNr;
         final public long timeStamp;
 
-        MapValue(int sequenceNr, long timeStamp) {
+        public MapValue(int sequenceNr, long timeStamp) {
             this.sequenceNr = sequenceNr;
             this.timeStamp = timeStamp;
         }
@@ -0,0 +1,96 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.messages;
+
+import bisq.network.p2p.storage.payload.CapabilityRequiringPayload;
+
+import bisq.common.app.Capabilities;
+import bisq.common.app.Capability;
+import bisq.common.app.Version;
+
+import com.google.protobuf.ByteString;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+
+/**
+ * Carries the refreshes of many offers in one envelope. Only the hash of the payload, the sequence number and the
+ * signature get transmitted. The hashOfDataAndSeqNr of the contained RefreshOfferMessages is empty after
+ * deserialization, the receiver derives it from the stored payload if it needs to relay single
+ * RefreshOfferMessages to peers which do not support the batch.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Value
+public final class BatchedRefreshOfferMessage extends BroadcastMessage implements CapabilityRequiringPayload {
+    // A maker with more offers sends multiple batches
+    public static final int MAX_ENTRIES = 200;
+
+    private final List<RefreshOfferMessage> refreshOfferMessages;
+
+    public BatchedRefreshOfferMessage(List<RefreshOfferMessage> refreshOfferMessages) {
+        this(refreshOfferMessages, Version.getP2PMessageVersion());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // PROTO BUFFER
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private BatchedRefreshOfferMessage(List<RefreshOfferMessage> refreshOfferMessages, String messageVersion) {
+        super(messageVersion);
+        this.refreshOfferMessages = refreshOfferMessages;
+    }
+
+    @Override
+    public protobuf.NetworkEnvelope toProtoNetworkEnvelope() {
+        return getNetworkEnvelopeBuilder()
+                .setBatchedRefreshOfferMessage(protobuf.BatchedRefreshOfferMessage.newBuilder()
+                        .addAllEntries(refreshOfferMessages.stream()
+                                .map(message -> protobuf.RefreshOfferEntry.newBuilder()
+                                        .setHashOfPayload(ByteString.copyFrom(message.getHashOfPayload()))
+                                        .setSequenceNumber(message.getSequenceNumber())
+                                        .setSignature(ByteString.copyFrom(message.getSignature()))
+                                        .build())
+                                .collect(Collectors.toList())))
+                .build();
+    }
+
+    public static BatchedRefreshOfferMessage fromProto(protobuf.BatchedRefreshOfferMessage proto,
+                                                       String messageVersion) {
+        List<RefreshOfferMessage> refreshOfferMessages = proto.getEntriesList().stream()
+                .map(entry -> new RefreshOfferMessage(new byte[0],
+                        entry.getSignature().toByteArray(),
+                        entry.getHashOfPayload().toByteArray(),
+                        entry.getSequenceNumber()))
+                .collect(Collectors.toList());
+        return new BatchedRefreshOfferMessage(refreshOfferMessages, messageVersion);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // CapabilityRequiringPayload
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public Capabilities getRequiredCapabilities() {
+        return new Capabilities(Capability.BATCHED_REFRESH_OFFER);
+    }
+}
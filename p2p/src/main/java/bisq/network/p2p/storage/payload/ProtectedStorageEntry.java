@@ -20,6 +20,7 @@ package bisq.network.p2p.storage.payload;
 import bisq.network.p2p.storage.P2PDataStorage;
 
 import bisq.common.crypto.CryptoException;
+import bisq.common.crypto.Hash;
 import bisq.common.crypto.Sig;
 import bisq.common.proto.network.NetworkPayload;
 import bisq.common.proto.network.NetworkProtoResolver;
@@ -30,11 +31,17 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import java.security.PublicKey;
 
 import java.time.Clock;
 
+import java.nio.ByteBuffer;
+
+import java.util.Collection;
+
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -45,6 +52,13 @@ import org.jetbrains.annotations.NotNull;
 @EqualsAndHashCode
 @Slf4j
 public class ProtectedStorageEntry implements NetworkPayload, PersistablePayload {
+    // The same entry arrives from several peers at flooding and gets verified again at refresh and remove. The result
+    // of the verification only depends on the owner key, payload, sequence number and signature, so we cache it.
+    private static final int MAX_SIGNATURE_VERIFICATION_CACHE_SIZE = 20000;
+    private static final Cache<P2PDataStorage.ByteArray, Boolean> SIGNATURE_VERIFICATION_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIGNATURE_VERIFICATION_CACHE_SIZE)
+            .build();
+
     private final ProtectedStoragePayload protectedStoragePayload;
     private final byte[] ownerPubKeyBytes;
     transient private final PublicKey ownerPubKey;
@@ -203,11 +217,17 @@ public class ProtectedStorageEntry implements NetworkPayload, PersistablePayload
      * Returns true if the signature for the Entry is valid for the payload, sequence number, and ownerPubKey
      */
     boolean isSignatureValid() {
+        P2PDataStorage.ByteArray cacheKey = getSignatureVerificationCacheKey();
+        Boolean cachedResult = SIGNATURE_VERIFICATION_CACHE.getIfPresent(cacheKey);
+        if (cachedResult != null)
+            return cachedResult;
+
         try {
             byte[] hashOfDataAndSeqNr = P2PDataStorage.get32ByteHash(
                     new P2PDataStorage.DataAndSeqNrPair(this.protectedStoragePayload, this.sequenceNumber));
 
             boolean result = Sig.verify(this.ownerPubKey, hashOfDataAndSeqNr, this.signature);
+            SIGNATURE_VERIFICATION_CACHE.put(cacheKey, result);
 
             if (!result)
                 log.warn("ProtectedStorageEntry::isSignatureValid() failed.\n{}}", this);
@@ -219,6 +239,31 @@ public class ProtectedStorageEntry implements NetworkPayload, PersistablePayload
         }
     }
 
+    /*
+     * The hash of the DataAndSeqNrPair which gets signed is derived from the payload and the sequence number, so the
+     * hash of the payload together with the sequence number identifies the signed data as well.
+     */
+    private P2PDataStorage.ByteArray getSignatureVerificationCacheKey() {
+        byte[] hashOfPayload = P2PDataStorage.get32ByteHashAsByteArray(this.protectedStoragePayload).bytes;
+        byte[] signature = this.signature != null ? this.signature : new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocate(this.ownerPubKeyBytes.length + hashOfPayload.length + 4 + signature.length)
+                .put(this.ownerPubKeyBytes)
+                .put(hashOfPayload)
+                .putInt(this.sequenceNumber)
+                .put(signature);
+        return new P2PDataStorage.ByteArray(Hash.getSha256Hash(buffer.array()));
+    }
+
+    /*
+     * Verifies the signatures of the entries in parallel and returns the number of valid signatures. The results get
+     * cached, so the subsequent add operations of the entries do not need to verify them again.
+     */
+    public static long verifySignatures(Collection<? extends ProtectedStorageEntry> protectedStorageEntries) {
+        return protectedStorageEntries.parallelStream()
+                .filter(ProtectedStorageEntry::isSignatureValid)
+                .count();
+    }
+
     /*
      * Returns true if the Entry metadata that is expected to stay constant between different versions of the same object
      * matches.
@@ -84,7 +84,12 @@ public class AppendOnlyDataStoreService {
                             service.getMap();
                     return map.entrySet().stream();
                 })
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> first));
+    }
+
+    // Does not create the combined map of all services like getMap, so it is safe to be called for each added payload.
+    public boolean containsKey(P2PDataStorage.ByteArray hash) {
+        return services.stream().anyMatch(service -> service.containsKey(hash));
     }
 
     public void put(P2PDataStorage.ByteArray hashAsByteArray, PersistableNetworkPayload payload) {
@@ -0,0 +1,271 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import java.nio.ByteBuffer;
+
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Open-addressing hash map for the 32 byte hashes we use as keys of the payloads. Each entry holds a fixed number
+ * of long values. Keys and values are stored in a single buffer, so there are no objects per entry and no hash
+ * codes need to be computed: the first bytes of a SHA-256 hash are already uniformly distributed.
+ * <p>
+ * The buffer can be allocated off-heap to keep large maps out of the garbage collected heap.
+ * <p>
+ * Removed entries are not marked with tombstones, instead the following entries get shifted back so lookups stay
+ * short after many removals.
+ */
+@NotThreadSafe
+public final class CompactHashMap {
+    public static final int KEY_LENGTH = 32;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+
+    private final int numValues;
+    private final boolean offHeap;
+    // Layout of a slot: key, values, state
+    private final int slotSize;
+    private final int stateOffset;
+
+    private ByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    public CompactHashMap(int numValues) {
+        this(numValues, false);
+    }
+
+    public CompactHashMap(int numValues, boolean offHeap) {
+        checkArgument(numValues > 0, "numValues must be positive");
+        this.numValues = numValues;
+        this.offHeap = offHeap;
+        this.stateOffset = KEY_LENGTH + numValues * Long.BYTES;
+        this.slotSize = stateOffset + 1;
+        allocate(INITIAL_CAPACITY);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(byte[] key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * @return The values of the key or null if the map does not contain the key
+     */
+    @Nullable
+    public long[] get(byte[] key) {
+        int slot = findSlot(key);
+        return slot >= 0 ? readValues(slot) : null;
+    }
+
+    /**
+     * @return True if the key was not contained in the map before
+     */
+    public boolean put(byte[] key, long... values) {
+        checkArgument(values.length == numValues, "Expected %s values but got %s", numValues, values.length);
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            writeValues(slot, values);
+            return false;
+        }
+
+        if (size + 1 > capacity * MAX_LOAD_FACTOR) {
+            resize(capacity * 2);
+            slot = findSlot(key);
+        }
+        slot = -(slot + 1);
+        int offset = slot * slotSize;
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            buffer.put(offset + i, key[i]);
+        }
+        writeValues(slot, values);
+        buffer.put(offset + stateOffset, USED);
+        size++;
+        return true;
+    }
+
+    /**
+     * @return True if the map contained the key
+     */
+    public boolean remove(byte[] key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        // We move back all following entries which would not be found anymore with a free slot at the position of
+        // the removed entry. Those are the entries which are not at their ideal slot and whose ideal slot is at or
+        // before the free slot.
+        int mask = capacity - 1;
+        int freeSlot = slot;
+        int nextSlot = (freeSlot + 1) & mask;
+        while (isUsed(nextSlot)) {
+            int idealSlot = getHash(nextSlot) & mask;
+            if (((nextSlot - idealSlot) & mask) >= ((nextSlot - freeSlot) & mask)) {
+                copySlot(nextSlot, freeSlot);
+                freeSlot = nextSlot;
+            }
+            nextSlot = (nextSlot + 1) & mask;
+        }
+        buffer.put(freeSlot * slotSize + stateOffset, FREE);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public void forEach(BiConsumer<byte[], long[]> consumer) {
+        for (int slot = 0; slot < capacity; slot++) {
+            if (isUsed(slot)) {
+                consumer.accept(readKey(slot), readValues(slot));
+            }
+        }
+    }
+
+    // Size of the buffer in bytes
+    public long getFootprint() {
+        return (long) capacity * slotSize;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Returns the slot of the key if found, otherwise -(slot + 1) of the free slot where the key would be inserted
+    private int findSlot(byte[] key) {
+        checkArgument(key.length == KEY_LENGTH, "Key must have %s bytes but has %s", KEY_LENGTH, key.length);
+        long key0 = getLong(key, 0);
+        long key1 = getLong(key, 8);
+        long key2 = getLong(key, 16);
+        long key3 = getLong(key, 24);
+        int mask = capacity - 1;
+        int slot = (int) (key0 >>> 32) & mask;
+        while (isUsed(slot)) {
+            int offset = slot * slotSize;
+            if (buffer.getLong(offset) == key0 &&
+                    buffer.getLong(offset + 8) == key1 &&
+                    buffer.getLong(offset + 16) == key2 &&
+                    buffer.getLong(offset + 24) == key3) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    private void allocate(int newCapacity) {
+        buffer = offHeap ? ByteBuffer.allocateDirect(newCapacity * slotSize) : ByteBuffer.allocate(newCapacity * slotSize);
+        capacity = newCapacity;
+        size = 0;
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer oldBuffer = buffer;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+        int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            int oldOffset = oldSlot * slotSize;
+            if (oldBuffer.get(oldOffset + stateOffset) == USED) {
+                // Keys are unique, so we only need to find the next free slot
+                int slot = oldBuffer.getInt(oldOffset) & mask;
+                while (isUsed(slot)) {
+                    slot = (slot + 1) & mask;
+                }
+                int offset = slot * slotSize;
+                for (int i = 0; i < slotSize; i++) {
+                    buffer.put(offset + i, oldBuffer.get(oldOffset + i));
+                }
+                size++;
+            }
+        }
+    }
+
+    private boolean isUsed(int slot) {
+        return buffer.get(slot * slotSize + stateOffset) == USED;
+    }
+
+    private int getHash(int slot) {
+        return buffer.getInt(slot * slotSize);
+    }
+
+    private byte[] readKey(int slot) {
+        byte[] key = new byte[KEY_LENGTH];
+        int offset = slot * slotSize;
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            key[i] = buffer.get(offset + i);
+        }
+        return key;
+    }
+
+    private long[] readValues(int slot) {
+        long[] values = new long[numValues];
+        int offset = slot * slotSize + KEY_LENGTH;
+        for (int i = 0; i < numValues; i++) {
+            values[i] = buffer.getLong(offset + i * Long.BYTES);
+        }
+        return values;
+    }
+
+    private void writeValues(int slot, long[] values) {
+        int offset = slot * slotSize + KEY_LENGTH;
+        for (int i = 0; i < numValues; i++) {
+            buffer.putLong(offset + i * Long.BYTES, values[i]);
+        }
+    }
+
+    private void copySlot(int fromSlot, int toSlot) {
+        int fromOffset = fromSlot * slotSize;
+        int toOffset = toSlot * slotSize;
+        for (int i = 0; i < slotSize; i++) {
+            buffer.put(toOffset + i, buffer.get(fromOffset + i));
+        }
+    }
+
+    // Big endian as the ByteBuffer, so the key bytes compare equal to the stored longs
+    private static long getLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            result = (result << 8) | (bytes[offset + i] & 0xff);
+        }
+        return result;
+    }
+}
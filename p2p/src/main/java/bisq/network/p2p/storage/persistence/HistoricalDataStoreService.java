@@ -20,31 +20,54 @@ package bisq.network.p2p.storage.persistence;
 import bisq.network.p2p.storage.P2PDataStorage;
 import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 
+import bisq.common.UserThread;
 import bisq.common.app.DevEnv;
 import bisq.common.app.Version;
 import bisq.common.persistence.PersistenceManager;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+
+import java.nio.file.Paths;
 
 import java.io.File;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+
 /**
  * Manages historical data stores tagged with the release versions.
  * New data is added to the default map in the store (live data). Historical data is created from resource files.
  * For initial data requests we only use the live data as the users version is sent with the
  * request so the responding (seed)node can figure out if we miss any of the historical data.
+ * <p>
+ * If useMappedHistoricalStores is set and the subclass provides a decoder, the historical stores are memory mapped
+ * and their payloads are only decoded on access (see {@link MappedPersistableNetworkPayloadMap}).
  */
 @Slf4j
 public abstract class HistoricalDataStoreService<T extends PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> extends MapStoreService<T, PersistableNetworkPayload> {
-    private ImmutableMap<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion;
-    // Cache to avoid that we have to recreate the historical data at each request
-    private ImmutableMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads;
+    private final boolean useMappedHistoricalStores;
+    // The immutable maps of the historical stores. They are either decoded on-heap maps or memory mapped.
+    private ImmutableMap<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion = ImmutableMap.of();
+    // As the historical stores are immutable we create their buckets with the date sorted index only once at the
+    // first request
+    @Nullable
+    private ImmutableMap<String, PersistableNetworkPayloadBucket> bucketsByVersion = ImmutableMap.of();
 
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -52,7 +75,14 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     public HistoricalDataStoreService(File storageDir, PersistenceManager<T> persistenceManager) {
+        this(storageDir, persistenceManager, false);
+    }
+
+    public HistoricalDataStoreService(File storageDir,
+                                      PersistenceManager<T> persistenceManager,
+                                      boolean useMappedHistoricalStores) {
         super(storageDir, persistenceManager);
+        this.useMappedHistoricalStores = useMappedHistoricalStores;
     }
 
 
@@ -67,27 +97,9 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>(store.getMap());
 
         // If we have a store with a newer version than the requesters version we will add those as well.
-        storesByVersion.entrySet().stream()
-                .filter(entry -> {
-                    // Old nodes not sending the version will get delivered all data
-                    if (requestersVersion == null) {
-                        log.info("The requester did not send a version. This is expected for not updated nodes.");
-                        return true;
-                    }
-
-                    // Otherwise we only add data if the requesters version is older then
-                    // the version of the particular store.
-                    String storeVersion = entry.getKey();
-                    boolean newVersion = Version.isNewVersion(storeVersion, requestersVersion);
-                    String details = newVersion ?
-                            "As our historical store is a newer version we add the data to our result map." :
-                            "As the requester version is not older as our historical store we do not " +
-                                    "add the data to the result map.";
-                    log.info("The requester had version {}. Our historical data store has version {}.\n{}",
-                            requestersVersion, storeVersion, details);
-                    return newVersion;
-                })
-                .map(e -> e.getValue().getMap())
+        mapsByVersion.entrySet().stream()
+                .filter(entry -> isNewerThanRequestersVersion(entry.getKey(), requestersVersion))
+                .map(Map.Entry::getValue)
                 .forEach(result::putAll);
 
         log.info("We found {} entries since requesters version {}",
@@ -95,14 +107,28 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         return result;
     }
 
+    // Same data as getMapSinceVersion but without copying the maps. The first bucket contains our live data, the
+    // following ones the historical stores with a newer version than the requesters version.
+    public List<PersistableNetworkPayloadBucket> getBucketsSinceVersion(String requestersVersion) {
+        List<PersistableNetworkPayloadBucket> result = new ArrayList<>();
+        result.add(store.getBucket(getFileName()));
+        getBucketsByVersion().entrySet().stream()
+                .filter(entry -> isNewerThanRequestersVersion(entry.getKey(), requestersVersion))
+                .map(Map.Entry::getValue)
+                .forEach(result::add);
+        return result;
+    }
+
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapOfLiveData() {
         return store.getMap();
     }
 
+    // Read-only view on our live data and all historical data, the maps are not copied
     public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMapOfAllData() {
-        Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> result = new HashMap<>(getMapOfLiveData());
-        result.putAll(allHistoricalPayloads);
-        return result;
+        List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps = new ArrayList<>();
+        maps.add(getMapOfLiveData());
+        maps.addAll(mapsByVersion.values());
+        return new MergedMap(maps);
     }
 
 
@@ -123,7 +149,7 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
             return;
         }
 
-        getMapOfLiveData().put(hash, payload);
+        store.put(hash, payload);
         requestPersistence();
     }
 
@@ -133,14 +159,27 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
             return null;
         }
 
-        // We do not return the value from getMapOfLiveData().put as we checked before that it does not contain any value.
+        // We do not return the value from store.put as we checked before that it does not contain any value.
         // So it will be always null. We still keep the return type as we override the method from MapStoreService which
         // follow the Map.putIfAbsent signature.
-        getMapOfLiveData().put(hash, payload);
+        store.put(hash, payload);
         requestPersistence();
         return null;
     }
 
+    // Only the live data can be removed, the historical stores are immutable
+    @Override
+    protected PersistableNetworkPayload remove(P2PDataStorage.ByteArray hash) {
+        PersistableNetworkPayload previous = getMapOfLiveData().get(hash);
+        store.remove(hash);
+        requestPersistence();
+        return previous;
+    }
+
+    @Override
+    boolean containsKey(P2PDataStorage.ByteArray hash) {
+        return anyMapContainsKey(hash);
+    }
 
     @Override
     protected void readFromResources(String postFix, Runnable completeHandler) {
@@ -149,18 +188,15 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
                     getFileName(), getMapOfLiveData().size());
 
             // Now we add our historical data stores.
-            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads = new HashMap<>();
-            Map<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion = new HashMap<>();
+            Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion = new HashMap<>();
             AtomicInteger numFiles = new AtomicInteger(Version.HISTORICAL_RESOURCE_FILE_VERSION_TAGS.size());
             Version.HISTORICAL_RESOURCE_FILE_VERSION_TAGS.forEach(version -> readHistoricalStoreFromResources(version,
                     postFix,
-                    allHistoricalPayloads,
-                    storesByVersion,
+                    mapsByVersion,
                     () -> {
                         if (numFiles.decrementAndGet() == 0) {
                             // At last iteration we set the immutable map
-                            this.allHistoricalPayloads = ImmutableMap.copyOf(allHistoricalPayloads);
-                            this.storesByVersion = ImmutableMap.copyOf(storesByVersion);
+                            setMapsByVersion(ImmutableMap.copyOf(mapsByVersion));
                             completeHandler.run();
                         }
                     }));
@@ -168,35 +204,118 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
     }
 
 
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Protected
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // Subclasses supporting memory mapped historical stores return the decoder for a single item of the store message
+    @Nullable
+    protected MappedPersistableNetworkPayloadMap.Decoder getMappedPayloadDecoder() {
+        return null;
+    }
+
+
     ///////////////////////////////////////////////////////////////////////////////////////////
     // Private
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private void readHistoricalStoreFromResources(String version,
                                                   String postFix,
-                                                  Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> allHistoricalPayloads,
-                                                  Map<String, PersistableNetworkPayloadStore<? extends PersistableNetworkPayload>> storesByVersion,
+                                                  Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion,
                                                   Runnable completeHandler) {
 
         String fileName = getFileName() + "_" + version;
         boolean wasCreatedFromResources = makeFileFromResourceFile(fileName, postFix);
 
+        MappedPersistableNetworkPayloadMap.Decoder decoder = getMappedPayloadDecoder();
+        File file = Paths.get(absolutePathOfStorageDir, fileName).toFile();
+        if (useMappedHistoricalStores && decoder != null && file.exists()) {
+            PersistenceManager.getReadExecutor().execute(() -> {
+                try {
+                    MappedPersistableNetworkPayloadMap map = MappedPersistableNetworkPayloadMap.open(file, decoder);
+                    UserThread.execute(() -> onHistoricalMapRead(version, fileName, map, mapsByVersion, completeHandler));
+                } catch (Throwable t) {
+                    log.error("Memory mapping {} failed. We read it into memory instead. {}", fileName, t.toString());
+                    UserThread.execute(() -> readHistoricalStore(version, fileName, mapsByVersion, completeHandler));
+                }
+            });
+        } else {
+            readHistoricalStore(version, fileName, mapsByVersion, completeHandler);
+        }
+    }
+
+    private void readHistoricalStore(String version,
+                                     String fileName,
+                                     Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion,
+                                     Runnable completeHandler) {
         // If resource file does not exist we do not create a new store as it would never get filled.
-        persistenceManager.readPersisted(fileName, persisted -> {
-                    storesByVersion.put(version, persisted);
-                    allHistoricalPayloads.putAll(persisted.getMap());
-                    log.info("We have read from {} {} historical items.", fileName, persisted.getMap().size());
-                    pruneStore(persisted, version);
-                    completeHandler.run();
-                },
+        persistenceManager.readPersisted(fileName,
+                persisted -> onHistoricalMapRead(version, fileName, persisted.getMap(), mapsByVersion, completeHandler),
                 completeHandler::run);
     }
 
-    private void pruneStore(PersistableNetworkPayloadStore<? extends PersistableNetworkPayload> historicalStore,
-                            String version) {
+    private void onHistoricalMapRead(String version,
+                                     String fileName,
+                                     Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map,
+                                     Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion,
+                                     Runnable completeHandler) {
+        // Memory mapped maps are read-only already and must not be wrapped, so their buckets can use their index
+        mapsByVersion.put(version, map instanceof MappedPersistableNetworkPayloadMap ? map : Collections.unmodifiableMap(map));
+        log.info("We have read from {} {} historical items.", fileName, map.size());
+        pruneStore(map, version);
+        completeHandler.run();
+    }
+
+    private synchronized void setMapsByVersion(ImmutableMap<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion) {
+        this.mapsByVersion = mapsByVersion;
+        bucketsByVersion = null;
+    }
+
+    private synchronized ImmutableMap<String, PersistableNetworkPayloadBucket> getBucketsByVersion() {
+        if (bucketsByVersion == null) {
+            bucketsByVersion = createBucketsByVersion(mapsByVersion);
+        }
+        return bucketsByVersion;
+    }
+
+    private ImmutableMap<String, PersistableNetworkPayloadBucket> createBucketsByVersion(
+            Map<String, Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> mapsByVersion) {
+        long ts = System.currentTimeMillis();
+        ImmutableMap.Builder<String, PersistableNetworkPayloadBucket> builder = ImmutableMap.builder();
+        mapsByVersion.forEach((version, map) ->
+                builder.put(version, PersistableNetworkPayloadBucket.fromMap(getFileName() + "_" + version, map)));
+        ImmutableMap<String, PersistableNetworkPayloadBucket> result = builder.build();
+        log.info("Creating the buckets for {} historical stores of {} took {} ms",
+                result.size(), getFileName(), System.currentTimeMillis() - ts);
+        return result;
+    }
+
+    // Old nodes not sending the version will get delivered all data. Otherwise we only add data if the requesters
+    // version is older then the version of the particular store.
+    private boolean isNewerThanRequestersVersion(String storeVersion, String requestersVersion) {
+        if (requestersVersion == null) {
+            log.info("The requester did not send a version. This is expected for not updated nodes.");
+            return true;
+        }
+
+        boolean newVersion = Version.isNewVersion(storeVersion, requestersVersion);
+        String details = newVersion ?
+                "As our historical store is a newer version we add the data to our result map." :
+                "As the requester version is not older as our historical store we do not " +
+                        "add the data to the result map.";
+        log.info("The requester had version {}. Our historical data store has version {}.\n{}",
+                requestersVersion, storeVersion, details);
+        return newVersion;
+    }
+
+    private void pruneStore(Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> historicalMap, String version) {
         Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> mapOfLiveData = getMapOfLiveData();
         int preLive = mapOfLiveData.size();
-        mapOfLiveData.keySet().removeAll(historicalStore.getMap().keySet());
+        // We remove via the store so that journaled stores record the removals
+        List<P2PDataStorage.ByteArray> toRemove = mapOfLiveData.keySet().stream()
+                .filter(historicalMap::containsKey)
+                .collect(Collectors.toList());
+        toRemove.forEach(store::remove);
         int postLive = mapOfLiveData.size();
         if (preLive > postLive) {
             log.info("We pruned data from our live data store which are already contained in the historical data store with version {}. " +
@@ -208,7 +327,65 @@ public abstract class HistoricalDataStoreService<T extends PersistableNetworkPay
         requestPersistence();
     }
 
+    // The maps do not share any keys, as the historical stores only contain the data added since the previous version
+    // and the live data gets pruned from the data of the historical stores
+    private static final class MergedMap extends AbstractMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+        private final List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps;
+
+        private MergedMap(List<Map<P2PDataStorage.ByteArray, PersistableNetworkPayload>> maps) {
+            this.maps = maps;
+        }
+
+        @Override
+        public int size() {
+            return maps.stream().mapToInt(Map::size).sum();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return maps.stream().anyMatch(map -> map.containsKey(key));
+        }
+
+        @Override
+        public PersistableNetworkPayload get(Object key) {
+            for (Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map : maps) {
+                PersistableNetworkPayload payload = map.get(key);
+                if (payload != null) {
+                    return payload;
+                }
+            }
+            return null;
+        }
+
+        @NotNull
+        @Override
+        public Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> iterator() {
+                    return Iterators.unmodifiableIterator(Iterators.concat(maps.stream()
+                            .map(map -> map.entrySet().iterator())
+                            .iterator()));
+                }
+
+                @Override
+                public int size() {
+                    return MergedMap.this.size();
+                }
+            };
+        }
+    }
+
     private boolean anyMapContainsKey(P2PDataStorage.ByteArray hash) {
-        return getMapOfLiveData().containsKey(hash) || allHistoricalPayloads.containsKey(hash);
+        if (getMapOfLiveData().containsKey(hash)) {
+            return true;
+        }
+        // We have only a few historical stores, so we look them up one by one instead of keeping a merged copy
+        for (Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map : mapsByVersion.values()) {
+            if (map.containsKey(hash)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.persistence.JournalRecord;
+import bisq.common.persistence.JournalRecorder;
+import bisq.common.proto.persistable.JournaledPersistableEnvelope;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.IOException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * PersistableNetworkPayloadStore which records its changes at {@link #put} and {@link #remove}, so the
+ * PersistenceManager only appends them to the journal. Subclasses parse the records at reading with
+ * {@link #payloadFromJournalValue}.
+ */
+public abstract class JournaledPersistableNetworkPayloadStore<T extends PersistableNetworkPayload>
+        extends PersistableNetworkPayloadStore<T> implements JournaledPersistableEnvelope {
+    private final JournalRecorder journalRecorder = new JournalRecorder();
+
+    protected JournaledPersistableNetworkPayloadStore() {
+    }
+
+    protected JournaledPersistableNetworkPayloadStore(Collection<T> collection) {
+        super(collection);
+    }
+
+    @Override
+    public void put(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
+        PersistableNetworkPayload previous = putToMap(hash, payload);
+        journalRecorder.recordPut(hash.bytes, payload.toProtoMessage().toByteArray(), previous == null);
+    }
+
+    @Override
+    public void remove(P2PDataStorage.ByteArray hash) {
+        PersistableNetworkPayload previous = removeFromMap(hash);
+        journalRecorder.recordRemove(hash.bytes, previous != null);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // JournaledPersistableEnvelope implementation
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public Optional<List<JournalRecord>> drainJournalRecords() {
+        return journalRecorder.drain(map.size());
+    }
+
+    @Override
+    public void resetJournal() {
+        journalRecorder.reset(map.size());
+    }
+
+    @Override
+    public void applyJournalRecord(JournalRecord record) throws IOException {
+        P2PDataStorage.ByteArray hash = new P2PDataStorage.ByteArray(record.getKey());
+        if (record.isRemoval()) {
+            removeFromMap(hash);
+        } else {
+            putToMap(hash, payloadFromJournalValue(record.getValue()));
+        }
+    }
+
+    // The value is the serialized protobuf.PersistableNetworkPayload
+    protected abstract PersistableNetworkPayload payloadFromJournalValue(byte[] value)
+            throws InvalidProtocolBufferException;
+}
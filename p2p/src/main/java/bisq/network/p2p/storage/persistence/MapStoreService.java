@@ -56,7 +56,7 @@ public abstract class MapStoreService<T extends PersistableEnvelope, R extends P
 
     public abstract boolean canHandle(R payload);
 
-    void put(P2PDataStorage.ByteArray hash, R payload) {
+    protected void put(P2PDataStorage.ByteArray hash, R payload) {
         getMap().put(hash, payload);
         requestPersistence();
     }
@@ -67,7 +67,7 @@ public abstract class MapStoreService<T extends PersistableEnvelope, R extends P
         return previous;
     }
 
-    R remove(P2PDataStorage.ByteArray hash) {
+    protected R remove(P2PDataStorage.ByteArray hash) {
         R result = getMap().remove(hash);
         requestPersistence();
         return result;
@@ -0,0 +1,435 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Read-only map backed by a memory mapped historical store file. Only a compact index of the hashes and the
+ * positions of the serialized payloads is kept, sorted by hash, and the payloads get decoded at each access.
+ * <p>
+ * The index also holds the dates of the DateSortedTruncatablePayloads and their order with the most recent first,
+ * so a {@link PersistableNetworkPayloadBucket} of the store does not need to decode or sort the payloads.
+ * <p>
+ * The index is built once by decoding all payloads and is written to a file next to the store file. At the next
+ * start it is memory mapped as well if the store file has not changed, so opening the store does not need to decode
+ * anything. Neither the index nor the payloads are kept on the heap.
+ * <p>
+ * The store file must be a delimited, not encrypted PersistableEnvelope with the payloads in the first field of the
+ * store message, as it is the case for the historical resource files.
+ */
+@Slf4j
+public final class MappedPersistableNetworkPayloadMap extends AbstractMap<P2PDataStorage.ByteArray, PersistableNetworkPayload> {
+    public static final String INDEX_POSTFIX = ".index";
+    private static final int INDEX_MAGIC = 0x48504958;
+    private static final int INDEX_FORMAT_VERSION = 2;
+    // magic, format version, data file length, data file last modified, num entries, key length,
+    // num date sorted entries
+    private static final int INDEX_HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+    // Each entry of the index has the hash, the offset and length of the payload and its date
+    private static final int ENTRY_SIZE_WITHOUT_KEY = 4 + 4 + 8;
+    // Date of the payloads which are not DateSortedTruncatablePayloads
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int ITEMS_FIELD_NUMBER = 1;
+
+    public interface Decoder {
+        PersistableNetworkPayload decode(ByteBuffer item) throws InvalidProtocolBufferException;
+    }
+
+    private final ByteBuffer data;
+    private final ByteBuffer index;
+    private final Decoder decoder;
+    private final int numEntries;
+    private final int keyLength;
+    private final int entrySize;
+    private final int numDateSortedEntries;
+    // Position of the entry numbers of the DateSortedTruncatablePayloads, with the most recent first
+    private final int dateSortedPosition;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public static MappedPersistableNetworkPayloadMap open(File dataFile, Decoder decoder) throws IOException {
+        long ts = System.currentTimeMillis();
+        MappedByteBuffer data = map(dataFile);
+        File indexFile = new File(dataFile.getParentFile(), dataFile.getName() + INDEX_POSTFIX);
+        ByteBuffer index = null;
+        if (indexFile.exists()) {
+            index = map(indexFile);
+            if (!isIndexValid(index, dataFile)) {
+                log.info("Index {} is outdated. We create a new one.", indexFile.getName());
+                index = null;
+            }
+        }
+
+        if (index == null) {
+            ByteBuffer createdIndex = createIndex(data, dataFile, decoder);
+            index = writeIndex(createdIndex, indexFile);
+        }
+
+        MappedPersistableNetworkPayloadMap result = new MappedPersistableNetworkPayloadMap(data, index, decoder);
+        log.info("Opening memory mapped {} with {} entries took {} ms",
+                dataFile.getName(), result.size(), System.currentTimeMillis() - ts);
+        return result;
+    }
+
+    private MappedPersistableNetworkPayloadMap(ByteBuffer data, ByteBuffer index, Decoder decoder) {
+        this.data = data;
+        this.index = index;
+        this.decoder = decoder;
+        numEntries = index.getInt(24);
+        keyLength = index.getInt(28);
+        numDateSortedEntries = index.getInt(32);
+        entrySize = keyLength + ENTRY_SIZE_WITHOUT_KEY;
+        dateSortedPosition = INDEX_HEADER_SIZE + numEntries * entrySize;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Map
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public int size() {
+        return numEntries;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findEntry(key) >= 0;
+    }
+
+    @Override
+    public PersistableNetworkPayload get(Object key) {
+        int entry = findEntry(key);
+        return entry >= 0 ? decode(entry) : null;
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> iterator() {
+                return new Iterator<>() {
+                    private int entry = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return entry < numEntries;
+                    }
+
+                    @Override
+                    public Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new LazyEntry(entry++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return numEntries;
+            }
+        };
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return The entries of the DateSortedTruncatablePayloads with the most recent first. Their dates are read from
+     * the index, so only the payloads which get accessed are decoded.
+     */
+    public List<PersistableNetworkPayloadBucket.DateSortedEntry> getDateSortedEntries() {
+        return new AbstractList<>() {
+            @Override
+            public PersistableNetworkPayloadBucket.DateSortedEntry get(int i) {
+                if (i < 0 || i >= numDateSortedEntries) {
+                    throw new IndexOutOfBoundsException("Index " + i + " of " + numDateSortedEntries + " entries");
+                }
+                return new LazyEntry(index.getInt(dateSortedPosition + i * 4));
+            }
+
+            @Override
+            public int size() {
+                return numDateSortedEntries;
+            }
+        };
+    }
+
+    // The entries of the payloads which are not DateSortedTruncatablePayloads. Their values are decoded on access.
+    public Iterable<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> getNonDateSortedEntries() {
+        return () -> IntStream.range(0, numEntries)
+                .filter(entry -> getDate(entry) == NO_DATE)
+                .<Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>>mapToObj(LazyEntry::new)
+                .iterator();
+    }
+
+    public int getNumNonDateSortedEntries() {
+        return numEntries - numDateSortedEntries;
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // The value gets only decoded if requested, so iterating the keys is cheap
+    private final class LazyEntry implements Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>,
+            PersistableNetworkPayloadBucket.DateSortedEntry {
+        private final int entry;
+
+        private LazyEntry(int entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public P2PDataStorage.ByteArray getKey() {
+            byte[] key = new byte[keyLength];
+            int position = INDEX_HEADER_SIZE + entry * entrySize;
+            for (int i = 0; i < keyLength; i++) {
+                key[i] = index.get(position + i);
+            }
+            return new P2PDataStorage.ByteArray(key);
+        }
+
+        @Override
+        public PersistableNetworkPayload getValue() {
+            return decode(entry);
+        }
+
+        @Override
+        public long getDate() {
+            return MappedPersistableNetworkPayloadMap.this.getDate(entry);
+        }
+
+        @Override
+        public DateSortedTruncatablePayload getPayload() {
+            return (DateSortedTruncatablePayload) decode(entry);
+        }
+
+        @Override
+        public PersistableNetworkPayload setValue(PersistableNetworkPayload value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private int findEntry(Object key) {
+        if (!(key instanceof P2PDataStorage.ByteArray) || ((P2PDataStorage.ByteArray) key).bytes.length != keyLength) {
+            return -1;
+        }
+
+        byte[] bytes = ((P2PDataStorage.ByteArray) key).bytes;
+        int low = 0;
+        int high = numEntries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compareKey(mid, bytes);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(int entry, byte[] key) {
+        int position = INDEX_HEADER_SIZE + entry * entrySize;
+        for (int i = 0; i < keyLength; i++) {
+            int comparison = Byte.compareUnsigned(index.get(position + i), key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private long getDate(int entry) {
+        return index.getLong(INDEX_HEADER_SIZE + entry * entrySize + keyLength + 8);
+    }
+
+    private PersistableNetworkPayload decode(int entry) {
+        int position = INDEX_HEADER_SIZE + entry * entrySize + keyLength;
+        int offset = index.getInt(position);
+        int length = index.getInt(position + 4);
+        try {
+            return decoder.decode(slice(data, offset, length));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not decode memory mapped payload at offset " + offset, e);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset).limit(offset + length);
+        return duplicate.slice();
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel got closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static boolean isIndexValid(ByteBuffer index, File dataFile) {
+        return index.capacity() >= INDEX_HEADER_SIZE &&
+                index.getInt(0) == INDEX_MAGIC &&
+                index.getInt(4) == INDEX_FORMAT_VERSION &&
+                index.getLong(8) == dataFile.length() &&
+                index.getLong(16) == dataFile.lastModified() &&
+                index.capacity() == INDEX_HEADER_SIZE +
+                        (long) index.getInt(24) * (index.getInt(28) + ENTRY_SIZE_WITHOUT_KEY) +
+                        (long) index.getInt(32) * 4;
+    }
+
+    private static ByteBuffer createIndex(ByteBuffer data, File dataFile, Decoder decoder) throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        List<int[]> positions = new ArrayList<>();
+        List<Long> dates = new ArrayList<>();
+
+        // We walk the protobuf wire format of the delimited envelope: envelope -> store message -> repeated items
+        CodedInputStream inputStream = CodedInputStream.newInstance(data.duplicate());
+        int envelopeLimit = inputStream.pushLimit(inputStream.readRawVarint32());
+        int tag = inputStream.readTag();
+        if (tag != 0) {
+            if (WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                throw new IOException("Unexpected envelope field in " + dataFile.getName());
+            }
+            int storeLimit = inputStream.pushLimit(inputStream.readRawVarint32());
+            while ((tag = inputStream.readTag()) != 0) {
+                if (WireFormat.getTagFieldNumber(tag) != ITEMS_FIELD_NUMBER) {
+                    inputStream.skipField(tag);
+                    continue;
+                }
+
+                int length = inputStream.readRawVarint32();
+                int offset = inputStream.getTotalBytesRead();
+                inputStream.skipRawBytes(length);
+                PersistableNetworkPayload payload = decoder.decode(slice(data, offset, length));
+                byte[] key = payload.getHash();
+                if (!keys.isEmpty() && keys.get(0).length != key.length) {
+                    throw new IOException("Hashes of different length in " + dataFile.getName());
+                }
+                keys.add(key);
+                positions.add(new int[]{offset, length});
+                dates.add(payload instanceof DateSortedTruncatablePayload ?
+                        ((DateSortedTruncatablePayload) payload).getDate().getTime() :
+                        NO_DATE);
+            }
+            inputStream.popLimit(storeLimit);
+        }
+        inputStream.popLimit(envelopeLimit);
+
+        Integer[] order = new Integer[keys.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys.get(a), keys.get(b)));
+        // Entry number in the index by position in the store file
+        int[] entries = new int[order.length];
+        for (int entry = 0; entry < order.length; entry++) {
+            entries[order[entry]] = entry;
+        }
+
+        Comparator<Integer> mostRecentFirst = Comparator.<Integer>comparingLong(dates::get).reversed();
+        Integer[] dateSortedOrder = IntStream.range(0, keys.size())
+                .filter(i -> dates.get(i) != NO_DATE)
+                .boxed()
+                .sorted(mostRecentFirst.thenComparing((a, b) -> Arrays.compareUnsigned(keys.get(a), keys.get(b))))
+                .toArray(Integer[]::new);
+
+        int keyLength = keys.isEmpty() ? 0 : keys.get(0).length;
+        ByteBuffer index = ByteBuffer.allocateDirect(INDEX_HEADER_SIZE +
+                        keys.size() * (keyLength + ENTRY_SIZE_WITHOUT_KEY) +
+                        dateSortedOrder.length * 4)
+                .putInt(INDEX_MAGIC)
+                .putInt(INDEX_FORMAT_VERSION)
+                .putLong(dataFile.length())
+                .putLong(dataFile.lastModified())
+                .putInt(keys.size())
+                .putInt(keyLength)
+                .putInt(dateSortedOrder.length);
+        for (int i : order) {
+            index.put(keys.get(i)).putInt(positions.get(i)[0]).putInt(positions.get(i)[1]).putLong(dates.get(i));
+        }
+        for (int i : dateSortedOrder) {
+            index.putInt(entries[i]);
+        }
+        index.flip();
+        return index;
+    }
+
+    // Returns the mapped index file, or the given index if it cannot be written (e.g. at a read-only data directory)
+    private static ByteBuffer writeIndex(ByteBuffer index, File indexFile) {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(index.duplicate());
+            channel.force(true);
+        } catch (IOException e) {
+            log.warn("Could not write index file {}. {}", indexFile.getName(), e.toString());
+            return index;
+        }
+
+        try {
+            return map(indexFile);
+        } catch (IOException e) {
+            log.warn("Could not map index file {}. {}", indexFile.getName(), e.toString());
+            return index;
+        }
+    }
+}
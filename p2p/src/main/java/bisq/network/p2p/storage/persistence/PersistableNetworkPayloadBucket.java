@@ -0,0 +1,213 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import com.google.common.collect.Iterables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Read-only view on the PersistableNetworkPayloads of one store, or of one version of a historical store. Used for
+ * building the GetDataResponse without copying all stores into a new map at each request.
+ * <p>
+ * The DateSortedTruncatablePayload entries are indexed separately, sorted by date with the most recent entry first.
+ * That way the truncation of the response only needs to visit the most recent entries instead of sorting the whole
+ * store. Buckets of the immutable historical stores are created once. The bucket of the live data is owned by its
+ * {@link PersistableNetworkPayloadStore}, which updates the index at each put and remove.
+ * <p>
+ * Buckets of a {@link MappedPersistableNetworkPayloadMap} use the date sorted index of its index file, so the
+ * payloads only get decoded if they are accessed.
+ */
+public final class PersistableNetworkPayloadBucket {
+    /**
+     * Entry of the date sorted index. The date is known without the payload, so the payload can be decoded lazily.
+     */
+    public interface DateSortedEntry {
+        P2PDataStorage.ByteArray getKey();
+
+        // Date of the payload in milliseconds
+        long getDate();
+
+        DateSortedTruncatablePayload getPayload();
+    }
+
+    public static final Comparator<DateSortedEntry> MOST_RECENT_FIRST =
+            Comparator.comparingLong(DateSortedEntry::getDate).reversed();
+    // Entries with the same date are distinct entries of the index
+    private static final Comparator<DateSortedEntry> INDEX_ORDER =
+            MOST_RECENT_FIRST.thenComparing((e1, e2) -> Arrays.compare(e1.getKey().bytes, e2.getKey().bytes));
+
+    @Getter
+    private final String name;
+    @Getter
+    private final Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map;
+    @Getter
+    private final Collection<DateSortedEntry> dateSortedEntries;
+    // The values of the entries are decoded on access for memory mapped stores, so the keys should be checked first
+    @Getter
+    private final Iterable<Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> nonDateSortedEntries;
+    // Only set for the bucket of the live data
+    @Nullable
+    private final NavigableSet<DateSortedEntry> index;
+    private final AtomicInteger numNonDateSortedPayloads;
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    // For immutable maps
+    public static PersistableNetworkPayloadBucket fromMap(String name,
+                                                          Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        if (map instanceof MappedPersistableNetworkPayloadMap) {
+            MappedPersistableNetworkPayloadMap mappedMap = (MappedPersistableNetworkPayloadMap) map;
+            return new PersistableNetworkPayloadBucket(name,
+                    map,
+                    Collections.unmodifiableList(mappedMap.getDateSortedEntries()),
+                    mappedMap.getNonDateSortedEntries(),
+                    null,
+                    mappedMap.getNumNonDateSortedEntries());
+        }
+
+        List<DateSortedEntry> dateSortedEntries = new ArrayList<>();
+        int numNonDateSortedPayloads = 0;
+        for (Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload> entry : map.entrySet()) {
+            if (entry.getValue() instanceof DateSortedTruncatablePayload) {
+                dateSortedEntries.add(new PayloadEntry(entry.getKey(), (DateSortedTruncatablePayload) entry.getValue()));
+            } else {
+                numNonDateSortedPayloads++;
+            }
+        }
+        dateSortedEntries.sort(MOST_RECENT_FIRST);
+        return new PersistableNetworkPayloadBucket(name,
+                map,
+                Collections.unmodifiableList(dateSortedEntries),
+                getNonDateSortedEntries(map),
+                null,
+                numNonDateSortedPayloads);
+    }
+
+    // For a map which is changed later. All changes have to be reported with onPut and onRemove.
+    static PersistableNetworkPayloadBucket indexed(String name,
+                                                   Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        NavigableSet<DateSortedEntry> index = new ConcurrentSkipListSet<>(INDEX_ORDER);
+        PersistableNetworkPayloadBucket bucket = new PersistableNetworkPayloadBucket(name,
+                map,
+                Collections.unmodifiableNavigableSet(index),
+                getNonDateSortedEntries(map),
+                index,
+                0);
+        map.forEach((hash, payload) -> bucket.onPut(hash, null, payload));
+        return bucket;
+    }
+
+    private PersistableNetworkPayloadBucket(String name,
+                                            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map,
+                                            Collection<DateSortedEntry> dateSortedEntries,
+                                            Iterable<Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> nonDateSortedEntries,
+                                            @Nullable NavigableSet<DateSortedEntry> index,
+                                            int numNonDateSortedPayloads) {
+        this.name = name;
+        this.map = Collections.unmodifiableMap(map);
+        this.dateSortedEntries = dateSortedEntries;
+        this.nonDateSortedEntries = nonDateSortedEntries;
+        this.index = index;
+        this.numNonDateSortedPayloads = new AtomicInteger(numNonDateSortedPayloads);
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean hasNonDateSortedPayloads() {
+        return numNonDateSortedPayloads.get() > 0;
+    }
+
+    void onPut(P2PDataStorage.ByteArray hash,
+               @Nullable PersistableNetworkPayload previous,
+               PersistableNetworkPayload payload) {
+        if (previous != null) {
+            onRemove(hash, previous);
+        }
+        if (payload instanceof DateSortedTruncatablePayload) {
+            getIndex().add(new PayloadEntry(hash, (DateSortedTruncatablePayload) payload));
+        } else {
+            numNonDateSortedPayloads.incrementAndGet();
+        }
+    }
+
+    void onRemove(P2PDataStorage.ByteArray hash, PersistableNetworkPayload previous) {
+        if (previous instanceof DateSortedTruncatablePayload) {
+            getIndex().remove(new PayloadEntry(hash, (DateSortedTruncatablePayload) previous));
+        } else {
+            numNonDateSortedPayloads.decrementAndGet();
+        }
+    }
+
+    private NavigableSet<DateSortedEntry> getIndex() {
+        if (index == null) {
+            throw new UnsupportedOperationException("Bucket " + name + " is not updatable");
+        }
+        return index;
+    }
+
+    private static Iterable<Map.Entry<P2PDataStorage.ByteArray, PersistableNetworkPayload>> getNonDateSortedEntries(
+            Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map) {
+        return Iterables.filter(map.entrySet(), entry -> !(entry.getValue() instanceof DateSortedTruncatablePayload));
+    }
+
+    // Entry of a payload on the heap
+    private static final class PayloadEntry implements DateSortedEntry {
+        @Getter
+        private final P2PDataStorage.ByteArray key;
+        @Getter
+        private final DateSortedTruncatablePayload payload;
+
+        private PayloadEntry(P2PDataStorage.ByteArray key, DateSortedTruncatablePayload payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+
+        @Override
+        public long getDate() {
+            return payload.getDate().getTime();
+        }
+    }
+}
@@ -23,20 +23,28 @@ import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
 import bisq.common.proto.persistable.PersistableEnvelope;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
+
 
 /**
  * Store for PersistableNetworkPayload map entries with it's data hash as key.
+ * <p>
+ * Large stores which only grow by single entries extend {@link JournaledPersistableNetworkPayloadStore} instead.
  */
 @Slf4j
 public abstract class PersistableNetworkPayloadStore<T extends PersistableNetworkPayload> implements PersistableEnvelope {
-    @Getter
     protected final Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> map = new ConcurrentHashMap<>();
+    private final Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> unmodifiableMap = Collections.unmodifiableMap(map);
+    // Created at the first data request and updated at each put and remove, so we do not sort the map again at
+    // each request
+    @Nullable
+    private PersistableNetworkPayloadBucket bucket;
 
     protected PersistableNetworkPayloadStore() {
     }
@@ -45,7 +53,59 @@ public abstract class PersistableNetworkPayloadStore<T extends PersistableNetwor
         collection.forEach(item -> map.put(new P2PDataStorage.ByteArray(item.getHash()), item));
     }
 
+    // Changes have to be done with put and remove, so the map is not modifiable
+    public Map<P2PDataStorage.ByteArray, PersistableNetworkPayload> getMap() {
+        return unmodifiableMap;
+    }
+
     public boolean containsKey(P2PDataStorage.ByteArray hash) {
         return map.containsKey(hash);
     }
+
+    public void put(P2PDataStorage.ByteArray hash, PersistableNetworkPayload payload) {
+        putToMap(hash, payload);
+    }
+
+    // Same as Map.putIfAbsent
+    @Nullable
+    public synchronized PersistableNetworkPayload putIfAbsent(P2PDataStorage.ByteArray hash,
+                                                              PersistableNetworkPayload payload) {
+        PersistableNetworkPayload previous = map.get(hash);
+        if (previous == null) {
+            put(hash, payload);
+        }
+        return previous;
+    }
+
+    public void remove(P2PDataStorage.ByteArray hash) {
+        removeFromMap(hash);
+    }
+
+    public synchronized PersistableNetworkPayloadBucket getBucket(String name) {
+        if (bucket == null) {
+            bucket = PersistableNetworkPayloadBucket.indexed(name, map);
+        }
+        return bucket;
+    }
+
+    // Changes of the map after the constructor have to be done with putToMap and removeFromMap to keep the bucket
+    // up to date
+    @Nullable
+    protected synchronized PersistableNetworkPayload putToMap(P2PDataStorage.ByteArray hash,
+                                                              PersistableNetworkPayload payload) {
+        PersistableNetworkPayload previous = map.put(hash, payload);
+        if (bucket != null) {
+            bucket.onPut(hash, previous, payload);
+        }
+        return previous;
+    }
+
+    @Nullable
+    protected synchronized PersistableNetworkPayload removeFromMap(P2PDataStorage.ByteArray hash) {
+        PersistableNetworkPayload previous = map.remove(hash);
+        if (bucket != null && previous != null) {
+            bucket.onRemove(hash, previous);
+        }
+        return previous;
+    }
 }
@@ -27,16 +27,14 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class RemovedPayloadsMap implements PersistableEnvelope {
-    @Getter
-    private final Map<P2PDataStorage.ByteArray, Long> dateByHashes;
+    // Value is the date when the payload got removed
+    private final CompactHashMap dateByHashes = new CompactHashMap(1);
 
     public RemovedPayloadsMap() {
-        this.dateByHashes = new HashMap<>();
     }
 
     ///////////////////////////////////////////////////////////////////////////////////////////
@@ -44,17 +42,17 @@ public class RemovedPayloadsMap implements PersistableEnvelope {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private RemovedPayloadsMap(Map<P2PDataStorage.ByteArray, Long> dateByHashes) {
-        this.dateByHashes = dateByHashes;
+        dateByHashes.forEach((hash, date) -> this.dateByHashes.put(hash.bytes, date));
     }
 
     // Protobuf map only supports strings or integers as key, but no bytes or complex object so we convert the
     // bytes to a hex string, otherwise we would need to make a extra value object to wrap it.
     @Override
-    public protobuf.PersistableEnvelope toProtoMessage() {
+    public synchronized protobuf.PersistableEnvelope toProtoMessage() {
+        Map<String, Long> dateByHexHashes = new HashMap<>(dateByHashes.size());
+        dateByHashes.forEach((hash, values) -> dateByHexHashes.put(Utilities.encodeToHex(hash), values[0]));
         protobuf.RemovedPayloadsMap.Builder builder = protobuf.RemovedPayloadsMap.newBuilder()
-                .putAllDateByHashes(dateByHashes.entrySet().stream()
-                        .collect(Collectors.toMap(e -> Utilities.encodeToHex(e.getKey().bytes),
-                                Map.Entry::getValue)));
+                .putAllDateByHashes(dateByHexHashes);
         return protobuf.PersistableEnvelope.newBuilder()
                 .setRemovedPayloadsMap(builder)
                 .build();
@@ -67,10 +65,36 @@ public class RemovedPayloadsMap implements PersistableEnvelope {
         return new RemovedPayloadsMap(dateByHashes);
     }
 
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // API
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    public synchronized int size() {
+        return dateByHashes.size();
+    }
+
+    public synchronized boolean containsKey(P2PDataStorage.ByteArray hash) {
+        return dateByHashes.containsKey(hash.bytes);
+    }
+
+    public synchronized void putIfAbsent(P2PDataStorage.ByteArray hash, long date) {
+        if (!dateByHashes.containsKey(hash.bytes)) {
+            dateByHashes.put(hash.bytes, date);
+        }
+    }
+
+    // Returns a copy of the entries
+    public synchronized Map<P2PDataStorage.ByteArray, Long> getDateByHashes() {
+        Map<P2PDataStorage.ByteArray, Long> copy = new HashMap<>(dateByHashes.size());
+        dateByHashes.forEach((hash, values) -> copy.put(new P2PDataStorage.ByteArray(hash), values[0]));
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "RemovedPayloadsMap{" +
-                "\n     dateByHashes=" + dateByHashes +
+                "\n     dateByHashes=" + getDateByHashes() +
                 "\n}";
     }
 }
@@ -19,25 +19,31 @@ package bisq.network.p2p.storage.persistence;
 
 import bisq.network.p2p.storage.P2PDataStorage;
 
-import bisq.common.proto.persistable.PersistableEnvelope;
+import bisq.common.persistence.JournalRecord;
+import bisq.common.persistence.JournalRecorder;
+import bisq.common.proto.persistable.JournaledPersistableEnvelope;
 
+import java.io.IOException;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
-import lombok.Getter;
-import lombok.Setter;
+import javax.annotation.Nullable;
 
 /**
  * This class was not generalized to HashMapPersistable (like we did with #ListPersistable) because
  * in protobuffer the map construct can't be anything, so the straightforward mapping was not possible.
  * Hence this Persistable class.
+ * <p>
+ * As the map gets changed very frequently we persist the changes in a journal instead of the whole map.
  */
-public class SequenceNumberMap implements PersistableEnvelope {
-    @Getter
-    @Setter
-    private Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map = new ConcurrentHashMap<>();
+public class SequenceNumberMap implements JournaledPersistableEnvelope {
+    // Values are the sequence number and the time stamp
+    private final CompactHashMap map = new CompactHashMap(2);
+    private final JournalRecorder journalRecorder = new JournalRecorder();
 
     public SequenceNumberMap() {
     }
@@ -48,19 +54,19 @@ public class SequenceNumberMap implements PersistableEnvelope {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     private SequenceNumberMap(Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map) {
-        this.map.putAll(map);
+        map.forEach(this::putToMap);
     }
 
     @Override
-    public protobuf.PersistableEnvelope toProtoMessage() {
+    public synchronized protobuf.PersistableEnvelope toProtoMessage() {
+        List<protobuf.SequenceNumberEntry> sequenceNumberEntries = new ArrayList<>(map.size());
+        map.forEach((key, values) -> sequenceNumberEntries.add(protobuf.SequenceNumberEntry.newBuilder()
+                .setBytes(new P2PDataStorage.ByteArray(key).toProtoMessage())
+                .setMapValue(toMapValue(values).toProtoMessage())
+                .build()));
         return protobuf.PersistableEnvelope.newBuilder()
                 .setSequenceNumberMap(protobuf.SequenceNumberMap.newBuilder()
-                        .addAllSequenceNumberEntries(map.entrySet().stream()
-                                .map(entry -> protobuf.SequenceNumberEntry.newBuilder()
-                                        .setBytes(entry.getKey().toProtoMessage())
-                                        .setMapValue(entry.getValue().toProtoMessage())
-                                        .build())
-                                .collect(Collectors.toList())))
+                        .addAllSequenceNumberEntries(sequenceNumberEntries))
                 .build();
     }
 
@@ -77,19 +83,73 @@ public class SequenceNumberMap implements PersistableEnvelope {
     ///////////////////////////////////////////////////////////////////////////////////////////
 
     // Delegates
-    public int size() {
+    public synchronized int size() {
         return map.size();
     }
 
-    public boolean containsKey(P2PDataStorage.ByteArray key) {
-        return map.containsKey(key);
+    public synchronized boolean containsKey(P2PDataStorage.ByteArray key) {
+        return map.containsKey(key.bytes);
+    }
+
+    @Nullable
+    public synchronized P2PDataStorage.MapValue get(P2PDataStorage.ByteArray key) {
+        long[] values = map.get(key.bytes);
+        return values != null ? toMapValue(values) : null;
+    }
+
+    public synchronized void put(P2PDataStorage.ByteArray key, P2PDataStorage.MapValue value) {
+        boolean isNewKey = putToMap(key, value);
+        journalRecorder.recordPut(key.bytes, value.toProtoMessage().toByteArray(), isNewKey);
+    }
+
+    // Returns a copy of the entries
+    public synchronized Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> getMap() {
+        Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> copy = new HashMap<>(map.size());
+        map.forEach((key, values) -> copy.put(new P2PDataStorage.ByteArray(key), toMapValue(values)));
+        return copy;
+    }
+
+    public synchronized void setMap(Map<P2PDataStorage.ByteArray, P2PDataStorage.MapValue> map) {
+        this.map.clear();
+        map.forEach(this::putToMap);
+        journalRecorder.requireSnapshot();
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // JournaledPersistableEnvelope
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public synchronized Optional<List<JournalRecord>> drainJournalRecords() {
+        return journalRecorder.drain(map.size());
+    }
+
+    @Override
+    public synchronized void applyJournalRecord(JournalRecord record) throws IOException {
+        P2PDataStorage.ByteArray key = new P2PDataStorage.ByteArray(record.getKey());
+        if (record.isRemoval()) {
+            map.remove(key.bytes);
+        } else {
+            putToMap(key, P2PDataStorage.MapValue.fromProto(protobuf.MapValue.parseFrom(record.getValue())));
+        }
     }
 
-    public P2PDataStorage.MapValue get(P2PDataStorage.ByteArray key) {
-        return map.get(key);
+    @Override
+    public synchronized void resetJournal() {
+        journalRecorder.reset(map.size());
+    }
+
+
+    ///////////////////////////////////////////////////////////////////////////////////////////
+    // Private
+    ///////////////////////////////////////////////////////////////////////////////////////////
+
+    private boolean putToMap(P2PDataStorage.ByteArray key, P2PDataStorage.MapValue value) {
+        return map.put(key.bytes, value.sequenceNr, value.timeStamp);
     }
 
-    public void put(P2PDataStorage.ByteArray key, P2PDataStorage.MapValue value) {
-        map.put(key, value);
+    private static P2PDataStorage.MapValue toMapValue(long[] values) {
+        return new P2PDataStorage.MapValue((int) values[0], values[1]);
     }
 }
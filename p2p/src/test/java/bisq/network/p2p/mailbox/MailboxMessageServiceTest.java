@@ -0,0 +1,195 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.mailbox;
+
+import bisq.network.crypto.EncryptionService;
+import bisq.network.p2p.DecryptedMessageWithPubKey;
+import bisq.network.p2p.NodeAddress;
+import bisq.network.p2p.PrefixedSealedAndSignedMessage;
+import bisq.network.p2p.network.NetworkNode;
+import bisq.network.p2p.peers.PeerManager;
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.payload.MailboxStoragePayload;
+import bisq.network.p2p.storage.payload.ProtectedMailboxStorageEntry;
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.UserThread;
+import bisq.common.crypto.KeyRing;
+import bisq.common.crypto.SealedAndSigned;
+import bisq.common.persistence.PersistenceManager;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+
+import java.time.Clock;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MailboxMessageServiceTest {
+    private final PublicKey myPubKey = mock(PublicKey.class);
+    private final Map<SealedAndSigned, DecryptedMessageWithPubKey> decryptedMessages = new HashMap<>();
+    private Executor previousExecutor;
+    private EncryptionService encryptionService;
+    private IgnoredMailboxService ignoredMailboxService;
+    private MailboxMessageService mailboxMessageService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        previousExecutor = UserThread.getExecutor();
+        UserThread.setExecutor(MoreExecutors.directExecutor());
+
+        NetworkNode networkNode = mock(NetworkNode.class);
+        when(networkNode.getNodeAddress()).thenReturn(new NodeAddress("localhost", 9999));
+        KeyRing keyRing = mock(KeyRing.class);
+        when(keyRing.getSignatureKeyPair()).thenReturn(new KeyPair(myPubKey, null));
+        encryptionService = mock(EncryptionService.class);
+        doAnswer(invocation -> decryptedMessages.get(invocation.<SealedAndSigned>getArgument(0)))
+                .when(encryptionService).decryptAndVerify(any());
+        ignoredMailboxService = mock(IgnoredMailboxService.class);
+        mailboxMessageService = new MailboxMessageService(networkNode,
+                mock(PeerManager.class),
+                mock(P2PDataStorage.class),
+                encryptionService,
+                ignoredMailboxService,
+                mock(PersistenceManager.class),
+                keyRing,
+                Clock.systemUTC(),
+                false);
+    }
+
+    @After
+    public void tearDown() {
+        mailboxMessageService.shutDown();
+        UserThread.setExecutor(previousExecutor);
+    }
+
+    @Test
+    public void testEntriesNotAddressedToUsAreSkipped() throws Exception {
+        when(ignoredMailboxService.isIgnored("ignored")).thenReturn(true);
+        ProtectedMailboxStorageEntry otherReceiver = entry("other-receiver", 1, mock(PublicKey.class), new byte[0]);
+        ProtectedMailboxStorageEntry otherAddress = entry("other-address", 2, myPubKey, new byte[]{1, 2, 3});
+        ProtectedMailboxStorageEntry ignored = entry("ignored", 3, myPubKey, new byte[0]);
+        ProtectedMailboxStorageEntry mine = entry("mine", 4, myPubKey, new byte[0]);
+
+        List<String> receivedUids = receiveMailboxMessages(1, otherReceiver, otherAddress, ignored, mine);
+
+        assertEquals(asList("mine"), receivedUids);
+        verify(encryptionService).decryptAndVerify(getSealedAndSigned(mine));
+        verify(encryptionService, never()).decryptAndVerify(getSealedAndSigned(otherReceiver));
+        verify(encryptionService, never()).decryptAndVerify(getSealedAndSigned(otherAddress));
+        verify(encryptionService, never()).decryptAndVerify(getSealedAndSigned(ignored));
+        assertEquals(3, mailboxMessageService.getNumDecryptionsSkipped());
+        assertEquals(1, mailboxMessageService.getNumDecryptionsTried());
+        assertEquals(1, mailboxMessageService.getNumDecryptionsSucceeded());
+    }
+
+    @Test
+    public void testMessagesAreDeliveredInOrderOfCreation() throws Exception {
+        ProtectedMailboxStorageEntry first = entry("first", 1, myPubKey, new byte[0]);
+        ProtectedMailboxStorageEntry second = entry("second", 2, myPubKey, new byte[0]);
+        ProtectedMailboxStorageEntry third = entry("third", 3, myPubKey, new byte[0]);
+
+        // The decryption of the first message completes last if there is more than one decryption thread
+        CountDownLatch thirdDecrypted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            SealedAndSigned sealedAndSigned = invocation.getArgument(0);
+            if (sealedAndSigned == getSealedAndSigned(first)) {
+                thirdDecrypted.await(1, SECONDS);
+            } else if (sealedAndSigned == getSealedAndSigned(third)) {
+                thirdDecrypted.countDown();
+            }
+            return decryptedMessages.get(sealedAndSigned);
+        }).when(encryptionService).decryptAndVerify(any());
+
+        assertEquals(asList("first", "second", "third"), receiveMailboxMessages(3, third, first, second));
+    }
+
+    // Passes the entries to the service like the data storage does and returns the uids of our messages in the
+    // order we got them
+    private List<String> receiveMailboxMessages(int numExpected, ProtectedMailboxStorageEntry... entries)
+            throws InterruptedException {
+        List<String> receivedUids = new CopyOnWriteArrayList<>();
+        CountDownLatch allReceived = new CountDownLatch(numExpected);
+        mailboxMessageService.addDecryptedMailboxListener((decryptedMessageWithPubKey, senderNodeAddress) -> {
+            receivedUids.add(((MailboxMessage) decryptedMessageWithPubKey.getNetworkEnvelope()).getUid());
+            allReceived.countDown();
+        });
+
+        Set<ProtectedStorageEntry> protectedStorageEntries = new HashSet<>(asList(entries));
+        mailboxMessageService.onAdded(protectedStorageEntries);
+        assertTrue(allReceived.await(5, SECONDS));
+        return receivedUids;
+    }
+
+    private ProtectedMailboxStorageEntry entry(String uid,
+                                               long creationTimeStamp,
+                                               PublicKey receiversPubKey,
+                                               byte[] addressPrefixHash) {
+        SealedAndSigned sealedAndSigned = mock(SealedAndSigned.class);
+        decryptedMessages.put(sealedAndSigned, decryptedMessage(uid));
+        PrefixedSealedAndSignedMessage prefixedSealedAndSignedMessage = mock(PrefixedSealedAndSignedMessage.class);
+        when(prefixedSealedAndSignedMessage.getUid()).thenReturn(uid);
+        when(prefixedSealedAndSignedMessage.getSealedAndSigned()).thenReturn(sealedAndSigned);
+        when(prefixedSealedAndSignedMessage.getAddressPrefixHash()).thenReturn(addressPrefixHash);
+        MailboxStoragePayload mailboxStoragePayload = mock(MailboxStoragePayload.class);
+        when(mailboxStoragePayload.getPrefixedSealedAndSignedMessage()).thenReturn(prefixedSealedAndSignedMessage);
+        ProtectedMailboxStorageEntry entry = mock(ProtectedMailboxStorageEntry.class);
+        when(entry.getMailboxStoragePayload()).thenReturn(mailboxStoragePayload);
+        when(entry.getReceiversPubKey()).thenReturn(receiversPubKey);
+        when(entry.getCreationTimeStamp()).thenReturn(creationTimeStamp);
+        return entry;
+    }
+
+    private static SealedAndSigned getSealedAndSigned(ProtectedMailboxStorageEntry entry) {
+        return entry.getMailboxStoragePayload().getPrefixedSealedAndSignedMessage().getSealedAndSigned();
+    }
+
+    private static DecryptedMessageWithPubKey decryptedMessage(String uid) {
+        // The decrypted message of a mailbox entry is a mailbox message, we use the envelope type for that
+        PrefixedSealedAndSignedMessage mailboxMessage = mock(PrefixedSealedAndSignedMessage.class);
+        when(mailboxMessage.getUid()).thenReturn(uid);
+        DecryptedMessageWithPubKey decryptedMessageWithPubKey = mock(DecryptedMessageWithPubKey.class);
+        when(decryptedMessageWithPubKey.getNetworkEnvelope()).thenReturn(mailboxMessage);
+        return decryptedMessageWithPubKey;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.BundleOfEnvelopes;
+import bisq.network.p2p.CloseConnectionMessage;
+import bisq.network.p2p.peers.keepalive.messages.Ping;
+
+import bisq.common.app.Version;
+import bisq.common.proto.network.NetworkEnvelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SerializedEnvelopeTest {
+
+    @Before
+    public void setup() {
+        Version.setBaseCryptoNetworkId(1);
+    }
+
+    private static byte[] writeDelimited(NetworkEnvelope networkEnvelope) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        networkEnvelope.toProtoNetworkEnvelope().writeDelimitedTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] write(SerializedEnvelope serializedEnvelope) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        serializedEnvelope.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    public void writeTo_sameAsWriteDelimitedTo() throws IOException {
+        Ping ping = new Ping(42, 100);
+        SerializedEnvelope serializedEnvelope = SerializedEnvelope.of(ping);
+
+        Assert.assertArrayEquals(writeDelimited(ping), write(serializedEnvelope));
+        Assert.assertEquals(ping.toProtoNetworkEnvelope().getSerializedSize(), serializedEnvelope.getSize());
+    }
+
+    @Test
+    public void bundle_sameAsBundleOfEnvelopes() throws IOException {
+        List<NetworkEnvelope> envelopes = Arrays.asList(new Ping(1, 2),
+                new CloseConnectionMessage("test"),
+                new Ping(3, 4));
+        SerializedEnvelope bundle = SerializedEnvelope.bundle(envelopes.stream()
+                .map(SerializedEnvelope::of)
+                .collect(Collectors.toList()));
+
+        Assert.assertTrue(bundle.getNetworkEnvelope() instanceof BundleOfEnvelopes);
+        Assert.assertEquals(envelopes, ((BundleOfEnvelopes) bundle.getNetworkEnvelope()).getEnvelopes());
+        Assert.assertArrayEquals(writeDelimited(new BundleOfEnvelopes(envelopes)), write(bundle));
+    }
+}
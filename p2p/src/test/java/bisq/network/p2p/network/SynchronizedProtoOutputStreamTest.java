@@ -0,0 +1,103 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import bisq.network.p2p.peers.keepalive.messages.Ping;
+
+import bisq.common.app.Version;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SynchronizedProtoOutputStreamTest {
+    private final CountDownLatch writeStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseWrite = new CountDownLatch(1);
+    private SynchronizedProtoOutputStream protoOutputStream;
+
+    @Before
+    public void setup() {
+        Version.setBaseCryptoNetworkId(1);
+        // Blocks the writer thread at the first envelope until releaseWrite is counted down
+        OutputStream blockingOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writeStarted.countDown();
+                try {
+                    releaseWrite.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        };
+        protoOutputStream = new SynchronizedProtoOutputStream(blockingOutputStream, new Statistic(), 1);
+    }
+
+    @Test
+    public void writeEnvelopeAsync_resultHandlerCalledAfterWrite() throws InterruptedException {
+        CountDownLatch written = new CountDownLatch(1);
+        protoOutputStream.writeEnvelopeAsync(SerializedEnvelope.of(new Ping(1, 2)), written::countDown, Throwable::printStackTrace);
+
+        Assert.assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(written.await(50, TimeUnit.MILLISECONDS));
+
+        releaseWrite.countDown();
+        Assert.assertTrue(written.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void writeEnvelopeAsync_rejectedIfQueueIsFull() throws InterruptedException {
+        protoOutputStream.writeEnvelopeAsync(SerializedEnvelope.of(new Ping(1, 2)), () -> {
+        }, Throwable::printStackTrace);
+        Assert.assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+        // Waits in the queue
+        protoOutputStream.writeEnvelopeAsync(SerializedEnvelope.of(new Ping(3, 4)), () -> {
+        }, Throwable::printStackTrace);
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        protoOutputStream.writeEnvelopeAsync(SerializedEnvelope.of(new Ping(5, 6)), () -> {
+        }, error::set);
+
+        Assert.assertTrue(error.get() instanceof RejectedExecutionException);
+        releaseWrite.countDown();
+    }
+
+    @Test
+    public void onConnectionShutdown_queuedEnvelopesFail() throws InterruptedException {
+        protoOutputStream.writeEnvelopeAsync(SerializedEnvelope.of(new Ping(1, 2)), () -> {
+        }, throwable -> {
+        });
+        Assert.assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch failed = new CountDownLatch(1);
+        protoOutputStream.writeEnvelopeAsync(SerializedEnvelope.of(new Ping(3, 4)), () -> {
+        }, throwable -> failed.countDown());
+
+        protoOutputStream.onConnectionShutdown();
+        Assert.assertTrue(failed.await(5, TimeUnit.SECONDS));
+    }
+}
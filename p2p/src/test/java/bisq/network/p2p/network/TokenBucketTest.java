@@ -0,0 +1,58 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    @Test
+    public void reserve_burstUpToCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(3, 20);
+
+        Assert.assertEquals(0, tokenBucket.reserve(1000));
+        Assert.assertEquals(0, tokenBucket.reserve(1000));
+        Assert.assertEquals(0, tokenBucket.reserve(1000));
+        Assert.assertEquals(20, tokenBucket.reserve(1000));
+    }
+
+    @Test
+    public void reserve_delaysAreOrdered() {
+        TokenBucket tokenBucket = new TokenBucket(1, 20);
+
+        Assert.assertEquals(0, tokenBucket.reserve(1000));
+        Assert.assertEquals(20, tokenBucket.reserve(1000));
+        Assert.assertEquals(40, tokenBucket.reserve(1000));
+        // 10 ms later we only need to wait for the remaining time of the reserved tokens
+        Assert.assertEquals(50, tokenBucket.reserve(1010));
+    }
+
+    @Test
+    public void reserve_refillsOverTime() {
+        TokenBucket tokenBucket = new TokenBucket(2, 20);
+
+        Assert.assertEquals(0, tokenBucket.reserve(1000));
+        Assert.assertEquals(0, tokenBucket.reserve(1000));
+        Assert.assertEquals(0, tokenBucket.reserve(1020));
+        // Refill does not exceed the capacity
+        Assert.assertEquals(0, tokenBucket.reserve(5000));
+        Assert.assertEquals(0, tokenBucket.reserve(5000));
+        Assert.assertEquals(20, tokenBucket.reserve(5000));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.crypto.Hash;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExcludedKeysFilterTest {
+    private static final int NUM_KEYS = 10000;
+
+    private static List<byte[]> getKeys(int offset, int num) {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = offset; i < offset + num; i++) {
+            keys.add(Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(i).array()));
+        }
+        return keys;
+    }
+
+    @Test
+    public void mightContain_noFalseNegatives() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(keys, 1);
+
+        keys.forEach(key -> Assert.assertTrue(filter.mightContain(key)));
+    }
+
+    @Test
+    public void mightContain_falsePositiveRateInBounds() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(getKeys(0, NUM_KEYS), 1);
+
+        long numFalsePositives = getKeys(NUM_KEYS, NUM_KEYS).stream().filter(filter::mightContain).count();
+        Assert.assertTrue(numFalsePositives < NUM_KEYS * ExcludedKeysFilter.FALSE_POSITIVE_RATE * 5);
+    }
+
+    @Test
+    public void fromKeys_muchSmallerThanHashes() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(getKeys(0, NUM_KEYS), 1);
+
+        Assert.assertTrue(filter.getBits().length < NUM_KEYS * 32 / 10);
+    }
+
+    @Test
+    public void fromKeys_emptyKeys() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(Collections.emptyList(), 1);
+
+        Assert.assertFalse(filter.mightContain(getKeys(0, 1).get(0)));
+    }
+
+    @Test
+    public void fromKeys_tweakChangesBits() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+
+        Assert.assertNotEquals(ExcludedKeysFilter.fromKeys(keys, 1), ExcludedKeysFilter.fromKeys(keys, 2));
+    }
+
+    @Test
+    public void protoRoundTrip() {
+        List<byte[]> keys = getKeys(0, 100);
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(keys, 42);
+        ExcludedKeysFilter fromProto = ExcludedKeysFilter.fromProto(filter.toProtoMessage());
+
+        Assert.assertEquals(filter, fromProto);
+        keys.forEach(key -> Assert.assertTrue(fromProto.mightContain(key)));
+    }
+
+    @Test
+    public void protoRoundTrip_missedKeys() {
+        List<byte[]> missedKeys = getKeys(NUM_KEYS, 2);
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(getKeys(0, 100), missedKeys);
+        ExcludedKeysFilter fromProto = ExcludedKeysFilter.fromProto(filter.toProtoMessage());
+
+        Assert.assertEquals(100, fromProto.getNumKeys());
+        Assert.assertEquals(2, fromProto.getMissedKeys().size());
+        Assert.assertArrayEquals(missedKeys.get(0), fromProto.getMissedKeys().get(0));
+        Assert.assertArrayEquals(missedKeys.get(1), fromProto.getMissedKeys().get(1));
+    }
+
+    @Test
+    public void getFalsePositives() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(keys, 1);
+        List<byte[]> falsePositives = getKeys(NUM_KEYS, NUM_KEYS).stream()
+                .filter(filter::mightContain)
+                .collect(Collectors.toList());
+
+        // The peer lacks one of our keys and reports the keys which matched the filter
+        InvertibleBloomLookupTable filteredKeys = InvertibleBloomLookupTable.forExpectedDifference(
+                falsePositives.size() + 1);
+        keys.subList(1, NUM_KEYS).forEach(filteredKeys::insert);
+        falsePositives.forEach(filteredKeys::insert);
+
+        List<byte[]> result = filter.getFalsePositives(filteredKeys).orElseThrow();
+        Assert.assertEquals(falsePositives.size(), result.size());
+        falsePositives.forEach(key -> Assert.assertTrue(result.stream().anyMatch(e -> Arrays.equals(e, key))));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void getFalsePositives_notAtFilterFromProto() {
+        ExcludedKeysFilter filter = ExcludedKeysFilter.fromKeys(getKeys(0, 100), 1);
+        ExcludedKeysFilter.fromProto(filter.toProtoMessage())
+                .getFalsePositives(InvertibleBloomLookupTable.forExpectedDifference(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromProto_invalidNumHashFunctions() {
+        protobuf.ExcludedKeysFilter proto = ExcludedKeysFilter.fromKeys(getKeys(0, 100), 1).toProtoMessage()
+                .toBuilder()
+                .setNumHashFunctions(0)
+                .build();
+        ExcludedKeysFilter.fromProto(proto);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.getdata.messages;
+
+import bisq.common.crypto.Hash;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InvertibleBloomLookupTableTest {
+    private static final int NUM_KEYS = 10000;
+
+    private static List<byte[]> getKeys(int offset, int num) {
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = offset; i < offset + num; i++) {
+            keys.add(Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(i).array()));
+        }
+        return keys;
+    }
+
+    private static InvertibleBloomLookupTable fromKeys(List<byte[]> keys, int expectedDifference) {
+        InvertibleBloomLookupTable table = InvertibleBloomLookupTable.forExpectedDifference(expectedDifference);
+        keys.forEach(table::insert);
+        return table;
+    }
+
+    private static void assertContainsExactly(List<byte[]> expected, List<byte[]> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        expected.forEach(key -> Assert.assertTrue(actual.stream().anyMatch(e -> Arrays.equals(e, key))));
+    }
+
+    @Test
+    public void getMissingKeys_noDifference() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+
+        Assert.assertEquals(Optional.of(List.of()), fromKeys(keys, 0).getMissingKeys(keys));
+    }
+
+    @Test
+    public void getMissingKeys_listsMissingKeys() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+        List<byte[]> missingKeys = getKeys(NUM_KEYS, 10);
+        List<byte[]> tableKeys = new ArrayList<>(keys);
+        tableKeys.addAll(missingKeys);
+
+        assertContainsExactly(missingKeys, fromKeys(tableKeys, 10).getMissingKeys(keys).orElseThrow());
+    }
+
+    @Test
+    public void getMissingKeys_leavesOutKeysOnlyInKeys() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+        List<byte[]> missingKeys = getKeys(NUM_KEYS, 5);
+        List<byte[]> tableKeys = new ArrayList<>(keys.subList(5, NUM_KEYS));
+        tableKeys.addAll(missingKeys);
+
+        assertContainsExactly(missingKeys, fromKeys(tableKeys, 10).getMissingKeys(keys).orElseThrow());
+    }
+
+    @Test
+    public void getMissingKeys_keysOfDifferentLength() {
+        byte[] shortKey = Hash.getRipemd160hash(new byte[] { 1 });
+        List<byte[]> keys = getKeys(0, 100);
+        List<byte[]> tableKeys = new ArrayList<>(keys);
+        tableKeys.add(shortKey);
+
+        assertContainsExactly(List.of(shortKey), fromKeys(tableKeys, 1).getMissingKeys(keys).orElseThrow());
+    }
+
+    @Test
+    public void getMissingKeys_tooManyDifferences() {
+        List<byte[]> keys = getKeys(0, NUM_KEYS);
+        List<byte[]> tableKeys = new ArrayList<>(keys);
+        tableKeys.addAll(getKeys(NUM_KEYS, 1000));
+
+        Assert.assertFalse(fromKeys(tableKeys, 10).getMissingKeys(keys).isPresent());
+    }
+
+    @Test
+    public void forExpectedDifference_muchSmallerThanHashes() {
+        InvertibleBloomLookupTable table = InvertibleBloomLookupTable.forExpectedDifference(10);
+
+        Assert.assertTrue(table.toProtoMessage().getSerializedSize() < NUM_KEYS * 32 / 50);
+    }
+
+    @Test
+    public void protoRoundTrip() {
+        List<byte[]> keys = getKeys(0, 100);
+        InvertibleBloomLookupTable table = fromKeys(keys, 10);
+        InvertibleBloomLookupTable fromProto = InvertibleBloomLookupTable.fromProto(table.toProtoMessage());
+
+        Assert.assertEquals(table, fromProto);
+        Assert.assertEquals(Optional.of(List.of()), fromProto.getMissingKeys(keys));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromProto_invalidSize() {
+        protobuf.InvertibleBloomLookupTable proto = protobuf.InvertibleBloomLookupTable.newBuilder()
+                .setCells(ByteString.copyFrom(new byte[100]))
+                .build();
+        InvertibleBloomLookupTable.fromProto(proto);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.peers.keepalive;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testItemsAreDueAtTheirDeadline() {
+        TimerWheel<String> timerWheel = new TimerWheel<>(8, 1000, 0);
+        timerWheel.schedule("a", 1500);
+        timerWheel.schedule("b", 3000);
+
+        assertEquals(emptyList(), timerWheel.tick(1000));
+        assertEquals(singletonList("a"), timerWheel.tick(2000));
+        assertEquals(emptyList(), timerWheel.tick(2999));
+        assertEquals(singletonList("b"), timerWheel.tick(3000));
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void testDeadlineBeyondOneTurn() {
+        TimerWheel<String> timerWheel = new TimerWheel<>(4, 1000, 0);
+        timerWheel.schedule("a", 10_000);
+
+        for (long now = 1000; now < 10_000; now += 1000) {
+            assertEquals(emptyList(), timerWheel.tick(now));
+        }
+        assertEquals(singletonList("a"), timerWheel.tick(10_000));
+    }
+
+    @Test
+    public void testLateTickReturnsAllPassedItems() {
+        TimerWheel<String> timerWheel = new TimerWheel<>(4, 1000, 0);
+        timerWheel.schedule("a", 1000);
+        timerWheel.schedule("b", 2000);
+        timerWheel.schedule("c", 7000);
+
+        assertEquals(asList("a", "b", "c"), sorted(timerWheel.tick(20_000)));
+    }
+
+    @Test
+    public void testRescheduleAndCancel() {
+        TimerWheel<String> timerWheel = new TimerWheel<>(8, 1000, 0);
+        timerWheel.schedule("a", 1000);
+        timerWheel.schedule("a", 5000);
+        timerWheel.schedule("b", 1000);
+        timerWheel.cancel("b");
+
+        assertFalse(timerWheel.isScheduled("b"));
+        assertEquals(emptyList(), timerWheel.tick(1000));
+        assertEquals(singletonList("a"), timerWheel.tick(5000));
+    }
+
+    @Test
+    public void testDeadlineInThePastIsDueAtNextTick() {
+        TimerWheel<String> timerWheel = new TimerWheel<>(8, 1000, 5000);
+        timerWheel.schedule("a", 1000);
+
+        assertEquals(singletonList("a"), timerWheel.tick(6000));
+    }
+
+    private static List<String> sorted(List<String> items) {
+        items.sort(String::compareTo);
+        return items;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.payload.ProtectedStorageEntry;
+
+import bisq.common.UserThread;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.mockito.InOrder;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class HashMapChangedNotifierTest {
+    private HashMapChangedNotifier notifier;
+    private HashMapChangedListener listener;
+    private ProtectedStorageEntry entry1;
+    private ProtectedStorageEntry entry2;
+    private ProtectedStorageEntry entry3;
+
+    @Before
+    public void setUp() {
+        notifier = new HashMapChangedNotifier();
+        listener = mock(HashMapChangedListener.class);
+        notifier.addListener(listener);
+        entry1 = mock(ProtectedStorageEntry.class);
+        entry2 = mock(ProtectedStorageEntry.class);
+        entry3 = mock(ProtectedStorageEntry.class);
+    }
+
+    @Test
+    public void testChangesAreDeliveredWithoutBatching() {
+        notifier.onAdded(entry1, true);
+        // The storage delivers the changes after releasing its lock
+        verifyNoInteractions(listener);
+
+        notifier.deliverUndeferredChanges();
+        verify(listener).onAdded(Collections.singletonList(entry1));
+    }
+
+    @Test
+    public void testDeferredChangesAreNotDeliveredWhileBatching() {
+        notifier.startBatching(60_000);
+        notifier.onAdded(entry1, true);
+        notifier.deliverUndeferredChanges();
+        verifyNoInteractions(listener);
+
+        notifier.onRemoved(Collections.singletonList(entry2), false);
+        notifier.deliverUndeferredChanges();
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onAdded(Collections.singletonList(entry1));
+        inOrder.verify(listener).onRemoved(Collections.singletonList(entry2));
+        verifyNoMoreInteractions(listener);
+        notifier.shutDown();
+    }
+
+    @Test
+    public void testBatchedChangesKeepOrder() {
+        notifier.runBatched(() -> {
+            notifier.onAdded(entry1, true);
+            notifier.onAdded(entry2, true);
+            notifier.onRemoved(Collections.singletonList(entry1), true);
+            notifier.onAdded(entry3, true);
+            verifyNoInteractions(listener);
+        });
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onAdded(Arrays.asList(entry1, entry2));
+        inOrder.verify(listener).onRemoved(Collections.singletonList(entry1));
+        inOrder.verify(listener).onAdded(Collections.singletonList(entry3));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testImmediateChangeIsDeliveredAfterQueuedChanges() {
+        notifier.runBatched(() -> {
+            notifier.onAdded(entry1, true);
+            notifier.onRemoved(Collections.singletonList(entry2), false);
+            notifier.deliverUndeferredChanges();
+        });
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onAdded(Collections.singletonList(entry1));
+        inOrder.verify(listener).onRemoved(Collections.singletonList(entry2));
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testChangeOfListenerIsDeliveredAfterCurrentChange() {
+        HashMapChangedListener writingListener = mock(HashMapChangedListener.class);
+        doAnswer(invocation -> {
+            notifier.onRemoved(Collections.singletonList(entry2), false);
+            notifier.deliverUndeferredChanges();
+            return null;
+        }).when(writingListener).onAdded(Collections.singletonList(entry1));
+        notifier.removeListener(listener);
+        notifier.addListener(writingListener);
+        notifier.addListener(listener);
+
+        notifier.onAdded(entry1, false);
+        notifier.deliverUndeferredChanges();
+
+        InOrder inOrder = inOrder(writingListener, listener);
+        inOrder.verify(writingListener).onAdded(Collections.singletonList(entry1));
+        inOrder.verify(listener).onAdded(Collections.singletonList(entry1));
+        inOrder.verify(writingListener).onRemoved(Collections.singletonList(entry2));
+        inOrder.verify(listener).onRemoved(Collections.singletonList(entry2));
+    }
+
+    @Test
+    public void testChangesAreDeliveredAtUserThread() {
+        Executor userThreadExecutor = UserThread.getExecutor();
+        List<Runnable> userThreadTasks = new ArrayList<>();
+        UserThread.setExecutor(userThreadTasks::add);
+        try {
+            notifier.onAdded(entry1, false);
+            notifier.deliverUndeferredChanges();
+            notifier.onAdded(entry2, false);
+            notifier.deliverUndeferredChanges();
+            verifyNoInteractions(listener);
+
+            // The second change is delivered by the flush scheduled for the first one
+            assertEquals(1, userThreadTasks.size());
+            userThreadTasks.forEach(Runnable::run);
+            verify(listener).onAdded(Arrays.asList(entry1, entry2));
+        } finally {
+            UserThread.setExecutor(userThreadExecutor);
+        }
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopDelivery() {
+        HashMapChangedListener failingListener = mock(HashMapChangedListener.class);
+        doThrow(new RuntimeException()).when(failingListener).onAdded(Collections.singletonList(entry1));
+        notifier.removeListener(listener);
+        notifier.addListener(failingListener);
+        notifier.addListener(listener);
+
+        notifier.onAdded(entry1, false);
+        notifier.deliverUndeferredChanges();
+
+        verify(listener).onAdded(Collections.singletonList(entry1));
+    }
+}
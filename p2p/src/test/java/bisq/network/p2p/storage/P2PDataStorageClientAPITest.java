@@ -17,9 +17,12 @@
 
 package bisq.network.p2p.storage;
 
+import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.TestUtils;
 import bisq.network.p2p.network.Connection;
 import bisq.network.p2p.storage.messages.AddDataMessage;
+import bisq.network.p2p.storage.messages.BatchedRefreshOfferMessage;
+import bisq.network.p2p.storage.messages.BroadcastMessage;
 import bisq.network.p2p.storage.messages.RefreshOfferMessage;
 import bisq.network.p2p.storage.mocks.ExpirableProtectedStoragePayloadStub;
 import bisq.network.p2p.storage.payload.MailboxStoragePayload;
@@ -33,13 +36,19 @@ import bisq.common.crypto.CryptoException;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import org.mockito.ArgumentCaptor;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static bisq.network.p2p.storage.TestState.*;
@@ -174,6 +183,40 @@ public class P2PDataStorageClientAPITest {
         this.testState.verifyRefreshTTL(beforeState, refreshOfferMessage, true);
     }
 
+    // TESTCASE: Refreshing entries with a received BatchedRefreshOfferMessage relays the applied refreshes as one batch
+    // including the hashOfDataAndSeqNr which is not transmitted
+    @Test
+    public void refreshTTL_Batched() throws NoSuchAlgorithmException, CryptoException {
+        List<RefreshOfferMessage> refreshOfferMessages = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            KeyPair ownerKeys = TestUtils.generateKeyPair();
+            ProtectedStoragePayload protectedStoragePayload = new ExpirableProtectedStoragePayloadStub(ownerKeys.getPublic());
+            ProtectedStorageEntry protectedStorageEntry = this.testState.mockedStorage.getProtectedStorageEntry(protectedStoragePayload, ownerKeys);
+            this.testState.mockedStorage.addProtectedStorageEntry(protectedStorageEntry, TestState.getTestNodeAddress(), null);
+            refreshOfferMessages.add(this.testState.mockedStorage.getRefreshTTLMessage(protectedStoragePayload, ownerKeys));
+        }
+        BatchedRefreshOfferMessage batchedRefreshOfferMessage = new BatchedRefreshOfferMessage(refreshOfferMessages);
+        BatchedRefreshOfferMessage receivedMessage = BatchedRefreshOfferMessage.fromProto(
+                batchedRefreshOfferMessage.toProtoNetworkEnvelope().getBatchedRefreshOfferMessage(),
+                Version.getP2PMessageVersion());
+
+        this.testState.incrementClock();
+
+        Assert.assertEquals(2, this.testState.mockedStorage.refreshTTL(receivedMessage, TestState.getTestNodeAddress()));
+
+        ArgumentCaptor<BroadcastMessage> captor = ArgumentCaptor.forClass(BroadcastMessage.class);
+        verify(this.testState.mockBroadcaster).broadcast(captor.capture(), nullable(NodeAddress.class));
+        Assert.assertEquals(batchedRefreshOfferMessage, captor.getValue());
+        List<RefreshOfferMessage> relayedMessages = ((BatchedRefreshOfferMessage) captor.getValue()).getRefreshOfferMessages();
+        for (int i = 0; i < 2; i++) {
+            Assert.assertArrayEquals(refreshOfferMessages.get(i).getHashOfDataAndSeqNr(),
+                    relayedMessages.get(i).getHashOfDataAndSeqNr());
+        }
+
+        // Replaying the batch does not increase the sequence numbers
+        Assert.assertEquals(0, this.testState.mockedStorage.refreshTTL(receivedMessage, TestState.getTestNodeAddress()));
+    }
+
     // TESTCASE: Removing a non-existent mailbox entry from the getMailboxDataWithSignedSeqNr API
     @Test
     public void getMailboxDataWithSignedSeqNr_RemoveNoExist() throws NoSuchAlgorithmException, CryptoException {
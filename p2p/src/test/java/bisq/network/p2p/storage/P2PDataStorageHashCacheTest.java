@@ -0,0 +1,81 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage;
+
+import bisq.network.p2p.storage.mocks.ProtectedStoragePayloadStub;
+
+import bisq.common.crypto.Sig;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class P2PDataStorageHashCacheTest {
+
+    @Test
+    public void testHashIsCachedPerPayload() {
+        ProtectedStoragePayloadStub payload = new ProtectedStoragePayloadStub(Sig.generateKeyPair().getPublic());
+        long hits = P2PDataStorage.getHashCacheHits();
+        long misses = P2PDataStorage.getHashCacheMisses();
+
+        P2PDataStorage.ByteArray hash = P2PDataStorage.get32ByteHashAsByteArray(payload);
+        assertSame(hash, P2PDataStorage.get32ByteHashAsByteArray(payload));
+        assertEquals(misses + 1, P2PDataStorage.getHashCacheMisses());
+        assertEquals(hits + 1, P2PDataStorage.getHashCacheHits());
+    }
+
+    @Test
+    public void testInvalidatedHashIsComputedAgain() {
+        ProtectedStoragePayloadStub payload = new ProtectedStoragePayloadStub(Sig.generateKeyPair().getPublic());
+        P2PDataStorage.ByteArray hash = P2PDataStorage.get32ByteHashAsByteArray(payload);
+        long misses = P2PDataStorage.getHashCacheMisses();
+
+        P2PDataStorage.invalidateHash(payload);
+        P2PDataStorage.ByteArray hashAgain = P2PDataStorage.get32ByteHashAsByteArray(payload);
+        assertNotSame(hash, hashAgain);
+        assertEquals(hash, hashAgain);
+        assertEquals(misses + 1, P2PDataStorage.getHashCacheMisses());
+    }
+
+    @Test
+    public void testGet32ByteHashReturnsCopy() {
+        ProtectedStoragePayloadStub payload = new ProtectedStoragePayloadStub(Sig.generateKeyPair().getPublic());
+        byte[] hash = P2PDataStorage.get32ByteHash(payload);
+        byte[] expected = hash.clone();
+        hash[0] ^= 1;
+
+        byte[] hashAgain = P2PDataStorage.get32ByteHash(payload);
+        assertNotSame(hash, hashAgain);
+        assertArrayEquals(expected, hashAgain);
+    }
+
+    @Test
+    public void testDataAndSeqNrPairIsNotCached() {
+        ProtectedStoragePayloadStub payload = new ProtectedStoragePayloadStub(Sig.generateKeyPair().getPublic());
+        P2PDataStorage.get32ByteHash(payload);
+        long hits = P2PDataStorage.getHashCacheHits();
+        long misses = P2PDataStorage.getHashCacheMisses();
+
+        P2PDataStorage.get32ByteHash(new P2PDataStorage.DataAndSeqNrPair(payload, 1));
+        assertEquals(hits, P2PDataStorage.getHashCacheHits());
+        assertEquals(misses, P2PDataStorage.getHashCacheMisses());
+    }
+}
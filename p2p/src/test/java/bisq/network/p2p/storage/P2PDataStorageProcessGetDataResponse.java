@@ -19,7 +19,9 @@ package bisq.network.p2p.storage;
 
 import bisq.network.p2p.NodeAddress;
 import bisq.network.p2p.TestUtils;
+import bisq.network.p2p.peers.getdata.messages.ExcludedKeysFilter;
 import bisq.network.p2p.peers.getdata.messages.GetDataResponse;
+import bisq.network.p2p.peers.getdata.messages.InvertibleBloomLookupTable;
 import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
 import bisq.network.p2p.storage.mocks.ProtectedStoragePayloadStub;
 import bisq.network.p2p.storage.payload.ProcessOncePersistableNetworkPayload;
@@ -34,6 +36,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -214,6 +217,72 @@ public class P2PDataStorageProcessGetDataResponse {
                 beforeState, addFromSecondProcess, false, false, false);
     }
 
+    // TESTCASE: A PNP missed because of a false positive of the ExcludedKeysFilter is requested as missed key with
+    // a follow-up request and applied from its response (LazyProcessed)
+    @Test
+    public void processGetDataResponse_missedFilteredPNPIsApplied_LazyProcessed() {
+        PersistableNetworkPayload addFromFirstProcess = new LazyPersistableNetworkPayloadStub(new byte[] { 1, 1, 1, 1 });
+        PersistableNetworkPayload missed = new LazyPersistableNetworkPayloadStub(new byte[] { 2, 2, 2, 2 });
+        this.testState.mockedStorage.addPersistableNetworkPayload(addFromFirstProcess, this.peerNodeAddress, false);
+        ExcludedKeysFilter excludedKeysFilter =
+                this.testState.mockedStorage.buildPreliminaryGetDataRequest(1, true).getExcludedKeysFilter();
+
+        // The responder reports the hashes which matched our filter. We do not know the second one.
+        InvertibleBloomLookupTable filteredKeys = InvertibleBloomLookupTable.forExpectedDifference(1);
+        filteredKeys.insert(addFromFirstProcess.getHash());
+        filteredKeys.insert(missed.getHash());
+        GetDataResponse getDataResponse = new GetDataResponse(new HashSet<>(),
+                new HashSet<>(),
+                1,
+                false,
+                filteredKeys);
+        this.testState.mockedStorage.processGetDataResponse(getDataResponse, this.peerNodeAddress, excludedKeysFilter);
+        Assert.assertTrue(this.testState.mockedStorage.isFollowUpDataRequestRequired());
+
+        excludedKeysFilter = this.testState.mockedStorage.buildPreliminaryGetDataRequest(1, true).getExcludedKeysFilter();
+        Assert.assertNotNull(excludedKeysFilter);
+        Assert.assertEquals(1, excludedKeysFilter.getMissedKeys().size());
+        Assert.assertArrayEquals(missed.getHash(), excludedKeysFilter.getMissedKeys().get(0));
+
+        filteredKeys = InvertibleBloomLookupTable.forExpectedDifference(0);
+        filteredKeys.insert(addFromFirstProcess.getHash());
+        getDataResponse = new GetDataResponse(new HashSet<>(),
+                new HashSet<>(Collections.singletonList(missed)),
+                1,
+                false,
+                filteredKeys);
+        TestState.SavedTestState beforeState = this.testState.saveTestState(missed);
+        this.testState.mockedStorage.processGetDataResponse(getDataResponse, this.peerNodeAddress, excludedKeysFilter);
+        this.testState.verifyPersistableAdd(
+                beforeState, missed, true, true, false);
+        Assert.assertFalse(this.testState.mockedStorage.isFollowUpDataRequestRequired());
+    }
+
+    // TESTCASE: If the false positives of the ExcludedKeysFilter cannot be listed, the exact hashes are requested and
+    // all PNPs of the response are applied (LazyProcessed)
+    @Test
+    public void processGetDataResponse_unlistedFilteredKeysRequestExactHashes_LazyProcessed() {
+        PersistableNetworkPayload addFromFirstProcess = new LazyPersistableNetworkPayloadStub(new byte[] { 1, 1, 1, 1 });
+        PersistableNetworkPayload missed = new LazyPersistableNetworkPayloadStub(new byte[] { 2, 2, 2, 2 });
+        this.testState.mockedStorage.addPersistableNetworkPayload(addFromFirstProcess, this.peerNodeAddress, false);
+        ExcludedKeysFilter excludedKeysFilter =
+                this.testState.mockedStorage.buildPreliminaryGetDataRequest(1, true).getExcludedKeysFilter();
+
+        // A response without the table of the filtered keys
+        GetDataResponse getDataResponse = buildGetDataResponse(Collections.emptyList(), Collections.emptyList());
+        this.testState.mockedStorage.processGetDataResponse(getDataResponse, this.peerNodeAddress, excludedKeysFilter);
+        Assert.assertTrue(this.testState.mockedStorage.isFollowUpDataRequestRequired());
+        Assert.assertNull(this.testState.mockedStorage.buildPreliminaryGetDataRequest(1, true).getExcludedKeysFilter());
+
+        getDataResponse = buildGetDataResponse(missed);
+        TestState.SavedTestState beforeState = this.testState.saveTestState(missed);
+        this.testState.mockedStorage.processGetDataResponse(getDataResponse, this.peerNodeAddress);
+        this.testState.verifyPersistableAdd(
+                beforeState, missed, true, true, false);
+        Assert.assertFalse(this.testState.mockedStorage.isFollowUpDataRequestRequired());
+        Assert.assertNotNull(this.testState.mockedStorage.buildPreliminaryGetDataRequest(1, true).getExcludedKeysFilter());
+    }
+
     // TESTCASE: GetDataResponse w/ missing PSE is added with no broadcast or listener signal
     // XXXBUGXXX: We signal listeners for all ProtectedStorageEntrys
     @Test
@@ -33,6 +33,8 @@ import java.security.PublicKey;
 import java.time.Clock;
 import java.time.Duration;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -89,6 +91,21 @@ public class ProtectedStorageEntryTest {
         Assert.assertTrue(protectedStorageEntry.isValidForAddOperation());
     }
 
+    // TESTCASE: verifySignatures() should count only the entries with a valid signature and keep the results for
+    // the subsequent validations
+    @Test
+    public void verifySignatures() throws NoSuchAlgorithmException, CryptoException {
+        KeyPair ownerKeys = TestUtils.generateKeyPair();
+        KeyPair notOwnerKeys = TestUtils.generateKeyPair();
+        ProtectedStorageEntry validEntry = buildProtectedStorageEntry(ownerKeys, ownerKeys, 1);
+        ProtectedStorageEntry invalidSignatureEntry = new ProtectedStorageEntry(validEntry.getProtectedStoragePayload(),
+                notOwnerKeys.getPublic(), 1, validEntry.getSignature(), Clock.systemDefaultZone());
+
+        Assert.assertEquals(1, ProtectedStorageEntry.verifySignatures(Arrays.asList(validEntry, invalidSignatureEntry)));
+        Assert.assertTrue(validEntry.isSignatureValid());
+        Assert.assertFalse(invalidSignatureEntry.isSignatureValid());
+    }
+
     // TESTCASE: validForAddOperation() should return false if the Entry owner and payload owner don't match
     @Test
     public void isValidForAddOperation_Mismatch() throws NoSuchAlgorithmException, CryptoException {
@@ -0,0 +1,128 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.common.crypto.Hash;
+
+import java.nio.ByteBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompactHashMapTest {
+
+    private static byte[] key(int i) {
+        return Hash.getSha256Hash(ByteBuffer.allocate(4).putInt(i).array());
+    }
+
+    // Keys with equal first bytes end up at the same slot
+    private static byte[] collidingKey(int i) {
+        byte[] key = new byte[CompactHashMap.KEY_LENGTH];
+        key[CompactHashMap.KEY_LENGTH - 1] = (byte) i;
+        return key;
+    }
+
+    @Test
+    public void testPutGetOverwrite() {
+        CompactHashMap map = new CompactHashMap(2);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(key(1)));
+
+        assertTrue(map.put(key(1), 1, 2));
+        assertArrayEquals(new long[]{1, 2}, map.get(key(1)));
+        assertFalse(map.put(key(1), 3, 4));
+        assertArrayEquals(new long[]{3, 4}, map.get(key(1)));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidKeyLength() {
+        new CompactHashMap(1).put(new byte[20], 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumValues() {
+        new CompactHashMap(2).put(key(1), 1);
+    }
+
+    @Test
+    public void testResizeAndRemove() {
+        CompactHashMap map = new CompactHashMap(1);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(key(i), i);
+            expected.put(i, (long) i);
+        }
+        for (int i = 0; i < 10000; i += 3) {
+            assertTrue(map.remove(key(i)));
+            assertFalse(map.remove(key(i)));
+            expected.remove(i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < 10000; i++) {
+            if (expected.containsKey(i)) {
+                assertArrayEquals(new long[]{expected.get(i)}, map.get(key(i)));
+            } else {
+                assertFalse(map.containsKey(key(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testRemoveWithCollisions() {
+        CompactHashMap map = new CompactHashMap(1);
+        for (int i = 0; i < 10; i++) {
+            map.put(collidingKey(i), i);
+        }
+        map.remove(collidingKey(0));
+        map.remove(collidingKey(5));
+
+        for (int i = 0; i < 10; i++) {
+            if (i == 0 || i == 5) {
+                assertNull(map.get(collidingKey(i)));
+            } else {
+                assertArrayEquals(new long[]{i}, map.get(collidingKey(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapForEachAndClear() {
+        CompactHashMap map = new CompactHashMap(1, true);
+        for (int i = 0; i < 100; i++) {
+            map.put(key(i), i);
+        }
+        Map<Long, byte[]> keyByValue = new HashMap<>();
+        map.forEach((key, values) -> keyByValue.put(values[0], key));
+        assertEquals(100, keyByValue.size());
+        assertArrayEquals(key(42), keyByValue.get(42L));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(key(1)));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.persistence.JournalRecord;
+
+import com.google.protobuf.Message;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JournaledPersistableNetworkPayloadStoreTest {
+    private static final P2PDataStorage.ByteArray KEY_1 = new P2PDataStorage.ByteArray(new byte[]{1});
+    private static final P2PDataStorage.ByteArray KEY_2 = new P2PDataStorage.ByteArray(new byte[]{2});
+
+    private StoreStub store;
+
+    @Before
+    public void setUp() {
+        store = new StoreStub();
+        store.resetJournal();
+    }
+
+    @Test
+    public void testPutAndRemoveAreRecorded() {
+        store.put(KEY_1, new PayloadStub(KEY_1.bytes));
+        store.put(KEY_2, new PayloadStub(KEY_2.bytes));
+        Optional<List<JournalRecord>> records = store.drainJournalRecords();
+        assertTrue(records.isPresent());
+        assertEquals(2, records.get().size());
+
+        store.remove(KEY_1);
+        records = store.drainJournalRecords();
+        assertTrue(records.isPresent());
+        assertEquals(1, records.get().size());
+        assertTrue(records.get().get(0).isRemoval());
+        assertArrayEquals(KEY_1.bytes, records.get().get(0).getKey());
+        assertFalse(store.containsKey(KEY_1));
+    }
+
+    @Test
+    public void testDirectMapChangeRequiresSnapshot() {
+        store.put(KEY_1, new PayloadStub(KEY_1.bytes));
+        // Only subclasses can change the map without the store methods
+        store.map.remove(KEY_1);
+        assertFalse(store.drainJournalRecords().isPresent());
+    }
+
+    @Test
+    public void testApplyJournalRecords() throws Exception {
+        store.put(KEY_1, new PayloadStub(KEY_1.bytes));
+        store.put(KEY_2, new PayloadStub(KEY_2.bytes));
+        store.remove(KEY_1);
+        List<JournalRecord> records = store.drainJournalRecords().orElseThrow();
+
+        StoreStub replayed = new StoreStub();
+        for (JournalRecord record : records) {
+            replayed.applyJournalRecord(record);
+        }
+        assertFalse(replayed.containsKey(KEY_1));
+        assertTrue(replayed.containsKey(KEY_2));
+    }
+
+    private static class PayloadStub extends PersistableNetworkPayloadStub {
+        PayloadStub(byte[] hash) {
+            super(hash);
+        }
+
+        @Override
+        public protobuf.PersistableNetworkPayload toProtoMessage() {
+            return protobuf.PersistableNetworkPayload.getDefaultInstance();
+        }
+    }
+
+    private static class StoreStub extends JournaledPersistableNetworkPayloadStore<PersistableNetworkPayload> {
+        @Override
+        public Message toProtoMessage() {
+            throw new UnsupportedOperationException("Stub does not support protobuf");
+        }
+
+        @Override
+        protected PersistableNetworkPayload payloadFromJournalValue(byte[] value) {
+            return new PayloadStub(new byte[]{0});
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import bisq.common.crypto.Hash;
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedPersistableNetworkPayloadMapTest {
+    private static final int NUM_ENTRIES = 100;
+    private static final MappedPersistableNetworkPayloadMap.Decoder DECODER =
+            item -> new PersistableNetworkPayloadStub(protobuf.AccountAgeWitness.parseFrom(item).getHash().toByteArray());
+    private static final MappedPersistableNetworkPayloadMap.Decoder DATE_SORTED_DECODER = item -> {
+        protobuf.AccountAgeWitness accountAgeWitness = protobuf.AccountAgeWitness.parseFrom(item);
+        return new DateSortedPayloadStub(accountAgeWitness.getHash().toByteArray(), accountAgeWitness.getDate());
+    };
+    private static final MappedPersistableNetworkPayloadMap.Decoder FAILING_DECODER = item -> {
+        throw new IllegalStateException("Must not decode");
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static byte[] getHash(int i) {
+        return Hash.getRipemd160hash(ByteBuffer.allocate(4).putInt(i).array());
+    }
+
+    private File createStoreFile() throws IOException {
+        protobuf.AccountAgeWitnessStore.Builder store = protobuf.AccountAgeWitnessStore.newBuilder();
+        for (int i = 0; i < NUM_ENTRIES; i++) {
+            store.addItems(protobuf.AccountAgeWitness.newBuilder()
+                    .setHash(ByteString.copyFrom(getHash(i)))
+                    .setDate(i));
+        }
+        File file = temporaryFolder.newFile("AccountAgeWitnessStore_0.0.1");
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            protobuf.PersistableEnvelope.newBuilder()
+                    .setAccountAgeWitnessStore(store)
+                    .build()
+                    .writeDelimitedTo(outputStream);
+        }
+        return file;
+    }
+
+    @Test
+    public void open_containsAllEntries() throws IOException {
+        MappedPersistableNetworkPayloadMap map = MappedPersistableNetworkPayloadMap.open(createStoreFile(), DECODER);
+
+        Assert.assertEquals(NUM_ENTRIES, map.size());
+        for (int i = 0; i < NUM_ENTRIES; i++) {
+            P2PDataStorage.ByteArray hash = new P2PDataStorage.ByteArray(getHash(i));
+            Assert.assertTrue(map.containsKey(hash));
+            Assert.assertArrayEquals(getHash(i), map.get(hash).getHash());
+        }
+        Assert.assertFalse(map.containsKey(new P2PDataStorage.ByteArray(getHash(NUM_ENTRIES))));
+        Assert.assertNull(map.get(new P2PDataStorage.ByteArray(new byte[]{1})));
+    }
+
+    @Test
+    public void open_iteratesAllEntries() throws IOException {
+        MappedPersistableNetworkPayloadMap map = MappedPersistableNetworkPayloadMap.open(createStoreFile(), DECODER);
+
+        Set<P2PDataStorage.ByteArray> keys = new HashSet<>();
+        map.forEach((key, payload) -> {
+            Assert.assertArrayEquals(key.bytes, payload.getHash());
+            keys.add(key);
+        });
+        Assert.assertEquals(NUM_ENTRIES, keys.size());
+    }
+
+    @Test
+    public void open_reusesIndexFile() throws IOException {
+        File file = createStoreFile();
+        MappedPersistableNetworkPayloadMap.open(file, DECODER);
+        File indexFile = new File(file.getParentFile(), file.getName() + MappedPersistableNetworkPayloadMap.INDEX_POSTFIX);
+        Assert.assertTrue(indexFile.exists());
+
+        // With a valid index file we do not need to decode the payloads for opening the store
+        MappedPersistableNetworkPayloadMap map = MappedPersistableNetworkPayloadMap.open(file, FAILING_DECODER);
+        Assert.assertEquals(NUM_ENTRIES, map.size());
+        Assert.assertTrue(map.containsKey(new P2PDataStorage.ByteArray(getHash(0))));
+    }
+
+    @Test
+    public void open_indexesDatesOfDateSortedPayloads() throws IOException {
+        File file = createStoreFile();
+        MappedPersistableNetworkPayloadMap.open(file, DATE_SORTED_DECODER);
+
+        // The bucket of the store gets created from the index file without decoding the payloads
+        MappedPersistableNetworkPayloadMap map = MappedPersistableNetworkPayloadMap.open(file, FAILING_DECODER);
+        PersistableNetworkPayloadBucket bucket = PersistableNetworkPayloadBucket.fromMap("Store", map);
+        Assert.assertFalse(bucket.hasNonDateSortedPayloads());
+        Assert.assertFalse(bucket.getNonDateSortedEntries().iterator().hasNext());
+
+        List<PersistableNetworkPayloadBucket.DateSortedEntry> entries = map.getDateSortedEntries();
+        Assert.assertEquals(NUM_ENTRIES, entries.size());
+        for (int i = 0; i < NUM_ENTRIES; i++) {
+            int expected = NUM_ENTRIES - 1 - i;
+            Assert.assertEquals(expected, entries.get(i).getDate());
+            Assert.assertArrayEquals(getHash(expected), entries.get(i).getKey().bytes);
+        }
+        Assert.assertEquals(NUM_ENTRIES, bucket.getDateSortedEntries().size());
+
+        // The payloads get decoded on access
+        entries = MappedPersistableNetworkPayloadMap.open(file, DATE_SORTED_DECODER).getDateSortedEntries();
+        Assert.assertEquals(NUM_ENTRIES - 1, entries.get(0).getPayload().getDate().getTime());
+    }
+
+    @Test
+    public void open_emptyStore() throws IOException {
+        File file = temporaryFolder.newFile("AccountAgeWitnessStore_empty");
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            protobuf.PersistableEnvelope.newBuilder()
+                    .setAccountAgeWitnessStore(protobuf.AccountAgeWitnessStore.newBuilder())
+                    .build()
+                    .writeDelimitedTo(outputStream);
+        }
+
+        PersistableNetworkPayload payload = MappedPersistableNetworkPayloadMap.open(file, DECODER)
+                .get(new P2PDataStorage.ByteArray(getHash(0)));
+        Assert.assertNull(payload);
+    }
+
+    private static class DateSortedPayloadStub extends PersistableNetworkPayloadStub implements DateSortedTruncatablePayload {
+        private final Date date;
+
+        DateSortedPayloadStub(byte[] hash, long date) {
+            super(hash);
+            this.date = new Date(date);
+        }
+
+        @Override
+        public Date getDate() {
+            return date;
+        }
+
+        @Override
+        public int maxItems() {
+            return 100;
+        }
+    }
+}
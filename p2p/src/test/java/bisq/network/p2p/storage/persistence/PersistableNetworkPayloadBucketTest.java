@@ -0,0 +1,155 @@
+/*
+ * This file is part of Haveno.
+ *
+ * Haveno is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Haveno is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Haveno. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.network.p2p.storage.persistence;
+
+import bisq.network.p2p.storage.P2PDataStorage;
+import bisq.network.p2p.storage.mocks.PersistableNetworkPayloadStub;
+import bisq.network.p2p.storage.payload.DateSortedTruncatablePayload;
+import bisq.network.p2p.storage.payload.PersistableNetworkPayload;
+
+import com.google.protobuf.Message;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PersistableNetworkPayloadBucketTest {
+    private StoreStub store;
+
+    @Before
+    public void setUp() {
+        store = new StoreStub();
+    }
+
+    @Test
+    public void testIndexIsSortedMostRecentFirst() {
+        put(1, 2000);
+        put(2, 1000);
+        put(3, 3000);
+
+        assertEquals(asList(3, 1, 2), getIndexedKeys(store.getBucket("Store")));
+        assertEquals(asList(3, 1, 2), getIndexedKeys(PersistableNetworkPayloadBucket.fromMap("Store", store.getMap())));
+    }
+
+    @Test
+    public void testIndexIsUpdatedAtPutAndRemove() {
+        put(1, 2000);
+        put(2, 1000);
+        PersistableNetworkPayloadBucket bucket = store.getBucket("Store");
+
+        put(3, 3000);
+        put(4, 1500);
+        store.remove(key(1));
+
+        assertSame(bucket, store.getBucket("Store"));
+        assertEquals(asList(3, 4, 2), getIndexedKeys(bucket));
+        assertEquals(3, bucket.size());
+    }
+
+    @Test
+    public void testEntriesWithSameDateAreKept() {
+        PersistableNetworkPayloadBucket bucket = store.getBucket("Store");
+        put(1, 1000);
+        put(2, 1000);
+        // Putting the same entry again does not duplicate it in the index
+        put(2, 1000);
+
+        assertEquals(asList(1, 2), getIndexedKeys(bucket));
+    }
+
+    @Test
+    public void testNonDateSortedPayloadsAreCounted() {
+        PersistableNetworkPayloadBucket bucket = store.getBucket("Store");
+        put(1, 1000);
+        assertFalse(bucket.hasNonDateSortedPayloads());
+
+        store.put(key(2), new PersistableNetworkPayloadStub(key(2).bytes));
+        assertTrue(bucket.hasNonDateSortedPayloads());
+        assertEquals(asList(1), getIndexedKeys(bucket));
+
+        store.remove(key(2));
+        assertFalse(bucket.hasNonDateSortedPayloads());
+    }
+
+    @Test
+    public void testPutIfAbsentUpdatesIndex() {
+        PersistableNetworkPayloadBucket bucket = store.getBucket("Store");
+        DateSortedPayloadStub payload = new DateSortedPayloadStub(key(1).bytes, 1000);
+        assertNull(store.putIfAbsent(key(1), payload));
+        assertSame(payload, store.putIfAbsent(key(1), new DateSortedPayloadStub(key(1).bytes, 2000)));
+
+        assertEquals(asList(1), getIndexedKeys(bucket));
+        assertSame(payload, bucket.getDateSortedEntries().iterator().next().getPayload());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapIsNotModifiable() {
+        store.getMap().put(key(1), new DateSortedPayloadStub(key(1).bytes, 1000));
+    }
+
+    private void put(int key, long date) {
+        store.put(key(key), new DateSortedPayloadStub(key(key).bytes, date));
+    }
+
+    private static P2PDataStorage.ByteArray key(int key) {
+        return new P2PDataStorage.ByteArray(new byte[]{(byte) key});
+    }
+
+    private static List<Integer> getIndexedKeys(PersistableNetworkPayloadBucket bucket) {
+        return bucket.getDateSortedEntries().stream()
+                .map(PersistableNetworkPayloadBucket.DateSortedEntry::getKey)
+                .map(key -> (int) key.bytes[0])
+                .collect(Collectors.toList());
+    }
+
+    private static class DateSortedPayloadStub extends PersistableNetworkPayloadStub implements DateSortedTruncatablePayload {
+        private final Date date;
+
+        DateSortedPayloadStub(byte[] hash, long date) {
+            super(hash);
+            this.date = new Date(date);
+        }
+
+        @Override
+        public Date getDate() {
+            return date;
+        }
+
+        @Override
+        public int maxItems() {
+            return 100;
+        }
+    }
+
+    private static class StoreStub extends PersistableNetworkPayloadStore<PersistableNetworkPayload> {
+        @Override
+        public Message toProtoMessage() {
+            throw new UnsupportedOperationException("Stub does not support protobuf");
+        }
+    }
+}
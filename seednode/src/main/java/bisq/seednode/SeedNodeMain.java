@@ -41,6 +41,8 @@ import bisq.common.handlers.ResultHandler;
 import com.google.inject.Key;
 import com.google.inject.name.Names;
 
+import java.io.IOException;
+
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -49,6 +51,7 @@ public class SeedNodeMain extends ExecutableForAppWithP2p {
     private static final String VERSION = "0.0.1";
     private SeedNode seedNode;
     private Timer checkConnectionLossTime;
+    private MetricsServer metricsServer;
 
     public SeedNodeMain() {
         super("Bisq Seednode", "bisq-seednode", "bisq_seednode", VERSION);
@@ -121,6 +124,7 @@ public class SeedNodeMain extends ExecutableForAppWithP2p {
         });
 
         seedNode.startApplication();
+        maybeStartMetricsServer();
 
         injector.getInstance(P2PService.class).addP2PServiceListener(new P2PServiceListener() {
             @Override
@@ -170,6 +174,19 @@ public class SeedNodeMain extends ExecutableForAppWithP2p {
         });
     }
 
+    private void maybeStartMetricsServer() {
+        if (config.metricsPort == Config.UNSPECIFIED_PORT) {
+            return;
+        }
+
+        try {
+            metricsServer = new MetricsServer(config.metricsPort);
+            metricsServer.start();
+        } catch (IOException e) {
+            log.error("Could not start the metrics server at port {}", config.metricsPort, e);
+        }
+    }
+
     private void setupConnectionLossCheck() {
         // For dev testing (usually on XMR_LOCAL) we don't want to get the seed shut
         // down as it is normal that the seed is the only actively running node.
@@ -195,6 +212,9 @@ public class SeedNodeMain extends ExecutableForAppWithP2p {
     @Override
     public void gracefulShutDown(ResultHandler resultHandler) {
         seedNode.shutDown();
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
         super.gracefulShutDown(resultHandler);
     }
 }